@@ -0,0 +1,59 @@
+package org.example.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}: JMH's command line, but with the GC profiler on and
+ * JSON results written to {@code jmh-result.json} unless told otherwise, so every run
+ * reports allocation rates and can be compared with a baseline.
+ * <p>
+ * With {@code -Djmh.baseline=<results.json>} the run is compared against that file
+ * (threshold {@code -Djmh.threshold}, default 10%) and exits with status 1 on a regression.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions cmd;
+        try {
+            cmd = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        String result = cmd.getResult().orElse("jmh-result.json");
+        options.result(result);
+        options.resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON));
+        new Runner(options.build()).run();
+
+        String baseline = System.getProperty("jmh.baseline");
+        if (baseline != null) {
+            double threshold = Double.parseDouble(System.getProperty("jmh.threshold", "10"));
+            List<String> regressions = CompareResults.compare(Path.of(baseline), Path.of(result), threshold);
+            if (!regressions.isEmpty()) {
+                System.err.println(regressions.size() + " benchmark(s) regressed by more than " + threshold + "%");
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compares two JMH JSON result files and reports benchmarks that got slower, or allocate
+ * more per operation, by more than a threshold.
+ * <p>
+ * {@code java -cp benchmarks.jar org.example.bench.CompareResults baseline.json current.json [percent]}
+ * exits with status 1 when there is a regression.
+ */
+public class CompareResults {
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+    /** Allocation differences below this many bytes per operation are noise, not regressions. */
+    private static final double ALLOC_SLACK_BYTES = 16;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        List<String> regressions = compare(Path.of(args[0]), Path.of(args[1]), threshold);
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /** Prints the comparison and returns the regressed benchmarks. */
+    public static List<String> compare(Path baseline, Path current, double thresholdPercent) throws IOException {
+        Map<String, JsonNode> before = load(baseline);
+        Map<String, JsonNode> after = load(current);
+        List<String> regressions = new ArrayList<>();
+
+        System.out.printf("%-70s %14s %14s %9s %12s %12s%n",
+                "Benchmark", "baseline", "current", "change", "B/op before", "B/op after");
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode then = before.get(entry.getKey());
+            if (then == null) {
+                System.out.printf("%-70s %14s %14.3f%n", entry.getKey(), "(new)", score(now));
+                continue;
+            }
+            // throughput should not drop; times should not grow
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double change = percentChange(score(then), score(now));
+            boolean slower = higherIsBetter ? change < -thresholdPercent : change > thresholdPercent;
+
+            double allocBefore = alloc(then);
+            double allocAfter = alloc(now);
+            boolean allocates = allocAfter - allocBefore > ALLOC_SLACK_BYTES
+                    && percentChange(allocBefore, allocAfter) > thresholdPercent;
+
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %12.0f %12.0f%s%n",
+                    entry.getKey(), score(then), score(now), change, allocBefore, allocAfter,
+                    slower || allocates ? "  REGRESSION" : "");
+            if (slower || allocates) {
+                regressions.add(entry.getKey());
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(key.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=')
+                        .append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    /** Bytes allocated per operation, or NaN when the run had no GC profiler. */
+    private static double alloc(JsonNode result) {
+        JsonNode metrics = result.path("secondaryMetrics");
+        // JMH before 1.36 prefixed profiler metrics with a middle dot
+        JsonNode norm = metrics.has(ALLOC_NORM) ? metrics.path(ALLOC_NORM) : metrics.path("·" + ALLOC_NORM);
+        return norm.isMissingNode() ? Double.NaN : norm.path("score").asDouble();
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100.0 / before;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.bench;
+
+import org.example.bench.entity.templates.Bar;
+import org.example.bench.support.SuiBoxFixture;
+import org.example.blockchain.SuiContractManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole calls through the generated Bar model: argument encoding, gas budgeting, a spawned
+ * (fake) {@code sui} process, output parsing and fullnode round trips, or the same calls on
+ * the in-memory backend.
+ * <p>
+ * Process spawning dominates the CLI backend; compare the modes against each other rather
+ * than with a real network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+    @Param({"CLI", "MEMORY"})
+    public SuiBoxFixture.Backend backend;
+
+    @Param({"false", "true"})
+    public boolean autoGasBudget;
+
+    private SuiBoxFixture fixture;
+    private SuiContractManager mgr;
+    private Bar model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new SuiBoxFixture(Bar.DESCRIPTOR, backend);
+        mgr = fixture.manager();
+        if (autoGasBudget) {
+            mgr.enableAutoGasBudget(1.2);
+        }
+        model = new Bar(Bar.create(mgr, fixture.registryId(), "benchmark entity", 1L), mgr);
+        model.setName("benchmark entity");
+        model.setCount(2L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String legacyMoveCall() throws IOException, InterruptedException {
+        return mgr.moveCall("Bar", "update_by_id", List.of(model.getObjectId(), "benchmark entity", 2L),
+                null, null, false, null);
+    }
+
+    @Benchmark
+    public String preparedUpdate() throws Exception {
+        return model.update();
+    }
+
+    @Benchmark
+    public String create() throws Exception {
+        return Bar.create(mgr, fixture.registryId(), "benchmark entity", 1L);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.bench;
+
+import org.example.blockchain.SuiContractManager;
+import org.example.models.generated.ModelDescriptor;
+import org.example.models.generated.ModelRegistry;
+import org.example.service.ModelService;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model lookup and instantiation through the generated registry, with reflective
+ * construction of the same model as the baseline the generated factories replace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelRegistryBenchmark {
+    private static final String OBJECT_ID = "0x" + "0c".repeat(32);
+
+    private SuiContractManager mgr;
+    private ModelService service;
+    private Constructor<?> constructor;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        mgr = new SuiContractManager(null, "0x" + "5e".repeat(32), "0x" + "9a".repeat(32),
+                50_000_000L, 1_000L, "http://127.0.0.1:9000", "sui");
+        service = new ModelService(mgr);
+        ModelDescriptor descriptor = ModelRegistry.getDescriptor("Bar");
+        if (descriptor == null) {
+            throw new IllegalStateException("The generated Bar model is not registered");
+        }
+        constructor = descriptor.modelClass().getConstructor(String.class, SuiContractManager.class);
+    }
+
+    @Benchmark
+    public ModelDescriptor getDescriptor() {
+        return ModelRegistry.getDescriptor("Bar");
+    }
+
+    @Benchmark
+    public Object instantiateModel() {
+        return service.instantiateModel("Bar", OBJECT_ID);
+    }
+
+    @Benchmark
+    public Object reflectiveInstantiation() throws ReflectiveOperationException {
+        return constructor.newInstance(OBJECT_ID, mgr);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.bench;
+
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the Move module and Java model templates, configured as
+ * BlockchainEntityProcessor configures FreeMarker, for entities of growing width.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+    @Param({"2", "8", "32"})
+    public int fieldCount;
+
+    private Configuration cfg;
+    private Map<String, Object> moveCtx;
+    private Map<String, Object> modelCtx;
+
+    @Setup
+    public void setUp() {
+        cfg = new Configuration(Configuration.VERSION_2_3_31);
+        cfg.setClassLoaderForTemplateLoading(getClass().getClassLoader(), "/templates");
+
+        List<Map<String, String>> fields = new ArrayList<>();
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(i % 2 == 0
+                    ? Map.of("name", "name" + i, "javaType", "java.lang.String", "moveType", "String")
+                    : Map.of("name", "count" + i, "javaType", "long", "moveType", "u64"));
+        }
+        moveCtx = Map.of("address", "bench", "module", "Bar", "struct", "Bar", "fields", fields);
+        modelCtx = Map.of("package", "org.example.bench.entity.templates", "className", "Bar",
+                "structName", "Bar", "module", "Bar", "fields", fields);
+    }
+
+    @Benchmark
+    public String moveModule() throws IOException, TemplateException {
+        StringWriter out = new StringWriter(4096);
+        cfg.getTemplate("sui_box_module.move.ftl").process(moveCtx, out);
+        return out.toString();
+    }
+
+    @Benchmark
+    public String javaModel() throws IOException, TemplateException {
+        StringWriter out = new StringWriter(4096);
+        cfg.getTemplate("Model.java.ftl").process(modelCtx, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.bench.entity;
+
+import org.example.annotation.BlockchainEntity;
+
+/**
+ * The entity the benchmarks drive; its Move module and {@code templates.Bar} model are
+ * generated by BlockchainEntityProcessor when this module compiles.
+ */
+@BlockchainEntity(module = "bench", struct = "Bar")
+public class Bar {
+    private String name;
+    private long count;
+}
@@ -0,0 +1,125 @@
+package org.example.bench.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcomes of a load test per operation: latencies of the successful calls, error counts,
+ * and the throughput and percentiles derived from them, written as CSV or JSON.
+ */
+public class LoadReport {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final Operation total = new Operation();
+    private final Map<String, Object> settings;
+    private volatile long elapsedNanos;
+
+    public LoadReport(Map<String, Object> settings, String... operations) {
+        this.settings = settings;
+        for (String name : operations) {
+            this.operations.put(name, new Operation());
+        }
+    }
+
+    public void success(String operation, long nanos) {
+        operations.get(operation).latencies.record(nanos);
+        total.latencies.record(nanos);
+    }
+
+    public void failure(String operation, Throwable error) {
+        Operation op = operations.get(operation);
+        op.errors.increment();
+        total.errors.increment();
+        // keep a few distinct messages so the report says what went wrong
+        String message = String.valueOf(error.getMessage()).lines().findFirst().orElse("");
+        synchronized (op.errorSamples) {
+            if (op.errorSamples.size() < 5 && !op.errorSamples.contains(message)) {
+                op.errorSamples.add(message);
+            }
+        }
+    }
+
+    /** Sets the measured wall-clock time the throughput is computed over. */
+    public void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /** One row per operation plus a {@code total} row. */
+    public List<Map<String, Object>> rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        operations.forEach((name, op) -> rows.add(row(name, op)));
+        rows.add(row("total", total));
+        return rows;
+    }
+
+    private Map<String, Object> row(String name, Operation op) {
+        long ok = op.latencies.count();
+        long errors = op.errors.sum();
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("operation", name);
+        row.put("count", ok + errors);
+        row.put("errors", errors);
+        row.put("errorRate", ok + errors == 0 ? 0.0 : (double) errors / (ok + errors));
+        row.put("throughputPerSecond", seconds == 0 ? 0.0 : ok / seconds);
+        row.put("meanMillis", op.latencies.mean() / NANOS_PER_MILLI);
+        row.put("p50Millis", op.latencies.percentile(50) / NANOS_PER_MILLI);
+        row.put("p99Millis", op.latencies.percentile(99) / NANOS_PER_MILLI);
+        row.put("p999Millis", op.latencies.percentile(99.9) / NANOS_PER_MILLI);
+        row.put("maxMillis", op.latencies.max() / NANOS_PER_MILLI);
+        return row;
+    }
+
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder();
+        List<Map<String, Object>> rows = rows();
+        csv.append(String.join(",", rows.get(0).keySet())).append('\n');
+        for (Map<String, Object> row : rows) {
+            StringJoiner line = new StringJoiner(",");
+            for (Object value : row.values()) {
+                line.add(value instanceof Double d ? String.format(Locale.ROOT, "%.3f", d) : String.valueOf(value));
+            }
+            csv.append(line).append('\n');
+        }
+        return csv.toString();
+    }
+
+    public String toJson() throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("settings", settings);
+        json.put("elapsedSeconds", elapsedNanos / 1e9);
+        json.put("operations", rows());
+        Map<String, List<String>> samples = new LinkedHashMap<>();
+        operations.forEach((name, op) -> {
+            if (!op.errorSamples.isEmpty()) {
+                samples.put(name, List.copyOf(op.errorSamples));
+            }
+        });
+        json.put("errorSamples", samples);
+        return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(json);
+    }
+
+    /** Writes {@code <base>.csv} and {@code <base>.json}. */
+    public void write(Path base) throws IOException {
+        Path dir = base.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Files.writeString(base.resolveSibling(base.getFileName() + ".csv"), toCsv());
+        Files.writeString(base.resolveSibling(base.getFileName() + ".json"), toJson());
+    }
+
+    private static final class Operation {
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final List<String> errorSamples = new ArrayList<>();
+    }
+}
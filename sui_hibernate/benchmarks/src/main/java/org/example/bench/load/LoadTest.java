@@ -0,0 +1,176 @@
+package org.example.bench.load;
+
+import org.example.bench.entity.templates.Bar;
+import org.example.bench.support.SuiBoxFixture;
+import org.example.blockchain.SuiContractManager;
+import org.example.service.ModelService;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives concurrent create / update / read flows through the generated Bar model against the
+ * fake {@code sui} CLI and the stub fullnode, and reports throughput, latency percentiles and
+ * error rates.
+ * <p>
+ * {@code java -cp benchmarks.jar org.example.bench.load.LoadTest --concurrency=16 --duration=30
+ * --cli-latency=20 --cli-errors=0.01 --rpc-latency=5 --rpc-errors=0.01 --report=target/load}
+ * <p>
+ * Options (durations in seconds, latencies in milliseconds, error rates as fractions):
+ * {@code concurrency} (8), {@code duration} (30), {@code warmup} (5), {@code cli-latency} (0),
+ * {@code cli-errors} (0), {@code rpc-latency} (0), {@code rpc-errors} (0),
+ * {@code auto-gas} (false), {@code backend} (cli, or memory for the in-memory simulation,
+ * which takes no faults) and {@code report} (load-report, the base name of the CSV and JSON
+ * files).
+ */
+public class LoadTest {
+    static final String CREATE = "create";
+    static final String UPDATE = "update";
+    static final String READ = "read";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+        long cliLatency = Long.parseLong(options.getOrDefault("cli-latency", "0"));
+        double cliErrors = Double.parseDouble(options.getOrDefault("cli-errors", "0"));
+        long rpcLatency = Long.parseLong(options.getOrDefault("rpc-latency", "0"));
+        double rpcErrors = Double.parseDouble(options.getOrDefault("rpc-errors", "0"));
+        boolean autoGas = Boolean.parseBoolean(options.getOrDefault("auto-gas", "false"));
+        Path report = Path.of(options.getOrDefault("report", "load-report"));
+        SuiBoxFixture.Backend backend = SuiBoxFixture.Backend.valueOf(
+                options.getOrDefault("backend", "cli").toUpperCase(Locale.ROOT));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", concurrency);
+        settings.put("durationSeconds", duration);
+        settings.put("warmupSeconds", warmup);
+        settings.put("cliLatencyMillis", cliLatency);
+        settings.put("cliErrorRate", cliErrors);
+        settings.put("rpcLatencyMillis", rpcLatency);
+        settings.put("rpcErrorRate", rpcErrors);
+        settings.put("autoGasBudget", autoGas);
+        settings.put("backend", backend.name().toLowerCase(Locale.ROOT));
+
+        try (SuiBoxFixture fixture = new SuiBoxFixture(Bar.DESCRIPTOR, backend)) {
+            // faults are injected only once the package and registry exist
+            if (backend == SuiBoxFixture.Backend.CLI) {
+                fixture.cliFaults(cliLatency, cliErrors);
+                fixture.fullnode().latency(rpcLatency).errorRate(rpcErrors);
+            }
+            if (autoGas) {
+                fixture.manager().enableAutoGasBudget(1.2);
+            }
+
+            if (warmup > 0) {
+                System.out.printf("Warming up for %ds with %d workers%n", warmup, concurrency);
+                run(fixture, concurrency, warmup, new LoadReport(settings, CREATE, UPDATE, READ));
+            }
+            System.out.printf("Measuring for %ds with %d workers%n", duration, concurrency);
+            LoadReport result = run(fixture, concurrency, duration, new LoadReport(settings, CREATE, UPDATE, READ));
+
+            System.out.print(result.toCsv());
+            result.write(report);
+            System.out.println("Report written to " + report.toAbsolutePath() + ".{csv,json}");
+        }
+    }
+
+    /** Runs {@code concurrency} workers for {@code seconds}, each repeating the flow. */
+    static LoadReport run(SuiBoxFixture fixture, int concurrency, long seconds, LoadReport report)
+            throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                running.add(workers.submit(() -> {
+                    Flow flow = new Flow(fixture, worker, report);
+                    while (System.nanoTime() < deadline) {
+                        flow.next();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    /** One worker's create, update, read sequence on an object of its own. */
+    static final class Flow {
+        private final SuiContractManager mgr;
+        private final ModelService models;
+        private final String registryId;
+        private final String name;
+        private final LoadReport report;
+        private long iteration;
+
+        Flow(SuiBoxFixture fixture, int worker, LoadReport report) {
+            this.mgr = fixture.manager();
+            this.models = new ModelService(mgr);
+            this.registryId = fixture.registryId();
+            this.name = "worker-" + worker;
+            this.report = report;
+        }
+
+        void next() {
+            long count = iteration++;
+            String objectId;
+            long start = System.nanoTime();
+            try {
+                objectId = Bar.create(mgr, registryId, name, count);
+                report.success(CREATE, System.nanoTime() - start);
+            } catch (Exception e) {
+                report.failure(CREATE, e);
+                return;
+            }
+
+            start = System.nanoTime();
+            try {
+                Bar model = (Bar) models.instantiateModel("Bar", objectId);
+                model.setName(name);
+                model.setCount(count + 1);
+                model.update();
+                report.success(UPDATE, System.nanoTime() - start);
+            } catch (Exception e) {
+                report.failure(UPDATE, e);
+            }
+
+            start = System.nanoTime();
+            try {
+                mgr.getObject(objectId);
+                report.success(READ, System.nanoTime() - start);
+            } catch (Exception e) {
+                report.failure(READ, e);
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.bench.support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes a stand-in {@code sui} executable that answers the commands SuiContractManager runs
+ * ({@code move build}, {@code client publish}, {@code client ptb} and {@code keytool sign})
+ * with canned JSON, so the full process round trip can be measured without a network.
+ * <p>
+ * Every PTB creates one object typed {@code <package>::<module>::<module>}, which matches the
+ * generated models, whose module is named after their struct. PTBs can be slowed down and
+ * made to fail at a given rate, to see how callers cope with a sluggish or flaky node.
+ */
+public final class FakeSuiCli {
+    /** The package ID every fake publish reports. */
+    public static final String PACKAGE_ID = "0x" + "ab".repeat(32);
+
+    private static final String SCRIPT = """
+            #!/usr/bin/env bash
+            # Stand-in for the sui CLI, written by org.example.bench.support.FakeSuiCli
+            PACKAGE=%s
+            LATENCY=%s
+            FAILURES_PER_10K=%d
+            rid() { printf '0x%%08x%%08x%%016x%%08x%%08x%%08x%%08x' $$ $RANDOM "$(date +%%s%%N)" $RANDOM $RANDOM $RANDOM $RANDOM; }
+            effects() {
+              echo "{\\"digest\\": \\"$(rid)\\", \\"effects\\": {\\"status\\": {\\"status\\": \\"success\\"},"
+              echo " \\"gasUsed\\": {\\"computationCost\\": \\"1000000\\", \\"storageCost\\": \\"2000000\\", \\"storageRebate\\": \\"500000\\"}},"
+              echo " \\"objectChanges\\": [$1]}"
+            }
+            case "$1 $2" in
+              "move build")
+                dir=$4
+                name=$(sed -n 's/^name *= *"\\(.*\\)"/\\1/p' "$dir/Move.toml")
+                mkdir -p "$dir/build/$name/bytecode_modules"
+                touch "$dir/build/$name/bytecode_modules/$name.mv"
+                echo "BUILDING $name"
+                ;;
+              "client publish")
+                effects "{\\"type\\": \\"published\\", \\"packageId\\": \\"$PACKAGE\\"}"
+                ;;
+              "client ptb")
+                [ "$LATENCY" != "0" ] && sleep "$LATENCY"
+                if [ $(( (RANDOM << 15 | RANDOM) %% 10000 )) -lt "$FAILURES_PER_10K" ]; then
+                  echo "Error executing transaction: injected failure" >&2
+                  exit 1
+                fi
+                target=""; prev=""
+                for arg in "$@"; do
+                  [ "$prev" = "--move-call" ] && target=$arg
+                  [ "$arg" = "--serialize-unsigned-transaction" ] && { echo "AAAB$(rid | cut -c3-)"; exit 0; }
+                  prev=$arg
+                done
+                echo '[warning] Client/Server api version mismatch, client api version : 1.0.0, server api version : 1.0.0'
+                module=$(echo "$target" | awk -F'::' '{print $2}')
+                effects "{\\"type\\": \\"created\\", \\"objectId\\": \\"$(rid)\\", \\"objectType\\": \\"$PACKAGE::$module::$module\\"}"
+                ;;
+              "keytool sign")
+                echo "{\\"suiSignature\\": \\"AQ$(rid | cut -c3-)\\"}"
+                ;;
+              *)
+                echo "fake sui: unsupported command: $*" >&2
+                exit 2
+                ;;
+            esac
+            """;
+
+    private FakeSuiCli() {
+    }
+
+    /** Writes an executable that answers immediately and never fails into {@code dir}. */
+    public static Path install(Path dir) throws IOException {
+        return install(dir, 0, 0.0);
+    }
+
+    /**
+     * Writes the executable into {@code dir} and returns its path.
+     *
+     * @param latencyMillis added to every {@code client ptb} command
+     * @param errorRate     fraction of {@code client ptb} commands that exit with an error
+     */
+    public static Path install(Path dir, long latencyMillis, double errorRate) throws IOException {
+        if (errorRate < 0.0 || errorRate > 1.0) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1, got " + errorRate);
+        }
+        Files.createDirectories(dir);
+        Path sui = dir.resolve("sui");
+        String latency = latencyMillis == 0 ? "0" : String.format(Locale.ROOT, "%.3f", latencyMillis / 1000.0);
+        Files.writeString(sui, String.format(SCRIPT, PACKAGE_ID, latency, Math.round(errorRate * 10_000)));
+        Files.setPosixFilePermissions(sui, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return sui;
+    }
+
+    /** A random 32-byte ID in the {@code 0x...} form Sui prints. */
+    public static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("0x%016x%016x%016x%016x",
+                random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+    }
+}
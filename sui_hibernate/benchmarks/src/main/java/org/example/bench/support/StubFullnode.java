@@ -0,0 +1,229 @@
+package org.example.bench.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.models.generated.ModelDescriptor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process JSON-RPC server answering the fullnode methods sui-box uses, so calls can be
+ * measured without a network or a funded account.
+ * <p>
+ * Function signatures are derived from the generated models' descriptors; every transaction
+ * is reported as executed successfully, having created one object, and every object as an
+ * instance of the last registered model. Requests can be delayed and failed at a given rate.
+ */
+public class StubFullnode implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "stub-fullnode");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, ModelDescriptor> modules = new ConcurrentHashMap<>();
+    private volatile ModelDescriptor objectModel;
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+
+    public StubFullnode() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /** Serves the signatures of {@code descriptor}'s Move functions. */
+    public StubFullnode register(ModelDescriptor descriptor) {
+        modules.put(descriptor.module(), descriptor);
+        objectModel = descriptor;
+        return this;
+    }
+
+    /** Delays every response by {@code millis}. */
+    public StubFullnode latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    /** Answers this fraction of requests with a JSON-RPC error. */
+    public StubFullnode errorRate(double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1, got " + rate);
+        }
+        this.errorRate = rate;
+        return this;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream in = exchange.getRequestBody()) {
+            request = MAPPER.readTree(in);
+        }
+        ObjectNode response = JSON.objectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.path("id"));
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                throw new IllegalStateException("injected failure");
+            }
+            response.set("result", dispatch(request.path("method").asText(), request.path("params")));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+            return;
+        } catch (RuntimeException e) {
+            ObjectNode error = response.putObject("error");
+            error.put("code", -32602);
+            error.put("message", String.valueOf(e.getMessage()));
+        }
+        byte[] body = MAPPER.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private JsonNode dispatch(String method, JsonNode params) {
+        return switch (method) {
+            case "suix_getReferenceGasPrice" -> JSON.textNode("750");
+            case "sui_getNormalizedMoveFunction" ->
+                    signature(params.path(1).asText(), params.path(2).asText());
+            case "sui_getTransactionBlock" -> transaction(params.path(0).asText());
+            case "sui_executeTransactionBlock" -> transaction(FakeSuiCli.randomId());
+            case "sui_getObject" -> object(params.path(0).asText());
+            default -> throw new IllegalArgumentException("Method not supported by the stub: " + method);
+        };
+    }
+
+    /** A successful transaction that created one object. */
+    private static ObjectNode transaction(String digest) {
+        ObjectNode tx = JSON.objectNode();
+        tx.put("digest", digest);
+        ObjectNode effects = tx.putObject("effects");
+        effects.putObject("status").put("status", "success");
+        ObjectNode gas = effects.putObject("gasUsed");
+        gas.put("computationCost", "1000000");
+        gas.put("storageCost", "2000000");
+        gas.put("storageRebate", "500000");
+        String objectId = FakeSuiCli.randomId();
+        effects.putArray("created").addObject().putObject("reference").put("objectId", objectId);
+        ObjectNode created = tx.putArray("objectChanges").addObject();
+        created.put("type", "created");
+        created.put("objectId", objectId);
+        created.put("objectType", FakeSuiCli.PACKAGE_ID + "::stub::Object");
+        return tx;
+    }
+
+    /** The object with default field values, typed as the last registered model. */
+    private ObjectNode object(String objectId) {
+        ModelDescriptor descriptor = objectModel;
+        if (descriptor == null) {
+            throw new IllegalArgumentException("No model registered");
+        }
+        String type = FakeSuiCli.PACKAGE_ID + "::" + descriptor.module() + "::" + descriptor.structName();
+        ObjectNode object = JSON.objectNode();
+        ObjectNode data = object.putObject("data");
+        data.put("objectId", objectId);
+        data.put("version", "1");
+        data.put("type", type);
+        ObjectNode content = data.putObject("content");
+        content.put("dataType", "moveObject");
+        content.put("type", type);
+        ObjectNode fields = content.putObject("fields");
+        fields.putObject("id").put("id", objectId);
+        fields.put("is_deleted", false);
+        for (ModelDescriptor.Field field : descriptor.fields()) {
+            switch (field.moveType()) {
+                case "u64" -> fields.put(field.name(), "0");
+                case "bool" -> fields.put(field.name(), false);
+                default -> fields.put(field.name(), "");
+            }
+        }
+        return object;
+    }
+
+    /** The normalized signature of a generated Move function. */
+    private ObjectNode signature(String module, String function) {
+        ModelDescriptor descriptor = modules.get(module);
+        if (descriptor == null) {
+            throw new IllegalArgumentException("No module " + module);
+        }
+        ObjectNode signature = JSON.objectNode();
+        signature.put("visibility", "Public");
+        ArrayNode parameters = signature.putArray("parameters");
+        switch (function) {
+            case "create_registry" -> signature.put("isEntry", true);
+            case "create" -> {
+                signature.put("isEntry", false);
+                for (ModelDescriptor.Field field : descriptor.fields()) {
+                    parameters.add(type(field.moveType()));
+                }
+                parameters.addObject().set("MutableReference", struct(module, "Registry"));
+            }
+            case "update_by_id" -> {
+                signature.put("isEntry", true);
+                parameters.addObject().set("MutableReference", struct(module, descriptor.structName()));
+                for (ModelDescriptor.Field field : descriptor.fields()) {
+                    parameters.add(type(field.moveType()));
+                }
+            }
+            case "delete" -> {
+                signature.put("isEntry", true);
+                parameters.addObject().set("MutableReference", struct(module, descriptor.structName()));
+            }
+            default -> throw new IllegalArgumentException("No function " + module + "::" + function);
+        }
+        parameters.addObject().set("MutableReference", struct("tx_context", "TxContext"));
+        return signature;
+    }
+
+    private static JsonNode type(String moveType) {
+        return switch (moveType) {
+            case "u64" -> JSON.textNode("U64");
+            case "bool" -> JSON.textNode("Bool");
+            default -> struct("string", "String");
+        };
+    }
+
+    private static ObjectNode struct(String module, String name) {
+        ObjectNode struct = JSON.objectNode();
+        ObjectNode body = struct.putObject("Struct");
+        body.put("address", "0x2");
+        body.put("module", module);
+        body.put("name", name);
+        body.putArray("typeArguments");
+        return struct;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.bench.support;
+
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import org.example.blockchain.InMemoryBackend;
+import org.example.blockchain.SuiContractManager;
+import org.example.models.generated.ModelDescriptor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A SuiContractManager with a published package and a created registry for one generated
+ * model, backed either by a {@link FakeSuiCli} and a {@link StubFullnode} or by an
+ * {@link InMemoryBackend}.
+ */
+public class SuiBoxFixture implements AutoCloseable {
+    public static final String SENDER = "0x" + "5e".repeat(32);
+    public static final String GAS_OBJECT = "0x" + "9a".repeat(32);
+
+    /** Which backend the manager runs on. */
+    public enum Backend {
+        /** the fake CLI and the stub fullnode */
+        CLI,
+        /** the in-memory simulation of the generated module */
+        MEMORY
+    }
+
+    private final Path workDir;
+    private final Path binDir;
+    private final StubFullnode fullnode;
+    private final SuiContractManager mgr;
+    private final String registryId;
+
+    public SuiBoxFixture(ModelDescriptor model) throws IOException, InterruptedException {
+        this(model, Backend.CLI);
+    }
+
+    public SuiBoxFixture(ModelDescriptor model, Backend backend) throws IOException, InterruptedException {
+        workDir = Files.createTempDirectory("sui-box-bench");
+        binDir = workDir.resolve("bin");
+        Path moveDir = Files.createDirectories(workDir.resolve("move"));
+        Files.writeString(moveDir.resolve("Move.toml"), "[package]\nname = \"bench\"\n");
+        if (backend == Backend.CLI) {
+            fullnode = new StubFullnode().register(model);
+            Path sui = FakeSuiCli.install(binDir);
+            mgr = new SuiContractManager(null, SENDER, GAS_OBJECT, 50_000_000L, 1_000L,
+                    fullnode.getUrl(), sui.toString());
+        } else {
+            fullnode = null;
+            writeModule(model, moveDir);
+            mgr = new SuiContractManager(null, SENDER, GAS_OBJECT, 50_000_000L, 1_000L,
+                    new InMemoryBackend(SENDER));
+        }
+        mgr.publish(moveDir);
+        registryId = mgr.createRegistry(model.module(), moveDir, mgr.getPackageId());
+    }
+
+    /** Renders the model's Move module as BlockchainEntityProcessor would. */
+    private static void writeModule(ModelDescriptor model, Path moveDir) throws IOException {
+        Configuration cfg = new Configuration(Configuration.VERSION_2_3_31);
+        cfg.setClassLoaderForTemplateLoading(SuiBoxFixture.class.getClassLoader(), "/templates");
+        List<Map<String, String>> fields = new ArrayList<>();
+        for (ModelDescriptor.Field field : model.fields()) {
+            fields.add(Map.of("name", field.name(), "moveType", field.moveType()));
+        }
+        Path source = Files.createDirectories(moveDir.resolve("sources")).resolve(model.module() + ".move");
+        try (Writer w = Files.newBufferedWriter(source)) {
+            cfg.getTemplate("sui_box_module.move.ftl").process(Map.of(
+                    "address", "bench",
+                    "module", model.module(),
+                    "struct", model.structName(),
+                    "fields", fields), w);
+        } catch (TemplateException e) {
+            throw new IOException("Could not render the Move module of " + model.structName(), e);
+        }
+    }
+
+    /**
+     * Rewrites the fake CLI so later PTBs take {@code latencyMillis} and fail at {@code errorRate}.
+     * Only applies to the CLI backend.
+     */
+    public void cliFaults(long latencyMillis, double errorRate) throws IOException {
+        if (fullnode == null) {
+            throw new IllegalStateException("The in-memory backend runs no CLI");
+        }
+        FakeSuiCli.install(binDir, latencyMillis, errorRate);
+    }
+
+    public SuiContractManager manager() {
+        return mgr;
+    }
+
+    /** The stub fullnode, or null for the in-memory backend. */
+    public StubFullnode fullnode() {
+        return fullnode;
+    }
+
+    public String registryId() {
+        return registryId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fullnode != null) {
+            fullnode.close();
+        }
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.blockchain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of Move call arguments into {@code sui client ptb} tokens: the type-switch in
+ * {@link SuiContractManager#moveCall} against a {@link PreparedMoveCall}'s resolved encoders.
+ * <p>
+ * Lives in {@code org.example.blockchain} to reach the package-private encoders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentEncodingBenchmark {
+    private static final String PACKAGE_ID = "0x" + "ab".repeat(32);
+    private static final String TARGET = PACKAGE_ID + "::Bar::update_by_id";
+
+    private final List<Object> argList = List.of("0x" + "0c".repeat(32), "benchmark entity", 42L);
+    private final Object[] args = argList.toArray();
+    private PreparedMoveCall prepared;
+
+    @Setup
+    public void setUp() {
+        SuiContractManager mgr = new SuiContractManager(null, "0x" + "5e".repeat(32), "0x" + "9a".repeat(32),
+                50_000_000L, 1_000L, "http://127.0.0.1:9000", "sui");
+        prepared = new PreparedMoveCall(mgr, PACKAGE_ID, "Bar", "update_by_id",
+                List.of(MoveArgType.OBJECT, MoveArgType.STRING, MoveArgType.U64));
+    }
+
+    @Benchmark
+    public List<String> moveCall() {
+        List<String> command = new ArrayList<>();
+        command.add("sui");
+        command.add("client");
+        command.add("ptb");
+        command.add("--move-call");
+        command.add(TARGET);
+        SuiContractManager.addArguments(command, argList);
+        return command;
+    }
+
+    @Benchmark
+    public MoveCall prepared() {
+        return prepared.call(args);
+    }
+}
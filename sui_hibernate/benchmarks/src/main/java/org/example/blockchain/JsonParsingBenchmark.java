@@ -0,0 +1,95 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of CLI and fullnode responses: the publish output, the effects of a PTB and the
+ * transaction block the registry ID is read from.
+ * <p>
+ * Lives in {@code org.example.blockchain} to reach the package-private parsers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParsingBenchmark {
+    private static final String PACKAGE_ID = "0x" + "ab".repeat(32);
+    private static final String DIGEST = "8Xbd2ZUpVqDvSRmVpC8Xy3QeS91fLYqDxJTnc4PzGxGS";
+
+    private static final String EFFECTS = """
+            {"effects": {"messageVersion": "v1", "status": {"status": "success"}, "executedEpoch": "512",
+              "gasUsed": {"computationCost": "1000000", "storageCost": "2880800", "storageRebate": "978120",
+                          "nonRefundableStorageFee": "9880"},
+              "transactionDigest": "%1$s",
+              "created": [{"owner": {"AddressOwner": "%2$s"},
+                           "reference": {"objectId": "0x%3$s", "version": "42", "digest": "5x1sC7qRvW2Uu8F3"}}],
+              "mutated": [{"owner": {"AddressOwner": "%2$s"},
+                           "reference": {"objectId": "0x%4$s", "version": "42", "digest": "9yTq2Zp4WcHn3JxE"}},
+                          {"owner": {"Shared": {"initial_shared_version": 7}},
+                           "reference": {"objectId": "0x%5$s", "version": "42", "digest": "3kLm8Nq2Rt6Vw9Yz"}}],
+              "gasObject": {"owner": {"AddressOwner": "%2$s"},
+                            "reference": {"objectId": "0x%4$s", "version": "42", "digest": "9yTq2Zp4WcHn3JxE"}},
+              "dependencies": ["7Tg2k9XsWd4Rq8ZmNc3Vb6Hy1Lp5Jf0Ke"]},
+             "events": [],
+             "objectChanges": [
+               {"type": "mutated", "sender": "%2$s", "owner": {"AddressOwner": "%2$s"},
+                "objectType": "0x2::coin::Coin<0x2::sui::SUI>", "objectId": "0x%4$s", "version": "42",
+                "previousVersion": "41", "digest": "9yTq2Zp4WcHn3JxE"},
+               {"type": "mutated", "sender": "%2$s", "owner": {"Shared": {"initial_shared_version": 7}},
+                "objectType": "%6$s::Bar::Registry", "objectId": "0x%5$s", "version": "42",
+                "previousVersion": "41", "digest": "3kLm8Nq2Rt6Vw9Yz"},
+               {"type": "created", "sender": "%2$s", "owner": {"AddressOwner": "%2$s"},
+                "objectType": "%6$s::Bar::Bar", "objectId": "0x%3$s", "version": "42",
+                "digest": "5x1sC7qRvW2Uu8F3"}],
+             "balanceChanges": [{"owner": {"AddressOwner": "%2$s"}, "coinType": "0x2::sui::SUI", "amount": "-2902680"}],
+             "digest": "%1$s", "confirmedLocalExecution": true}
+            """.formatted(DIGEST, "0x" + "5e".repeat(32), "0c".repeat(32), "9a".repeat(32), "7d".repeat(32),
+            PACKAGE_ID);
+
+    private static final String PUBLISH = """
+            {"digest": "%1$s", "effects": {"status": {"status": "success"}},
+             "objectChanges": [
+               {"type": "mutated", "objectType": "0x2::coin::Coin<0x2::sui::SUI>", "objectId": "0x%2$s"},
+               {"type": "created", "objectType": "0x2::package::UpgradeCap", "objectId": "0x%3$s"},
+               {"type": "published", "packageId": "%4$s", "version": "1", "modules": ["Bar", "Baz"]}]}
+            """.formatted(DIGEST, "9a".repeat(32), "0c".repeat(32), PACKAGE_ID);
+
+    /** PTB output as the CLI prints it, with a warning line ahead of the JSON. */
+    private final String cliOutput =
+            "[warning] Client/Server api version mismatch, client api version : 1.0.0, server api version : 1.0.0\n"
+                    + EFFECTS;
+    private JsonNode transactionBlock;
+
+    @Setup
+    public void setUp() throws IOException {
+        transactionBlock = SuiRpcClient.MAPPER.readTree(EFFECTS);
+    }
+
+    @Benchmark
+    public String parsePackageId() throws IOException {
+        return SuiContractManager.packageIdFrom(SuiRpcClient.MAPPER.readTree(PUBLISH));
+    }
+
+    @Benchmark
+    public String parseEffects() throws IOException {
+        String raw = cliOutput.trim();
+        JsonNode root = SuiRpcClient.MAPPER.readTree(raw.substring(raw.indexOf('{')));
+        return new TransactionResult(root.path("digest").asText(), root).createdObjectId("::Bar::Bar");
+    }
+
+    @Benchmark
+    public long gasUsed() {
+        return new TransactionResult(DIGEST, transactionBlock).gasUsed();
+    }
+
+    @Benchmark
+    public String registryLookup() {
+        return SuiContractManager.registryIdFrom(transactionBlock, DIGEST);
+    }
+}
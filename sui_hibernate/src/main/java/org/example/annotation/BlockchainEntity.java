@@ -5,6 +5,8 @@ import java.lang.annotation.*;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface BlockchainEntity {
+    /** Named address of the Move package; all entities are generated into one package and share it. */
     String module() default "sui_box_module";
+    /** Name of the on-chain struct, which also names the Move module generated for it. */
     String struct() default "Model";
 }
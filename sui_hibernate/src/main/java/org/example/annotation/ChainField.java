@@ -0,0 +1,22 @@
+package org.example.annotation;
+
+import java.lang.annotation.*;
+
+/** Options for a field of a {@link BlockchainEntity}. */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ChainField {
+    /**
+     * Keeps a local index of the field and generates finders for it on the model's
+     * {@code Indexes} class: {@code findByX} for every type and {@code findByXBetween} for numbers.
+     */
+    boolean indexed() default false;
+
+    /**
+     * Stores the field as a dynamic field of the object instead of inside its struct, for large
+     * values: reading the object or updating its other fields then leaves it alone. It is
+     * written by its own {@code set_<field>} entry function and loaded by the model on first
+     * access. A dynamic field cannot be indexed and is not carried in events.
+     */
+    boolean dynamic() default false;
+}
@@ -0,0 +1,128 @@
+package org.example.blockchain;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Decodes the BCS values Move functions return through dev-inspect: integers are
+ * little-endian, vectors and strings are a ULEB128 length followed by their elements.
+ */
+public final class Bcs {
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String BASE58 = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+
+    private Bcs() {
+    }
+
+    public static long readU64(byte[] bcs) {
+        if (bcs.length != 8) {
+            throw new IllegalArgumentException("A u64 takes 8 bytes, got " + bcs.length);
+        }
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (bcs[i] & 0xFF);
+        }
+        return value;
+    }
+
+    public static boolean readBool(byte[] bcs) {
+        if (bcs.length != 1 || (bcs[0] & 0xFE) != 0) {
+            throw new IllegalArgumentException("Not a BCS bool");
+        }
+        return bcs[0] == 1;
+    }
+
+    /** A {@code std::string::String}: a ULEB128 length and that many bytes of UTF-8. */
+    public static String readString(byte[] bcs) {
+        int[] position = {0};
+        long length = readUleb128(bcs, position);
+        if (bcs.length - position[0] != length) {
+            throw new IllegalArgumentException("Expected a string of " + length + " bytes, got "
+                    + (bcs.length - position[0]));
+        }
+        return new String(bcs, position[0], (int) length, StandardCharsets.UTF_8);
+    }
+
+    /** An {@code ID} or {@code address}. */
+    public static ObjectId readId(byte[] bcs) {
+        if (bcs.length != 32) {
+            throw new IllegalArgumentException("An ID takes 32 bytes, got " + bcs.length);
+        }
+        return ObjectId.of(bcs, 0);
+    }
+
+    /** A {@code vector<ID>} or {@code vector<address>} as 0x-prefixed hex IDs. */
+    public static List<String> readIdVector(byte[] bcs) {
+        int[] position = {0};
+        long length = readUleb128(bcs, position);
+        if (bcs.length - position[0] != length * 32) {
+            throw new IllegalArgumentException("Expected " + length + " IDs of 32 bytes, got "
+                    + (bcs.length - position[0]) + " bytes");
+        }
+        List<String> ids = new ArrayList<>((int) length);
+        for (int i = 0; i < length; i++) {
+            int from = position[0] + i * 32;
+            ids.add("0x" + HEX.formatHex(bcs, from, from + 32));
+        }
+        return ids;
+    }
+
+    /** Reads a ULEB128 integer at {@code position[0]}, advancing it. */
+    static long readUleb128(byte[] bcs, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= bcs.length || shift > 63) {
+                throw new IllegalArgumentException("Truncated ULEB128 length");
+            }
+            int b = bcs[position[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    /** The bytes of a base58 string, such as an object or transaction digest. */
+    static byte[] decodeBase58(String text) {
+        BigInteger value = BigInteger.ZERO;
+        BigInteger base = BigInteger.valueOf(58);
+        int zeros = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = BASE58.indexOf(text.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not base58: " + text);
+            }
+            if (digit == 0 && value.signum() == 0) {
+                // leading '1's stand for leading zero bytes
+                zeros++;
+            }
+            value = value.multiply(base).add(BigInteger.valueOf(digit));
+        }
+        byte[] magnitude = value.signum() == 0 ? new byte[0] : value.toByteArray();
+        int skip = magnitude.length > 0 && magnitude[0] == 0 ? 1 : 0;
+        byte[] bytes = new byte[zeros + magnitude.length - skip];
+        System.arraycopy(magnitude, skip, bytes, zeros, magnitude.length - skip);
+        return bytes;
+    }
+
+    /** The base58 form of {@code bytes}. */
+    static String encodeBase58(byte[] bytes) {
+        StringBuilder text = new StringBuilder();
+        BigInteger value = new BigInteger(1, bytes);
+        BigInteger base = BigInteger.valueOf(58);
+        while (value.signum() > 0) {
+            BigInteger[] qr = value.divideAndRemainder(base);
+            text.append(BASE58.charAt(qr[1].intValue()));
+            value = qr[0];
+        }
+        for (int i = 0; i < bytes.length && bytes[i] == 0; i++) {
+            text.append('1');
+        }
+        return text.reverse().toString();
+    }
+}
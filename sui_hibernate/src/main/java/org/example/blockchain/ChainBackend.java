@@ -0,0 +1,93 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.metrics.CallMetrics;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * How SuiContractManager reaches a chain: building and publishing Move packages, executing
+ * calls and reading objects and transactions.
+ * <p>
+ * Responses use the shapes of the Sui JSON-RPC API (and of the CLI's {@code --json} output),
+ * so the manager interprets them the same way whichever backend produced them:
+ * <ul>
+ *   <li>{@link CliBackend} runs the {@code sui} CLI and reads through JSON-RPC</li>
+ *   <li>{@link JsonRpcBackend} executes through the fullnode's JSON-RPC API</li>
+ *   <li>{@link InMemoryBackend} simulates the generated modules in memory, for tests</li>
+ * </ul>
+ */
+public interface ChainBackend {
+
+    /** Compiles the Move package in {@code moveDir} and returns its compiled modules. */
+    File[] build(Path moveDir) throws IOException, InterruptedException;
+
+    /**
+     * Publishes the package in {@code moveDir}, or only dry-runs the publication. Returns the
+     * transaction response, whose {@code objectChanges} hold the {@code published} package.
+     */
+    JsonNode publish(Path moveDir, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException, InterruptedException;
+
+    /**
+     * Executes {@code call}, or only dry-runs it, and returns the transaction response with
+     * effects and object changes. A Move abort or a lack of gas is reported in the effects'
+     * status; a call that cannot be submitted at all throws.
+     */
+    JsonNode execute(MoveCall call, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException, InterruptedException;
+
+    /**
+     * Executes {@code calls} as the commands of one programmable transaction, paid with the
+     * first call's gas coin, and returns its response. The calls take effect together or, if
+     * one aborts, not at all.
+     */
+    JsonNode execute(List<MoveCall> calls, long gasBudget, CallMetrics m) throws IOException, InterruptedException;
+
+    /**
+     * Runs read-only calls as the commands of one programmable transaction, without executing
+     * it ({@code sui_devInspectTransactionBlock}). Returns one {@code results[]} entry per call,
+     * in order, whose {@code returnValues} are {@code [bcsBytes, type]} pairs, or {@code error}.
+     */
+    JsonNode devInspect(List<MoveCall> calls, CallMetrics m) throws IOException, InterruptedException;
+
+    /**
+     * {@code sui_getObject} with type, owner, content and previous transaction: {@code data}, or
+     * {@code error} if missing.
+     */
+    JsonNode getObject(String objectId) throws IOException, InterruptedException;
+
+    /** {@code sui_getTransactionBlock} with effects and object changes. */
+    JsonNode getTransaction(String digest) throws IOException, InterruptedException;
+
+    /** {@code sui_multiGetObjects} with type, owner and content, one entry per ID in order. */
+    JsonNode multiGetObjects(List<String> objectIds) throws IOException, InterruptedException;
+
+    /**
+     * {@code suix_queryTransactionBlocks}: transactions calling into {@code packageId}, oldest
+     * first, starting after {@code cursor} (from the beginning if null), with object changes.
+     * The page holds {@code data}, {@code nextCursor} and {@code hasNextPage}.
+     */
+    JsonNode queryTransactions(String packageId, @Nullable String cursor, int limit)
+            throws IOException, InterruptedException;
+
+    /**
+     * {@code suix_queryEvents} for events whose type is declared in {@code module} of
+     * {@code packageId}, oldest first, starting after {@code cursor} (an event ID
+     * {@code {txDigest, eventSeq}}; from the beginning if null). The page holds {@code data},
+     * {@code nextCursor} and {@code hasNextPage}.
+     */
+    JsonNode queryEvents(String packageId, String module, @Nullable JsonNode cursor, int limit)
+            throws IOException, InterruptedException;
+
+    /** {@code sui_getNormalizedMoveFunction} */
+    JsonNode getNormalizedMoveFunction(String packageId, String module, String function)
+            throws IOException, InterruptedException;
+
+    /** The reference gas price of the current epoch. */
+    long referenceGasPrice() throws IOException, InterruptedException;
+}
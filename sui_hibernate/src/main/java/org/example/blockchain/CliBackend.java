@@ -0,0 +1,408 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.cache.ImmutableCache;
+import org.example.metrics.CallMetrics;
+import org.example.metrics.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds, publishes and executes with the {@code sui} CLI, using the active address of its
+ * client config; reads go to the fullnode over JSON-RPC. CLI commands that reach the node
+ * take a slot of the RPC client's {@link ConcurrencyLimiter}; building and signing are local.
+ * <p>
+ * Concurrent {@link #getObject} and {@link #getTransaction} calls are coalesced by a
+ * {@link ReadBatcher}: identical reads share one request, and reads arriving while another
+ * read is in flight (for up to {@link #READ_WINDOW}) are sent as one
+ * {@code sui_multiGetObjects} or {@code sui_multiGetTransactionBlocks} call. With an {@link ImmutableCache}, checkpointed
+ * transactions and normalized Move functions are read from it before the network.
+ */
+public class CliBackend implements ChainBackend {
+    private static final Logger log = LoggerFactory.getLogger(CliBackend.class);
+    /** How long a read that overlaps a running one waits for others to batch with. */
+    static final Duration READ_WINDOW = Duration.ofMillis(2);
+    /** Largest batch the multi-get methods serve. */
+    static final int MAX_READ_BATCH = 50;
+    private static final Map<String, Object> OBJECT_OPTIONS = Map.of(
+            "showType", true,
+            "showOwner", true,
+            "showContent", true,
+            "showPreviousTransaction", true
+    );
+    private static final Map<String, Object> TRANSACTION_OPTIONS = Map.of(
+            "showEffects", true,
+            "showObjectChanges", true,
+            "showEvents", true
+    );
+
+    private final String suiBinary;
+    private final String gasObjectId;
+    private final SuiRpcClient rpcClient;
+    @Nullable
+    private final ImmutableCache cache;
+    private final ReadBatcher objectReads = new ReadBatcher(READ_WINDOW, MAX_READ_BATCH,
+            this::multiGetObjects, id -> rpc().call("sui_getObject", id, OBJECT_OPTIONS));
+    private final ReadBatcher transactionReads = new ReadBatcher(READ_WINDOW, MAX_READ_BATCH,
+            digests -> rpc().call("sui_multiGetTransactionBlocks", digests, TRANSACTION_OPTIONS),
+            digest -> rpc().call("sui_getTransactionBlock", digest, TRANSACTION_OPTIONS));
+
+    /**
+     * @param suiBinary   the {@code sui} executable
+     * @param gasObjectId the coin that pays for publishing
+     */
+    public CliBackend(String suiBinary, String gasObjectId, SuiRpcClient rpcClient) {
+        this(suiBinary, gasObjectId, rpcClient, null);
+    }
+
+    /** Also answers immutable reads from {@code cache}, when given, and fills it. */
+    public CliBackend(String suiBinary, String gasObjectId, SuiRpcClient rpcClient, @Nullable ImmutableCache cache) {
+        this.suiBinary = suiBinary;
+        this.gasObjectId = gasObjectId;
+        this.rpcClient = rpcClient;
+        this.cache = cache;
+    }
+
+    public String getSuiBinary() {
+        return suiBinary;
+    }
+
+    SuiRpcClient rpc() {
+        return rpcClient;
+    }
+
+    @Override
+    public File[] build(Path moveDir) throws IOException, InterruptedException {
+        Process buildProcess = new ProcessBuilder(suiBinary, "move", "build", "--path", moveDir.toString())
+                .directory(moveDir.toFile())
+                .start();
+        StringBuilder output = new StringBuilder();
+        StringBuilder errorOutput = new StringBuilder();
+        try (BufferedReader stdOut = new BufferedReader(new InputStreamReader(buildProcess.getInputStream()));
+             BufferedReader stdErr = new BufferedReader(new InputStreamReader(buildProcess.getErrorStream()))) {
+            String line;
+            while ((line = stdOut.readLine()) != null) {
+                output.append(line).append("\n");
+            }
+            while ((line = stdErr.readLine()) != null) {
+                errorOutput.append(line).append("\n");
+            }
+        }
+        buildProcess.waitFor(30, TimeUnit.SECONDS);
+        log.debug("Build stdout:\n{}", output);
+        log.debug("Build stderr:\n{}", errorOutput);
+        if (buildProcess.exitValue() != 0) {
+            throw new RuntimeException("Move build failed with exit code " + buildProcess.exitValue() + "\nError: " + errorOutput);
+        }
+
+        // Verify bytecode directory
+        Path bytecodeDir = moveDir.resolve("build").resolve(readPackageName(moveDir)).resolve("bytecode_modules");
+        return bytecodeDir.toFile().listFiles();
+    }
+
+    @Override
+    public JsonNode publish(Path moveDir, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                suiBinary, "client", "publish",
+                moveDir.toString(),
+                "--gas", gasObjectId,
+                "--gas-budget", String.valueOf(gasBudget)
+        ));
+        if (dryRun) {
+            command.add("--dry-run");
+        }
+        command.add("--json");
+        return runCli(command, moveDir, m);
+    }
+
+    @Override
+    public JsonNode execute(MoveCall call, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException, InterruptedException {
+        List<String> command = command(call);
+        gas(command, call.gasCoin(), gasBudget);
+        if (dryRun) {
+            command.add("--dry-run");
+        }
+        command.add("--json");
+        return runCli(command, null, m);
+    }
+
+    @Override
+    public JsonNode execute(List<MoveCall> calls, long gasBudget, CallMetrics m)
+            throws IOException, InterruptedException {
+        List<String> command = command(calls);
+        gas(command, calls.get(0).gasCoin(), gasBudget);
+        command.add("--json");
+        return runCli(command, null, m);
+    }
+
+    @Override
+    public JsonNode devInspect(List<MoveCall> calls, CallMetrics m) throws IOException, InterruptedException {
+        List<String> command = command(calls);
+        command.add("--dev-inspect");
+        command.add("--json");
+        return runCli(command, null, m);
+    }
+
+    @Override
+    public JsonNode getObject(String objectId) throws IOException, InterruptedException {
+        return objectReads.get(objectId);
+    }
+
+    @Override
+    public JsonNode getTransaction(String digest) throws IOException, InterruptedException {
+        String key = "tx:" + digest;
+        JsonNode cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return cached;
+        }
+        JsonNode tx = transactionReads.get(digest);
+        // only a checkpointed transaction is final; before that its response still changes
+        if (cache != null && tx.hasNonNull("checkpoint")) {
+            cache.put(key, tx);
+        }
+        return tx;
+    }
+
+    @Override
+    public JsonNode multiGetObjects(List<String> objectIds) throws IOException, InterruptedException {
+        return rpcClient.call("sui_multiGetObjects", objectIds, OBJECT_OPTIONS);
+    }
+
+    @Override
+    public JsonNode queryTransactions(String packageId, @Nullable String cursor, int limit)
+            throws IOException, InterruptedException {
+        return rpcClient.call("suix_queryTransactionBlocks", Map.of(
+                "filter", Map.of("MoveFunction", Map.of("package", packageId)),
+                "options", TRANSACTION_OPTIONS
+        ), cursor, limit, false);
+    }
+
+    @Override
+    public JsonNode queryEvents(String packageId, String module, @Nullable JsonNode cursor, int limit)
+            throws IOException, InterruptedException {
+        return rpcClient.call("suix_queryEvents",
+                Map.of("MoveEventModule", Map.of("package", packageId, "module", module)),
+                cursor, limit, false);
+    }
+
+    @Override
+    public JsonNode getNormalizedMoveFunction(String packageId, String module, String function)
+            throws IOException, InterruptedException {
+        // a published package never changes; upgrades get a new package ID
+        String key = "fn:" + packageId + "::" + module + "::" + function;
+        JsonNode cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return cached;
+        }
+        JsonNode signature = rpcClient.call("sui_getNormalizedMoveFunction", packageId, module, function);
+        if (cache != null) {
+            cache.put(key, signature);
+        }
+        return signature;
+    }
+
+    @Override
+    public long referenceGasPrice() throws IOException, InterruptedException {
+        return rpcClient.call("suix_getReferenceGasPrice").asLong();
+    }
+
+    /** {@code sui client ptb --move-call <target> <args...> [--assign ... --transfer-objects ...]} */
+    List<String> command(MoveCall call) {
+        return command(List.of(call));
+    }
+
+    /** One {@code ptb} command running {@code calls} in order, each as its own {@code --move-call}. */
+    List<String> command(List<MoveCall> calls) {
+        List<String> command = new ArrayList<>(16 * calls.size() + 8);
+        command.add(suiBinary);
+        command.add("client");
+        command.add("ptb");
+        for (int i = 0; i < calls.size(); i++) {
+            MoveCall call = calls.get(i);
+            command.add("--move-call");
+            command.add(call.target());
+            command.addAll(call.arguments());
+            if (call.recipient() != null) {
+                String result = i == 0 ? "result" : "result" + i;
+                command.add("--assign");
+                command.add(result);
+                command.add("--transfer-objects");
+                command.add("[" + result + "]");
+                command.add(MoveArgType.ADDRESS.encode(call.recipient()));
+            }
+        }
+        return command;
+    }
+
+    /**
+     * Builds the transaction for {@code call} paid with {@code gasCoin}, or else the call's own
+     * gas coin, and returns its unsigned bytes (base64) without executing it.
+     */
+    String serialize(MoveCall call, @Nullable String gasCoin, long gasBudget, CallMetrics m)
+            throws IOException, InterruptedException {
+        return serialize(List.of(call), gasCoin, gasBudget, m);
+    }
+
+    /** Like {@link #serialize(MoveCall, String, long, CallMetrics)}, one command per call. */
+    String serialize(List<MoveCall> calls, @Nullable String gasCoin, long gasBudget, CallMetrics m)
+            throws IOException, InterruptedException {
+        List<String> command = command(calls);
+        gas(command, gasCoin != null ? gasCoin : calls.get(0).gasCoin(), gasBudget);
+        command.add("--serialize-unsigned-transaction");
+        return lastLine(runProcess(command, null, m));
+    }
+
+    private static void gas(List<String> command, @Nullable String gasCoin, long gasBudget) {
+        if (gasCoin != null) {
+            command.add("--gas-coin");
+            command.add(MoveArgType.OBJECT.encode(gasCoin));
+        }
+        command.add("--gas-budget");
+        command.add(String.valueOf(gasBudget));
+    }
+
+    /** Signs transaction bytes with the key of {@code address} from the local keystore. */
+    String sign(String address, String txBytes, CallMetrics m) throws IOException, InterruptedException {
+        return parseJson(exec(List.of(
+                suiBinary, "keytool", "sign",
+                "--address", address,
+                "--data", txBytes,
+                "--json"), null, m), m).path("suiSignature").asText();
+    }
+
+    /** Runs a {@code sui} command with {@code --json} output and parses the JSON it prints. */
+    JsonNode runCli(List<String> command, @Nullable Path workingDir, CallMetrics m)
+            throws IOException, InterruptedException {
+        return parseJson(runProcess(command, workingDir, m), m);
+    }
+
+    private static JsonNode parseJson(String output, CallMetrics m) throws IOException {
+
+        // Clean output to remove warnings before parsing JSON
+        long parseStart = System.nanoTime();
+        String raw = output.trim();
+        // Find the first '{' to start JSON
+        int jsonStart = raw.indexOf("{");
+        if (jsonStart == -1) {
+            throw new RuntimeException("No valid JSON found in command output: " + raw);
+        }
+        if (jsonStart > 0 && log.isDebugEnabled()) {
+            log.debug("Skipped CLI output before JSON: {}", raw.substring(0, jsonStart));
+        }
+        raw = raw.substring(jsonStart);
+
+        // Parse JSON output
+        JsonNode rootNode;
+        try {
+            rootNode = SuiRpcClient.MAPPER.readTree(raw);
+        } catch (JsonParseException e) {
+            throw new RuntimeException("Failed to parse JSON output: " + raw + "\nError: " + e.getMessage(), e);
+        }
+        m.record(Phase.JSON_PARSE, System.nanoTime() - parseStart);
+        return rootNode;
+    }
+
+    /**
+     * Runs a {@code sui} command that reaches the fullnode and returns its output; a non-zero
+     * exit code is an error.
+     *
+     * @throws NodeOverloadedException if the node rate-limited the command, or no call slot
+     *                                 freed up in time
+     */
+    String runProcess(List<String> command, @Nullable Path workingDir, CallMetrics m)
+            throws IOException, InterruptedException {
+        if (rpcClient == null) {
+            return exec(command, workingDir, m);
+        }
+        return rpcClient.getLimiter().run("cli", () -> exec(command, workingDir, m));
+    }
+
+    private String exec(List<String> command, @Nullable Path workingDir, CallMetrics m)
+            throws IOException, InterruptedException {
+        // Set up ProcessBuilder
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        if (workingDir != null) {
+            processBuilder.directory(workingDir.toFile());
+        }
+
+        // Redirect error stream to capture all output
+        processBuilder.redirectErrorStream(true);
+
+        // Execute the command
+        long spawnStart = System.nanoTime();
+        Process process = processBuilder.start();
+        long started = System.nanoTime();
+        m.record(Phase.PROCESS_SPAWN, started - spawnStart);
+
+        // Capture output
+        StringBuilder output = new StringBuilder();
+        StringBuilder errorOutput = new StringBuilder();
+        try (BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
+             BufferedReader stdErr = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+            String line;
+            while ((line = stdOut.readLine()) != null) {
+                output.append(line).append("\n");
+            }
+            while ((line = stdErr.readLine()) != null) {
+                errorOutput.append(line).append("\n");
+            }
+        }
+
+        // Wait for completion
+        boolean completed = process.waitFor(5, TimeUnit.MINUTES);
+        m.record(Phase.CLI_EXECUTION, System.nanoTime() - started);
+        if (!completed) {
+            process.destroy();
+            throw new RuntimeException("Move call timed out after 5 minutes");
+        }
+
+        // Check exit code
+        if (process.exitValue() != 0 && output.indexOf("429 Too Many Requests") >= 0) {
+            throw new NodeOverloadedException("Fullnode rate-limited " + command.subList(1, 3) + ": " + output);
+        }
+        if (process.exitValue() != 0) {
+            throw new RuntimeException("Move call failed with exit code " + process.exitValue() +
+                    "\nError: " + errorOutput + "\nOutput: " + output);
+        }
+        log.debug("{} printed:\n{}", command, output);
+        return output.toString();
+    }
+
+    private static String lastLine(String output) {
+        String[] lines = output.trim().split("\n");
+        return lines[lines.length - 1].trim();
+    }
+
+    /** The {@code name} key of the {@code [package]} section; other tables may have their own. */
+    static String readPackageName(Path moveDir) throws IOException {
+        boolean inPackage = false;
+        for (String line : Files.readAllLines(moveDir.resolve("Move.toml"))) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                inPackage = trimmed.equals("[package]");
+                continue;
+            }
+            int equals = trimmed.indexOf('=');
+            if (inPackage && equals > 0 && trimmed.substring(0, equals).trim().equals("name")) {
+                return trimmed.substring(equals + 1).trim().replace("\"", "");
+            }
+        }
+        throw new RuntimeException("No package name found in " + moveDir.resolve("Move.toml"));
+    }
+}
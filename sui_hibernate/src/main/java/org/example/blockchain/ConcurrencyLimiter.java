@@ -0,0 +1,215 @@
+package org.example.blockchain;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the number of concurrent requests to the fullnode and adapts the cap to what the node
+ * sustains (AIMD). One instance is shared by the JSON-RPC client and the CLI commands that
+ * reach the node, so reads and transaction submission compete for the same capacity.
+ * <p>
+ * Every completed call that kept the limit at least half used raises it by {@code 1/limit},
+ * i.e. by about one per round of calls. A call the node shed (HTTP 429 or 503, a timeout)
+ * multiplies it by {@value #BACKOFF}; so does a call slower than {@value #LATENCY_TOLERANCE}
+ * times the usual latency of its kind (plus a few milliseconds of jitter), a queue building
+ * up on the node before it starts rejecting. Latency is tracked per kind ({@code "rpc"},
+ * {@code "cli"}), as a CLI command takes far longer than an RPC. Only calls started after the
+ * last decrease can decrease the limit again, so a burst of failures sent at the old limit
+ * counts once.
+ * <p>
+ * Calls over the limit wait in FIFO order for at most {@code maxWait}, then fail with
+ * {@link NodeOverloadedException} without being sent; they are not retried here.
+ */
+public class ConcurrencyLimiter implements ConcurrencyLimiterMXBean {
+    public static final int DEFAULT_INITIAL_LIMIT = 8;
+    public static final int DEFAULT_MAX_LIMIT = 64;
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+    static final double BACKOFF = 0.75;
+    static final double LATENCY_TOLERANCE = 2.0;
+    /** Latency jitter that is never taken for congestion. */
+    static final Duration LATENCY_SLACK = Duration.ofMillis(5);
+    /** Weight of a new sample in the usual latency of its kind. */
+    private static final double BASELINE_WEIGHT = 0.05;
+
+    /** A request to the node. */
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    private final int maxLimit;
+    private final long maxWaitNanos;
+    private final double latencyTolerance;
+    private final long latencySlackNanos;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotFreed = lock.newCondition();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    // guarded by lock
+    private final Map<String, Double> baselineNanos = new HashMap<>();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long decreasedAt = System.nanoTime();
+
+    public ConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_WAIT);
+    }
+
+    public ConcurrencyLimiter(int initialLimit, int maxLimit, Duration maxWait) {
+        this(initialLimit, maxLimit, maxWait, LATENCY_TOLERANCE, LATENCY_SLACK);
+    }
+
+    /**
+     * @param latencyTolerance how many times the usual latency a call may take before it
+     *                         decreases the limit
+     * @param latencySlack     latency above that which is still taken for jitter
+     */
+    ConcurrencyLimiter(int initialLimit, int maxLimit, Duration maxWait, double latencyTolerance,
+                       Duration latencySlack) {
+        if (initialLimit < 1 || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= initial <= max, got " + initialLimit
+                    + " and " + maxLimit);
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Wait cannot be negative, got " + maxWait);
+        }
+        this.limit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.latencyTolerance = latencyTolerance;
+        this.latencySlackNanos = latencySlack.toNanos();
+    }
+
+    /**
+     * Runs {@code call} once a slot is free and adjusts the limit from its outcome.
+     *
+     * @param kind the latency class of the call, e.g. {@code "rpc"}
+     * @throws NodeOverloadedException if no slot was freed within {@code maxWait}, or the node
+     *                                 shed the call
+     */
+    public <T> T run(String kind, Call<T> call) throws IOException, InterruptedException {
+        acquire();
+        long start = System.nanoTime();
+        boolean shed = false;
+        boolean completed = false;
+        try {
+            T result = call.run();
+            completed = true;
+            return result;
+        } catch (NodeOverloadedException | HttpTimeoutException e) {
+            shed = true;
+            throw e;
+        } finally {
+            release(kind, start, shed, completed);
+        }
+    }
+
+    @Override
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Calls the node shed or answered too slowly. */
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** Calls that gave up waiting for a slot. */
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (queued == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            long remaining = maxWaitNanos;
+            queued++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        throw new NodeOverloadedException("No fullnode call slot freed within "
+                                + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms (limit " + (int) limit
+                                + ", " + queued + " waiting)");
+                    }
+                    remaining = slotFreed.awaitNanos(remaining);
+                }
+                inFlight++;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(String kind, long start, boolean shed, boolean completed) {
+        long rtt = System.nanoTime() - start;
+        lock.lock();
+        try {
+            int used = inFlight;
+            inFlight--;
+            if (shed) {
+                decrease(start);
+            } else if (completed) {
+                Double baseline = baselineNanos.get(kind);
+                baselineNanos.put(kind, baseline == null ? rtt : baseline + BASELINE_WEIGHT * (rtt - baseline));
+                if (baseline != null && rtt > latencyTolerance * baseline + latencySlackNanos) {
+                    decrease(start);
+                } else if (used * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(long start) {
+        dropped.increment();
+        if (start - decreasedAt >= 0) {
+            limit = Math.max(1, limit * BACKOFF);
+            decreasedAt = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.blockchain;
+
+/** JMX view of a {@link ConcurrencyLimiter}. */
+public interface ConcurrencyLimiterMXBean {
+    int getLimit();
+
+    int getInFlight();
+
+    int getQueued();
+
+    long getDroppedCount();
+
+    long getRejectedCount();
+}
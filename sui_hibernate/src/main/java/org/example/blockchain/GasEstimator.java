@@ -0,0 +1,100 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gas budgets learned from dry runs. The first call of a function within an argument-size
+ * class is dry-run, the observed gas plus a safety margin is cached, and later calls reuse
+ * it until the reference gas price changes.
+ */
+public class GasEstimator {
+    /** How long a fetched reference gas price is trusted; it only changes at epoch boundaries. */
+    private static final long PRICE_TTL_MILLIS = 60_000L;
+
+    private final GasPriceSource gasPriceSource;
+    private final double safetyMargin;
+    private final Map<Key, Estimate> estimates = new ConcurrentHashMap<>();
+    private volatile long referenceGasPrice;
+    private volatile long priceFetchedAt;
+
+    public GasEstimator(SuiRpcClient rpcClient, double safetyMargin) {
+        this(() -> rpcClient.call("suix_getReferenceGasPrice").asLong(), safetyMargin);
+    }
+
+    public GasEstimator(GasPriceSource gasPriceSource, double safetyMargin) {
+        if (safetyMargin < 1.0) {
+            throw new IllegalArgumentException("Safety margin must be at least 1.0, got " + safetyMargin);
+        }
+        this.gasPriceSource = gasPriceSource;
+        this.safetyMargin = safetyMargin;
+    }
+
+    /** Where the reference gas price comes from, e.g. {@link ChainBackend#referenceGasPrice}. */
+    @FunctionalInterface
+    public interface GasPriceSource {
+        long referenceGasPrice() throws IOException, InterruptedException;
+    }
+
+    /** Runs a transaction without executing it and returns the dry-run response. */
+    @FunctionalInterface
+    public interface DryRun {
+        JsonNode run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Returns the budget for {@code target} called with {@code argBytes} bytes of encoded
+     * arguments, dry-running the call only when no current estimate exists.
+     */
+    public long budget(String target, int argBytes, DryRun dryRun) throws IOException, InterruptedException {
+        long price = referenceGasPrice();
+        Key key = new Key(target, sizeClass(argBytes));
+        Estimate estimate = estimates.get(key);
+        if (estimate == null || estimate.gasPrice() != price) {
+            estimate = new Estimate(budgetFrom(dryRun.run()), price);
+            estimates.put(key, estimate);
+        }
+        return estimate.budget();
+    }
+
+    /** Budget for a dry-run response: gas charged before rebates, plus the safety margin. */
+    public long budgetFrom(JsonNode dryRunResponse) {
+        JsonNode effects = dryRunResponse.path("effects");
+        String status = effects.path("status").path("status").asText();
+        if (!"success".equals(status)) {
+            throw new RuntimeException("Dry run failed: " + effects.path("status").path("error").asText());
+        }
+        JsonNode gas = effects.path("gasUsed");
+        long observed = gas.path("computationCost").asLong() + gas.path("storageCost").asLong();
+        return (long) Math.ceil(observed * safetyMargin);
+    }
+
+    /** Drops the estimate for a call, e.g. after it ran out of gas. */
+    public void invalidate(String target, int argBytes) {
+        estimates.remove(new Key(target, sizeClass(argBytes)));
+    }
+
+    /** The current reference gas price, refreshed at most once per TTL. */
+    public long referenceGasPrice() throws IOException, InterruptedException {
+        long now = System.currentTimeMillis();
+        if (referenceGasPrice == 0 || now - priceFetchedAt > PRICE_TTL_MILLIS) {
+            referenceGasPrice = gasPriceSource.referenceGasPrice();
+            priceFetchedAt = now;
+        }
+        return referenceGasPrice;
+    }
+
+    /** Power-of-two bucket of the encoded argument size. */
+    static int sizeClass(int argBytes) {
+        return 32 - Integer.numberOfLeadingZeros(argBytes);
+    }
+
+    private record Key(String target, int sizeClass) {
+    }
+
+    private record Estimate(long budget, long gasPrice) {
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.blockchain;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Remembers the outcome of calls by idempotency key, so a call repeated with the same key
+ * (a worker re-running a job, or two workers picking up the same one) executes at most once.
+ * A repeat of a call that is still running waits for it; a repeat of one that succeeded gets
+ * its result. Failed calls are forgotten, so they can be repeated. The most recent
+ * {@code capacity} keys are kept.
+ */
+class IdempotencyLog {
+    private final Map<String, CompletableFuture<TransactionResult>> outcomes;
+
+    IdempotencyLog(int capacity) {
+        this.outcomes = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<TransactionResult>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Runs {@code call} unless a call with {@code key} already ran or is running. */
+    TransactionResult run(String key, ConcurrencyLimiter.Call<TransactionResult> call)
+            throws IOException, InterruptedException {
+        CompletableFuture<TransactionResult> mine = new CompletableFuture<>();
+        CompletableFuture<TransactionResult> earlier;
+        synchronized (this) {
+            earlier = outcomes.putIfAbsent(key, mine);
+        }
+        if (earlier != null) {
+            return await(key, earlier);
+        }
+        try {
+            TransactionResult result = call.run();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) {
+            synchronized (this) {
+                outcomes.remove(key, mine);
+            }
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Number of keys remembered. */
+    synchronized int size() {
+        return outcomes.size();
+    }
+
+    private static TransactionResult await(String key, CompletableFuture<TransactionResult> earlier)
+            throws IOException, InterruptedException {
+        try {
+            return earlier.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new IOException(io.getMessage(), io);
+            }
+            if (cause instanceof InterruptedException) {
+                throw new InterruptedException("Call " + key + " was interrupted");
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,957 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.metrics.CallMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Simulates the Move modules generated from {@code sui_box_module.move.ftl} in memory, so
+ * models can be exercised in tests and benchmarks without a node, a CLI or gas.
+ * <p>
+ * Publishing parses the package's {@code sources/*.move} for structs and function signatures.
+ * The generated functions ({@code create_registry}, {@code create}, {@code update_by_id},
+ * {@code set_<field>}, {@code delete}, {@code find_by_id}, {@code get_all}) are then executed
+ * with their Move semantics: shared registries, owned objects, dynamic fields kept out of the
+ * object's content, soft deletes aborting later updates, the module's
+ * {@code Created}/{@code Updated}/{@code Deleted} events, and object versions bumped per
+ * transaction. Gas is a flat charge per transaction and written object; a budget below
+ * it fails with {@code InsufficientGas}. Dev-inspect answers the registry queries and the
+ * {@code get_<field>}/{@code is_deleted} views.
+ * <p>
+ * All state lives in this instance and is guarded by its monitor.
+ */
+public class InMemoryBackend implements ChainBackend {
+    /** Computation charged per transaction, in MIST. */
+    public static final long COMPUTATION_COST = 1_000_000L;
+    /** Storage charged per written object, in MIST; 99% is rebated when it is rewritten. */
+    public static final long STORAGE_COST = 2_000_000L;
+    public static final long REFERENCE_GAS_PRICE = 1_000L;
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+    private static final Pattern MODULE = Pattern.compile("module\\s+(\\w+)::(\\w+)\\s*\\{");
+    private static final Pattern STRUCT = Pattern.compile("public\\s+struct\\s+(\\w+)\\s+has\\s+[\\w\\s,]+\\{([^}]*)}");
+    private static final Pattern FUNCTION = Pattern.compile(
+            "(public\\s+)?(entry\\s+)?fun\\s+(\\w+)\\s*\\(([^)]*)\\)\\s*(?::\\s*([^{]+?))?\\s*\\{");
+    private static final Pattern FIELD = Pattern.compile("(\\w+)\\s*:\\s*([^,]+)");
+
+    private final String senderAddress;
+    private final Random random = new Random();
+    private final Map<String, Map<String, Module>> packages = new HashMap<>();
+    private final Map<String, SimObject> objects = new HashMap<>();
+    private final Map<String, JsonNode> transactions = new HashMap<>();
+    /** Executed Move calls in order, for {@link #queryTransactions}. */
+    private final List<Executed> history = new ArrayList<>();
+    private final Map<String, Integer> historyIndex = new HashMap<>();
+    /** Emitted events in order, for {@link #queryEvents}, indexed by {@code txDigest#eventSeq}. */
+    private final List<JsonNode> eventLog = new ArrayList<>();
+    private final Map<String, Integer> eventIndex = new HashMap<>();
+
+    public InMemoryBackend(String senderAddress) {
+        this.senderAddress = senderAddress;
+    }
+
+    /** Checks that every module parses and returns the source files standing in for bytecode. */
+    @Override
+    public File[] build(Path moveDir) throws IOException {
+        List<Path> sources = sources(moveDir);
+        for (Path source : sources) {
+            parse(Files.readString(source), "0x0");
+        }
+        return sources.stream().map(Path::toFile).toArray(File[]::new);
+    }
+
+    @Override
+    public synchronized JsonNode publish(Path moveDir, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException {
+        String packageId = newId();
+        Map<String, Module> modules = new LinkedHashMap<>();
+        for (Path source : sources(moveDir)) {
+            Module module = parse(Files.readString(source), packageId);
+            modules.put(module.name(), module);
+        }
+        long storage = STORAGE_COST * modules.size();
+        if (COMPUTATION_COST + storage > gasBudget) {
+            return failure("InsufficientGas");
+        }
+        String digest = newDigest();
+        ObjectNode response = response(digest, "success", null, storage, 0L);
+        ObjectNode published = ((ArrayNode) response.path("objectChanges")).addObject();
+        published.put("type", "published");
+        published.put("packageId", packageId);
+        published.put("version", "1");
+        published.put("digest", digest);
+        ArrayNode names = published.putArray("modules");
+        modules.keySet().forEach(names::add);
+        if (!dryRun) {
+            packages.put(packageId, modules);
+            transactions.put(digest, response);
+        }
+        return response;
+    }
+
+    @Override
+    public synchronized JsonNode execute(MoveCall call, long gasBudget, boolean dryRun, CallMetrics m) {
+        Module module = module(call.packageId(), call.module());
+        Function function = function(module, call);
+        List<Param> params = params(function, call);
+
+        // resolve the inputs; objects are worked on as copies until the transaction commits
+        Map<String, Object> args = new HashMap<>();
+        Map<String, SimObject> written = new LinkedHashMap<>();
+        long lamport = 0;
+        for (int i = 0; i < params.size(); i++) {
+            Param param = params.get(i);
+            String token = call.arguments().get(i);
+            Object arg = argument(call, module, param, token);
+            if (!(arg instanceof SimObject object)) {
+                args.put(param.name(), arg);
+                continue;
+            }
+            String id = object.id();
+            if (object.owner() != null && !object.owner().equals(senderAddress)) {
+                throw new RuntimeException("Object " + id + " is owned by " + object.owner());
+            }
+            lamport = Math.max(lamport, object.version());
+            SimObject copy = object.copy();
+            args.put(param.name(), copy);
+            if (param.type().startsWith("&mut")) {
+                written.put(id, copy);
+            }
+        }
+        if (call.gasCoin() != null) {
+            // a gas coin is an owned object written by every transaction it pays for
+            SimObject coin = objects.get(call.gasCoin());
+            if (coin == null) {
+                coin = new SimObject(call.gasCoin(), "0x2::coin::Coin<0x2::sui::SUI>", senderAddress, 0, 0,
+                        new LinkedHashMap<>());
+            } else if (!senderAddress.equals(coin.owner())) {
+                throw new RuntimeException("Gas coin " + coin.id() + " is not owned by " + senderAddress);
+            }
+            lamport = Math.max(lamport, coin.version());
+            written.put(coin.id(), coin.copy());
+        }
+        lamport++;
+
+        // run the generated function
+        List<SimObject> created = new ArrayList<>();
+        List<Runnable> appends = new ArrayList<>();
+        List<Emitted> emitted = new ArrayList<>();
+        SimObject returned = null;
+        String abort = null;
+        switch (call.function().startsWith("set_") ? "set" : call.function()) {
+            case "create_registry" -> {
+                SimObject registry = new SimObject(newId(), call.packageId() + "::" + module.name() + "::Registry",
+                        null, lamport, lamport, new LinkedHashMap<>());
+                registry.fields().put("items", new ArrayList<String>());
+                created.add(registry);
+            }
+            case "create" -> {
+                String struct = function.returnType();
+                SimObject object = new SimObject(newId(), call.packageId() + "::" + module.name() + "::" + struct,
+                        senderAddress, lamport, 0, new LinkedHashMap<>());
+                object.fields().put("is_deleted", Boolean.FALSE);
+                for (Param field : module.structs().get(struct)) {
+                    if (args.containsKey(field.name())) {
+                        object.fields().put(field.name(), args.get(field.name()));
+                    }
+                }
+                // the other values are added as dynamic fields of the object
+                for (Param param : params) {
+                    if (isPrimitive(param.type()) && !object.fields().containsKey(param.name())) {
+                        object.dynamicFields().put(param.name(), args.get(param.name()));
+                    }
+                }
+                // the registry's vector is shared between versions; grow it only on commit
+                List<String> items = registryItems(args);
+                appends.add(() -> items.add(object.id()));
+                created.add(object);
+                returned = object;
+                emitted.add(event(module, struct + "Created", object));
+            }
+            case "update_by_id" -> {
+                SimObject object = firstObject(params, args);
+                if (Boolean.TRUE.equals(object.fields().get("is_deleted"))) {
+                    abort = "MoveAbort(MoveLocation { module: ModuleId { address: " + call.packageId()
+                            + ", name: Identifier(\"" + module.name() + "\") }, function_name: Some(\"update_by_id\") }, 0)"
+                            + " in command 0";
+                } else {
+                    for (Param param : params) {
+                        if (param.name().startsWith("new_")) {
+                            object.fields().put(param.name().substring(4), args.get(param.name()));
+                        }
+                    }
+                    emitted.add(event(module, structName(object) + "Updated", object));
+                }
+            }
+            case "set" -> {
+                SimObject object = firstObject(params, args);
+                String field = call.function().substring(4);
+                if (Boolean.TRUE.equals(object.fields().get("is_deleted"))) {
+                    abort = "MoveAbort(MoveLocation { module: ModuleId { address: " + call.packageId()
+                            + ", name: Identifier(\"" + module.name() + "\") }, function_name: Some(\""
+                            + call.function() + "\") }, 0) in command 0";
+                } else if (!object.dynamicFields().containsKey(field)) {
+                    abort = "MoveAbort(MoveLocation { module: ModuleId { address: 0x2, name: Identifier(\"dynamic_field\") },"
+                            + " function_name: Some(\"borrow_child_object_mut\") }, 1) in command 0";
+                } else {
+                    object.dynamicFields().put(field, args.get(params.get(1).name()));
+                }
+            }
+            case "delete" -> {
+                SimObject object = firstObject(params, args);
+                object.fields().put("is_deleted", Boolean.TRUE);
+                emitted.add(event(module, structName(object) + "Deleted", object));
+            }
+            case "find_by_id", "get_all" -> {
+                // read-only; their results have drop and are discarded
+            }
+            default -> throw new RuntimeException(call.target() + " is not simulated by InMemoryBackend");
+        }
+
+        if (returned != null && call.recipient() == null) {
+            throw new RuntimeException("Unused value without drop: the result of " + call.target()
+                    + " must be transferred");
+        }
+        if (returned == null && call.recipient() != null) {
+            throw new RuntimeException(call.target() + " returns nothing to transfer");
+        }
+        if (returned != null) {
+            returned = new SimObject(returned.id(), returned.type(), call.recipient(), lamport, 0, returned.fields(),
+                    returned.dynamicFields(), null);
+            created.set(created.size() - 1, returned);
+        }
+
+        long storage = STORAGE_COST * (created.size() + written.size());
+        long rebate = STORAGE_COST * 99 / 100 * written.size();
+        if (abort != null) {
+            return failure(abort);
+        }
+        if (COMPUTATION_COST + storage > gasBudget) {
+            return failure("InsufficientGas");
+        }
+
+        String digest = newDigest();
+        ObjectNode response = response(digest, "success", null, storage, rebate);
+        ObjectNode effects = (ObjectNode) response.path("effects");
+        ArrayNode changes = (ArrayNode) response.path("objectChanges");
+        for (SimObject object : created) {
+            SimObject versioned = object.at(lamport, digest);
+            effects.withArray("created").add(reference(versioned));
+            changes.add(change("created", versioned, null));
+            written.put(versioned.id(), versioned);
+        }
+        ArrayNode events = (ArrayNode) response.path("events");
+        for (Emitted event : emitted) {
+            if (event == null) {
+                continue;
+            }
+            ObjectNode node = events.addObject();
+            ObjectNode eventId = node.putObject("id");
+            eventId.put("txDigest", digest);
+            eventId.put("eventSeq", String.valueOf(events.size() - 1));
+            node.put("packageId", call.packageId());
+            node.put("transactionModule", module.name());
+            node.put("sender", senderAddress);
+            node.put("type", call.packageId() + "::" + module.name() + "::" + event.struct());
+            ObjectNode parsed = node.putObject("parsedJson");
+            event.fields().forEach((name, value) -> parsed.set(name, toJson(value)));
+            node.put("timestampMs", String.valueOf(System.currentTimeMillis()));
+        }
+        for (SimObject object : List.copyOf(written.values())) {
+            if (created.stream().anyMatch(c -> c.id().equals(object.id()))) {
+                continue;
+            }
+            SimObject versioned = object.at(lamport, digest);
+            effects.withArray("mutated").add(reference(versioned));
+            changes.add(change("mutated", versioned, object.version()));
+            written.put(versioned.id(), versioned);
+        }
+        if (!dryRun) {
+            objects.putAll(written);
+            appends.forEach(Runnable::run);
+            transactions.put(digest, response);
+            historyIndex.put(digest, history.size());
+            history.add(new Executed(call.packageId(), digest));
+            for (JsonNode event : events) {
+                eventIndex.put(eventKey(event.path("id")), eventLog.size());
+                eventLog.add(event);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Runs each call as a transaction of its own and merges them into one, charged computation
+     * once. If a call fails, the state from before the first call is restored.
+     */
+    @Override
+    public synchronized JsonNode execute(List<MoveCall> calls, long gasBudget, CallMetrics m) {
+        Map<String, SimObject> before = new HashMap<>(objects);
+        // registry vectors grow in place, so remember their lengths
+        Map<List<?>, Integer> itemsBefore = new IdentityHashMap<>();
+        for (SimObject object : objects.values()) {
+            if (object.fields().get("items") instanceof List<?> items) {
+                itemsBefore.put(items, items.size());
+            }
+        }
+        int historyBefore = history.size();
+        int eventsBefore = eventLog.size();
+        Set<String> createdIds = new HashSet<>();
+        List<JsonNode> events = new ArrayList<>();
+        long storage = 0;
+        long rebate = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            JsonNode response;
+            try {
+                response = execute(calls.get(i), gasBudget - storage, false, m);
+            } catch (RuntimeException e) {
+                restore(before, itemsBefore, historyBefore, eventsBefore);
+                throw e;
+            }
+            JsonNode status = response.path("effects").path("status");
+            if (!"success".equals(status.path("status").asText())) {
+                restore(before, itemsBefore, historyBefore, eventsBefore);
+                return failure(status.path("error").asText().replace("in command 0", "in command " + i));
+            }
+            for (JsonNode created : response.path("effects").path("created")) {
+                createdIds.add(created.path("reference").path("objectId").asText());
+            }
+            response.path("events").forEach(events::add);
+            storage += response.path("effects").path("gasUsed").path("storageCost").asLong();
+            rebate += response.path("effects").path("gasUsed").path("storageRebate").asLong();
+        }
+        forget(historyBefore, eventsBefore);
+
+        String digest = newDigest();
+        ObjectNode response = response(digest, "success", null, storage, rebate);
+        ObjectNode effects = (ObjectNode) response.path("effects");
+        ArrayNode changes = (ArrayNode) response.path("objectChanges");
+        for (SimObject object : List.copyOf(objects.values())) {
+            SimObject previous = before.get(object.id());
+            if (object == previous) {
+                continue;
+            }
+            SimObject versioned = object.at(object.version(), digest);
+            objects.put(versioned.id(), versioned);
+            if (createdIds.contains(versioned.id())) {
+                effects.withArray("created").add(reference(versioned));
+                changes.add(change("created", versioned, null));
+            } else {
+                effects.withArray("mutated").add(reference(versioned));
+                // a gas coin first seen in this batch was at version 0, as for a single call
+                changes.add(change("mutated", versioned, previous == null ? 0 : previous.version()));
+            }
+        }
+        ArrayNode merged = (ArrayNode) response.path("events");
+        for (JsonNode event : events) {
+            ObjectNode copy = event.deepCopy();
+            ObjectNode eventId = (ObjectNode) copy.path("id");
+            eventId.put("txDigest", digest);
+            eventId.put("eventSeq", String.valueOf(merged.size()));
+            merged.add(copy);
+            eventIndex.put(eventKey(eventId), eventLog.size());
+            eventLog.add(copy);
+        }
+        transactions.put(digest, response);
+        historyIndex.put(digest, history.size());
+        history.add(new Executed(calls.get(0).packageId(), digest));
+        return response;
+    }
+
+    private void restore(Map<String, SimObject> before, Map<List<?>, Integer> itemsBefore, int historyBefore,
+                         int eventsBefore) {
+        objects.clear();
+        objects.putAll(before);
+        itemsBefore.forEach((items, size) -> items.subList(size, items.size()).clear());
+        forget(historyBefore, eventsBefore);
+    }
+
+    /** Drops the transactions and events recorded since the given positions. */
+    private void forget(int historyBefore, int eventsBefore) {
+        List<Executed> executed = history.subList(historyBefore, history.size());
+        for (Executed transaction : executed) {
+            transactions.remove(transaction.digest());
+            historyIndex.remove(transaction.digest());
+        }
+        executed.clear();
+        List<JsonNode> events = eventLog.subList(eventsBefore, eventLog.size());
+        for (JsonNode event : events) {
+            eventIndex.remove(eventKey(event.path("id")));
+        }
+        events.clear();
+    }
+
+    @Override
+    public synchronized JsonNode devInspect(List<MoveCall> calls, CallMetrics m) {
+        ObjectNode result = JSON.objectNode();
+        ObjectNode effects = result.putObject("effects");
+        effects.putObject("status").put("status", "success");
+        ArrayNode results = result.putArray("results");
+        for (MoveCall call : calls) {
+            ArrayNode returns = inspect(call);
+            if (returns == null) {
+                result.remove("results");
+                result.put("error", call.target() + " is not simulated by InMemoryBackend dev-inspect");
+                break;
+            }
+            results.addObject().set("returnValues", returns);
+        }
+        return result;
+    }
+
+    /** The return values of a read-only call, or null if it is not simulated. */
+    private ArrayNode inspect(MoveCall call) {
+        Module module = module(call.packageId(), call.module());
+        Function function = function(module, call);
+        List<Param> params = params(function, call);
+        Map<String, Object> args = new HashMap<>();
+        for (int i = 0; i < params.size(); i++) {
+            args.put(params.get(i).name(), argument(call, module, params.get(i), call.arguments().get(i)));
+        }
+        ArrayNode returns = JSON.arrayNode();
+        switch (call.function()) {
+            case "size" -> returns.add(returnValue(u64(registryItems(args).size()), "u64"));
+            case "get_all" -> returns.add(returnValue(idVector(registryItems(args)), "vector<0x2::object::ID>"));
+            case "get_page" -> {
+                List<String> items = registryItems(args);
+                long start = Math.min(((BigInteger) args.get(params.get(1).name())).longValue(), items.size());
+                long limit = Math.min(((BigInteger) args.get(params.get(2).name())).longValue(), items.size() - start);
+                returns.add(returnValue(idVector(items.subList((int) start, (int) (start + limit))),
+                        "vector<0x2::object::ID>"));
+            }
+            case "find_by_id" -> returns.add(returnValue(bool(
+                    registryItems(args).contains(args.get(params.get(1).name()))), "bool"));
+            case "is_deleted" -> returns.add(returnValue(bool(
+                    Boolean.TRUE.equals(firstObject(params, args).fields().get("is_deleted"))), "bool"));
+            default -> {
+                // the generated get_<field> views
+                SimObject object = params.isEmpty() ? null
+                        : args.get(params.get(0).name()) instanceof SimObject o ? o : null;
+                String field = call.function().startsWith("get_") ? call.function().substring(4) : null;
+                Map<String, Object> values = object == null || field == null ? Map.of()
+                        : object.fields().containsKey(field) ? object.fields() : object.dynamicFields();
+                if (!values.containsKey(field)) {
+                    return null;
+                }
+                returns.add(returnValue(bcs(values.get(field), function.returnType()), function.returnType()));
+            }
+        }
+        return returns;
+    }
+
+    /** A field value of the generated structs (String, u64 or bool) in BCS. */
+    private static byte[] bcs(Object value, String moveType) {
+        return switch (moveType) {
+            case "u64" -> u64(((BigInteger) value).longValue());
+            case "bool" -> bool((Boolean) value);
+            case "String" -> {
+                byte[] utf8 = ((String) value).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length + 5);
+                uleb128(out, utf8.length);
+                out.writeBytes(utf8);
+                yield out.toByteArray();
+            }
+            default -> throw new RuntimeException("Cannot encode a " + moveType + " for dev-inspect");
+        };
+    }
+
+    private static byte[] bool(boolean value) {
+        return new byte[]{(byte) (value ? 1 : 0)};
+    }
+
+    private static ArrayNode returnValue(byte[] bcs, String type) {
+        ArrayNode value = JSON.arrayNode();
+        ArrayNode bytes = value.addArray();
+        for (byte b : bcs) {
+            bytes.add(b & 0xFF);
+        }
+        value.add(type);
+        return value;
+    }
+
+    private static byte[] u64(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (value >>> (8 * i));
+        }
+        return bytes;
+    }
+
+    private static byte[] idVector(List<String> ids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(5 + 32 * ids.size());
+        uleb128(out, ids.size());
+        for (String id : ids) {
+            out.writeBytes(HexFormat.of().parseHex(id.substring(2)));
+        }
+        return out.toByteArray();
+    }
+
+    private static void uleb128(ByteArrayOutputStream out, long length) {
+        do {
+            int b = (int) (length & 0x7F);
+            length >>>= 7;
+            out.write(length != 0 ? b | 0x80 : b);
+        } while (length != 0);
+    }
+
+    @Override
+    public synchronized JsonNode getObject(String objectId) {
+        SimObject object = objects.get(objectId);
+        ObjectNode result = JSON.objectNode();
+        if (object == null) {
+            ObjectNode error = result.putObject("error");
+            error.put("code", "notExists");
+            error.put("object_id", objectId);
+            return result;
+        }
+        ObjectNode data = result.putObject("data");
+        data.put("objectId", object.id());
+        data.put("version", String.valueOf(object.version()));
+        data.put("digest", object.digest());
+        data.put("type", object.type());
+        data.set("owner", owner(object));
+        data.put("previousTransaction", object.digest());
+        ObjectNode content = data.putObject("content");
+        content.put("dataType", "moveObject");
+        content.put("type", object.type());
+        content.put("hasPublicTransfer", object.owner() != null);
+        ObjectNode fields = content.putObject("fields");
+        fields.putObject("id").put("id", object.id());
+        object.fields().forEach((name, value) -> fields.set(name, toJson(value)));
+        return result;
+    }
+
+    @Override
+    public synchronized JsonNode multiGetObjects(List<String> objectIds) {
+        ArrayNode result = JSON.arrayNode();
+        objectIds.forEach(id -> result.add(getObject(id)));
+        return result;
+    }
+
+    @Override
+    public synchronized JsonNode queryTransactions(String packageId, String cursor, int limit) {
+        int start = 0;
+        if (cursor != null) {
+            Integer position = historyIndex.get(cursor);
+            if (position == null) {
+                throw new RuntimeException("Could not find the referenced transaction " + cursor);
+            }
+            start = position + 1;
+        }
+        ObjectNode page = JSON.objectNode();
+        ArrayNode data = page.putArray("data");
+        String next = cursor;
+        boolean more = false;
+        for (int i = start; i < history.size(); i++) {
+            Executed executed = history.get(i);
+            if (!executed.packageId().equals(packageId)) {
+                continue;
+            }
+            if (data.size() == limit) {
+                more = true;
+                break;
+            }
+            data.add(transactions.get(executed.digest()));
+            next = executed.digest();
+        }
+        if (next == null) {
+            page.putNull("nextCursor");
+        } else {
+            page.put("nextCursor", next);
+        }
+        page.put("hasNextPage", more);
+        return page;
+    }
+
+    @Override
+    public synchronized JsonNode queryEvents(String packageId, String module, JsonNode cursor, int limit) {
+        int start = 0;
+        if (cursor != null && !cursor.isNull()) {
+            Integer position = eventIndex.get(eventKey(cursor));
+            if (position == null) {
+                throw new RuntimeException("Could not find the referenced event " + cursor);
+            }
+            start = position + 1;
+        }
+        String prefix = packageId + "::" + module + "::";
+        ObjectNode page = JSON.objectNode();
+        ArrayNode data = page.putArray("data");
+        JsonNode next = cursor;
+        boolean more = false;
+        for (int i = start; i < eventLog.size(); i++) {
+            JsonNode event = eventLog.get(i);
+            if (!event.path("type").asText().startsWith(prefix)) {
+                continue;
+            }
+            if (data.size() == limit) {
+                more = true;
+                break;
+            }
+            data.add(event);
+            next = event.path("id");
+        }
+        page.set("nextCursor", next == null ? JSON.nullNode() : next);
+        page.put("hasNextPage", more);
+        return page;
+    }
+
+    private static String eventKey(JsonNode id) {
+        return id.path("txDigest").asText() + "#" + id.path("eventSeq").asText();
+    }
+
+    @Override
+    public synchronized JsonNode getTransaction(String digest) {
+        JsonNode tx = transactions.get(digest);
+        if (tx == null) {
+            throw new RuntimeException("Could not find the referenced transaction " + digest);
+        }
+        return tx;
+    }
+
+    @Override
+    public synchronized JsonNode getNormalizedMoveFunction(String packageId, String module, String function) {
+        Module m = module(packageId, module);
+        Function f = m.functions().get(function);
+        if (f == null) {
+            throw new RuntimeException("No function was found with function name " + function);
+        }
+        ObjectNode signature = JSON.objectNode();
+        signature.put("visibility", f.isPublic() ? "Public" : "Private");
+        signature.put("isEntry", f.isEntry());
+        signature.putArray("typeParameters");
+        ArrayNode parameters = signature.putArray("parameters");
+        for (Param param : f.params()) {
+            parameters.add(normalize(param.type(), packageId, m));
+        }
+        ArrayNode returns = signature.putArray("return");
+        if (f.returnType() != null) {
+            returns.add(normalize(f.returnType(), packageId, m));
+        }
+        return signature;
+    }
+
+    @Override
+    public long referenceGasPrice() {
+        return REFERENCE_GAS_PRICE;
+    }
+
+    /** Number of live objects, registries included. */
+    public synchronized int objectCount() {
+        return objects.size();
+    }
+
+    private Module module(String packageId, String module) {
+        Map<String, Module> modules = packages.get(packageId);
+        if (modules == null) {
+            throw new RuntimeException("Package " + packageId + " does not exist");
+        }
+        Module m = modules.get(module);
+        if (m == null) {
+            throw new RuntimeException("Module " + module + " not found in package " + packageId);
+        }
+        return m;
+    }
+
+    /**
+     * The event struct {@code eventStruct} of the module carrying the object's ID and values,
+     * or null if the module declares no such event.
+     */
+    private static Emitted event(Module module, String eventStruct, SimObject object) {
+        List<Param> eventFields = module.structs().get(eventStruct);
+        if (eventFields == null) {
+            return null;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Param field : eventFields) {
+            values.put(field.name(), field.name().equals("object_id") ? object.id() : object.fields().get(field.name()));
+        }
+        return new Emitted(eventStruct, values);
+    }
+
+    private static String structName(SimObject object) {
+        return object.type().substring(object.type().lastIndexOf("::") + 2);
+    }
+
+    private static Function function(Module module, MoveCall call) {
+        Function function = module.functions().get(call.function());
+        if (function == null) {
+            throw new RuntimeException("Function not found: " + call.target());
+        }
+        if (!function.isPublic() && !function.isEntry()) {
+            throw new RuntimeException(call.target() + " is private");
+        }
+        return function;
+    }
+
+    /** The parameters the caller passes, i.e. without the trailing {@code TxContext}. */
+    private static List<Param> params(Function function, MoveCall call) {
+        List<Param> params = function.params().stream().filter(p -> !p.type().endsWith("TxContext")).toList();
+        if (params.size() != call.arguments().size()) {
+            throw new RuntimeException(call.target() + " takes " + params.size() + " arguments, got "
+                    + call.arguments().size());
+        }
+        return params;
+    }
+
+    /** The decoded primitive, or the live object of the expected type, passed as {@code token}. */
+    private Object argument(MoveCall call, Module module, Param param, String token) {
+        if (isPrimitive(param.type())) {
+            return MoveArgType.fromNormalized(normalize(param.type(), call.packageId(), module)).decode(token);
+        }
+        String id = (String) MoveArgType.OBJECT.decode(token);
+        SimObject object = objects.get(id);
+        if (object == null) {
+            throw new RuntimeException("Object " + id + " does not exist");
+        }
+        String expected = call.packageId() + "::" + module.name() + "::" + param.type().replace("&mut ", "")
+                .replace("&", "").trim();
+        if (!object.type().equals(expected)) {
+            throw new RuntimeException("Object " + id + " is a " + object.type() + ", expected " + expected);
+        }
+        return object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> registryItems(Map<String, Object> args) {
+        for (Object arg : args.values()) {
+            if (arg instanceof SimObject object && object.type().endsWith("::Registry")) {
+                return (List<String>) object.fields().get("items");
+            }
+        }
+        throw new RuntimeException("create needs the module's Registry");
+    }
+
+    private static SimObject firstObject(List<Param> params, Map<String, Object> args) {
+        return (SimObject) args.get(params.get(0).name());
+    }
+
+    private ObjectNode failure(String error) {
+        return response(newDigest(), "failure", error, 0L, 0L);
+    }
+
+    private ObjectNode response(String digest, String status, String error, long storage, long rebate) {
+        ObjectNode response = JSON.objectNode();
+        response.put("digest", digest);
+        ObjectNode effects = response.putObject("effects");
+        effects.put("messageVersion", "v1");
+        ObjectNode statusNode = effects.putObject("status");
+        statusNode.put("status", status);
+        if (error != null) {
+            statusNode.put("error", error);
+        }
+        ObjectNode gas = effects.putObject("gasUsed");
+        gas.put("computationCost", String.valueOf(COMPUTATION_COST));
+        gas.put("storageCost", String.valueOf(storage));
+        gas.put("storageRebate", String.valueOf(rebate));
+        gas.put("nonRefundableStorageFee", "0");
+        effects.put("transactionDigest", digest);
+        response.putArray("objectChanges");
+        response.putArray("events");
+        response.put("confirmedLocalExecution", true);
+        return response;
+    }
+
+    private ObjectNode change(String type, SimObject object, Long previousVersion) {
+        ObjectNode change = JSON.objectNode();
+        change.put("type", type);
+        change.put("sender", senderAddress);
+        change.set("owner", owner(object));
+        change.put("objectType", object.type());
+        change.put("objectId", object.id());
+        change.put("version", String.valueOf(object.version()));
+        if (previousVersion != null) {
+            change.put("previousVersion", String.valueOf(previousVersion));
+        }
+        change.put("digest", object.digest());
+        return change;
+    }
+
+    private static ObjectNode reference(SimObject object) {
+        ObjectNode ref = JSON.objectNode();
+        ref.set("owner", owner(object));
+        ObjectNode reference = ref.putObject("reference");
+        reference.put("objectId", object.id());
+        reference.put("version", object.version());
+        reference.put("digest", object.digest());
+        return ref;
+    }
+
+    private static ObjectNode owner(SimObject object) {
+        ObjectNode owner = JSON.objectNode();
+        if (object.owner() == null) {
+            owner.putObject("Shared").put("initial_shared_version", object.initialSharedVersion());
+        } else {
+            owner.put("AddressOwner", object.owner());
+        }
+        return owner;
+    }
+
+    private static JsonNode toJson(Object value) {
+        if (value instanceof Boolean b) {
+            return JSON.booleanNode(b);
+        }
+        if (value instanceof List<?> list) {
+            ArrayNode array = JSON.arrayNode();
+            list.forEach(item -> array.add(toJson(item)));
+            return array;
+        }
+        // integers of every width, strings and IDs are JSON strings
+        return JSON.textNode(String.valueOf(value));
+    }
+
+    private static boolean isPrimitive(String type) {
+        return !type.startsWith("&") && (type.matches("u\\d+|bool|address|String|ID"));
+    }
+
+    /** The {@code sui_getNormalizedMoveFunction} form of a source-level type. */
+    private static JsonNode normalize(String type, String packageId, Module module) {
+        type = type.trim();
+        if (type.startsWith("&mut ")) {
+            return JSON.objectNode().set("MutableReference", normalize(type.substring(5), packageId, module));
+        }
+        if (type.startsWith("&")) {
+            return JSON.objectNode().set("Reference", normalize(type.substring(1), packageId, module));
+        }
+        if (type.startsWith("vector<") && type.endsWith(">")) {
+            return JSON.objectNode().set("Vector", normalize(type.substring(7, type.length() - 1), packageId, module));
+        }
+        return switch (type) {
+            case "u8", "u16", "u32", "u64", "u128", "u256" -> JSON.textNode(type.toUpperCase(Locale.ROOT));
+            case "bool" -> JSON.textNode("Bool");
+            case "address" -> JSON.textNode("Address");
+            case "String" -> struct("0x1", "string", "String");
+            case "ID" -> struct("0x2", "object", "ID");
+            case "UID" -> struct("0x2", "object", "UID");
+            case "TxContext" -> struct("0x2", "tx_context", "TxContext");
+            default -> struct(packageId, module.name(), type);
+        };
+    }
+
+    private static ObjectNode struct(String address, String module, String name) {
+        ObjectNode node = JSON.objectNode();
+        ObjectNode struct = node.putObject("Struct");
+        struct.put("address", address);
+        struct.put("module", module);
+        struct.put("name", name);
+        struct.putArray("typeArguments");
+        return node;
+    }
+
+    private static List<Path> sources(Path moveDir) throws IOException {
+        Path dir = moveDir.resolve("sources");
+        if (!Files.isDirectory(dir)) {
+            throw new RuntimeException("No sources directory in " + moveDir);
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> sources = files.filter(f -> f.toString().endsWith(".move")).sorted().toList();
+            if (sources.isEmpty()) {
+                throw new RuntimeException("No Move sources in " + dir);
+            }
+            return sources;
+        }
+    }
+
+    /** Reads the structs and function signatures of one module. */
+    static Module parse(String source, String packageId) {
+        // comments may contain parentheses and braces
+        String code = source.replaceAll("//[^\n]*", "");
+        Matcher header = MODULE.matcher(code);
+        if (!header.find()) {
+            throw new RuntimeException("No module declaration found");
+        }
+        Map<String, List<Param>> structs = new LinkedHashMap<>();
+        Matcher struct = STRUCT.matcher(code);
+        while (struct.find()) {
+            structs.put(struct.group(1), params(struct.group(2)));
+        }
+        Map<String, Function> functions = new LinkedHashMap<>();
+        Matcher function = FUNCTION.matcher(code);
+        while (function.find()) {
+            String returnType = function.group(5) != null ? function.group(5).trim() : null;
+            functions.put(function.group(3), new Function(function.group(3), function.group(1) != null,
+                    function.group(2) != null, params(function.group(4)), returnType));
+        }
+        return new Module(header.group(2), structs, functions);
+    }
+
+    private static List<Param> params(String list) {
+        List<Param> params = new ArrayList<>();
+        Matcher field = FIELD.matcher(list);
+        while (field.find()) {
+            params.add(new Param(field.group(1), field.group(2).trim()));
+        }
+        return params;
+    }
+
+    private String newId() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return "0x" + String.format("%064x", new BigInteger(1, bytes));
+    }
+
+    /** A random base58 digest, as Sui prints transaction digests. */
+    private String newDigest() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String alphabet = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+        StringBuilder digest = new StringBuilder();
+        BigInteger value = new BigInteger(1, bytes);
+        BigInteger base = BigInteger.valueOf(58);
+        while (value.signum() > 0) {
+            BigInteger[] qr = value.divideAndRemainder(base);
+            digest.append(alphabet.charAt(qr[1].intValue()));
+            value = qr[0];
+        }
+        return digest.reverse().toString();
+    }
+
+    record Module(String name, Map<String, List<Param>> structs, Map<String, Function> functions) {
+    }
+
+    record Function(String name, boolean isPublic, boolean isEntry, List<Param> params, String returnType) {
+    }
+
+    record Param(String name, String type) {
+    }
+
+    private record Executed(String packageId, String digest) {
+    }
+
+    private record Emitted(String struct, Map<String, Object> fields) {
+    }
+
+    /**
+     * An object's state at one version; {@code owner} is null for shared objects. Dynamic
+     * fields are kept apart from {@code fields}, as they are not part of the object's content.
+     */
+    private record SimObject(String id, String type, String owner, long version, long initialSharedVersion,
+                             Map<String, Object> fields, Map<String, Object> dynamicFields, String digest) {
+
+        SimObject(String id, String type, String owner, long version, long initialSharedVersion,
+                  Map<String, Object> fields) {
+            this(id, type, owner, version, initialSharedVersion, fields, new LinkedHashMap<>(), null);
+        }
+
+        SimObject copy() {
+            return new SimObject(id, type, owner, version, initialSharedVersion, new LinkedHashMap<>(fields),
+                    new LinkedHashMap<>(dynamicFields), digest);
+        }
+
+        SimObject at(long newVersion, String txDigest) {
+            return new SimObject(id, type, owner, newVersion, initialSharedVersion, fields, dynamicFields, txDigest);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.cache.ImmutableCache;
+import org.example.metrics.CallMetrics;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes transactions through the fullnode's JSON-RPC API ({@code sui_dryRunTransactionBlock}
+ * and {@code sui_executeTransactionBlock}) instead of letting the CLI submit them.
+ * <p>
+ * sui-box has no transaction serializer or keystore of its own, so the CLI still builds the
+ * unsigned transaction bytes and signs them with the sender's key; compiling also stays with
+ * the CLI. Dry runs need no signature and cost one CLI invocation less.
+ */
+public class JsonRpcBackend extends CliBackend {
+    private final String senderAddress;
+    private final String gasObjectId;
+
+    public JsonRpcBackend(String suiBinary, String senderAddress, String gasObjectId, SuiRpcClient rpcClient) {
+        this(suiBinary, senderAddress, gasObjectId, rpcClient, null);
+    }
+
+    public JsonRpcBackend(String suiBinary, String senderAddress, String gasObjectId, SuiRpcClient rpcClient,
+                          @Nullable ImmutableCache cache) {
+        super(suiBinary, gasObjectId, rpcClient, cache);
+        this.senderAddress = senderAddress;
+        this.gasObjectId = gasObjectId;
+    }
+
+    @Override
+    public JsonNode publish(Path moveDir, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                getSuiBinary(), "client", "publish",
+                moveDir.toString(),
+                "--gas", gasObjectId,
+                "--gas-budget", String.valueOf(gasBudget),
+                "--serialize-unsigned-transaction"
+        ));
+        String output = runProcess(command, moveDir, m).trim();
+        return submit(output.substring(output.lastIndexOf('\n') + 1).trim(), dryRun, m);
+    }
+
+    @Override
+    public JsonNode execute(MoveCall call, long gasBudget, boolean dryRun, CallMetrics m)
+            throws IOException, InterruptedException {
+        return submit(serialize(call, null, gasBudget, m), dryRun, m);
+    }
+
+    @Override
+    public JsonNode execute(List<MoveCall> calls, long gasBudget, CallMetrics m)
+            throws IOException, InterruptedException {
+        return submit(serialize(calls, null, gasBudget, m), false, m);
+    }
+
+    private JsonNode submit(String txBytes, boolean dryRun, CallMetrics m) throws IOException, InterruptedException {
+        if (dryRun) {
+            return rpc().call("sui_dryRunTransactionBlock", txBytes);
+        }
+        String signature = sign(senderAddress, txBytes, m);
+        return rpc().call("sui_executeTransactionBlock", txBytes, List.of(signature), Map.of(
+                "showEffects", true,
+                "showObjectChanges", true,
+                "showEvents", true
+        ), "WaitForLocalExecution");
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigInteger;
+
+/**
+ * Parameter kinds of a Move function as reported by {@code sui_getNormalizedMoveFunction},
+ * each knowing how to encode a Java value as a {@code sui client ptb} argument.
+ */
+public enum MoveArgType {
+    U8(8), U16(16), U32(32), U64(64), U128(128), U256(256),
+    BOOL(0),
+    /** {@code address} and {@code 0x2::object::ID}, passed as {@code @0x...} */
+    ADDRESS(0),
+    /** {@code 0x1::string::String} */
+    STRING(0),
+    /** an object passed by value or reference, identified by its ID */
+    OBJECT(0);
+
+    private final int bits;
+
+    MoveArgType(int bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Encodes {@code value} for the command line, rejecting values that do not fit this type.
+     */
+    public String encode(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException(this + " argument cannot be null");
+        }
+        switch (this) {
+            case BOOL -> {
+                if (value instanceof Boolean b) {
+                    return b ? "true" : "false";
+                }
+            }
+            case STRING -> {
+                if (value instanceof String s) {
+                    // Strings are quoted for PTB
+                    return s.indexOf('\'') < 0 ? "'" + s + "'" : "\"" + s + "\"";
+                }
+            }
+            case ADDRESS, OBJECT -> {
+                if (value instanceof String s && s.startsWith("0x")) {
+                    return "@" + s;
+                }
+                if (value instanceof ObjectId id) {
+                    return id.toArgument();
+                }
+            }
+            default -> {
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    long l = ((Number) value).longValue();
+                    if (l < 0 || (bits < 64 && l >>> bits != 0)) {
+                        throw new IllegalArgumentException(value + " does not fit in " + this);
+                    }
+                    return Long.toString(l);
+                }
+                if (value instanceof BigInteger big) {
+                    if (big.signum() < 0 || big.bitLength() > bits) {
+                        throw new IllegalArgumentException(value + " does not fit in " + this);
+                    }
+                    return big.toString();
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported value for " + this + ": " + value.getClass().getName());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode}, for backends that interpret arguments
+     * themselves. Integers decode to {@link BigInteger}, addresses and objects to their
+     * {@code 0x...} ID.
+     */
+    public Object decode(String token) {
+        switch (this) {
+            case BOOL -> {
+                if (token.equals("true") || token.equals("false")) {
+                    return Boolean.valueOf(token);
+                }
+            }
+            case STRING -> {
+                if (token.length() >= 2 && (token.charAt(0) == '\'' || token.charAt(0) == '"')
+                        && token.charAt(token.length() - 1) == token.charAt(0)) {
+                    return token.substring(1, token.length() - 1);
+                }
+            }
+            case ADDRESS, OBJECT -> {
+                if (token.startsWith("@0x")) {
+                    return token.substring(1);
+                }
+            }
+            default -> {
+                try {
+                    BigInteger value = new BigInteger(token);
+                    if (value.signum() >= 0 && value.bitLength() <= bits) {
+                        return value;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // reported below
+                }
+            }
+        }
+        throw new IllegalArgumentException("Not a " + this + " argument: " + token);
+    }
+
+    /**
+     * Maps a normalized Move type to its argument kind, or returns {@code null} for the
+     * {@code TxContext} parameter which the runtime supplies.
+     *
+     * @throws IllegalArgumentException for types that cannot be passed from Java
+     */
+    public static MoveArgType fromNormalized(JsonNode type) {
+        if (type.isTextual()) {
+            return switch (type.asText()) {
+                case "U8" -> U8;
+                case "U16" -> U16;
+                case "U32" -> U32;
+                case "U64" -> U64;
+                case "U128" -> U128;
+                case "U256" -> U256;
+                case "Bool" -> BOOL;
+                case "Address" -> ADDRESS;
+                default -> throw new IllegalArgumentException("Unsupported Move type: " + type);
+            };
+        }
+        boolean reference = type.has("Reference") || type.has("MutableReference");
+        JsonNode struct = reference
+                ? type.path(type.has("Reference") ? "Reference" : "MutableReference").path("Struct")
+                : type.path("Struct");
+        if (struct.isMissingNode()) {
+            throw new IllegalArgumentException("Unsupported Move type: " + type);
+        }
+        String name = struct.path("module").asText() + "::" + struct.path("name").asText();
+        if (name.equals("tx_context::TxContext")) {
+            return null;
+        }
+        if (!reference && name.equals("string::String")) {
+            return STRING;
+        }
+        if (!reference && name.equals("object::ID")) {
+            return ADDRESS;
+        }
+        return OBJECT;
+    }
+}
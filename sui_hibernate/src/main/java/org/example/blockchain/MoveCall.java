@@ -0,0 +1,39 @@
+package org.example.blockchain;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * A Move function call ready for a {@link ChainBackend}: the target plus its arguments,
+ * already encoded as {@code sui client ptb} tokens by {@link MoveArgType#encode}.
+ *
+ * @param recipient if set, the call's return value is transferred to this address
+ * @param gasCoin   if set, the coin that pays for the call; otherwise the backend picks one
+ */
+public record MoveCall(String packageId, String module, String function, List<String> arguments,
+                       @Nullable String recipient, @Nullable String gasCoin) {
+
+    public MoveCall(String packageId, String module, String function, List<String> arguments,
+                    @Nullable String recipient) {
+        this(packageId, module, function, arguments, recipient, null);
+    }
+
+    /** The same call, paid with {@code gasCoin}. */
+    public MoveCall withGasCoin(String gasCoin) {
+        return new MoveCall(packageId, module, function, arguments, recipient, gasCoin);
+    }
+
+    /** {@code packageId::module::function} */
+    public String target() {
+        return packageId + "::" + module + "::" + function;
+    }
+
+    /** Total length of the encoded arguments, which the gas estimates are bucketed by. */
+    public int argBytes() {
+        int argBytes = 0;
+        for (String argument : arguments) {
+            argBytes += argument.length();
+        }
+        return argBytes;
+    }
+}
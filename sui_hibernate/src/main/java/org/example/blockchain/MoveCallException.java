@@ -0,0 +1,164 @@
+package org.example.blockchain;
+
+import javax.annotation.Nullable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A Move call that was rejected or failed, classified by {@link Kind}. Transient kinds did not
+ * execute anything (or only charged gas, leaving all objects unchanged), so the call can be
+ * submitted again; {@link SuiContractManager} does that by itself under its {@link RetryPolicy}.
+ */
+public class MoveCallException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private static final Pattern ABORT_MODULE = Pattern.compile("name: Identifier\\(\"([^\"]+)\"\\)");
+    private static final Pattern ABORT_FUNCTION = Pattern.compile("function_name: Some\\(\"([^\"]+)\"\\)");
+    private static final Pattern ABORT_CODE = Pattern.compile("},\\s*(\\d+)\\)");
+
+    public enum Kind {
+        /** An input object was modified since the transaction was built and its version is gone. */
+        STALE_OBJECT(true),
+        /** An owned input object is reserved by another transaction that is still in flight. */
+        OBJECT_LOCKED(true),
+        /** Conflicting transactions were signed with an owned object; it stays locked until the epoch ends. */
+        OBJECT_EQUIVOCATED(false),
+        /** Execution was cancelled because a shared object had too many transactions queued. */
+        CONGESTION(true),
+        /** The gas budget or the gas coin's balance was too small. */
+        INSUFFICIENT_GAS(false),
+        /** The Move code aborted; see {@link #getAbortCode()}. */
+        MOVE_ABORT(false),
+        OTHER(false);
+
+        private final boolean transientFailure;
+
+        Kind(boolean transientFailure) {
+            this.transientFailure = transientFailure;
+        }
+
+        /** Whether submitting the call again, with fresh object versions, may succeed. */
+        public boolean isTransient() {
+            return transientFailure;
+        }
+    }
+
+    private final Kind kind;
+    private final String target;
+    @Nullable
+    private final String digest;
+    @Nullable
+    private final Long abortCode;
+    @Nullable
+    private final String abortLocation;
+
+    private MoveCallException(Kind kind, String target, String message, @Nullable String digest,
+                              @Nullable Long abortCode, @Nullable String abortLocation, @Nullable Throwable cause) {
+        super(message, cause);
+        this.kind = kind;
+        this.target = target;
+        this.digest = digest;
+        this.abortCode = abortCode;
+        this.abortLocation = abortLocation;
+    }
+
+    /**
+     * The failure of a transaction that was executed, from the error in its effects' status.
+     *
+     * @param output the whole response, appended to the message
+     */
+    static MoveCallException executed(String target, String error, @Nullable String digest, Object output) {
+        return of(classify(error), target, "Move call failed: " + error + "\nOutput: " + output, error, digest, null);
+    }
+
+    /**
+     * Classifies a call that could not be submitted, e.g. because validators rejected one of
+     * its inputs. Returns null if {@code e}'s message names no known failure.
+     */
+    @Nullable
+    static MoveCallException rejected(String target, RuntimeException e) {
+        if (e instanceof MoveCallException classified) {
+            return classified;
+        }
+        String message = String.valueOf(e.getMessage());
+        Kind kind = classify(message);
+        if (kind == Kind.OTHER) {
+            return null;
+        }
+        return of(kind, target, target + " was rejected (" + kind + "): " + message, message, null, e);
+    }
+
+    private static MoveCallException of(Kind kind, String target, String message, String error,
+                                        @Nullable String digest, @Nullable Throwable cause) {
+        Long code = null;
+        String location = null;
+        int abort = error.indexOf("MoveAbort(");
+        if (kind == Kind.MOVE_ABORT && abort >= 0) {
+            String rest = error.substring(abort);
+            Matcher codeMatcher = ABORT_CODE.matcher(rest);
+            if (codeMatcher.find()) {
+                code = Long.parseLong(codeMatcher.group(1));
+            }
+            Matcher module = ABORT_MODULE.matcher(rest);
+            if (module.find()) {
+                Matcher function = ABORT_FUNCTION.matcher(rest);
+                location = function.find() ? module.group(1) + "::" + function.group(1) : module.group(1);
+            }
+        }
+        return new MoveCallException(kind, target, message, digest, code, location, cause);
+    }
+
+    /** The kind of failure named in an effects error or a rejection message. */
+    static Kind classify(String error) {
+        if (error.contains("MoveAbort")) {
+            return Kind.MOVE_ABORT;
+        }
+        if (error.contains("InsufficientGas") || error.contains("GasBalanceTooLow")
+                || error.contains("InsufficientCoinBalance")) {
+            return Kind.INSUFFICIENT_GAS;
+        }
+        if (error.contains("SharedObjectCongestion") || error.contains("TooManyTransactionsPendingConsensus")) {
+            return Kind.CONGESTION;
+        }
+        if (error.contains("ObjectVersionUnavailableForConsumption") || error.contains("not available for consumption")) {
+            return Kind.STALE_OBJECT;
+        }
+        if (error.contains("equivocated")) {
+            return Kind.OBJECT_EQUIVOCATED;
+        }
+        if (error.contains("ObjectLockConflict") || error.contains("reserved for another transaction")) {
+            return Kind.OBJECT_LOCKED;
+        }
+        return Kind.OTHER;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isTransient() {
+        return kind.isTransient();
+    }
+
+    /** {@code packageId::module::function} of the failed call. */
+    public String getTarget() {
+        return target;
+    }
+
+    /** The digest of the failed transaction, or null if it was never executed. */
+    @Nullable
+    public String getDigest() {
+        return digest;
+    }
+
+    /** The abort code of a {@link Kind#MOVE_ABORT}, e.g. a module's {@code E...} constant. */
+    @Nullable
+    public Long getAbortCode() {
+        return abortCode;
+    }
+
+    /** {@code module::function} (or just the module) that aborted, if reported. */
+    @Nullable
+    public String getAbortLocation() {
+        return abortLocation;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.blockchain;
+
+/**
+ * The fullnode shed the request (HTTP 429 or 503, or a timeout), or no call slot of the
+ * {@link ConcurrencyLimiter} became free in time. The request was not processed and may be
+ * sent again later.
+ */
+public class NodeOverloadedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public NodeOverloadedException(String message) {
+        super(message);
+    }
+
+    public NodeOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.blockchain;
+
+/**
+ * How a transaction uses one of its input objects. An owned object is locked by every
+ * transaction that takes it, by reference or by value, so two transactions on it must run one
+ * after the other. A shared object is sequenced by consensus: readers never conflict, and
+ * writers only contend for the object's place in the order.
+ */
+public enum ObjectAccess {
+    OWNED_READ(false, false),
+    OWNED_WRITE(false, true),
+    SHARED_READ(true, false),
+    SHARED_WRITE(true, true);
+
+    private final boolean shared;
+    private final boolean mutable;
+
+    ObjectAccess(boolean shared, boolean mutable) {
+        this.shared = shared;
+        this.mutable = mutable;
+    }
+
+    public static ObjectAccess of(boolean shared, boolean mutable) {
+        if (shared) {
+            return mutable ? SHARED_WRITE : SHARED_READ;
+        }
+        return mutable ? OWNED_WRITE : OWNED_READ;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public boolean isMutable() {
+        return mutable;
+    }
+
+    /** Whether no other transaction may use the object at the same time. */
+    public boolean isExclusive() {
+        return !shared;
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.blockchain;
+
+import javax.annotation.Nullable;
+
+/**
+ * A 32-byte Sui object ID or address as four big-endian longs: 32 bytes of payload instead of
+ * the 66-character {@code 0x…} string, with equality and hashing on the longs. Parsing accepts
+ * the short forms Sui prints for system objects ({@code 0x2}) and pads them; {@link #toString()}
+ * always gives the full 64-digit lower-case form.
+ */
+public record ObjectId(long w0, long w1, long w2, long w3) implements Comparable<ObjectId> {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Parses {@code 0x} followed by 1 to 64 hex digits.
+     *
+     * @throws IllegalArgumentException if {@code id} is not of that form
+     */
+    public static ObjectId parse(CharSequence id) {
+        ObjectId parsed = tryParse(id);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Not an object ID: " + id);
+        }
+        return parsed;
+    }
+
+    /** Like {@link #parse}, returning null instead of throwing. */
+    @Nullable
+    public static ObjectId tryParse(@Nullable CharSequence id) {
+        if (id == null || id.length() < 3 || id.length() > 66 || id.charAt(0) != '0'
+                || (id.charAt(1) != 'x' && id.charAt(1) != 'X')) {
+            return null;
+        }
+        long[] words = new long[4];
+        // the last digit goes into the lowest nibble of w3
+        for (int i = id.length() - 1, nibble = 0; i >= 2; i--, nibble++) {
+            int digit = Character.digit(id.charAt(i), 16);
+            if (digit < 0) {
+                return null;
+            }
+            words[3 - nibble / 16] |= (long) digit << (4 * (nibble % 16));
+        }
+        return new ObjectId(words[0], words[1], words[2], words[3]);
+    }
+
+    /** Reads 32 big-endian bytes, e.g. from BCS. */
+    public static ObjectId of(byte[] bytes, int offset) {
+        if (offset < 0 || bytes.length - offset < 32) {
+            throw new IllegalArgumentException("An object ID takes 32 bytes");
+        }
+        return new ObjectId(word(bytes, offset), word(bytes, offset + 8), word(bytes, offset + 16),
+                word(bytes, offset + 24));
+    }
+
+    /** The 32 big-endian bytes. */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[32];
+        long[] words = {w0, w1, w2, w3};
+        for (int i = 0; i < 32; i++) {
+            bytes[i] = (byte) (words[i / 8] >>> (56 - 8 * (i % 8)));
+        }
+        return bytes;
+    }
+
+    /** {@code 0x} and 64 lower-case hex digits. */
+    @Override
+    public String toString() {
+        char[] chars = new char[66];
+        chars[0] = '0';
+        chars[1] = 'x';
+        long[] words = {w0, w1, w2, w3};
+        for (int i = 0; i < 64; i++) {
+            chars[2 + i] = HEX[(int) (words[i / 16] >>> (60 - 4 * (i % 16))) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /** The argument form of the {@code sui client ptb} command line. */
+    public String toArgument() {
+        return "@" + this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ObjectId other
+                && w0 == other.w0 && w1 == other.w1 && w2 == other.w2 && w3 == other.w3;
+    }
+
+    @Override
+    public int hashCode() {
+        // IDs are hashes already, so folding the low word would do; the mix covers short system IDs
+        long h = w3 * 0x9E3779B97F4A7C15L ^ w2 * 0xC2B2AE3D27D4EB4FL ^ w1 * 0x165667B19E3779F9L ^ w0;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Orders as unsigned 256-bit numbers. */
+    @Override
+    public int compareTo(ObjectId o) {
+        int c = Long.compareUnsigned(w0, o.w0);
+        if (c == 0) {
+            c = Long.compareUnsigned(w1, o.w1);
+        }
+        if (c == 0) {
+            c = Long.compareUnsigned(w2, o.w2);
+        }
+        return c != 0 ? c : Long.compareUnsigned(w3, o.w3);
+    }
+
+    private static long word(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.blockchain;
+
+/**
+ * A hash map from {@link ObjectId} to {@code long}, laid out like {@link ObjectIdMap} but with
+ * the values in a {@code long[]} too, so neither keys nor values are boxed. Which slots are in
+ * use is tracked separately, since every long is a valid value. Not thread-safe.
+ */
+public class ObjectIdLongMap {
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    public ObjectIdLongMap() {
+        this(16);
+    }
+
+    public ObjectIdLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(ObjectId key) {
+        return find(key) >= 0;
+    }
+
+    /** The value of {@code key}, or {@code absent} if it has none. */
+    public long getOrDefault(ObjectId key, long absent) {
+        int slot = find(key);
+        return slot < 0 ? absent : values[slot];
+    }
+
+    /** Associates {@code value} with {@code key}. */
+    public void put(ObjectId key, long value) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (matches(slot, key)) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        store(slot, key, value);
+        if (++size * 2 > used.length) {
+            rehash(used.length * 2);
+        }
+    }
+
+    /** Removes {@code key}, returning whether it was present. */
+    public boolean remove(ObjectId key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        // shift back the entries of the probe run that would no longer be found
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = home(next);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                System.arraycopy(keys, next * 4, keys, hole * 4, 4);
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(16);
+        size = 0;
+    }
+
+    private int find(ObjectId key) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (matches(slot, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(ObjectId key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int home(int slot) {
+        int at = slot * 4;
+        return slot(new ObjectId(keys[at], keys[at + 1], keys[at + 2], keys[at + 3]));
+    }
+
+    private boolean matches(int slot, ObjectId key) {
+        int at = slot * 4;
+        return keys[at + 3] == key.w3() && keys[at + 2] == key.w2() && keys[at + 1] == key.w1()
+                && keys[at] == key.w0();
+    }
+
+    private void store(int slot, ObjectId key, long value) {
+        int at = slot * 4;
+        keys[at] = key.w0();
+        keys[at + 1] = key.w1();
+        keys[at + 2] = key.w2();
+        keys[at + 3] = key.w3();
+        values[slot] = value;
+        used[slot] = true;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * 4];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int old = 0; old < oldUsed.length; old++) {
+            if (oldUsed[old]) {
+                ObjectId key = new ObjectId(oldKeys[old * 4], oldKeys[old * 4 + 1], oldKeys[old * 4 + 2],
+                        oldKeys[old * 4 + 3]);
+                int slot = slot(key);
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                store(slot, key, oldValues[old]);
+            }
+        }
+    }
+}
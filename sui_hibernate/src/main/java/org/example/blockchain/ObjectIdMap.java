@@ -0,0 +1,184 @@
+package org.example.blockchain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A hash map from {@link ObjectId} to non-null values with open addressing: the keys' longs are
+ * stored inline in one {@code long[]}, four per slot, so an entry costs 32 bytes of key plus a
+ * value reference instead of a {@code String} key and a node object. Collisions are resolved
+ * by linear probing and removals shift the following entries back, so no tombstones build up.
+ * The table doubles above a load of 1/2. Not thread-safe.
+ */
+public class ObjectIdMap<V> {
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public ObjectIdMap() {
+        this(16);
+    }
+
+    public ObjectIdMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(ObjectId key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(ObjectId key) {
+        return find(key) >= 0;
+    }
+
+    /** Associates {@code value} with {@code key}, returning the previous value or null. */
+    @SuppressWarnings("unchecked")
+    public V put(ObjectId key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (matches(slot, key)) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        store(slot, key, value);
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        return null;
+    }
+
+    /** Removes {@code key}, returning its value or null. */
+    @SuppressWarnings("unchecked")
+    public V remove(ObjectId key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V removed = (V) values[slot];
+        // shift back the entries of the probe run that would no longer be found
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int home = home(next);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                System.arraycopy(keys, next * 4, keys, hole * 4, 4);
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<ObjectId, ? super V> action) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                action.accept(key(slot), (V) values[slot]);
+            }
+        }
+    }
+
+    /** The keys, in table order. */
+    public List<ObjectId> keys() {
+        List<ObjectId> result = new ArrayList<>(size);
+        forEach((key, value) -> result.add(key));
+        return result;
+    }
+
+    /** The values, in table order. */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEach((key, value) -> result.add(value));
+        return result;
+    }
+
+    public void clear() {
+        allocate(16);
+        size = 0;
+    }
+
+    private int find(ObjectId key) {
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (matches(slot, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(ObjectId key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int home(int slot) {
+        return slot(key(slot));
+    }
+
+    private boolean matches(int slot, ObjectId key) {
+        int at = slot * 4;
+        return keys[at + 3] == key.w3() && keys[at + 2] == key.w2() && keys[at + 1] == key.w1()
+                && keys[at] == key.w0();
+    }
+
+    private ObjectId key(int slot) {
+        int at = slot * 4;
+        return new ObjectId(keys[at], keys[at + 1], keys[at + 2], keys[at + 3]);
+    }
+
+    private void store(int slot, ObjectId key, Object value) {
+        int at = slot * 4;
+        keys[at] = key.w0();
+        keys[at + 1] = key.w1();
+        keys[at + 2] = key.w2();
+        keys[at + 3] = key.w3();
+        values[slot] = value;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * 4];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int old = 0; old < oldValues.length; old++) {
+            if (oldValues[old] != null) {
+                ObjectId key = new ObjectId(oldKeys[old * 4], oldKeys[old * 4 + 1], oldKeys[old * 4 + 2],
+                        oldKeys[old * 4 + 3]);
+                int slot = slot(key);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                store(slot, key, oldValues[old]);
+            }
+        }
+    }
+}
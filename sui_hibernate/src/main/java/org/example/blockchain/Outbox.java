@@ -0,0 +1,453 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.blockchain.OutboxJournal.Batch;
+import org.example.blockchain.OutboxJournal.Done;
+import org.example.blockchain.OutboxJournal.Op;
+import org.example.blockchain.OutboxJournal.Outcome;
+import org.example.metrics.CallMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A write-behind queue of calls that survives the process. {@link #enqueue} returns once the
+ * call is in a local journal on disk; a committer thread then submits the queued calls, as
+ * many as have piled up (up to {@code maxBatch}), as the commands of one transaction, so many
+ * calls share one submission and one computation fee. Journal writes are grouped the same way:
+ * callers enqueueing at once share one force to disk.
+ * <p>
+ * All transactions of an outbox are paid with its own gas coin, which nothing else may use.
+ * Before a batch is submitted, the journal records the coin's last transaction; if the
+ * process dies, or loses the response, before the batch's outcome is recorded, the coin tells
+ * whether the batch was executed since: recovery records its outcome instead of submitting it
+ * again, and until the chain can tell, no other batch is submitted. A transaction still in
+ * flight at that moment can be missed and may then run twice.
+ * <p>
+ * A batch that aborts is undone as a whole, so its calls are submitted again one by one, and
+ * only the call that aborted on its own fails. Calls rejected with a transient error are
+ * submitted again per the manager's {@link RetryPolicy}; calls that could not be submitted
+ * stay queued. Calls are submitted in the order they were enqueued.
+ */
+public class Outbox implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(Outbox.class);
+    public static final int DEFAULT_MAX_BATCH = 64;
+    /** The most gas a transaction may be given, in MIST. */
+    private static final long MAX_GAS_BUDGET = 50_000_000_000L;
+    /** Journal size beyond which it is emptied once nothing is pending. */
+    private static final long COMPACT_BYTES = 64L << 20;
+    private static final long IDLE_RETRY_MILLIS = 1_000L;
+
+    private final SuiContractManager mgr;
+    private final String gasCoin;
+    private final int maxBatch;
+    private final OutboxJournal journal;
+    private final CallMetrics metrics;
+    private final TreeMap<Long, Entry> pending = new TreeMap<>();
+    private final Map<Long, Batch> batches = new HashMap<>();
+    @Nullable
+    private String gasPrevious;
+    private long nextSeq;
+    private long nextBatch;
+    private Thread committer;
+    private boolean closed;
+    /** A submitted batch whose outcome could not be found out; only the committer uses it. */
+    @Nullable
+    private Batch unsettled;
+
+    public Outbox(SuiContractManager mgr, Path journalFile, String gasCoin)
+            throws IOException, InterruptedException {
+        this(mgr, journalFile, gasCoin, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * Opens or creates the journal and recovers the calls it still holds, asking the chain
+     * about a batch whose outcome was not recorded. Call {@link #start()} to submit them.
+     *
+     * @param gasCoin  the coin paying for this outbox's transactions, and for nothing else
+     * @param maxBatch the most calls submitted in one transaction
+     */
+    public Outbox(SuiContractManager mgr, Path journalFile, String gasCoin, int maxBatch)
+            throws IOException, InterruptedException {
+        if (maxBatch < 1 || maxBatch > ViewBatch.MAX_COMMANDS) {
+            throw new IllegalArgumentException("Batches must hold 1 to " + ViewBatch.MAX_COMMANDS
+                    + " calls, got " + maxBatch);
+        }
+        this.mgr = mgr;
+        this.gasCoin = Objects.requireNonNull(gasCoin, "Gas coin cannot be null");
+        this.maxBatch = maxBatch;
+        this.metrics = mgr.getMetrics().call("outbox", "batch");
+        this.journal = new OutboxJournal(journalFile);
+        try {
+            gasPrevious = mgr.getBackend().getObject(this.gasCoin).path("data").path("previousTransaction").asText(null);
+            recover();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the call and returns once it is on disk. The future completes once the call ran,
+     * with the transaction of its whole batch.
+     */
+    public CompletableFuture<TransactionResult> enqueue(PreparedMoveCall call, Object... args) throws IOException {
+        return enqueue(call.call(args));
+    }
+
+    /** Like {@link #enqueue}, transferring the call's result to {@code recipient}. */
+    public CompletableFuture<TransactionResult> enqueueAndTransfer(PreparedMoveCall call, String recipient,
+                                                                   Object... args) throws IOException {
+        return enqueue(call.transferCall(recipient, args));
+    }
+
+    /** Starts submitting queued calls in the background. */
+    public synchronized void start() {
+        if (closed) {
+            throw new IllegalStateException("The outbox is closed");
+        }
+        if (committer == null) {
+            committer = new Thread(this::commitLoop, "sui-outbox");
+            committer.setDaemon(true);
+            committer.start();
+        }
+    }
+
+    /** Calls queued and not yet executed. */
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    /** Waits until every queued call ran or failed; returns false if {@code timeout} passed first. */
+    public synchronized boolean flush(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!pending.isEmpty()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            wait(Math.max(1L, left / 1_000_000L));
+        }
+        return true;
+    }
+
+    /**
+     * Stops the committer after its current batch and closes the journal. Calls still queued
+     * stay in the journal for the next outbox on it.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread running;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            running = committer;
+            notifyAll();
+        }
+        boolean interrupted = false;
+        while (running != null && running.isAlive()) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                // the journal must not be closed under the committer, so stop it sooner and keep waiting
+                interrupted = true;
+                running.interrupt();
+            }
+        }
+        journal.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<TransactionResult> enqueue(MoveCall call) throws IOException {
+        Entry entry;
+        long position;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The outbox is closed");
+            }
+            entry = new Entry(nextSeq++, call);
+            position = journal.append(new Op(entry.seq, call));
+            pending.put(entry.seq, entry);
+        }
+        journal.sync(position);
+        synchronized (this) {
+            notifyAll();
+        }
+        return entry.result;
+    }
+
+    /** Replays the journal and settles a batch left without an outcome. */
+    private void recover() throws IOException, InterruptedException {
+        Batch last = null;
+        Done lastDone = null;
+        for (OutboxJournal.Record record : journal.recovered()) {
+            if (record instanceof Op op) {
+                pending.put(op.seq(), new Entry(op.seq(), op.call()));
+                nextSeq = Math.max(nextSeq, op.seq() + 1);
+            } else if (record instanceof Batch batch) {
+                batches.put(batch.id(), batch);
+                last = batch;
+                nextBatch = Math.max(nextBatch, batch.id() + 1);
+            } else if (record instanceof Done done) {
+                apply(done, null);
+                lastDone = done;
+            }
+        }
+        if (last != null && (lastDone == null || lastDone.batchId() != last.id())) {
+            // only the last batch can lack an outcome: the next one is written after it
+            Submitted submitted = reconcile(last, "outcome unknown after a restart");
+            Done done = submitted.done();
+            journal.append(done);
+            apply(done, submitted.response());
+            log.info("Recovered batch {} of {} calls as {}", last.id(), last.seqs().size(), done.outcome());
+        }
+        batches.clear();
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} queued calls from the journal", pending.size());
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            List<Entry> batch = null;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                if (unsettled == null) {
+                    batch = next();
+                }
+            }
+            try {
+                if (batch == null) {
+                    // the calls of a batch that may have run must not be submitted again before it is settled
+                    settle(unsettled);
+                } else if (!commit(batch)) {
+                    Thread.sleep(IDLE_RETRY_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (batch == null) {
+                    log.warn("Finding out whether batch {} ran failed, trying again", unsettled.id(), e);
+                } else {
+                    log.warn("Committing {} queued calls failed, trying again", batch.size(), e);
+                }
+                try {
+                    Thread.sleep(IDLE_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /** The oldest queued calls: one that must run alone, or up to {@code maxBatch} others. */
+    private List<Entry> next() {
+        List<Entry> batch = new ArrayList<>();
+        for (Entry entry : pending.values()) {
+            if (entry.alone) {
+                if (batch.isEmpty()) {
+                    batch.add(entry);
+                }
+                break;
+            }
+            batch.add(entry);
+            if (batch.size() == maxBatch) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    /** Submits the calls as one transaction; returns false if they stay queued. */
+    private boolean commit(List<Entry> entries) throws IOException, InterruptedException {
+        List<Long> seqs = new ArrayList<>(entries.size());
+        List<MoveCall> calls = new ArrayList<>(entries.size());
+        long budget = 0;
+        for (Entry entry : entries) {
+            seqs.add(entry.seq);
+            MoveCall call = entry.call.withGasCoin(gasCoin);
+            calls.add(call);
+            budget = Math.min(MAX_GAS_BUDGET, budget + mgr.budgetFor(call, metrics));
+        }
+        Batch batch;
+        synchronized (this) {
+            batch = new Batch(nextBatch++, seqs, gasPrevious);
+            batches.put(batch.id(), batch);
+        }
+        // the calls and the batch must be on disk before the chain can see them
+        journal.sync(journal.append(batch));
+
+        Submitted submitted;
+        try {
+            submitted = submit(batch, calls, budget);
+        } catch (IOException | RuntimeException e) {
+            unsettled = batch;
+            throw e;
+        }
+        return record(batch, submitted);
+    }
+
+    /** Asks the chain for the outcome of a batch whose submission failed in an unknown state. */
+    private void settle(Batch batch) throws IOException, InterruptedException {
+        Submitted submitted = reconcile(batch, "outcome unknown after an error");
+        record(batch, submitted);
+        unsettled = null;
+        log.info("Settled batch {} of {} calls as {}", batch.id(), batch.seqs().size(), submitted.done().outcome());
+    }
+
+    /** Records the outcome of a batch and settles its calls; returns false if they stay queued. */
+    private boolean record(Batch batch, Submitted submitted) throws IOException {
+        Done done = submitted.done();
+        synchronized (this) {
+            // the outcome is forced to disk with the next batch; if it is lost, recovery asks the chain
+            journal.append(done);
+            apply(done, submitted.response());
+            batches.remove(batch.id());
+            if (pending.isEmpty() && journal.size() > COMPACT_BYTES) {
+                journal.reset();
+            }
+            notifyAll();
+        }
+        return done.outcome() != Outcome.UNSENT;
+    }
+
+    private Submitted submit(Batch batch, List<MoveCall> calls, long budget)
+            throws IOException, InterruptedException {
+        String target = calls.size() == 1 ? calls.get(0).target() : calls.size() + " outbox calls";
+        RetryPolicy policy = mgr.getRetryPolicy();
+        for (int attempt = 1; ; attempt++) {
+            MoveCallException rejected = null;
+            try {
+                return executed(batch.id(), mgr.getBackend().execute(calls, budget, metrics));
+            } catch (RuntimeException e) {
+                rejected = e instanceof NodeOverloadedException ? null : MoveCallException.rejected(target, e);
+                if (rejected == null) {
+                    // shed or not a known rejection: the batch may have run before the error, else it stays queued
+                    Submitted submitted = reconcile(batch, e.getMessage());
+                    if (submitted.done().outcome() == Outcome.UNSENT) {
+                        metrics.failure();
+                    }
+                    return submitted;
+                }
+            } catch (IOException e) {
+                return reconcile(batch, e.getMessage());
+            }
+            if (!rejected.isTransient() || attempt >= policy.maxAttempts()) {
+                metrics.failure();
+                return new Submitted(new Done(batch.id(), rejected.isTransient() ? Outcome.UNSENT : Outcome.REJECTED,
+                        null, rejected.getMessage()), null);
+            }
+            metrics.retry();
+            Thread.sleep(policy.backoffMillis(attempt));
+        }
+    }
+
+    /**
+     * The outcome of a batch that may or may not have been executed: if the gas coin has a
+     * newer transaction than when the batch was written, it is this batch's.
+     */
+    private Submitted reconcile(Batch batch, String error) throws IOException, InterruptedException {
+        JsonNode coin = mgr.getBackend().getObject(gasCoin).path("data");
+        String previous = coin.path("previousTransaction").asText(null);
+        if (previous == null || previous.equals(batch.gasPrevious())) {
+            return new Submitted(new Done(batch.id(), Outcome.UNSENT, null, error), null);
+        }
+        return executed(batch.id(), mgr.getBackend().getTransaction(previous));
+    }
+
+    private Submitted executed(long batchId, JsonNode response) {
+        String digest = response.path("digest").asText();
+        JsonNode status = response.path("effects").path("status");
+        synchronized (this) {
+            gasPrevious = digest;
+        }
+        if ("success".equals(status.path("status").asText())) {
+            metrics.success(new TransactionResult(digest, response).gasUsed());
+            return new Submitted(new Done(batchId, Outcome.EXECUTED, digest, null), response);
+        }
+        metrics.failure();
+        return new Submitted(new Done(batchId, Outcome.ABORTED, digest, status.path("error").asText()), response);
+    }
+
+    /**
+     * Settles the calls of a batch: executed ones leave the queue, and of those that failed,
+     * a call submitted alone fails while calls of a larger batch are queued to run alone.
+     *
+     * @param response the batch's transaction, or null when replaying the journal
+     */
+    private void apply(Done done, @Nullable JsonNode response) {
+        Batch batch = batches.get(done.batchId());
+        if (batch == null) {
+            return;
+        }
+        for (Long seq : batch.seqs()) {
+            Entry entry = pending.get(seq);
+            if (entry == null) {
+                continue;
+            }
+            switch (done.outcome()) {
+                case EXECUTED -> {
+                    pending.remove(seq);
+                    entry.result.complete(new TransactionResult(done.digest(), response));
+                }
+                case ABORTED, REJECTED -> {
+                    if (batch.seqs().size() > 1) {
+                        entry.alone = true;
+                    } else {
+                        pending.remove(seq);
+                        log.warn("Queued call {} of {} failed: {}", seq, entry.call.target(), done.error());
+                        entry.result.completeExceptionally(done.outcome() == Outcome.ABORTED
+                                ? MoveCallException.executed(entry.call.target(), done.error(), done.digest(), response)
+                                : new RuntimeException("Queued call " + entry.call.target() + " was rejected: "
+                                + done.error()));
+                    }
+                }
+                case UNSENT -> {
+                    // stays queued
+                }
+            }
+        }
+    }
+
+    /** The outcome of a batch, and its transaction if it was executed. */
+    private record Submitted(Done done, @Nullable JsonNode response) {
+    }
+
+    /** A queued call. */
+    private static final class Entry {
+        private final long seq;
+        private final MoveCall call;
+        private final CompletableFuture<TransactionResult> result = new CompletableFuture<>();
+        /** Set once the call was in a batch that failed, to find out whether it failed on its own. */
+        private boolean alone;
+
+        private Entry(long seq, MoveCall call) {
+            this.seq = seq;
+            this.call = call;
+        }
+    }
+}
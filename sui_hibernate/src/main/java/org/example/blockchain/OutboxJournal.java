@@ -0,0 +1,335 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only file behind an {@link Outbox}, memory-mapped for writing. It holds three
+ * kinds of records: a queued call, a batch of calls about to be submitted, and the outcome of
+ * a batch. Replaying them in order tells which calls are still pending.
+ * <p>
+ * Each record holds its type, its length and a CRC32 of the journal's epoch and its payload,
+ * and is followed by a zero byte that ends the journal until the next record overwrites it.
+ * Opening the file reads the records up to that end; a torn record (a crash during an append)
+ * is cut off. {@link #reset} starts a new epoch, so records left from before it never pass the
+ * check again, even if the end marker after the new ones did not reach the disk. Appends reach
+ * the page cache only; {@link #sync} forces them to disk, once for all appends made so far, so
+ * concurrent callers share one force. The file is locked while open.
+ */
+class OutboxJournal implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(OutboxJournal.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final byte[] MAGIC = "SUIOUTB1".getBytes(StandardCharsets.US_ASCII);
+    /** The magic, then the epoch. */
+    private static final int FILE_HEADER = MAGIC.length + 8;
+    /** Type, payload length, CRC32. */
+    private static final int RECORD_HEADER = 9;
+    private static final byte OP = 1;
+    private static final byte BATCH = 2;
+    private static final byte DONE = 3;
+    private static final int MIN_MAPPING = 1 << 20;
+
+    /** How a batch ended. */
+    enum Outcome {
+        /** Executed successfully. */
+        EXECUTED,
+        /** Executed and aborted, without effects but for gas. */
+        ABORTED,
+        /** Not executed, and may be submitted again. */
+        UNSENT,
+        /** Not executed, and failing again if submitted unchanged. */
+        REJECTED
+    }
+
+    sealed interface Record permits Op, Batch, Done {
+    }
+
+    /** A queued call; its gas coin is not kept. */
+    record Op(long seq, MoveCall call) implements Record {
+    }
+
+    /**
+     * Calls about to be submitted as one transaction.
+     *
+     * @param gasPrevious the last transaction of the gas coin before this batch, or null
+     */
+    record Batch(long id, List<Long> seqs, @Nullable String gasPrevious) implements Record {
+    }
+
+    /** The outcome of a batch; {@code digest} is set if it was executed. */
+    record Done(long batchId, Outcome outcome, @Nullable String digest, @Nullable String error)
+            implements Record {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Object syncLock = new Object();
+    private final List<Record> recovered = new ArrayList<>();
+    private MappedByteBuffer mapped;
+    private long epoch;
+    private long end;
+    private volatile long synced;
+
+    OutboxJournal(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.lock = lock(channel, file);
+            open();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** The records read when the journal was opened, in order. */
+    List<Record> recovered() {
+        return recovered;
+    }
+
+    /** Appends {@code record} and returns the position to {@link #sync} to make it durable. */
+    synchronized long append(Record record) throws IOException {
+        byte[] payload = encode(record);
+        int size = RECORD_HEADER + payload.length;
+        ensureCapacity(end + size + 1);
+        int at = (int) end;
+        mapped.put(at + size, (byte) 0);
+        mapped.putInt(at + 1, payload.length);
+        mapped.putInt(at + 5, checksum(epoch, payload));
+        mapped.put(at + RECORD_HEADER, payload);
+        // the type goes last, so a record is not readable before it is complete
+        mapped.put(at, type(record));
+        end += size;
+        return end;
+    }
+
+    /** Forces the journal to disk up to at least {@code position}. */
+    void sync(long position) throws IOException {
+        if (synced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            // every append made so far is covered, so callers waiting behind us return at once
+            long upTo;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                upTo = end;
+                buffer = mapped;
+            }
+            // with the zero byte after the last record, which ends the journal on replay
+            buffer.force(0, (int) upTo + 1);
+            synced = upTo;
+        }
+    }
+
+    /** Bytes of records in the journal. */
+    synchronized long size() {
+        return end - FILE_HEADER;
+    }
+
+    /** Drops every record; only safe once nothing in the journal is pending. */
+    synchronized void reset() throws IOException {
+        epoch++;
+        mapped.putLong(MAGIC.length, epoch);
+        mapped.put(FILE_HEADER, (byte) 0);
+        end = FILE_HEADER;
+        mapped.force(0, (int) end + 1);
+        synced = end;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+            mapped = null;
+        }
+    }
+
+    private void ensureCapacity(long capacity) throws IOException {
+        if (mapped != null && capacity <= mapped.capacity()) {
+            return;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException(file + " is full");
+        }
+        long size = Math.max(MIN_MAPPING, mapped == null ? 0 : 2L * mapped.capacity());
+        size = Math.min(Math.max(size, capacity), Integer.MAX_VALUE);
+        // mapping past the end of the file grows it
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static FileLock lock(FileChannel channel, Path file) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException(file + " is in use by another outbox");
+        }
+        return lock;
+    }
+
+    private void open() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException(file + " is larger than 2 GB and not an outbox journal");
+        }
+        ensureCapacity(Math.max(size, FILE_HEADER + 1));
+        if (size == 0) {
+            mapped.put(0, MAGIC);
+            mapped.putLong(MAGIC.length, epoch);
+            mapped.put(FILE_HEADER, (byte) 0);
+            end = FILE_HEADER;
+            mapped.force(0, (int) end + 1);
+            synced = end;
+            return;
+        }
+        byte[] magic = new byte[MAGIC.length];
+        if (size >= FILE_HEADER) {
+            mapped.get(0, magic);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalStateException(file + " is not an outbox journal");
+        }
+        epoch = mapped.getLong(MAGIC.length);
+        long position = FILE_HEADER;
+        while (position + RECORD_HEADER <= size) {
+            int at = (int) position;
+            byte type = mapped.get(at);
+            if (type == 0) {
+                break;
+            }
+            int length = mapped.getInt(at + 1);
+            int checksum = mapped.getInt(at + 5);
+            long next = position + RECORD_HEADER + length;
+            if (type > DONE || length < 0 || next > size) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            mapped.get(at + RECORD_HEADER, payload);
+            if (checksum(epoch, payload) != checksum) {
+                break;
+            }
+            recovered.add(decode(type, payload));
+            position = next;
+        }
+        if (position < size && mapped.get((int) position) != 0) {
+            log.warn("Dropping a torn record at offset {} of {}", position, file);
+            mapped.put((int) position, (byte) 0);
+            mapped.force((int) position, 1);
+        }
+        end = position;
+        synced = end;
+        log.debug("Opened {} with {} records", file, recovered.size());
+    }
+
+    private static int checksum(long epoch, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(epoch).array());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte type(Record record) {
+        return record instanceof Op ? OP : record instanceof Batch ? BATCH : DONE;
+    }
+
+    private static byte[] encode(Record record) throws IOException {
+        if (record instanceof Op op) {
+            ObjectNode call = MAPPER.createObjectNode();
+            call.put("packageId", op.call().packageId());
+            call.put("module", op.call().module());
+            call.put("function", op.call().function());
+            op.call().arguments().forEach(call.putArray("arguments")::add);
+            call.put("recipient", op.call().recipient());
+            byte[] json = MAPPER.writeValueAsBytes(call);
+            return ByteBuffer.allocate(8 + json.length).putLong(op.seq()).put(json).array();
+        }
+        if (record instanceof Batch batch) {
+            byte[] previous = utf8(batch.gasPrevious());
+            ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 8 * batch.seqs().size() + 4 + previous.length)
+                    .putLong(batch.id())
+                    .putInt(batch.seqs().size());
+            batch.seqs().forEach(buffer::putLong);
+            return buffer.putInt(previous.length).put(previous).array();
+        }
+        Done done = (Done) record;
+        byte[] digest = utf8(done.digest());
+        byte[] error = utf8(done.error());
+        return ByteBuffer.allocate(8 + 1 + 4 + digest.length + 4 + error.length)
+                .putLong(done.batchId())
+                .put((byte) done.outcome().ordinal())
+                .putInt(digest.length).put(digest)
+                .putInt(error.length).put(error)
+                .array();
+    }
+
+    private static Record decode(byte type, byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        switch (type) {
+            case OP -> {
+                long seq = buffer.getLong();
+                JsonNode call = MAPPER.readTree(payload, 8, payload.length - 8);
+                List<String> arguments = new ArrayList<>();
+                call.path("arguments").forEach(argument -> arguments.add(argument.asText()));
+                return new Op(seq, new MoveCall(call.path("packageId").asText(), call.path("module").asText(),
+                        call.path("function").asText(), arguments, call.path("recipient").asText(null)));
+            }
+            case BATCH -> {
+                long id = buffer.getLong();
+                int count = buffer.getInt();
+                List<Long> seqs = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    seqs.add(buffer.getLong());
+                }
+                return new Batch(id, seqs, string(buffer));
+            }
+            default -> {
+                long batchId = buffer.getLong();
+                Outcome outcome = Outcome.values()[buffer.get()];
+                return new Done(batchId, outcome, string(buffer), string(buffer));
+            }
+        }
+    }
+
+    private static byte[] utf8(@Nullable String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** A length-prefixed string; empty reads as null. */
+    @Nullable
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes.length == 0 ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.blockchain;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transaction handed to a {@link PipelinedSubmitter}. {@link #accepted()} completes with the
+ * digest once validators certified the effects; {@link #effects()} completes once the fullnode
+ * executed it locally and returns them.
+ */
+public final class PendingTransaction {
+    private final CompletableFuture<String> accepted = new CompletableFuture<>();
+    private final CompletableFuture<TransactionResult> effects = new CompletableFuture<>();
+
+    PendingTransaction() {
+    }
+
+    public CompletableFuture<String> accepted() {
+        return accepted;
+    }
+
+    public CompletableFuture<TransactionResult> effects() {
+        return effects;
+    }
+
+    void fail(Throwable cause) {
+        // effects first, so a caller that sees the rejection sees both futures failed
+        effects.completeExceptionally(cause);
+        accepted.completeExceptionally(cause);
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.metrics.CallMetrics;
+import org.example.metrics.Phase;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Submits transactions without waiting for finality. A transaction is built and signed with
+ * the CLI, executed over JSON-RPC with {@code WaitForEffectsCert}, and its
+ * {@link PendingTransaction} is completed in two steps: accepted, then locally executed.
+ * <p>
+ * Every gas coin is a lane with its own worker. Once a transaction is certified, the worker
+ * takes the coin's new version and digest from the certified effects and builds the lane's
+ * next transaction on them, without waiting for the fullnode to execute the previous one; a
+ * separate poller waits for that. A lane thus holds up to {@code window} transactions that
+ * are certified but not yet executed locally, and {@link #submit} blocks while every lane's
+ * window is full. Only the gas coin is carried over: a call must not take an owned object
+ * that a transaction still awaiting local execution writes.
+ */
+public class PipelinedSubmitter implements AutoCloseable {
+    private static final long CONFIRM_POLL_MILLIS = 100L;
+    private static final long CONFIRM_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    /** Object ID, version, and the digest with its length prefix. */
+    private static final int OBJECT_REF_BYTES = 32 + 8 + 1 + 32;
+    /** Gas owner, price and budget, which follow the gas payment in the transaction data. */
+    private static final int GAS_TAIL_BYTES = 32 + 8 + 8;
+
+    private final SuiContractManager mgr;
+    private final Node node;
+    private final Lane[] lanes;
+    private final int window;
+    private final ScheduledExecutorService confirmer;
+    private final AtomicInteger next = new AtomicInteger();
+
+    PipelinedSubmitter(SuiContractManager mgr, List<String> gasCoins, int window) {
+        this(mgr, cliNode(mgr), gasCoins, window);
+    }
+
+    /** Submits through {@code node}; tests pass one that stands in for the CLI and the fullnode. */
+    PipelinedSubmitter(SuiContractManager mgr, Node node, List<String> gasCoins, int window) {
+        if (gasCoins.isEmpty()) {
+            throw new IllegalArgumentException("At least one gas coin is required");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be at least 1, got " + window);
+        }
+        this.mgr = mgr;
+        this.node = node;
+        this.window = window;
+        this.lanes = new Lane[gasCoins.size()];
+        for (int i = 0; i < lanes.length; i++) {
+            String coin = gasCoins.get(i);
+            lanes[i] = new Lane(coin, new Semaphore(window), Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "sui-pipeline-" + coin.substring(0, Math.min(10, coin.length())));
+                t.setDaemon(true);
+                return t;
+            }));
+        }
+        this.confirmer = Executors.newScheduledThreadPool(lanes.length, r -> {
+            Thread t = new Thread(r, "sui-pipeline-confirm");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Node cliNode(SuiContractManager mgr) {
+        if (!(mgr.getBackend() instanceof CliBackend cli)) {
+            throw new IllegalStateException("Pipelined submission needs the CLI to build and sign transactions");
+        }
+        return new Node() {
+            @Override
+            public String build(MoveCall call, String gasCoin, long gasBudget, CallMetrics m)
+                    throws IOException, InterruptedException {
+                return cli.serialize(call, gasCoin, gasBudget, m);
+            }
+
+            @Override
+            public JsonNode certify(String txBytes, CallMetrics m) throws IOException, InterruptedException {
+                String signature = cli.sign(mgr.getSenderAddress(), txBytes, m);
+                return cli.rpc().call("sui_executeTransactionBlock",
+                        txBytes, List.of(signature), Map.of("showEffects", true), "WaitForEffectsCert");
+            }
+
+            @Override
+            public JsonNode transaction(String digest) throws IOException, InterruptedException {
+                return cli.getTransaction(digest);
+            }
+        };
+    }
+
+    /** Queues the call and returns immediately unless every lane's window is full. */
+    public PendingTransaction submit(PreparedMoveCall call, Object... args) throws InterruptedException {
+        return enqueue(call, call.call(args));
+    }
+
+    /** Like {@link #submit}, transferring the call's result to {@code recipient}. */
+    public PendingTransaction submitAndTransfer(PreparedMoveCall call, String recipient, Object... args)
+            throws InterruptedException {
+        return enqueue(call, call.transferCall(recipient, args));
+    }
+
+    /** Transactions queued or awaiting local execution across all lanes. */
+    public int outstanding() {
+        int free = 0;
+        for (Lane lane : lanes) {
+            free += lane.window().availablePermits();
+        }
+        return lanes.length * window - free;
+    }
+
+    private PendingTransaction enqueue(PreparedMoveCall call, MoveCall moveCall) throws InterruptedException {
+        Lane lane = acquireLane();
+        PendingTransaction pending = new PendingTransaction();
+        try {
+            lane.worker().execute(() -> run(lane, call, moveCall, pending));
+        } catch (RuntimeException e) {
+            lane.window().release();
+            throw e;
+        }
+        return pending;
+    }
+
+    private Lane acquireLane() throws InterruptedException {
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = lanes[Math.floorMod(next.getAndIncrement(), lanes.length)];
+            if (lane.window().tryAcquire()) {
+                return lane;
+            }
+        }
+        Lane lane = lanes[Math.floorMod(next.getAndIncrement(), lanes.length)];
+        lane.window().acquire();
+        return lane;
+    }
+
+    /** Builds, signs and certifies on the lane's worker, then hands the wait for execution on. */
+    private void run(Lane lane, PreparedMoveCall call, MoveCall moveCall, PendingTransaction pending) {
+        CallMetrics m = call.metrics();
+        JsonNode certified;
+        try {
+            long budget = mgr.budgetFor(moveCall, m);
+            String txBytes = node.build(moveCall, lane.gasCoin(), budget, m);
+            GasRef gas = lane.gas;
+            if (gas != null) {
+                // the fullnode may not have executed the lane's last transaction yet
+                txBytes = withGasPayment(txBytes, gas);
+            }
+            certified = node.certify(txBytes, m);
+        } catch (Throwable e) {
+            // the transaction may or may not have run, so the coin's version is unknown again
+            lane.gas = null;
+            failed(lane, m, pending, e);
+            return;
+        }
+        JsonNode gasObject = certified.path("effects").path("gasObject").path("reference");
+        lane.gas = gasObject.isMissingNode() ? null : new GasRef(gasObject.path("objectId").asText(),
+                gasObject.path("version").asLong(), gasObject.path("digest").asText());
+        String status = certified.path("effects").path("status").path("status").asText();
+        if (!"success".equals(status)) {
+            failed(lane, m, pending, MoveCallException.executed(moveCall.target(),
+                    certified.path("effects").path("status").path("error").asText(),
+                    certified.path("digest").asText(null), certified));
+            return;
+        }
+        String digest = certified.path("digest").asText();
+        pending.accepted().complete(digest);
+        long certifiedAt = System.nanoTime();
+        confirm(lane, m, pending, digest, certifiedAt, System.currentTimeMillis() + CONFIRM_TIMEOUT_MILLIS, 0);
+    }
+
+    /** Polls until the fullnode executed {@code digest} locally, then completes the effects. */
+    private void confirm(Lane lane, CallMetrics m, PendingTransaction pending, String digest, long certifiedAt,
+                         long deadline, long delayMillis) {
+        try {
+            confirmer.schedule(() -> {
+                TransactionResult result;
+                try {
+                    result = new TransactionResult(digest, node.transaction(digest));
+                } catch (Throwable e) {
+                    if (notYetExecuted(e) && System.currentTimeMillis() <= deadline) {
+                        confirm(lane, m, pending, digest, certifiedAt, deadline, CONFIRM_POLL_MILLIS);
+                    } else if (notYetExecuted(e)) {
+                        failed(lane, m, pending, new RuntimeException(
+                                "Transaction " + digest + " was not executed locally in time", e));
+                    } else {
+                        failed(lane, m, pending, e);
+                    }
+                    return;
+                }
+                m.record(Phase.FINALITY_WAIT, System.nanoTime() - certifiedAt);
+                m.success(result.gasUsed());
+                // free the slot first, so whoever sees the effects sees the window with room
+                lane.window().release();
+                pending.effects().complete(result);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            failed(lane, m, pending, new IllegalStateException("The submitter was closed before "
+                    + digest + " was executed locally", e));
+        }
+    }
+
+    /**
+     * Whether reading a transaction failed only because the fullnode has not executed it yet;
+     * a poll shed by an overloaded node is tried again too.
+     */
+    private static boolean notYetExecuted(Throwable e) {
+        if (e instanceof NodeOverloadedException) {
+            return true;
+        }
+        String message = e.getMessage();
+        return e instanceof RuntimeException && message != null
+                && message.contains("Could not find the referenced transaction");
+    }
+
+    private static void failed(Lane lane, CallMetrics m, PendingTransaction pending, Throwable e) {
+        m.failure();
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        lane.window().release();
+        pending.fail(e);
+    }
+
+    /**
+     * Replaces the gas payment of base64 transaction data, as the CLI serializes it, with
+     * {@code gas}. The payment is a vector of one object reference, followed by the gas owner,
+     * price and budget, and the expiration: none (one byte) or an epoch (nine bytes).
+     */
+    static String withGasPayment(String txBytes, GasRef gas) {
+        byte[] data = Base64.getDecoder().decode(txBytes);
+        byte[] id = ObjectId.parse(gas.objectId()).toBytes();
+        for (int expiration : new int[]{1, 9}) {
+            int at = data.length - expiration - GAS_TAIL_BYTES - OBJECT_REF_BYTES;
+            if (at < 1 || data[at - 1] != 1 || data[at + 40] != 32
+                    || !Arrays.equals(data, at, at + 32, id, 0, 32)) {
+                continue;
+            }
+            ByteBuffer.wrap(data, at + 32, 8).order(ByteOrder.LITTLE_ENDIAN).putLong(gas.version());
+            byte[] digest = Bcs.decodeBase58(gas.digest());
+            if (digest.length != 32) {
+                throw new IllegalArgumentException("Not an object digest: " + gas.digest());
+            }
+            System.arraycopy(digest, 0, data, at + 41, 32);
+            return Base64.getEncoder().encodeToString(data);
+        }
+        throw new IllegalStateException("Transaction data is not paid with gas coin " + gas.objectId() + " alone");
+    }
+
+    @Override
+    public void close() {
+        for (Lane lane : lanes) {
+            lane.worker().shutdown();
+        }
+        confirmer.shutdown();
+    }
+
+    /** The steps of a submission. */
+    interface Node {
+        /** Base64 transaction data of {@code call}, paid with {@code gasCoin}. */
+        String build(MoveCall call, String gasCoin, long gasBudget, CallMetrics m)
+                throws IOException, InterruptedException;
+
+        /** Signs and executes the transaction data, returning once its effects are certified. */
+        JsonNode certify(String txBytes, CallMetrics m) throws IOException, InterruptedException;
+
+        /** The transaction as executed by the fullnode, or a "not found" error before that. */
+        JsonNode transaction(String digest) throws IOException, InterruptedException;
+    }
+
+    /** A version of a gas coin, as found in certified effects. */
+    record GasRef(String objectId, long version, String digest) {
+    }
+
+    private static final class Lane {
+        private final String gasCoin;
+        private final Semaphore window;
+        private final ExecutorService worker;
+        /** The coin's version after the lane's last certified transaction; only the worker writes it. */
+        @Nullable
+        private volatile GasRef gas;
+
+        private Lane(String gasCoin, Semaphore window, ExecutorService worker) {
+            this.gasCoin = gasCoin;
+            this.window = window;
+            this.worker = worker;
+        }
+
+        String gasCoin() {
+            return gasCoin;
+        }
+
+        Semaphore window() {
+            return window;
+        }
+
+        ExecutorService worker() {
+            return worker;
+        }
+    }
+}
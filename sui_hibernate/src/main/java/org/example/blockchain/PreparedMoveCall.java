@@ -0,0 +1,155 @@
+package org.example.blockchain;
+
+import org.example.metrics.CallMetrics;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A Move function resolved once through {@code sui_getNormalizedMoveFunction}, like a
+ * {@code PreparedStatement}: the signature and argument encoders are fixed, so each call
+ * only encodes its values and submits.
+ * <p>
+ * Obtain instances from {@link SuiContractManager#prepare(String, String, String)}; they are
+ * immutable and safe to share between threads.
+ */
+public class PreparedMoveCall {
+    private final SuiContractManager mgr;
+    private final String packageId;
+    private final String module;
+    private final String function;
+    private final MoveArgType[] params;
+    private final List<ObjectParameter> objects;
+    private final String target;
+    private final CallMetrics metrics;
+
+    PreparedMoveCall(SuiContractManager mgr, String packageId, String module, String function,
+                     List<MoveArgType> params) {
+        this(mgr, packageId, module, function, params, List.of());
+    }
+
+    PreparedMoveCall(SuiContractManager mgr, String packageId, String module, String function,
+                     List<MoveArgType> params, List<ObjectParameter> objects) {
+        this.mgr = mgr;
+        this.packageId = packageId;
+        this.module = module;
+        this.function = function;
+        this.params = params.toArray(new MoveArgType[0]);
+        this.objects = List.copyOf(objects);
+        this.target = packageId + "::" + module + "::" + function;
+        this.metrics = mgr.getMetrics().call(module, function);
+    }
+
+    public String getPackageId() {
+        return packageId;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    /** Parameter kinds in call order, without the trailing {@code TxContext}. */
+    public List<MoveArgType> getParameterTypes() {
+        return List.of(params);
+    }
+
+    /** The parameters that take objects, with their struct types and whether they are mutated. */
+    public List<ObjectParameter> getObjectParameters() {
+        return objects;
+    }
+
+    CallMetrics metrics() {
+        return metrics;
+    }
+
+    /** Executes the call and waits for its effects. */
+    public TransactionResult execute(Object... args) throws IOException, InterruptedException {
+        return mgr.execute(this, call(args), null);
+    }
+
+    /**
+     * Executes the call at most once per {@code idempotencyKey}: if a call with that key
+     * already succeeded, its result is returned instead, and if one is in flight it is
+     * awaited. Failed calls are not remembered.
+     */
+    public TransactionResult executeOnce(String idempotencyKey, Object... args)
+            throws IOException, InterruptedException {
+        return mgr.execute(this, call(args), Objects.requireNonNull(idempotencyKey, "Idempotency key cannot be null"));
+    }
+
+    /**
+     * Executes the call and transfers its return value (e.g. a newly created object) to
+     * {@code recipient}.
+     */
+    public TransactionResult executeAndTransfer(String recipient, Object... args)
+            throws IOException, InterruptedException {
+        return mgr.execute(this, transferCall(recipient, args), null);
+    }
+
+    /** {@link #executeAndTransfer} at most once per {@code idempotencyKey}, like {@link #executeOnce}. */
+    public TransactionResult executeAndTransferOnce(String idempotencyKey, String recipient, Object... args)
+            throws IOException, InterruptedException {
+        return mgr.execute(this, transferCall(recipient, args),
+                Objects.requireNonNull(idempotencyKey, "Idempotency key cannot be null"));
+    }
+
+    /**
+     * Runs the call read-only through dev-inspect, without gas or a transaction, and returns
+     * the BCS encoding of each return value; see {@link Bcs} for decoding.
+     */
+    public List<byte[]> inspect(Object... args) throws IOException, InterruptedException {
+        return mgr.inspect(this, call(args));
+    }
+
+    /** The call with {@code args} encoded. */
+    MoveCall call(Object[] args) {
+        return new MoveCall(packageId, module, function, encode(args), null);
+    }
+
+    /** The call that also transfers its result to {@code recipient}. */
+    MoveCall transferCall(String recipient, Object[] args) {
+        if (recipient == null) {
+            throw new IllegalArgumentException("Transfer address cannot be null");
+        }
+        MoveArgType.ADDRESS.encode(recipient);
+        return new MoveCall(packageId, module, function, encode(args), recipient);
+    }
+
+    private List<String> encode(Object[] args) {
+        if (args.length != params.length) {
+            throw new IllegalArgumentException(this + " takes " + params.length + " arguments, got " + args.length);
+        }
+        String[] encoded = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            try {
+                encoded[i] = params[i].encode(args[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Argument at index " + i + " of " + this + ": " + e.getMessage(), e);
+            }
+        }
+        return Arrays.asList(encoded);
+    }
+
+    @Override
+    public String toString() {
+        return target;
+    }
+
+    /**
+     * An object parameter of the function.
+     *
+     * @param index   position among the call's arguments
+     * @param module  module of the object's struct type
+     * @param struct  name of the struct type
+     * @param mutable whether the object is taken by {@code &mut} or by value rather than by
+     *                {@code &}
+     */
+    public record ObjectParameter(int index, String module, String struct, boolean mutable) {
+    }
+}
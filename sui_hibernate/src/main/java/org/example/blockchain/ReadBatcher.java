@@ -0,0 +1,196 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent reads by key (object ID, transaction digest). A read of a key that is
+ * already being fetched waits for that fetch instead of sending its own request. Reads of
+ * different keys that overlap go out together as one multi-get of at most {@code maxBatch}
+ * keys.
+ * <p>
+ * The first read of a batch leads it. If no other fetch is running, it sends the batch at
+ * once, so a read without contention pays no delay. Otherwise it waits until the running
+ * fetches complete, the batch is full or {@code window} has passed, whichever comes first,
+ * letting the reads that arrive meanwhile join. The leader sends the batch on its own thread
+ * and completes everyone's result. Nothing is cached; a key is fetched again once its fetch
+ * has completed. If the node rejects a multi-get, or its response does not hold one result
+ * per key, the keys are read one by one, so one bad key does not fail the reads batched with
+ * it. If the node is overloaded or unreachable, or the leader is interrupted, the reads still
+ * waiting fail instead: a shed request must not turn into one request per key.
+ */
+final class ReadBatcher {
+    /** Fetches several keys, returning one result per key in the same order. */
+    @FunctionalInterface
+    interface MultiGet {
+        JsonNode get(List<String> keys) throws IOException, InterruptedException;
+    }
+
+    /** Fetches one key. */
+    @FunctionalInterface
+    interface Get {
+        JsonNode get(String key) throws IOException, InterruptedException;
+    }
+
+    private final long windowNanos;
+    private final int maxBatch;
+    private final MultiGet multiGet;
+    private final Get get;
+    // guarded by this
+    private final Map<String, CompletableFuture<JsonNode>> inFlight = new HashMap<>();
+    private Batch open;
+    /** Batches being fetched. */
+    private int fetching;
+
+    ReadBatcher(Duration window, int maxBatch, MultiGet multiGet, Get get) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + maxBatch);
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.multiGet = multiGet;
+        this.get = get;
+    }
+
+    JsonNode get(String key) throws IOException, InterruptedException {
+        CompletableFuture<JsonNode> result;
+        Batch lead = null;
+        synchronized (this) {
+            result = inFlight.get(key);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                inFlight.put(key, result);
+                if (open == null) {
+                    open = lead = new Batch();
+                }
+                open.keys.add(key);
+                open.results.add(result);
+                if (open.keys.size() == maxBatch) {
+                    // full: no more keys join it, wake its leader
+                    open = null;
+                    notifyAll();
+                }
+            }
+        }
+        if (lead != null) {
+            send(lead);
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new IOException(io.getMessage(), io);
+            }
+            if (cause instanceof InterruptedException) {
+                throw new InterruptedException("Read of " + key + " was interrupted");
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /** Number of keys being fetched right now. */
+    synchronized int inFlight() {
+        return inFlight.size();
+    }
+
+    private void send(Batch batch) {
+        boolean interrupted = false;
+        synchronized (this) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining = windowNanos;
+            // wait only while reads overlap a running fetch; its completion wakes us
+            while (open == batch && fetching > 0 && remaining > 0) {
+                try {
+                    wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                } catch (InterruptedException e) {
+                    // the batch is sent anyway, others are waiting for it
+                    interrupted = true;
+                    break;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            if (open == batch) {
+                open = null;
+            }
+            fetching++;
+        }
+        try {
+            fetch(batch);
+        } finally {
+            synchronized (this) {
+                fetching--;
+                notifyAll();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void fetch(Batch batch) {
+        JsonNode results = null;
+        if (batch.keys.size() > 1) {
+            try {
+                results = multiGet.get(batch.keys);
+                if (!results.isArray() || results.size() != batch.keys.size()) {
+                    results = null;
+                }
+            } catch (NodeOverloadedException | IOException | InterruptedException e) {
+                failed(batch, 0, e);
+                return;
+            } catch (RuntimeException e) {
+                // a key the node rejects: read them one by one below
+            }
+        }
+        for (int i = 0; i < batch.keys.size(); i++) {
+            String key = batch.keys.get(i);
+            CompletableFuture<JsonNode> result = batch.results.get(i);
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+            if (results != null) {
+                result.complete(results.get(i));
+                continue;
+            }
+            try {
+                result.complete(get.get(key));
+            } catch (NodeOverloadedException | IOException | InterruptedException e) {
+                result.completeExceptionally(e);
+                failed(batch, i + 1, e);
+                return;
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /** Fails the reads of {@code batch} from index {@code from} on with {@code e}. */
+    private void failed(Batch batch, int from, Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        for (int i = from; i < batch.keys.size(); i++) {
+            synchronized (this) {
+                inFlight.remove(batch.keys.get(i));
+            }
+            batch.results.get(i).completeExceptionally(e);
+        }
+    }
+
+    private static final class Batch {
+        final List<String> keys = new ArrayList<>();
+        final List<CompletableFuture<JsonNode>> results = new ArrayList<>();
+    }
+}
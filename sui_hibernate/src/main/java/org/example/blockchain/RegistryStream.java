@@ -0,0 +1,199 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates the IDs in a module's {@code Registry} page by page, instead of reading the whole
+ * vector with {@code get_all}.
+ * <p>
+ * Pages are read with the module's {@code get_page} function through dev-inspect, so no gas is
+ * spent. While a page is consumed the next one is already being fetched on a background thread.
+ * {@link #objects} hydrates the IDs with {@code sui_multiGetObjects} in chunks of
+ * {@value #HYDRATE_CHUNK}. At most two pages of IDs and one chunk of objects are held at any
+ * time, whatever the size of the registry.
+ * <p>
+ * The streams are lazy and sequential; close them (e.g. with try-with-resources) when they are
+ * not consumed to the end, so a pending prefetch is cancelled. Failures surface as
+ * {@link RuntimeException}s from the terminal operation.
+ */
+public final class RegistryStream {
+    public static final int DEFAULT_PAGE_SIZE = 256;
+    /** Largest number of objects {@code sui_multiGetObjects} serves per call. */
+    static final int HYDRATE_CHUNK = 50;
+
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "sui-registry-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private RegistryStream() {
+    }
+
+    /** Number of IDs in the registry, read with the module's {@code size} function. */
+    public static long size(SuiContractManager mgr, String module, String registryId)
+            throws IOException, InterruptedException {
+        return Bcs.readU64(mgr.prepare(module, "size").inspect(registryId).get(0));
+    }
+
+    /** The registry's IDs in insertion order, fetched {@code pageSize} at a time. */
+    public static Stream<String> ids(SuiContractManager mgr, String module, String registryId, int pageSize)
+            throws IOException, InterruptedException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1, got " + pageSize);
+        }
+        IdPages pages = new IdPages(mgr.prepare(module, "get_page"), registryId, pageSize);
+        return stream(pages).onClose(pages::close);
+    }
+
+    /**
+     * The registry's objects as {@code sui_multiGetObjects} returns their {@code data}, in
+     * insertion order. IDs whose object no longer exists are skipped.
+     */
+    public static Stream<JsonNode> objects(SuiContractManager mgr, String module, String registryId, int pageSize)
+            throws IOException, InterruptedException {
+        Stream<String> ids = ids(mgr, module, registryId, pageSize);
+        return stream(new Hydrated(mgr.getBackend(), ids.iterator())).onClose(ids::close);
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static RuntimeException unchecked(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        return e instanceof RuntimeException r ? r : new RuntimeException("Reading registry failed", e);
+    }
+
+    /** Pages of IDs, with the page after the current one fetched ahead. */
+    private static final class IdPages implements Iterator<String> {
+        private final PreparedMoveCall getPage;
+        private final String registryId;
+        private final int pageSize;
+        private List<String> page = List.of();
+        private int position;
+        private long nextStart;
+        private boolean last;
+        private CompletableFuture<List<String>> next;
+
+        IdPages(PreparedMoveCall getPage, String registryId, int pageSize) {
+            this.getPage = getPage;
+            this.registryId = registryId;
+            this.pageSize = pageSize;
+            this.next = fetch();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == page.size()) {
+                if (last) {
+                    return false;
+                }
+                try {
+                    page = next.join();
+                } catch (CompletionException e) {
+                    last = true;
+                    throw unchecked(e);
+                }
+                position = 0;
+                // a short page is the end of the registry
+                last = page.size() < pageSize;
+                next = last ? null : fetch();
+            }
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(position++);
+        }
+
+        void close() {
+            last = true;
+            if (next != null) {
+                next.cancel(true);
+            }
+        }
+
+        private CompletableFuture<List<String>> fetch() {
+            long start = nextStart;
+            nextStart += pageSize;
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return Bcs.readIdVector(getPage.inspect(registryId, start, (long) pageSize).get(0));
+                } catch (IOException | InterruptedException e) {
+                    throw unchecked(e);
+                }
+            }, PREFETCH);
+        }
+    }
+
+    /** Objects of the IDs, fetched {@value #HYDRATE_CHUNK} at a time as they are consumed. */
+    private static final class Hydrated implements Iterator<JsonNode> {
+        private final ChainBackend backend;
+        private final Iterator<String> ids;
+        private final List<JsonNode> chunk = new ArrayList<>(HYDRATE_CHUNK);
+        private int position;
+
+        Hydrated(ChainBackend backend, Iterator<String> ids) {
+            this.backend = backend;
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == chunk.size()) {
+                if (!ids.hasNext()) {
+                    return false;
+                }
+                List<String> batch = new ArrayList<>(HYDRATE_CHUNK);
+                while (batch.size() < HYDRATE_CHUNK && ids.hasNext()) {
+                    batch.add(ids.next());
+                }
+                chunk.clear();
+                position = 0;
+                try {
+                    for (JsonNode object : backend.multiGetObjects(batch)) {
+                        if (object.has("data")) {
+                            chunk.add(object.path("data"));
+                        }
+                    }
+                } catch (IOException | InterruptedException e) {
+                    throw unchecked(e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public JsonNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(position++);
+        }
+    }
+}
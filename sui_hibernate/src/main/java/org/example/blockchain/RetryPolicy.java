@@ -0,0 +1,34 @@
+package org.example.blockchain;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often and how patiently {@link SuiContractManager} submits a call again after a
+ * {@linkplain MoveCallException#isTransient() transient} failure. The wait before attempt
+ * {@code n + 1} is drawn uniformly from zero to {@code baseDelay * 2^(n-1)}, capped at
+ * {@code maxDelay} ("full jitter"), so workers that collided on an object spread out instead
+ * of colliding again.
+ *
+ * @param maxAttempts attempts in total, including the first; 1 disables retries
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofSeconds(2));
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required, got " + maxAttempts);
+        }
+        if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException("Delays must satisfy 0 <= baseDelay <= maxDelay");
+        }
+    }
+
+    /** A random wait, in milliseconds, after the failed attempt number {@code attempt} (from 1). */
+    long backoffMillis(int attempt) {
+        long cap = baseDelay.toMillis() << Math.min(attempt - 1, 20);
+        cap = Math.min(cap, maxDelay.toMillis());
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -1,53 +1,289 @@
 package org.example.blockchain;
 
-import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.sui.Sui;
 import io.sui.models.SuiApiException;
 import io.sui.models.objects.ObjectChange;
 import io.sui.models.transactions.*;
+import org.example.cache.ImmutableCache;
+import org.example.metrics.CallMetrics;
+import org.example.metrics.SuiMetrics;
+import org.example.models.generated.ModelDescriptor;
+import org.example.models.generated.ModelRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 
-public class SuiContractManager {
-    private String pkg;
+/**
+ * Runs Move calls of a package for one sender. Close it once done, to unregister its JMX
+ * metrics and close the immutable-read cache it opened.
+ */
+public class SuiContractManager implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SuiContractManager.class);
+    /** How many idempotency keys of recent calls are remembered. */
+    private static final int IDEMPOTENCY_KEYS = 10_000;
+    /** Requests a warm-up has in flight at once. */
+    private static final int WARM_UP_THREADS = 4;
+
+    /** Written by {@link #publish} or {@link #setPackageId}, read by warm-up and caller threads. */
+    private volatile String pkg;
     private final Sui suiClient;
     private final String senderAddress;
     private final String gasObjectId;
     private final long gasBudget;
     private final long gasPrice;
-    private final String rpc = "https://fullnode.testnet.sui.io:443";
-    private final HttpClient httpClient = HttpClient.newHttpClient();
-
+    private final SuiMetrics metrics = new SuiMetrics();
+    private final ChainBackend backend;
+    @Nullable
+    private final ImmutableCache cache;
+    private final Map<CallKey, PreparedMoveCall> preparedCalls = new ConcurrentHashMap<>();
+    private final IdempotencyLog idempotency = new IdempotencyLog(IDEMPOTENCY_KEYS);
+    private volatile GasEstimator gasEstimator;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private volatile CompletableFuture<Void> warmUp;
+
+
+    /**
+     * Uses the {@code sui} binary from the PATH and the testnet fullnode, unless the
+     * {@code sui.cli} / {@code sui.rpc.url} system properties point elsewhere. If
+     * {@code sui.cache.file} is set, immutable reads are cached in that file.
+     */
+    public SuiContractManager(Sui suiClient, String senderAddress,
+                              String gasObjectId, long gasBudget, long gasPrice) {
+        this(suiClient, senderAddress, gasObjectId, gasBudget, gasPrice,
+                System.getProperty("sui.rpc.url", "https://fullnode.testnet.sui.io:443"), suiCli());
+    }
 
+    /** Runs transactions with the {@code suiBinary} CLI and reads from the fullnode at {@code rpcUrl}. */
+    public SuiContractManager(Sui suiClient, String senderAddress,
+                              String gasObjectId, long gasBudget, long gasPrice,
+                              String rpcUrl, String suiBinary) {
+        this.suiClient = suiClient;
+        this.senderAddress = senderAddress;
+        this.gasObjectId = gasObjectId;
+        this.gasBudget = gasBudget;
+        this.gasPrice = gasPrice;
+        this.cache = openCache();
+        this.backend = new CliBackend(suiBinary, gasObjectId,
+                new SuiRpcClient(rpcUrl, HttpClient.newHttpClient(), metrics), cache);
+    }
 
+    /**
+     * Reaches the chain through {@code backend}, e.g. an {@link InMemoryBackend} for tests or a
+     * {@link JsonRpcBackend}.
+     */
     public SuiContractManager(Sui suiClient, String senderAddress,
-                              String gasObjectId, long gasBudget, long gasPrice) {
+                              String gasObjectId, long gasBudget, long gasPrice,
+                              ChainBackend backend) {
         this.suiClient = suiClient;
         this.senderAddress = senderAddress;
         this.gasObjectId = gasObjectId;
         this.gasBudget = gasBudget;
         this.gasPrice = gasPrice;
+        this.backend = Objects.requireNonNull(backend, "Backend cannot be null");
+        this.cache = null;
+    }
+
+    private static String suiCli() {
+        return System.getProperty("sui.cli", "sui");
+    }
+
+    @Nullable
+    private static ImmutableCache openCache() {
+        String file = System.getProperty("sui.cache.file");
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new ImmutableCache(Path.of(file));
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Not caching immutable reads: cannot open {}", file, e);
+            return null;
+        }
     }
 
     public String getPackageId() {
         return pkg;
     }
+
+    /**
+     * Uses a package published earlier, e.g. by another process, as the one holding every
+     * entity module, so that {@link #warmUp} prepares its functions without publishing again.
+     */
+    public void setPackageId(String packageId) {
+        this.pkg = Objects.requireNonNull(packageId, "Package ID cannot be null");
+    }
     public String getSenderAddress() {return senderAddress;}
 
+    public ChainBackend getBackend() {
+        return backend;
+    }
+
+    /** Per-function latencies, outcomes and gas, also exported over JMX. */
+    public SuiMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Switches to automatic gas budgets: the first call per function and argument-size class is
+     * dry-run and its gas, times {@code safetyMargin}, is reused until the reference gas price
+     * changes. The constructor's {@code gasBudget} then only caps the dry runs.
+     */
+    public void enableAutoGasBudget(double safetyMargin) {
+        gasEstimator = new GasEstimator(backend::referenceGasPrice, safetyMargin);
+    }
+
+    /** Goes back to the fixed {@code gasBudget} passed to the constructor. */
+    public void disableAutoGasBudget() {
+        gasEstimator = null;
+    }
+
+    public boolean isAutoGasBudget() {
+        return gasEstimator != null;
+    }
+
+    /**
+     * Sets how calls failing with a {@linkplain MoveCallException#isTransient() transient}
+     * error (a stale or locked object, shared-object congestion) are submitted again; each
+     * attempt builds the transaction anew, with the objects' current versions.
+     * {@link RetryPolicy#DEFAULT} is used until this is called, {@link RetryPolicy#NONE} turns
+     * retries off.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = Objects.requireNonNull(retryPolicy, "Retry policy cannot be null");
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Creates a pipelined submitter that returns as soon as a transaction is certified and
+     * reports its locally executed effects later. Each gas coin gets its own lane holding at
+     * most {@code window} outstanding transactions. Needs a CLI based backend.
+     */
+    public PipelinedSubmitter pipelined(List<String> gasCoins, int window) {
+        return new PipelinedSubmitter(this, gasCoins, window);
+    }
+
+    /** The {@code sui} executable commands are run with, or null if the backend runs none. */
+    public String getSuiBinary() {
+        return backend instanceof CliBackend cli ? cli.getSuiBinary() : null;
+    }
+
+    /** Unregisters the JMX metrics and closes the immutable-read cache, if this manager opened one. */
+    @Override
+    public void close() {
+        metrics.close();
+        if (cache != null) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.warn("Could not close the immutable cache", e);
+            }
+        }
+    }
+
+    /** Warms up for every model of the {@link ModelRegistry}; see {@link #warmUp(Collection)}. */
+    public CompletableFuture<Void> warmUp() {
+        return warmUp(ModelRegistry.models());
+    }
+
+    /**
+     * Pays the cost of a first call in the background and returns at once: reads the reference
+     * gas price and the gas coin, which also opens the connection to the fullnode, and prepares
+     * the generated functions of {@code models} in the package {@linkplain #publish published}
+     * or {@linkplain #setPackageId set} before, if there is one. The future completes
+     * when all of this is done and {@link #isReady()} turns true; if a step fails, it completes
+     * with that failure once the other steps are done, and the first call needing the step does
+     * it again. Calls made meanwhile do not wait. Warming up again returns the same future.
+     */
+    public synchronized CompletableFuture<Void> warmUp(Collection<ModelDescriptor> models) {
+        if (warmUp != null) {
+            return warmUp;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(WARM_UP_THREADS, r -> {
+            Thread t = new Thread(r, "sui-warm-up");
+            t.setDaemon(true);
+            return t;
+        });
+        long started = System.nanoTime();
+        List<CompletableFuture<Void>> steps = new ArrayList<>();
+        steps.add(warmUpStep(executor, "the reference gas price", () -> {
+            GasEstimator estimator = gasEstimator;
+            if (estimator != null) {
+                estimator.referenceGasPrice();
+            } else {
+                backend.referenceGasPrice();
+            }
+        }));
+        if (gasObjectId != null) {
+            steps.add(warmUpStep(executor, "gas coin " + gasObjectId, this::checkGasCoin));
+        }
+        String packageId = pkg;
+        if (packageId != null) {
+            for (ModelDescriptor model : models) {
+                for (String function : model.functions()) {
+                    steps.add(warmUpStep(executor, model.module() + "::" + function,
+                            () -> prepare(packageId, model.module(), function)));
+                }
+            }
+        }
+        warmUp = CompletableFuture.allOf(steps.toArray(CompletableFuture[]::new)).whenComplete((done, e) -> {
+            executor.shutdown();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (e == null) {
+                log.info("Warmed up {} steps in {} ms", steps.size(), millis);
+            } else {
+                log.warn("Warm-up finished in {} ms with failures", millis, e);
+            }
+        });
+        return warmUp;
+    }
+
+    /** Whether a {@link #warmUp} has completed without failures. */
+    public boolean isReady() {
+        CompletableFuture<Void> w = warmUp;
+        return w != null && w.isDone() && !w.isCompletedExceptionally();
+    }
+
+    private static CompletableFuture<Void> warmUpStep(Executor executor, String what, WarmUpStep step) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                step.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Warming up " + what + " was interrupted", e);
+            } catch (IOException | RuntimeException e) {
+                throw new RuntimeException("Warming up " + what + " failed: " + e.getMessage(), e);
+            }
+        }, executor);
+    }
+
+    /** Reads the gas coin, failing if it does not exist or the sender does not own it. */
+    private void checkGasCoin() throws IOException, InterruptedException {
+        JsonNode coin = backend.getObject(gasObjectId);
+        if (!coin.has("data")) {
+            throw new IllegalStateException("Gas coin " + gasObjectId + " does not exist");
+        }
+        String owner = coin.path("data").path("owner").path("AddressOwner").asText(null);
+        if (owner != null && !owner.equals(senderAddress)) {
+            throw new IllegalStateException("Gas coin " + gasObjectId + " is owned by " + owner + ", not "
+                    + senderAddress);
+        }
+    }
+
+    @FunctionalInterface
+    private interface WarmUpStep {
+        void run() throws IOException, InterruptedException;
+    }
 
     public String createRegistry(String module, Path workingDir, String packageId)
             throws IOException, InterruptedException {
@@ -58,10 +294,53 @@ public class SuiContractManager {
         return parseRegistryIdFromTransaction(digest, module,packageId);
     }
 
+    /**
+     * Reads an object's type and content.
+     *
+     * @throws RuntimeException if the object does not exist or was deleted
+     */
+    public JsonNode getObject(ObjectId objectId) throws IOException, InterruptedException {
+        Objects.requireNonNull(objectId, "Object ID cannot be null");
+        return getObject(objectId.toString());
+    }
+
+    /** Like {@link #getObject(ObjectId)}, for an ID in {@code 0x…} form. */
+    public JsonNode getObject(String objectId) throws IOException, InterruptedException {
+        Objects.requireNonNull(objectId, "Object ID cannot be null");
+        JsonNode result = backend.getObject(objectId);
+        if (result.has("error")) {
+            throw new RuntimeException("Object " + objectId + " not found: " + result.path("error"));
+        }
+        return result.path("data");
+    }
+
+    /**
+     * Calls a Move function, encoding {@code args} by their Java type: numbers as integers,
+     * strings starting with {@code 0x} as object IDs and other strings as Move strings.
+     * {@code workingDir} is no longer used; calls do not depend on the package directory.
+     *
+     * @throws MoveCallException if the call failed or was rejected, with the failure's kind
+     */
     public String moveCall(String module, String function, List<Object> args, Path workingDir, String packageId,
                            boolean assignAndTransfer, @Nullable String transferToAddress)
             throws IOException, InterruptedException {
-        // Validate inputs
+        return moveCall(module, function, args, workingDir, packageId, assignAndTransfer, transferToAddress, null);
+    }
+
+    /**
+     * Like {@link #moveCall(String, String, List, Path, String, boolean, String)}, executing the
+     * call at most once per {@code idempotencyKey}: repeating a call whose key already succeeded
+     * returns the earlier digest, and repeating one still in flight waits for it. Only outcomes
+     * seen by this manager are known, for its {@value #IDEMPOTENCY_KEYS} most recent keys.
+     */
+    public String moveCall(String module, String function, List<Object> args, Path workingDir, String packageId,
+                           boolean assignAndTransfer, @Nullable String transferToAddress,
+                           @Nullable String idempotencyKey)
+            throws IOException, InterruptedException {
+        // Validate inputs; every entity module lives in the one published package by default
+        if (packageId == null) {
+            packageId = pkg;
+        }
         Objects.requireNonNull(module, "Module name cannot be null");
         Objects.requireNonNull(function, "Function name cannot be null");
         Objects.requireNonNull(args, "Args list cannot be null");
@@ -70,16 +349,19 @@ public class SuiContractManager {
             throw new IllegalArgumentException("Transfer address cannot be null when assignAndTransfer is true");
         }
 
-        // Build the command
-        List<String> command = new ArrayList<>();
-        command.add("sui");
-        command.add("client");
-        command.add("ptb");
-        command.add("--move-call");
-        command.add(packageId + "::" + module + "::" + function);
+        List<String> arguments = new ArrayList<>(args.size());
+        addArguments(arguments, args);
+        MoveCall call = new MoveCall(packageId, module, function, arguments,
+                assignAndTransfer ? transferToAddress : null);
+        return submit(call, metrics.call(module, function), idempotencyKey).digest();
+    }
 
-        // Log arguments for debugging
-        System.out.println("Processing arguments for moveCall: " + args);
+    /**
+     * Encodes {@code args} by their Java type, as {@link #moveCall} does without a resolved
+     * signature, and appends them to {@code command}. Returns the encoded size.
+     */
+    static int addArguments(List<String> command, List<Object> args) {
+        int argBytes = 0;
 
         // Add arguments, ensuring correct type handling
         for (int i = 0; i < args.size(); i++) {
@@ -103,91 +385,198 @@ public class SuiContractManager {
                 throw new IllegalArgumentException("Unsupported argument type at index " + i + ": " + arg.getClass().getName());
             }
             command.add(s);
-            System.out.println("Added argument at index " + i + ": " + s);
+            argBytes += s.length();
         }
+        return argBytes;
+    }
 
-        // Conditionally add assign and transfer-objects steps
-        if (assignAndTransfer) {
-            command.add("--assign");
-            command.add("bar_obj");
-            command.add("--transfer-objects");
-            command.add("[bar_obj]");
-            command.add("@" + transferToAddress);
+    /**
+     * Resolves {@code packageId::module::function} once and returns a reusable call handle.
+     * Handles are cached, so preparing the same function again costs a map lookup.
+     */
+    public PreparedMoveCall prepare(String packageId, String module, String function)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(packageId, "Package ID cannot be null");
+        Objects.requireNonNull(module, "Module name cannot be null");
+        Objects.requireNonNull(function, "Function name cannot be null");
+        CallKey key = new CallKey(packageId, module, function);
+        PreparedMoveCall call = preparedCalls.get(key);
+        if (call == null) {
+            call = resolve(packageId, module, function);
+            PreparedMoveCall raced = preparedCalls.putIfAbsent(key, call);
+            if (raced != null) {
+                call = raced;
+            }
         }
+        return call;
+    }
 
-        // Add gas and execution flags
-        command.add("--gas-budget");
-        command.add(String.valueOf(gasBudget));
-        command.add("--json");
+    /** Prepares a function of the published package. */
+    public PreparedMoveCall prepare(String module, String function) throws IOException, InterruptedException {
+        return prepare(pkg, module, function);
+    }
 
-        // Set up ProcessBuilder
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        if (workingDir != null) {
-            processBuilder.directory(workingDir.toFile());
+    private PreparedMoveCall resolve(String packageId, String module, String function)
+            throws IOException, InterruptedException {
+        JsonNode signature = backend.getNormalizedMoveFunction(packageId, module, function);
+        if ("Private".equals(signature.path("visibility").asText()) && !signature.path("isEntry").asBoolean()) {
+            throw new IllegalArgumentException(packageId + "::" + module + "::" + function + " is private");
         }
+        List<MoveArgType> params = new ArrayList<>();
+        List<PreparedMoveCall.ObjectParameter> objects = new ArrayList<>();
+        for (JsonNode type : signature.path("parameters")) {
+            MoveArgType param = MoveArgType.fromNormalized(type);
+            if (param == null) {
+                continue;
+            }
+            if (param == MoveArgType.OBJECT) {
+                // by reference it is read or written in place, by value it is consumed
+                boolean mutable = !type.has("Reference");
+                JsonNode struct = type.has("Reference") ? type.path("Reference").path("Struct")
+                        : type.has("MutableReference") ? type.path("MutableReference").path("Struct")
+                        : type.path("Struct");
+                objects.add(new PreparedMoveCall.ObjectParameter(params.size(),
+                        struct.path("module").asText(), struct.path("name").asText(), mutable));
+            }
+            params.add(param);
+        }
+        return new PreparedMoveCall(this, packageId, module, function, params, objects);
+    }
 
-        // Redirect error stream to capture all output
-        processBuilder.redirectErrorStream(true);
+    TransactionResult execute(PreparedMoveCall prepared, MoveCall call, @Nullable String idempotencyKey)
+            throws IOException, InterruptedException {
+        return submit(call, prepared.metrics(), idempotencyKey);
+    }
 
-        // Log command for debugging
-        System.out.println("Executing command: " + String.join(" ", command));
+    /** Dev-inspects the prepared call and returns the BCS bytes of its return values. */
+    List<byte[]> inspect(PreparedMoveCall prepared, MoveCall call) throws IOException, InterruptedException {
+        return inspect(List.of(call), prepared.metrics()).get(0);
+    }
 
-        // Execute the command
-        Process process = processBuilder.start();
+    /**
+     * Starts a batch of read-only calls, such as the generated {@code get_<field>} views, that
+     * run together in one dev-inspect, without gas.
+     */
+    public ViewBatch views() {
+        return new ViewBatch(this);
+    }
 
-        // Capture output
-        StringBuilder output = new StringBuilder();
-        StringBuilder errorOutput = new StringBuilder();
-        try (BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
-             BufferedReader stdErr = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-            String line;
-            while ((line = stdOut.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            while ((line = stdErr.readLine()) != null) {
-                errorOutput.append(line).append("\n");
+    /**
+     * Dev-inspects {@code calls} as one programmable transaction and returns, per call, the BCS
+     * bytes of its return values.
+     */
+    List<List<byte[]>> inspect(List<MoveCall> calls, CallMetrics m) throws IOException, InterruptedException {
+        JsonNode result;
+        try {
+            result = backend.devInspect(calls, m);
+        } catch (IOException | RuntimeException e) {
+            m.failure();
+            throw e;
+        }
+        String error = result.path("error").asText(null);
+        if (error == null && !"success".equals(result.path("effects").path("status").path("status").asText("success"))) {
+            error = result.path("effects").path("status").path("error").asText();
+        }
+        String what = calls.size() == 1 ? calls.get(0).target() : calls.size() + " calls";
+        if (error == null && result.path("results").size() != calls.size()) {
+            error = "expected " + calls.size() + " results, got " + result.path("results").size();
+        }
+        if (error != null) {
+            m.failure();
+            throw new RuntimeException("Dev-inspect of " + what + " failed: " + error);
+        }
+        m.success(0L);
+        List<List<byte[]>> results = new ArrayList<>(calls.size());
+        for (JsonNode command : result.path("results")) {
+            List<byte[]> values = new ArrayList<>();
+            for (JsonNode value : command.path("returnValues")) {
+                JsonNode bytes = value.path(0);
+                byte[] bcs = new byte[bytes.size()];
+                for (int i = 0; i < bcs.length; i++) {
+                    bcs[i] = (byte) bytes.get(i).asInt();
+                }
+                values.add(bcs);
             }
+            results.add(values);
         }
+        return results;
+    }
 
-        // Wait for completion
-        boolean completed = process.waitFor(5, TimeUnit.MINUTES);
-        if (!completed) {
-            process.destroy();
-            throw new RuntimeException("Move call timed out after 5 minutes");
+    private TransactionResult submit(MoveCall call, CallMetrics m, @Nullable String idempotencyKey)
+            throws IOException, InterruptedException {
+        if (idempotencyKey == null) {
+            return submit(call, m);
         }
+        return idempotency.run(idempotencyKey, () -> submit(call, m));
+    }
 
-        // Check exit code
-        if (process.exitValue() != 0) {
-            throw new RuntimeException("Move call failed with exit code " + process.exitValue() +
-                    "\nError: " + errorOutput + "\nOutput: " + output);
+    /**
+     * Executes the call, submitting it again after transient failures. Those are rejections
+     * before execution or cancellations that leave every object unchanged, so a call never
+     * takes effect twice; a call whose outcome is unknown (e.g. a timeout) is not repeated.
+     */
+    private TransactionResult submit(MoveCall call, CallMetrics m) throws IOException, InterruptedException {
+        RetryPolicy policy = retryPolicy;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                TransactionResult result = attempt(call, m);
+                m.success(result.gasUsed());
+                return result;
+            } catch (MoveCallException e) {
+                if (!e.isTransient() || attempt >= policy.maxAttempts()) {
+                    m.failure();
+                    throw e;
+                }
+                long backoff = policy.backoffMillis(attempt);
+                log.debug("{} failed with {}, attempt {} of {} in {} ms", call.target(), e.getKind(),
+                        attempt + 1, policy.maxAttempts(), backoff);
+                m.retry();
+                Thread.sleep(backoff);
+            } catch (IOException | RuntimeException e) {
+                m.failure();
+                throw e;
+            }
         }
+    }
 
-        // Clean output to remove warnings before parsing JSON
-        String raw = output.toString().trim();
-        System.out.println("Raw output before cleaning: " + raw);
-        // Find the first '{' to start JSON
-        int jsonStart = raw.indexOf("{");
-        if (jsonStart == -1) {
-            throw new RuntimeException("No valid JSON found in command output: " + raw);
+    /** Adds the gas budget, fixed or estimated, and executes the call once. */
+    private TransactionResult attempt(MoveCall call, CallMetrics m) throws IOException, InterruptedException {
+        GasEstimator estimator = gasEstimator;
+        long budget = budgetFor(call, m);
+        try {
+            JsonNode response;
+            try {
+                response = backend.execute(call, budget, false, m);
+            } catch (RuntimeException e) {
+                MoveCallException rejected = MoveCallException.rejected(call.target(), e);
+                throw rejected != null ? rejected : e;
+            }
+            return checked(response, call.target());
+        } catch (MoveCallException e) {
+            if (estimator != null && e.getKind() == MoveCallException.Kind.INSUFFICIENT_GAS) {
+                // the cached estimate was too low for this call; dry-run it again next time
+                estimator.invalidate(call.target(), call.argBytes());
+            }
+            throw e;
         }
-        raw = raw.substring(jsonStart);
-        System.out.println("Cleaned JSON output: " + raw);
+    }
 
-        // Parse JSON output
-        ObjectMapper mapper = new ObjectMapper();
-        System.out.println("RPC payload: " + raw);
-        JsonNode rootNode;
-        try {
-            rootNode = mapper.readTree(raw);
-        } catch (JsonParseException e) {
-            throw new RuntimeException("Failed to parse JSON output: " + raw + "\nError: " + e.getMessage(), e);
+    /** The fixed budget, or the estimate for {@code call} when auto budgeting is on. */
+    long budgetFor(MoveCall call, CallMetrics m) throws IOException, InterruptedException {
+        GasEstimator estimator = gasEstimator;
+        if (estimator == null) {
+            return gasBudget;
         }
+        return estimator.budget(call.target(), call.argBytes(), () -> backend.execute(call, gasBudget, true, m));
+    }
 
+    /** The transaction in {@code rootNode}, or a {@link MoveCallException} if it did not succeed. */
+    private static TransactionResult checked(JsonNode rootNode, String target) {
         // Check transaction status
         String status = rootNode.path("effects").path("status").path("status").asText();
         if (!"success".equals(status)) {
             String error = rootNode.path("effects").path("status").path("error").asText();
-            throw new RuntimeException("Move call failed: " + error + "\nOutput: " + output);
+            throw MoveCallException.executed(target, error, rootNode.path("digest").asText(null), rootNode);
         }
 
         // Extract transaction digest
@@ -195,52 +584,32 @@ public class SuiContractManager {
         if (digest == null || digest.isEmpty()) {
             throw new RuntimeException("Transaction digest not found in response");
         }
-
-        System.out.println("Move call stdout:\n" + output);
-        System.out.println("Move call stderr:\n" + errorOutput);
-        return digest;
+        return new TransactionResult(digest, rootNode);
     }
 
 
     public String publish(Path tempMoveDir) throws IOException, InterruptedException {
-        Process publishProcess = new ProcessBuilder(
-                "sui", "client", "publish",
-                tempMoveDir.toString(),
-                "--gas", gasObjectId,
-                "--gas-budget", String.valueOf(50000000L),
-                "--json"
-        )
-                .directory(tempMoveDir.toFile())
-                .start();
-
-        StringBuilder publishOutput = new StringBuilder();
-        StringBuilder publishErrorOutput = new StringBuilder();
-        try (BufferedReader stdOut = new BufferedReader(new InputStreamReader(publishProcess.getInputStream()));
-             BufferedReader stdErr = new BufferedReader(new InputStreamReader(publishProcess.getErrorStream()))) {
-            String line;
-            while ((line = stdOut.readLine()) != null) {
-                publishOutput.append(line).append("\n");
-            }
-            while ((line = stdErr.readLine()) != null) {
-                publishErrorOutput.append(line).append("\n");
-            }
+        CallMetrics m = metrics.call("package", "publish");
+        long budget = gasBudget;
+        GasEstimator estimator = gasEstimator;
+        if (estimator != null) {
+            // a package is published rarely, so its dry run is not cached
+            budget = estimator.budgetFrom(backend.publish(tempMoveDir, gasBudget, true, m));
         }
-        publishProcess.waitFor(5, TimeUnit.MINUTES);
-        System.out.println("Publish stdout:\n" + publishOutput);
-        System.out.println("Publish stderr:\n" + publishErrorOutput);
-
-        if (publishProcess.exitValue() != 0) {
-            throw new RuntimeException("Publish failed with exit code " + publishProcess.exitValue() +
-                    "\nError: " + publishErrorOutput);
+        JsonNode published;
+        try {
+            published = backend.publish(tempMoveDir, budget, false, m);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Publish failed: " + e.getMessage(), e);
         }
+        log.debug("Publish output:\n{}", published);
 
-        // Step 10: Parse package ID from JSON output
-        return parsePackageIdFromJson(publishOutput.toString());
+        // Parse package ID from JSON output; it holds the modules of all entities
+        pkg = packageIdFrom(checked(published, "package::publish").response());
+        return pkg;
     }
 
-    private String parsePackageIdFromJson(String jsonOutput) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode rootNode = mapper.readTree(jsonOutput);
+    static String packageIdFrom(JsonNode rootNode) {
         JsonNode objectChanges = rootNode.path("objectChanges");
         for (JsonNode change : objectChanges) {
             if (change.path("type").asText().equals("published")) {
@@ -251,71 +620,27 @@ public class SuiContractManager {
     }
     private String parseRegistryIdFromTransaction(String digest, String module, String packageId)
             throws IOException, InterruptedException {
-        // 1. Build your JSON‑RPC request payload
-        String payload = new ObjectMapper().writeValueAsString(Map.of(
-                "jsonrpc", "2.0",
-                "id", 1,
-                "method", "sui_getTransactionBlock",
-                "params", List.of(digest, Map.of(
-                        "showEffects", true,
-                        "showObjectChanges", true
-                ))
-        ));
-
-        // 2. Fire the HTTP POST (using Java 11+ HttpClient for example)
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(rpc))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(payload))
-                .build();
-        HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) {
-            throw new RuntimeException("RPC call failed: " + resp.body());
-        }
+        // 1. Fetch the transaction effects
+        JsonNode root = backend.getTransaction(digest);
+
+        return registryIdFrom(root, digest);
+    }
 
-        // 3. Parse JSON
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(resp.body()).path("result");
+    /** The first object created by a {@code create_registry} transaction. */
+    static String registryIdFrom(JsonNode root, String digest) {
         JsonNode changes = root.path("effects").path("created");
-        System.out.println("Changes: " + changes);
-        System.out.println("I got here");
-        // 4. Find the created Registry
+        // Find the created Registry
         for (JsonNode change : changes) {
-            System.out.println("I got here again");
-
             return change.path("reference").path("objectId").asText();
         }
         throw new RuntimeException("Registry ID not found in transaction " + digest);
     }
 
+    /** Builds with the {@code sui} CLI; use {@link ChainBackend#build} for other backends. */
     public static File [] buildMoveCode(Path tempMoveDir) throws IOException, InterruptedException {
-        Process buildProcess = new ProcessBuilder("sui", "move", "build", "--path", tempMoveDir.toString())
-                .directory(tempMoveDir.toFile())
-                .start();
-        StringBuilder output = new StringBuilder();
-        StringBuilder errorOutput = new StringBuilder();
-        try (BufferedReader stdOut = new BufferedReader(new InputStreamReader(buildProcess.getInputStream()));
-             BufferedReader stdErr = new BufferedReader(new InputStreamReader(buildProcess.getErrorStream()))) {
-            String line;
-            while ((line = stdOut.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            while ((line = stdErr.readLine()) != null) {
-                errorOutput.append(line).append("\n");
-            }
-        }
-        buildProcess.waitFor(30, TimeUnit.SECONDS);
-        System.out.println("Build stdout:\n" + output);
-        System.out.println("Build stderr:\n" + errorOutput);
-        if (buildProcess.exitValue() != 0) {
-            throw new RuntimeException("Move build failed with exit code " + buildProcess.exitValue() + "\nError: " + errorOutput);
-        }
-
-        // Step 7: Verify bytecode directory
-        Path bytecodeDir = tempMoveDir.resolve("build").resolve("test_package").resolve("bytecode_modules");
-        File[] bytecodeFiles = bytecodeDir.toFile().listFiles();
-        return bytecodeFiles;
+        return new CliBackend(suiCli(), null, null).build(tempMoveDir);
     }
 
-
-}
\ No newline at end of file
+    private record CallKey(String packageId, String module, String function) {
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.metrics.CallMetrics;
+import org.example.metrics.Phase;
+import org.example.metrics.SuiMetrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON-RPC client for a Sui fullnode. Calls go through a {@link ConcurrencyLimiter},
+ * which the CLI backend built on this client shares for the commands that reach the node.
+ */
+public class SuiRpcClient {
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** How long the node may take to answer before the call counts as shed. */
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI endpoint;
+    private final HttpClient httpClient;
+    private final SuiMetrics metrics;
+    private final ConcurrencyLimiter limiter;
+
+    public SuiRpcClient(String url) {
+        this(url, HttpClient.newHttpClient(), new SuiMetrics());
+    }
+
+    public SuiRpcClient(String url, HttpClient httpClient, SuiMetrics metrics) {
+        this(url, httpClient, metrics, new ConcurrencyLimiter());
+    }
+
+    /** Limits calls with {@code limiter}, which is registered with {@code metrics} as type {@code Limiter}. */
+    public SuiRpcClient(String url, HttpClient httpClient, SuiMetrics metrics, ConcurrencyLimiter limiter) {
+        this.endpoint = URI.create(url);
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.limiter = metrics.register("Limiter", url, limiter);
+    }
+
+    public String getUrl() {
+        return endpoint.toString();
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Calls {@code method} and returns its {@code result} node.
+     *
+     * @throws NodeOverloadedException if the node sheds the call (429, 503, timeout) or no call
+     *                                 slot frees up in time
+     * @throws RuntimeException        if the node answers with another non-200 status or a
+     *                                 JSON-RPC error
+     */
+    public JsonNode call(String method, Object... params) throws IOException, InterruptedException {
+        String payload = MAPPER.writeValueAsString(Map.of(
+                "jsonrpc", "2.0",
+                "id", 1,
+                "method", method,
+                "params", Arrays.asList(params)
+        ));
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(endpoint)
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        CallMetrics m = metrics.rpc(method);
+        HttpResponse<String> resp;
+        try {
+            resp = limiter.run("rpc", () -> send(method, req, m));
+        } catch (IOException | RuntimeException e) {
+            m.failure();
+            throw e;
+        }
+
+        long parseStart = System.nanoTime();
+        JsonNode root = MAPPER.readTree(resp.body());
+        m.record(Phase.JSON_PARSE, System.nanoTime() - parseStart);
+        if (root.has("error")) {
+            m.failure();
+            throw new RuntimeException("RPC call " + method + " failed: " + root.path("error"));
+        }
+        m.success(0L);
+        return root.path("result");
+    }
+
+    private HttpResponse<String> send(String method, HttpRequest req, CallMetrics m)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> resp;
+        try {
+            resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+        } finally {
+            m.record(Phase.RPC_ROUND_TRIP, System.nanoTime() - start);
+        }
+        if (resp.statusCode() == 429 || resp.statusCode() == 503) {
+            throw new NodeOverloadedException("RPC call " + method + " was shed with status " + resp.statusCode());
+        }
+        if (resp.statusCode() != 200) {
+            throw new RuntimeException("RPC call " + method + " failed: " + resp.body());
+        }
+        return resp;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of an executed transaction: its digest plus the JSON response carrying effects
+ * and object changes.
+ */
+public record TransactionResult(String digest, JsonNode response) {
+
+    /** IDs of all objects the transaction created. */
+    public List<String> createdObjectIds() {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode change : response.path("objectChanges")) {
+            if ("created".equals(change.path("type").asText())) {
+                ids.add(change.path("objectId").asText());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * ID of the created object whose type ends with {@code typeSuffix}, e.g. {@code "::Bar::Bar"}.
+     */
+    public String createdObjectId(String typeSuffix) {
+        for (JsonNode change : response.path("objectChanges")) {
+            if ("created".equals(change.path("type").asText())
+                    && change.path("objectType").asText().endsWith(typeSuffix)) {
+                return change.path("objectId").asText();
+            }
+        }
+        throw new RuntimeException("No created object of type *" + typeSuffix + " in transaction " + digest);
+    }
+
+    /** Net gas charged: computation plus storage, minus the storage rebate. */
+    public long gasUsed() {
+        JsonNode gas = response.path("effects").path("gasUsed");
+        return gas.path("computationCost").asLong()
+                + gas.path("storageCost").asLong()
+                - gas.path("storageRebate").asLong();
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.blockchain;
+
+import org.example.models.generated.ModelDescriptor;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a mixed stream of calls as much in parallel as their input objects allow. The objects
+ * a call takes are known from its {@linkplain PreparedMoveCall#getObjectParameters() signature}
+ * and, whether owned or shared, from the {@link ModelDescriptor} of its module; structs no
+ * descriptor knows are treated as owned.
+ * <ul>
+ *   <li>An owned object is used by one call at a time, in submission order.</li>
+ *   <li>A shared object is written by at most {@code maxSharedWriters} calls at a time, admitted
+ *       in submission order; consensus orders them, and the cap keeps them from congesting it.</li>
+ *   <li>Reading a shared object never waits.</li>
+ * </ul>
+ * Calls are spread over lanes, one per gas coin, each running one transaction at a time so no
+ * coin is used twice concurrently. A call taking owned objects runs on a lane of their owner;
+ * others run on any lane. The signers are the senders of the given managers, each with its own
+ * gas coins; with several, owners are looked up once per object. Signing as several addresses
+ * needs a {@link JsonRpcBackend}, as the CLI signs with its active address.
+ */
+public class TransactionScheduler implements AutoCloseable {
+    /** Writers of one shared object in flight at once, unless configured otherwise. */
+    public static final int DEFAULT_SHARED_WRITERS = 8;
+
+    private final Map<String, ModelDescriptor> models = new HashMap<>();
+    private final Map<String, ArrayDeque<Lane>> idle = new LinkedHashMap<>();
+    private final SuiContractManager reader;
+    private final int maxSharedWriters;
+    private final ExecutorService workers;
+    private final Map<ObjectId, String> owners = new ConcurrentHashMap<>();
+    private final Map<ObjectId, Slot> slots = new HashMap<>();
+    private final Set<Op> pending = new LinkedHashSet<>();
+    private int idleLanes;
+    private int running;
+    private boolean closed;
+
+    public TransactionScheduler(List<ModelDescriptor> models, Map<SuiContractManager, List<String>> gasCoins) {
+        this(models, gasCoins, DEFAULT_SHARED_WRITERS);
+    }
+
+    /**
+     * @param models   descriptors of the modules whose calls are scheduled
+     * @param gasCoins per signer, the gas coins its calls may use
+     */
+    public TransactionScheduler(List<ModelDescriptor> models, Map<SuiContractManager, List<String>> gasCoins,
+                                int maxSharedWriters) {
+        if (maxSharedWriters < 1) {
+            throw new IllegalArgumentException("At least one shared writer is required, got " + maxSharedWriters);
+        }
+        for (ModelDescriptor model : models) {
+            this.models.put(model.module(), model);
+        }
+        Set<String> coins = new HashSet<>();
+        for (Map.Entry<SuiContractManager, List<String>> signer : gasCoins.entrySet()) {
+            for (String coin : signer.getValue()) {
+                if (!coins.add(coin)) {
+                    throw new IllegalArgumentException("Gas coin " + coin + " is given twice");
+                }
+                idle.computeIfAbsent(signer.getKey().getSenderAddress(), a -> new ArrayDeque<>())
+                        .add(new Lane(signer.getKey(), coin));
+            }
+        }
+        if (coins.isEmpty()) {
+            throw new IllegalArgumentException("At least one gas coin is required");
+        }
+        this.reader = gasCoins.keySet().iterator().next();
+        this.maxSharedWriters = maxSharedWriters;
+        this.idleLanes = coins.size();
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(coins.size(), r -> {
+            Thread t = new Thread(r, "sui-scheduler-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues the call behind earlier calls on the same objects and returns its future result.
+     * Looking up the owner of an object not seen before may block.
+     *
+     * @throws IllegalArgumentException if the call takes owned objects of different owners, or
+     *                                  of an owner without gas coins here
+     */
+    public CompletableFuture<TransactionResult> submit(PreparedMoveCall call, Object... args)
+            throws IOException, InterruptedException {
+        return enqueue(call, call.call(args), args);
+    }
+
+    /** Like {@link #submit}, transferring the call's result to {@code recipient}. */
+    public CompletableFuture<TransactionResult> submitAndTransfer(PreparedMoveCall call, String recipient,
+                                                                  Object... args)
+            throws IOException, InterruptedException {
+        return enqueue(call, call.transferCall(recipient, args), args);
+    }
+
+    /** Calls waiting for their objects or for a lane. */
+    public synchronized int queued() {
+        return pending.size();
+    }
+
+    /** Calls executing. */
+    public synchronized int inFlight() {
+        return running;
+    }
+
+    private CompletableFuture<TransactionResult> enqueue(PreparedMoveCall call, MoveCall moveCall, Object[] args)
+            throws IOException, InterruptedException {
+        Map<ObjectId, ObjectAccess> inputs = inputs(call, args);
+        Op op = new Op(call, moveCall, inputs, signer(call, inputs), new CompletableFuture<>());
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The scheduler is closed");
+            }
+            for (Map.Entry<ObjectId, ObjectAccess> input : inputs.entrySet()) {
+                if (input.getValue() != ObjectAccess.SHARED_READ) {
+                    slots.computeIfAbsent(input.getKey(), id -> new Slot()).waiting.add(op);
+                }
+            }
+            pending.add(op);
+            dispatch();
+        }
+        return op.result();
+    }
+
+    /** The objects the call takes, each with the strongest access of its parameters. */
+    private Map<ObjectId, ObjectAccess> inputs(PreparedMoveCall call, Object[] args) {
+        Map<ObjectId, ObjectAccess> inputs = new LinkedHashMap<>();
+        for (PreparedMoveCall.ObjectParameter param : call.getObjectParameters()) {
+            Object arg = args[param.index()];
+            ObjectId id = arg instanceof ObjectId objectId ? objectId : ObjectId.parse(String.valueOf(arg));
+            ModelDescriptor model = models.get(param.module());
+            ObjectAccess access = model == null ? null : model.access(param.struct(), param.mutable());
+            if (access == null) {
+                access = ObjectAccess.of(false, param.mutable());
+            }
+            inputs.merge(id, access, (a, b) -> ObjectAccess.of(a.isShared() && b.isShared(),
+                    a.isMutable() || b.isMutable()));
+        }
+        return inputs;
+    }
+
+    /** The address that must sign the call, or null if any may. */
+    private String signer(PreparedMoveCall call, Map<ObjectId, ObjectAccess> inputs)
+            throws IOException, InterruptedException {
+        String signer = null;
+        for (Map.Entry<ObjectId, ObjectAccess> input : inputs.entrySet()) {
+            if (input.getValue().isShared()) {
+                continue;
+            }
+            String owner = owner(input.getKey());
+            if (signer != null && !signer.equals(owner)) {
+                throw new IllegalArgumentException(call + " takes objects owned by " + signer + " and " + owner);
+            }
+            signer = owner;
+        }
+        return signer;
+    }
+
+    private String owner(ObjectId id) throws IOException, InterruptedException {
+        if (idle.size() == 1) {
+            return idle.keySet().iterator().next();
+        }
+        String owner = owners.get(id);
+        if (owner == null) {
+            owner = reader.getObject(id).path("owner").path("AddressOwner").asText(null);
+            if (owner == null) {
+                throw new IllegalArgumentException("Object " + id + " is not owned by an address");
+            }
+            if (!idle.containsKey(owner)) {
+                throw new IllegalArgumentException("Object " + id + " is owned by " + owner
+                        + ", which has no gas coins in this scheduler");
+            }
+            owners.put(id, owner);
+        }
+        return owner;
+    }
+
+    /** Starts every queued call, oldest first, whose objects and lane are free. */
+    private void dispatch() {
+        for (Iterator<Op> it = pending.iterator(); it.hasNext() && idleLanes > 0; ) {
+            Op op = it.next();
+            if (!admissible(op)) {
+                continue;
+            }
+            Lane lane = takeLane(op.signer());
+            if (lane == null) {
+                continue;
+            }
+            it.remove();
+            for (Map.Entry<ObjectId, ObjectAccess> input : op.inputs().entrySet()) {
+                if (input.getValue() != ObjectAccess.SHARED_READ) {
+                    Slot slot = slots.get(input.getKey());
+                    slot.waiting.removeFirst();
+                    slot.running++;
+                }
+            }
+            running++;
+            workers.execute(() -> run(op, lane));
+        }
+    }
+
+    private boolean admissible(Op op) {
+        for (Map.Entry<ObjectId, ObjectAccess> input : op.inputs().entrySet()) {
+            ObjectAccess access = input.getValue();
+            if (access == ObjectAccess.SHARED_READ) {
+                continue;
+            }
+            Slot slot = slots.get(input.getKey());
+            if (slot.waiting.peekFirst() != op) {
+                return false;
+            }
+            if (access.isExclusive() ? slot.running > 0 : slot.running >= maxSharedWriters) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Lane takeLane(String signer) {
+        ArrayDeque<Lane> lanes = null;
+        if (signer != null) {
+            lanes = idle.get(signer);
+        } else {
+            // spread calls that any signer may sign over the signers with the most free coins
+            for (ArrayDeque<Lane> candidate : idle.values()) {
+                if (lanes == null || candidate.size() > lanes.size()) {
+                    lanes = candidate;
+                }
+            }
+        }
+        Lane lane = lanes.pollFirst();
+        if (lane != null) {
+            idleLanes--;
+        }
+        return lane;
+    }
+
+    private void run(Op op, Lane lane) {
+        TransactionResult result = null;
+        Throwable failure = null;
+        try {
+            result = lane.manager().execute(op.call(), op.moveCall().withGasCoin(lane.gasCoin()), null);
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            failure = e;
+        } finally {
+            finished(op, lane);
+        }
+        if (failure != null) {
+            op.result().completeExceptionally(failure);
+        } else {
+            op.result().complete(result);
+        }
+    }
+
+    private synchronized void finished(Op op, Lane lane) {
+        for (Map.Entry<ObjectId, ObjectAccess> input : op.inputs().entrySet()) {
+            if (input.getValue() != ObjectAccess.SHARED_READ) {
+                Slot slot = slots.get(input.getKey());
+                slot.running--;
+                if (slot.running == 0 && slot.waiting.isEmpty()) {
+                    slots.remove(input.getKey());
+                }
+            }
+        }
+        idle.get(lane.manager().getSenderAddress()).addLast(lane);
+        idleLanes++;
+        running--;
+        dispatch();
+        if (closed && pending.isEmpty() && running == 0) {
+            workers.shutdown();
+        }
+    }
+
+    /** Stops accepting calls; those already queued still run. */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (pending.isEmpty() && running == 0) {
+            workers.shutdown();
+        }
+    }
+
+    private record Lane(SuiContractManager manager, String gasCoin) {
+    }
+
+    private record Op(PreparedMoveCall call, MoveCall moveCall, Map<ObjectId, ObjectAccess> inputs,
+                      String signer, CompletableFuture<TransactionResult> result) {
+    }
+
+    /** The calls on one object: those waiting, in submission order, and how many are running. */
+    private static final class Slot {
+        private final ArrayDeque<Op> waiting = new ArrayDeque<>();
+        private int running;
+    }
+}
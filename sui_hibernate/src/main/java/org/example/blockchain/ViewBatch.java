@@ -0,0 +1,101 @@
+package org.example.blockchain;
+
+import org.example.metrics.CallMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-only Move calls collected to run together: {@link #execute()} dev-inspects them as the
+ * commands of one programmable transaction, so reading many fields of many objects costs one
+ * round trip and no gas. Typically the generated views are batched, e.g.
+ * <pre>{@code
+ * ViewBatch batch = mgr.views();
+ * ViewBatch.View<String> name = batch.add(mgr.prepare("Bar", "get_name"), Bcs::readString, id);
+ * ViewBatch.View<Long> count = batch.add(mgr.prepare("Bar", "get_count"), Bcs::readU64, id);
+ * batch.execute();
+ * }</pre>
+ * A batch larger than {@value #MAX_COMMANDS} calls, the commands a transaction may hold, is
+ * dev-inspected in several parts. If any call aborts, e.g. on an object that does not exist,
+ * the whole part fails. A batch runs once and is not thread-safe.
+ */
+public class ViewBatch {
+    /** Commands per programmable transaction. */
+    public static final int MAX_COMMANDS = 1024;
+
+    private final SuiContractManager mgr;
+    private final CallMetrics metrics;
+    private final List<MoveCall> calls = new ArrayList<>();
+    private final List<View<?>> views = new ArrayList<>();
+    private boolean executed;
+
+    ViewBatch(SuiContractManager mgr) {
+        this.mgr = mgr;
+        this.metrics = mgr.getMetrics().call("views", "batch");
+    }
+
+    /**
+     * Adds a call of {@code function} with {@code args}, whose first return value is decoded
+     * with {@code decoder} (e.g. {@link Bcs#readU64}) once the batch has run.
+     */
+    public <T> View<T> add(PreparedMoveCall function, Function<byte[], T> decoder, Object... args) {
+        if (executed) {
+            throw new IllegalStateException("The batch already ran");
+        }
+        calls.add(function.call(args));
+        View<T> view = new View<>(function.toString(), decoder);
+        views.add(view);
+        return view;
+    }
+
+    /** Number of calls added. */
+    public int size() {
+        return calls.size();
+    }
+
+    /** Dev-inspects the calls and decodes their return values. */
+    public void execute() throws IOException, InterruptedException {
+        if (executed) {
+            throw new IllegalStateException("The batch already ran");
+        }
+        executed = true;
+        for (int from = 0; from < calls.size(); from += MAX_COMMANDS) {
+            int to = Math.min(calls.size(), from + MAX_COMMANDS);
+            List<List<byte[]>> results = mgr.inspect(calls.subList(from, to), metrics);
+            for (int i = from; i < to; i++) {
+                views.get(i).complete(results.get(i - from));
+            }
+        }
+    }
+
+    /** The result of one call of a batch. */
+    public static final class View<T> {
+        private final String target;
+        private final Function<byte[], T> decoder;
+        private T value;
+        private boolean done;
+
+        private View(String target, Function<byte[], T> decoder) {
+            this.target = target;
+            this.decoder = decoder;
+        }
+
+        private void complete(List<byte[]> returnValues) {
+            if (returnValues.isEmpty()) {
+                throw new IllegalStateException(target + " returned nothing");
+            }
+            value = decoder.apply(returnValues.get(0));
+            done = true;
+        }
+
+        /** The decoded value; the batch must have run. */
+        public T get() {
+            if (!done) {
+                throw new IllegalStateException("The batch of " + target + " has not run yet");
+            }
+            return value;
+        }
+    }
+}
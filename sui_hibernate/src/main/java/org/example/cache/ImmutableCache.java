@@ -0,0 +1,281 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A two-tier cache for chain responses that never change once they exist: transaction blocks by
+ * digest and normalized Move functions by package ID. The first tier is an LRU of parsed
+ * responses on the heap; the second is an append-only file, memory-mapped for reads, that
+ * survives restarts.
+ * <p>
+ * Each file record holds the key, the deflated JSON and a CRC32 of both. Opening the file
+ * rebuilds the key index by scanning the records; a torn record at the end (a crash during
+ * an append) is cut off. Entries are never replaced or removed, so the file only grows; delete
+ * it to start over. It is locked while open, by one cache at a time. Appends stop, with a
+ * warning, once the file would exceed 2 GB.
+ * <p>
+ * Returned nodes are shared between callers and must not be modified.
+ */
+public class ImmutableCache implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ImmutableCache.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final byte[] MAGIC = "SUICACH1".getBytes(StandardCharsets.US_ASCII);
+    /** Key length, value length (deflated), raw value length, CRC32. */
+    private static final int RECORD_HEADER = 16;
+    public static final int DEFAULT_HEAP_ENTRIES = 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Map<String, JsonNode> heap;
+    private final Map<String, Slot> index = new HashMap<>();
+    private MappedByteBuffer mapped;
+    private long end;
+    private long hits;
+    private long diskHits;
+    private long misses;
+
+    /** Where a value is stored in the file. */
+    private record Slot(int offset, int length, int rawLength) {
+    }
+
+    public ImmutableCache(Path file) throws IOException {
+        this(file, DEFAULT_HEAP_ENTRIES);
+    }
+
+    /** Opens or creates {@code file}, keeping up to {@code heapEntries} parsed responses on the heap. */
+    public ImmutableCache(Path file, int heapEntries) throws IOException {
+        if (heapEntries < 0) {
+            throw new IllegalArgumentException("Heap entries cannot be negative, got " + heapEntries);
+        }
+        this.file = file;
+        this.heap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JsonNode> eldest) {
+                return size() > heapEntries;
+            }
+        };
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.lock = lock(channel, file);
+            open();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** The cached response, or null if {@code key} was never stored. */
+    public synchronized JsonNode get(String key) throws IOException {
+        JsonNode value = heap.get(key);
+        if (value != null) {
+            hits++;
+            return value;
+        }
+        Slot slot = index.get(key);
+        if (slot == null) {
+            misses++;
+            return null;
+        }
+        diskHits++;
+        value = MAPPER.readTree(read(slot));
+        heap.put(key, value);
+        return value;
+    }
+
+    /** Stores a response that will never change. Storing a key again has no effect. */
+    public synchronized void put(String key, JsonNode value) throws IOException {
+        if (index.containsKey(key)) {
+            return;
+        }
+        heap.put(key, value);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] raw = MAPPER.writeValueAsBytes(value);
+        byte[] deflated = deflate(raw);
+        int size = RECORD_HEADER + keyBytes.length + deflated.length;
+        if (end + size > Integer.MAX_VALUE) {
+            log.warn("{} is full, keeping {} on the heap only", file, key);
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(deflated);
+        ByteBuffer record = ByteBuffer.allocate(size)
+                .putInt(keyBytes.length)
+                .putInt(deflated.length)
+                .putInt(raw.length)
+                .putInt((int) crc.getValue())
+                .put(keyBytes)
+                .put(deflated)
+                .flip();
+        long position = end;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        index.put(key, new Slot((int) (end + RECORD_HEADER + keyBytes.length), deflated.length, raw.length));
+        end = position;
+    }
+
+    /** Number of stored responses. */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /** Lookups answered from the heap. */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** Lookups answered from the file. */
+    public synchronized long getDiskHitCount() {
+        return diskHits;
+    }
+
+    /** Lookups of keys never stored. */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+            mapped = null;
+        }
+    }
+
+    private byte[] read(Slot slot) throws IOException {
+        if (mapped == null || slot.offset() + slot.length() > mapped.capacity()) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        }
+        byte[] deflated = new byte[slot.length()];
+        mapped.get(slot.offset(), deflated);
+        return inflate(deflated, slot.rawLength());
+    }
+
+    private static FileLock lock(FileChannel channel, Path file) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException(file + " is in use by another cache");
+        }
+        return lock;
+    }
+
+    private void open() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            end = MAGIC.length;
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException(file + " is larger than 2 GB and not a cache file");
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        byte[] magic = new byte[MAGIC.length];
+        if (size >= MAGIC.length) {
+            mapped.get(0, magic);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalStateException(file + " is not a cache file");
+        }
+        long position = MAGIC.length;
+        while (position + RECORD_HEADER <= size) {
+            int at = (int) position;
+            int keyLength = mapped.getInt(at);
+            int valueLength = mapped.getInt(at + 4);
+            int rawLength = mapped.getInt(at + 8);
+            int checksum = mapped.getInt(at + 12);
+            long next = position + RECORD_HEADER + (long) keyLength + valueLength;
+            if (keyLength < 0 || valueLength < 0 || rawLength < 0 || next > size) {
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            mapped.get(at + RECORD_HEADER, key);
+            mapped.get(at + RECORD_HEADER + keyLength, value);
+            CRC32 crc = new CRC32();
+            crc.update(key);
+            crc.update(value);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            index.put(new String(key, StandardCharsets.UTF_8),
+                    new Slot(at + RECORD_HEADER + keyLength, valueLength, rawLength));
+            position = next;
+        }
+        if (position < size) {
+            log.warn("Dropping a torn record at the end of {} ({} bytes)", file, size - position);
+            mapped = null;
+            channel.truncate(position);
+        }
+        end = position;
+        log.debug("Opened {} with {} entries", file, index.size());
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 16);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] deflated, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            byte[] raw = new byte[rawLength];
+            int length = inflater.inflate(raw);
+            if (length != rawLength || !inflater.finished()) {
+                throw new IOException("Corrupt entry in " + file);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt entry in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
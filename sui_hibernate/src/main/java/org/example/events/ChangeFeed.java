@@ -0,0 +1,170 @@
+package org.example.events;
+
+import org.example.blockchain.ChainBackend;
+import org.example.blockchain.SuiContractManager;
+import org.example.models.generated.ModelDescriptor;
+import org.example.models.generated.ModelRegistry;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the changes of generated models as {@link Flow.Publisher}s, fed by the
+ * {@code Created}/{@code Updated}/{@code Deleted} events their modules emit.
+ * <p>
+ * Every subscriber gets its own cursor and follows {@code suix_queryEvents} for the model's
+ * module. It fetches only while it has outstanding demand, so a slow subscriber holds back
+ * its own polling instead of buffering without bound. Each {@code onNext} carries a batch of
+ * at most {@code batchSize} changes in chain order. Polls that find nothing double the
+ * interval up to {@code maxInterval}; any new event drops it back to {@code minInterval}.
+ * Failed polls are retried with the same backoff from the last delivered cursor, so a
+ * dropped connection neither loses nor repeats changes.
+ * <p>
+ * Closing the feed completes every subscription.
+ */
+public class ChangeFeed implements AutoCloseable {
+    public static final Duration DEFAULT_MIN_INTERVAL = Duration.ofMillis(200);
+    public static final Duration DEFAULT_MAX_INTERVAL = Duration.ofSeconds(5);
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int THREADS = 2;
+
+    private final ChainBackend backend;
+    private final String packageId;
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Set<PollingSubscription> active = ConcurrentHashMap.newKeySet();
+    // guarded by this
+    private boolean closed;
+
+    /** Follows the manager's published package with the default intervals and batch size. */
+    public ChangeFeed(SuiContractManager mgr) {
+        this(mgr.getBackend(), mgr.getPackageId(), DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL, DEFAULT_BATCH_SIZE);
+    }
+
+    public ChangeFeed(ChainBackend backend, String packageId, Duration minInterval, Duration maxInterval,
+                      int batchSize) {
+        if (packageId == null) {
+            throw new IllegalArgumentException("Package ID cannot be null; publish the package first");
+        }
+        if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("Intervals must satisfy 0 < min <= max, got " + minInterval
+                    + " and " + maxInterval);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+        }
+        this.backend = backend;
+        this.packageId = packageId;
+        this.minIntervalNanos = minInterval.toNanos();
+        this.maxIntervalNanos = maxInterval.toNanos();
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newScheduledThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "sui-change-feed");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Changes of every object of the registered struct, after {@code after} (from the start if null). */
+    public Flow.Publisher<List<EntityChange>> ofType(String structName, @Nullable EventCursor after) {
+        return ofType(descriptor(structName), after);
+    }
+
+    /** Changes of every object of the model, after {@code after} (from the start if null). */
+    public Flow.Publisher<List<EntityChange>> ofType(ModelDescriptor descriptor, @Nullable EventCursor after) {
+        return publisher(descriptor, null, after);
+    }
+
+    /** Changes of one object of the model, after {@code after} (from the start if null). */
+    public Flow.Publisher<List<EntityChange>> ofObject(ModelDescriptor descriptor, String objectId,
+                                                       @Nullable EventCursor after) {
+        if (objectId == null) {
+            throw new IllegalArgumentException("Object ID cannot be null");
+        }
+        return publisher(descriptor, objectId, after);
+    }
+
+    private Flow.Publisher<List<EntityChange>> publisher(ModelDescriptor descriptor, String objectId,
+                                                         EventCursor after) {
+        if (descriptor.events() == null) {
+            throw new IllegalArgumentException(descriptor.structName()
+                    + " was generated without events; regenerate the model");
+        }
+        return subscriber -> {
+            PollingSubscription subscription = new PollingSubscription(this, descriptor, objectId, after, subscriber);
+            synchronized (this) {
+                // close() completes every subscription added before it, and only after its onSubscribe
+                if (!closed) {
+                    active.add(subscription);
+                    subscriber.onSubscribe(subscription);
+                    return;
+                }
+            }
+            subscriber.onSubscribe(subscription);
+            subscriber.onError(new IllegalStateException("Change feed is closed"));
+        };
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        scheduler.shutdownNow();
+        try {
+            // no poll or delivery may run while subscribers are completed
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (PollingSubscription subscription : active) {
+            subscription.complete();
+        }
+        active.clear();
+    }
+
+    ChainBackend backend() {
+        return backend;
+    }
+
+    String packageId() {
+        return packageId;
+    }
+
+    long minIntervalNanos() {
+        return minIntervalNanos;
+    }
+
+    long maxIntervalNanos() {
+        return maxIntervalNanos;
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    void remove(PollingSubscription subscription) {
+        active.remove(subscription);
+    }
+
+    private static ModelDescriptor descriptor(String structName) {
+        ModelDescriptor descriptor = ModelRegistry.getDescriptor(structName);
+        if (descriptor == null) {
+            throw new IllegalArgumentException("No generated model registered for " + structName);
+        }
+        return descriptor;
+    }
+}
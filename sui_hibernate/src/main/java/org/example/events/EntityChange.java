@@ -0,0 +1,23 @@
+package org.example.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.models.generated.ChainEvent;
+
+/**
+ * A decoded change of one object, as delivered by a {@link ChangeFeed}.
+ *
+ * @param cursor      the position of the event; subscribing from it resumes after this change
+ * @param timestampMs the checkpoint time of the emitting transaction, or 0 if unknown
+ * @param event       the model's typed {@code Created}, {@code Updated} or {@code Deleted} record
+ * @param fields      the event's {@code parsedJson}, for consumers that map fields generically
+ */
+public record EntityChange(EventCursor cursor, long timestampMs, ChainEvent event, JsonNode fields) {
+
+    public String objectId() {
+        return event.objectId();
+    }
+
+    public ChainEvent.Kind kind() {
+        return event.kind();
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The position of an event in the chain's event history, as used by {@code suix_queryEvents}.
+ * Persist it to resume a change stream after a restart.
+ *
+ * @param txDigest the digest of the emitting transaction
+ * @param eventSeq the index of the event within that transaction
+ */
+public record EventCursor(String txDigest, long eventSeq) {
+
+    /** Reads an event ID ({@code {"txDigest": …, "eventSeq": "…"}}). */
+    public static EventCursor of(JsonNode id) {
+        return new EventCursor(id.path("txDigest").asText(), id.path("eventSeq").asLong());
+    }
+
+    /** The event ID sent as the cursor of {@code suix_queryEvents}. */
+    public JsonNode toJson() {
+        ObjectNode id = JsonNodeFactory.instance.objectNode();
+        id.put("txDigest", txDigest);
+        id.put("eventSeq", String.valueOf(eventSeq));
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return txDigest + "#" + eventSeq;
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.models.generated.ChainEvent;
+import org.example.models.generated.EventDecoder;
+import org.example.models.generated.ModelDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One subscriber's position in a {@link ChangeFeed}. All polling and delivery runs in
+ * {@link #drain()} passes on the feed's scheduler, at most one at a time, so the buffer and
+ * cursor need no locking and signals to the subscriber are serialized.
+ */
+final class PollingSubscription implements Flow.Subscription {
+    private static final Logger log = LoggerFactory.getLogger(PollingSubscription.class);
+
+    private final ChangeFeed feed;
+    private final String module;
+    private final EventDecoder decoder;
+    private final String objectId;
+    private final Flow.Subscriber<? super List<EntityChange>> subscriber;
+
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile Throwable badRequest;
+
+    // owned by the drain pass
+    private final Deque<EntityChange> buffer = new ArrayDeque<>();
+    private JsonNode cursor;
+    private long interval;
+    private long nextPoll = System.nanoTime();
+
+    PollingSubscription(ChangeFeed feed, ModelDescriptor descriptor, String objectId, EventCursor after,
+                        Flow.Subscriber<? super List<EntityChange>> subscriber) {
+        this.feed = feed;
+        this.module = descriptor.module();
+        this.decoder = descriptor.events();
+        this.objectId = objectId;
+        this.subscriber = subscriber;
+        this.cursor = after != null ? after.toJson() : null;
+        this.interval = feed.minIntervalNanos();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            badRequest = new IllegalArgumentException("Demand must be positive, got " + n);
+        } else {
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        feed.remove(this);
+    }
+
+    /** Called by the feed on close, once its scheduler has stopped. */
+    void complete() {
+        if (!cancelled && terminated.compareAndSet(false, true)) {
+            cancelled = true;
+            subscriber.onComplete();
+        }
+    }
+
+    /** Cancels the subscription and signals {@code error} to the subscriber, once. */
+    private void fail(Throwable error) {
+        boolean live = !cancelled;
+        cancel();
+        if (live && terminated.compareAndSet(false, true)) {
+            subscriber.onError(error);
+        }
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            feed.scheduler().execute(this::run);
+        } catch (RejectedExecutionException e) {
+            // the feed is closing and will complete this subscription
+            wip.set(0);
+        }
+    }
+
+    private void run() {
+        int missed = 1;
+        do {
+            try {
+                loop();
+            } catch (Throwable t) {
+                // e.g. an event the decoder cannot read: the stream cannot go on past it
+                log.warn("Polling {} events failed, ending the subscription", module, t);
+                fail(t);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void loop() {
+        while (!cancelled) {
+            Throwable error = badRequest;
+            if (error != null) {
+                fail(error);
+                return;
+            }
+            if (demand.get() > 0 && !buffer.isEmpty()) {
+                List<EntityChange> batch = new ArrayList<>(Math.min(buffer.size(), feed.batchSize()));
+                while (!buffer.isEmpty() && batch.size() < feed.batchSize()) {
+                    batch.add(buffer.poll());
+                }
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(batch);
+                } catch (Throwable t) {
+                    // the subscriber broke the protocol; stop serving it without signalling it again
+                    log.warn("Change subscriber {} failed, cancelling", subscriber, t);
+                    cancel();
+                    return;
+                }
+                continue;
+            }
+            if (demand.get() == 0) {
+                // back-pressure: nothing is fetched until the subscriber asks for more
+                return;
+            }
+            long wait = nextPoll - System.nanoTime();
+            if (wait > 0) {
+                scheduleWake(wait);
+                return;
+            }
+            if (!poll()) {
+                return;
+            }
+        }
+    }
+
+    /** Fetches one page after the cursor; false if the thread was interrupted. */
+    private boolean poll() {
+        JsonNode page;
+        try {
+            page = feed.backend().queryEvents(feed.packageId(), module, cursor, feed.batchSize());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            backOff();
+            log.warn("Polling {} events failed, retrying in {} ms", module,
+                    TimeUnit.NANOSECONDS.toMillis(interval), e);
+            return true;
+        }
+        JsonNode data = page.path("data");
+        for (JsonNode event : data) {
+            cursor = event.path("id");
+            JsonNode fields = event.path("parsedJson");
+            ChainEvent decoded = decoder.decode(event.path("type").asText(), fields);
+            if (decoded == null || (objectId != null && !objectId.equals(decoded.objectId()))) {
+                continue;
+            }
+            buffer.add(new EntityChange(EventCursor.of(cursor), event.path("timestampMs").asLong(), decoded, fields));
+        }
+        JsonNode next = page.path("nextCursor");
+        if (!next.isMissingNode() && !next.isNull()) {
+            cursor = next;
+        }
+        if (page.path("hasNextPage").asBoolean(false)) {
+            interval = feed.minIntervalNanos();
+            nextPoll = System.nanoTime();
+        } else if (data.isEmpty()) {
+            backOff();
+        } else {
+            interval = feed.minIntervalNanos();
+            nextPoll = System.nanoTime() + interval;
+        }
+        return true;
+    }
+
+    private void backOff() {
+        interval = Math.min(interval * 2, feed.maxIntervalNanos());
+        nextPoll = System.nanoTime() + interval;
+    }
+
+    private void scheduleWake(long delayNanos) {
+        if (!wakeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            feed.scheduler().schedule(() -> {
+                wakeScheduled.set(false);
+                drain();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            wakeScheduled.set(false);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package org.example.indexer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.blockchain.ChainBackend;
+import org.example.blockchain.ObjectId;
+import org.example.blockchain.SuiContractManager;
+import org.example.models.generated.ModelDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the transactions calling into a published package and keeps a local index of its
+ * objects by type and ID, so enumerating them is a local read instead of a {@code get_all}
+ * call or one {@code sui_getObject} per ID.
+ * <p>
+ * Each page of {@code suix_queryTransactionBlocks} is applied from its object changes: created
+ * and mutated objects of the package are fetched with {@code sui_multiGetObjects}, deleted and
+ * wrapped ones are dropped. The page's changes and its cursor are then appended together as
+ * one line to a log next to {@code stateFile}, so saving costs in proportion to the page and
+ * not to the index. Once the log outgrows the snapshot in {@code stateFile}, the whole index is
+ * written there instead, via a temporary file and an atomic rename, and the log is emptied. A
+ * restarted indexer loads the snapshot, replays the log and resumes where it stopped, never
+ * seeing an index ahead of or behind its cursor. If a page could not be saved, the next save
+ * writes a snapshot, so the log never skips a page.
+ * <p>
+ * Reads are safe from any thread while {@link #catchUp()} runs; they see each page either
+ * entirely or not at all per object.
+ */
+public class ChainIndexer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ChainIndexer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** Largest page {@code suix_queryTransactionBlocks} and {@code sui_multiGetObjects} serve. */
+    static final int PAGE_SIZE = 50;
+    /** The log is compacted into the snapshot once it is larger than both this and the snapshot. */
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    private final ChainBackend backend;
+    private final String packageId;
+    private final Path stateFile;
+    private final Path logFile;
+    private final Map<ObjectId, IndexedObject> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<ObjectId>> byType = new ConcurrentHashMap<>();
+    private final List<IndexListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile String cursor;
+    private volatile long transactions;
+    /** Set while changes were applied that the log may lack, so the next save writes a snapshot. */
+    private boolean unsaved;
+    private ScheduledExecutorService poller;
+
+    /** Indexes the manager's published package. */
+    public ChainIndexer(SuiContractManager mgr, Path stateFile) throws IOException {
+        this(mgr.getBackend(), mgr.getPackageId(), stateFile);
+    }
+
+    /**
+     * Loads the index saved in {@code stateFile}, if there is one, and continues from its
+     * cursor.
+     */
+    public ChainIndexer(ChainBackend backend, String packageId, Path stateFile) throws IOException {
+        if (packageId == null) {
+            throw new IllegalArgumentException("Package ID cannot be null; publish the package first");
+        }
+        this.backend = backend;
+        this.packageId = packageId;
+        this.stateFile = stateFile;
+        this.logFile = stateFile.resolveSibling(stateFile.getFileName() + ".log");
+        if (Files.exists(stateFile)) {
+            load();
+        }
+    }
+
+    public String getPackageId() {
+        return packageId;
+    }
+
+    /** The digest of the last applied transaction, or null before the first one. */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /** Number of transactions applied since the index was created. */
+    public long getTransactionCount() {
+        return transactions;
+    }
+
+    /**
+     * Applies every transaction after the cursor, logging the changes of each page.
+     *
+     * @return the number of transactions applied
+     */
+    public synchronized int catchUp() throws IOException, InterruptedException {
+        int applied = 0;
+        while (true) {
+            JsonNode page = backend.queryTransactions(packageId, cursor, PAGE_SIZE);
+            JsonNode data = page.path("data");
+            if (data.size() > 0) {
+                ObjectNode delta = MAPPER.createObjectNode();
+                apply(data, delta);
+                applied += data.size();
+                transactions += data.size();
+                cursor = page.path("nextCursor").asText();
+                save(delta);
+            }
+            if (!page.path("hasNextPage").asBoolean(false) || data.size() == 0) {
+                return applied;
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #catchUp()} every {@code interval} on a daemon thread until {@link #close()}.
+     * Failures are logged and retried on the next tick.
+     */
+    public synchronized void start(Duration interval) {
+        if (poller != null) {
+            throw new IllegalStateException("Indexer already started");
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sui-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                catchUp();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Indexing {} failed, retrying in {}", packageId, interval, e);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService p;
+        synchronized (this) {
+            p = poller;
+            poller = null;
+        }
+        if (p != null) {
+            p.shutdownNow();
+        }
+    }
+
+    /**
+     * Notifies {@code listener} of every object change applied from now on, after replaying
+     * the objects already indexed as updates.
+     */
+    public synchronized void addListener(IndexListener listener) {
+        byId.values().forEach(listener::updated);
+        listeners.add(listener);
+    }
+
+    public void removeListener(IndexListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** The indexed object, or null if it is unknown or was deleted or wrapped. */
+    public IndexedObject get(ObjectId objectId) {
+        return byId.get(objectId);
+    }
+
+    /** Like {@link #get(ObjectId)}; null also for a string that is no object ID. */
+    public IndexedObject get(String objectId) {
+        ObjectId id = ObjectId.tryParse(objectId);
+        return id == null ? null : byId.get(id);
+    }
+
+    /**
+     * The indexed objects of a full struct type ({@code 0x…::module::Struct}), soft-deleted ones
+     * excluded.
+     */
+    public List<IndexedObject> list(String type) {
+        Set<ObjectId> ids = byType.get(type);
+        if (ids == null) {
+            return List.of();
+        }
+        List<IndexedObject> objects = new ArrayList<>(ids.size());
+        for (ObjectId id : ids) {
+            IndexedObject object = byId.get(id);
+            if (object != null && !object.isDeleted()) {
+                objects.add(object);
+            }
+        }
+        return objects;
+    }
+
+    /** The indexed objects of a generated model's struct. */
+    public List<IndexedObject> list(ModelDescriptor descriptor) {
+        return list(typeOf(descriptor));
+    }
+
+    /** The full struct type of a generated model in this package. */
+    public String typeOf(ModelDescriptor descriptor) {
+        return packageId + "::" + descriptor.module() + "::" + descriptor.structName();
+    }
+
+    /** Number of indexed objects, soft-deleted ones included. */
+    public int size() {
+        return byId.size();
+    }
+
+    /** Applies a page of transactions, noting the objects it put and removed in {@code delta}. */
+    private void apply(JsonNode transactions, ObjectNode delta) throws IOException, InterruptedException {
+        String prefix = packageId + "::";
+        Set<String> changed = new LinkedHashSet<>();
+        for (JsonNode tx : transactions) {
+            for (JsonNode change : tx.path("objectChanges")) {
+                if (!change.path("objectType").asText().startsWith(prefix)) {
+                    continue;
+                }
+                String id = change.path("objectId").asText();
+                switch (change.path("type").asText()) {
+                    case "created", "mutated", "transferred" -> changed.add(id);
+                    case "deleted", "wrapped" -> {
+                        changed.remove(id);
+                        remove(id, delta);
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        List<String> ids = new ArrayList<>(changed);
+        for (int from = 0; from < ids.size(); from += PAGE_SIZE) {
+            JsonNode objects = backend.multiGetObjects(ids.subList(from, Math.min(ids.size(), from + PAGE_SIZE)));
+            for (JsonNode object : objects) {
+                JsonNode data = object.path("data");
+                if (data.isMissingNode()) {
+                    // deleted by a transaction of a later page
+                    remove(object.path("error").path("object_id").asText(), delta);
+                    continue;
+                }
+                put(new IndexedObject(
+                        data.path("objectId").asText(),
+                        data.path("type").asText(),
+                        data.path("version").asLong(),
+                        data.path("digest").asText(),
+                        data.path("owner"),
+                        data.path("content").path("fields")
+                ), delta);
+            }
+        }
+    }
+
+    private void put(IndexedObject object, @Nullable ObjectNode delta) {
+        ObjectId id = ObjectId.parse(object.objectId());
+        IndexedObject previous = byId.get(id);
+        if (previous != null && previous.version() > object.version()) {
+            return;
+        }
+        if (delta != null) {
+            delta.withArray("put").add(toJson(object));
+        }
+        byType.computeIfAbsent(object.type(), t -> ConcurrentHashMap.newKeySet()).add(id);
+        byId.put(id, object);
+        for (IndexListener listener : listeners) {
+            listener.updated(object);
+        }
+    }
+
+    private void remove(String objectId, @Nullable ObjectNode delta) {
+        ObjectId id = ObjectId.parse(objectId);
+        IndexedObject removed = byId.remove(id);
+        if (removed != null) {
+            if (delta != null) {
+                delta.withArray("removed").add(objectId);
+            }
+            Set<ObjectId> ids = byType.get(removed.type());
+            if (ids != null) {
+                ids.remove(id);
+            }
+            for (IndexListener listener : listeners) {
+                listener.removed(removed);
+            }
+        }
+    }
+
+    /**
+     * Appends the changes of a page with its cursor to the log, or writes a new snapshot if
+     * there is none yet or the log has outgrown it.
+     */
+    private void save(ObjectNode delta) throws IOException {
+        // a page whose save failed is applied in memory only: it can only be saved in a snapshot
+        boolean snapshot = unsaved || !Files.exists(stateFile);
+        unsaved = true;
+        long logBytes = Files.exists(logFile) ? Files.size(logFile) : 0;
+        if (snapshot || logBytes > Math.max(MIN_COMPACT_BYTES, Files.size(stateFile))) {
+            compact();
+        } else {
+            delta.put("cursor", cursor);
+            delta.put("transactions", transactions);
+            byte[] line = (MAPPER.writeValueAsString(delta) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.write(logFile, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        unsaved = false;
+    }
+
+    /** Writes the whole index as the snapshot and empties the log. */
+    private void compact() throws IOException {
+        ObjectNode state = MAPPER.createObjectNode();
+        state.put("packageId", packageId);
+        state.put("cursor", cursor);
+        state.put("transactions", transactions);
+        ArrayNode objects = state.putArray("objects");
+        for (IndexedObject object : byId.values()) {
+            objects.add(toJson(object));
+        }
+        Path dir = stateFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, stateFile.getFileName().toString(), ".tmp");
+        try {
+            MAPPER.writeValue(tmp.toFile(), state);
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        // entries left behind by a crash here are older than the snapshot, and skipped on load
+        Files.deleteIfExists(logFile);
+    }
+
+    private static ObjectNode toJson(IndexedObject object) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("objectId", object.objectId());
+        node.put("type", object.type());
+        node.put("version", object.version());
+        node.put("digest", object.digest());
+        node.set("owner", object.owner());
+        node.set("fields", object.fields());
+        return node;
+    }
+
+    private static IndexedObject fromJson(JsonNode node) {
+        return new IndexedObject(
+                node.path("objectId").asText(),
+                node.path("type").asText(),
+                node.path("version").asLong(),
+                node.path("digest").asText(),
+                node.path("owner"),
+                node.path("fields")
+        );
+    }
+
+    private void load() throws IOException {
+        JsonNode state = MAPPER.readTree(stateFile.toFile());
+        String indexed = state.path("packageId").asText();
+        if (!indexed.equals(packageId)) {
+            throw new IllegalArgumentException(stateFile + " indexes package " + indexed + ", not " + packageId);
+        }
+        cursor = state.path("cursor").isNull() ? null : state.path("cursor").asText(null);
+        transactions = state.path("transactions").asLong();
+        for (JsonNode node : state.path("objects")) {
+            put(fromJson(node), null);
+        }
+        if (Files.exists(logFile) && replayLog()) {
+            // a torn last line: start a clean log, so that later pages are not appended after it
+            compact();
+        }
+        log.debug("Loaded {} indexed objects of {} at cursor {}", byId.size(), packageId, cursor);
+    }
+
+    /** Applies the logged pages newer than the snapshot; returns whether the log ends in a torn line. */
+    private boolean replayLog() throws IOException {
+        for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+            JsonNode delta;
+            try {
+                delta = MAPPER.readTree(line);
+            } catch (IOException e) {
+                log.warn("Ignoring a torn entry at the end of {}", logFile);
+                return true;
+            }
+            if (delta == null || !delta.has("cursor")) {
+                log.warn("Ignoring a torn entry at the end of {}", logFile);
+                return true;
+            }
+            if (delta.path("transactions").asLong() <= transactions) {
+                continue;
+            }
+            for (JsonNode id : delta.path("removed")) {
+                remove(id.asText(), null);
+            }
+            for (JsonNode node : delta.path("put")) {
+                put(fromJson(node), null);
+            }
+            cursor = delta.path("cursor").asText();
+            transactions = delta.path("transactions").asLong();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.indexer;
+
+import org.example.blockchain.ObjectId;
+import org.example.blockchain.ObjectIdMap;
+
+import java.util.*;
+
+/**
+ * A secondary index from field values to the IDs of the objects holding them, for equality
+ * lookups. IDs are held as {@link ObjectId}s. Safe for concurrent use.
+ */
+public class HashIndex<K> {
+    /** Stands for a null value, which {@link ObjectIdMap} cannot hold. */
+    private static final Object NULL = new Object();
+
+    private final Map<K, Set<ObjectId>> byKey = new HashMap<>();
+    private final ObjectIdMap<Object> keys = new ObjectIdMap<>();
+
+    /** Sets the indexed value of an object, replacing its previous one. */
+    public void put(String objectId, K key) {
+        put(ObjectId.parse(objectId), key);
+    }
+
+    public synchronized void put(ObjectId objectId, K key) {
+        Object previous = keys.get(objectId);
+        if (previous != null) {
+            if (Objects.equals(unmask(previous), key)) {
+                return;
+            }
+            unlink(objectId, unmask(previous));
+        }
+        keys.put(objectId, key == null ? NULL : key);
+        byKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(objectId);
+    }
+
+    public void remove(String objectId) {
+        remove(ObjectId.parse(objectId));
+    }
+
+    public synchronized void remove(ObjectId objectId) {
+        Object previous = keys.remove(objectId);
+        if (previous != null) {
+            unlink(objectId, unmask(previous));
+        }
+    }
+
+    /** The IDs of the objects whose value equals {@code key}, in insertion order. */
+    public synchronized List<String> get(K key) {
+        Set<ObjectId> ids = byKey.get(key);
+        if (ids == null) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(ids.size());
+        for (ObjectId id : ids) {
+            result.add(id.toString());
+        }
+        return result;
+    }
+
+    /** Number of indexed objects. */
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private K unmask(Object key) {
+        return key == NULL ? null : (K) key;
+    }
+
+    private void unlink(ObjectId objectId, K key) {
+        Set<ObjectId> ids = byKey.get(key);
+        ids.remove(objectId);
+        if (ids.isEmpty()) {
+            byKey.remove(key);
+        }
+    }
+}
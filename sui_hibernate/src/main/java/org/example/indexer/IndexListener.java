@@ -0,0 +1,13 @@
+package org.example.indexer;
+
+/**
+ * Notified by a {@link ChainIndexer} as it applies object changes, e.g. to maintain
+ * secondary indexes. Called on the indexing thread; implementations must be quick.
+ */
+public interface IndexListener {
+    /** The object was created or changed; soft-deleted objects arrive here too. */
+    void updated(IndexedObject object);
+
+    /** The object was deleted or wrapped on chain. */
+    void removed(IndexedObject object);
+}
@@ -0,0 +1,26 @@
+package org.example.indexer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The latest indexed state of one object of the package.
+ *
+ * @param objectId the object ID
+ * @param type     the full struct type, e.g. {@code 0x…::Bar::Bar}
+ * @param version  the object version the fields were read at
+ * @param digest   the object digest at that version
+ * @param owner    the owner as returned by the node ({@code AddressOwner}, {@code Shared}, …)
+ * @param fields   the Move fields as returned in {@code content.fields}
+ */
+public record IndexedObject(String objectId,
+                            String type,
+                            long version,
+                            String digest,
+                            JsonNode owner,
+                            JsonNode fields) {
+
+    /** Whether the generated module's soft-delete flag is set. */
+    public boolean isDeleted() {
+        return fields.path("is_deleted").asBoolean(false);
+    }
+}
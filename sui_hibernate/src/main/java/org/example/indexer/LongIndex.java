@@ -0,0 +1,175 @@
+package org.example.indexer;
+
+import org.example.blockchain.ObjectId;
+import org.example.blockchain.ObjectIdLongMap;
+
+import java.util.*;
+
+/**
+ * A sorted secondary index of a numeric field, for equality and range lookups. Entries live
+ * in two parallel arrays ordered by value, so lookups are binary searches over a
+ * {@code long[]} without boxing. Puts append to an unsorted tail and removals leave holes;
+ * the next lookup sorts the tail once and merges it in, so seeding the index from many
+ * objects costs O(n log n) rather than a shift per insert. Values compare as signed longs,
+ * like the generated models' {@code long} fields. IDs are held as {@link ObjectId}s. Safe for
+ * concurrent use.
+ */
+public class LongIndex {
+    private long[] values = new long[16];
+    /** Null where an entry was removed. */
+    private ObjectId[] ids = new ObjectId[16];
+    private int size;
+    /** Length of the sorted prefix of the arrays; the rest is in insertion order. */
+    private int sorted;
+    private int holes;
+    private final ObjectIdLongMap byId = new ObjectIdLongMap();
+
+    /** Sets the indexed value of an object, replacing its previous one. */
+    public void put(String objectId, long value) {
+        put(ObjectId.parse(objectId), value);
+    }
+
+    public synchronized void put(ObjectId objectId, long value) {
+        if (byId.containsKey(objectId)) {
+            long previous = byId.getOrDefault(objectId, value);
+            if (previous == value) {
+                return;
+            }
+            delete(objectId, previous);
+        }
+        byId.put(objectId, value);
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        values[size] = value;
+        ids[size] = objectId;
+        size++;
+    }
+
+    public void remove(String objectId) {
+        remove(ObjectId.parse(objectId));
+    }
+
+    public synchronized void remove(ObjectId objectId) {
+        if (byId.containsKey(objectId)) {
+            long previous = byId.getOrDefault(objectId, 0L);
+            byId.remove(objectId);
+            delete(objectId, previous);
+        }
+    }
+
+    /** The IDs of the objects whose value equals {@code value}. */
+    public List<String> get(long value) {
+        return range(value, value);
+    }
+
+    /** The IDs of the objects with {@code min <= value <= max}, in ascending value order. */
+    public synchronized List<String> range(long min, long max) {
+        flush();
+        List<String> result = new ArrayList<>();
+        for (int i = lowerBound(min); i < size && values[i] <= max; i++) {
+            result.add(ids[i].toString());
+        }
+        return result;
+    }
+
+    /** Number of indexed objects. */
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    private void delete(ObjectId objectId, long value) {
+        for (int i = lowerBound(value); i < sorted && values[i] == value; i++) {
+            if (objectId.equals(ids[i])) {
+                ids[i] = null;
+                holes++;
+                return;
+            }
+        }
+        for (int i = size - 1; i >= sorted; i--) {
+            if (objectId.equals(ids[i])) {
+                ids[i] = null;
+                holes++;
+                return;
+            }
+        }
+    }
+
+    /** Sorts the tail and merges it into the prefix, dropping the holes. */
+    private void flush() {
+        if (sorted == size && holes == 0) {
+            return;
+        }
+        // a stable bottom-up merge sort, so objects with the same value keep insertion order
+        int n = 0;
+        long[] tailValues = new long[size - sorted];
+        ObjectId[] tailIds = new ObjectId[size - sorted];
+        for (int i = sorted; i < size; i++) {
+            if (ids[i] != null) {
+                tailValues[n] = values[i];
+                tailIds[n++] = ids[i];
+            }
+        }
+        long[] bufferValues = new long[n];
+        ObjectId[] bufferIds = new ObjectId[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int mid = Math.min(low + width, n);
+                merge(tailValues, tailIds, low, mid, tailValues, tailIds, mid, Math.min(low + 2 * width, n),
+                        bufferValues, bufferIds, low);
+            }
+            long[] v = tailValues;
+            tailValues = bufferValues;
+            bufferValues = v;
+            ObjectId[] o = tailIds;
+            tailIds = bufferIds;
+            bufferIds = o;
+        }
+        long[] mergedValues = new long[values.length];
+        ObjectId[] mergedIds = new ObjectId[values.length];
+        size = merge(values, ids, 0, sorted, tailValues, tailIds, 0, n, mergedValues, mergedIds, 0);
+        values = mergedValues;
+        ids = mergedIds;
+        sorted = size;
+        holes = 0;
+    }
+
+    /**
+     * Merges two sorted runs into {@code out}, taking from the first on equal values and
+     * skipping holes; returns the position after the last entry written.
+     */
+    private static int merge(long[] aValues, ObjectId[] aIds, int a, int aEnd,
+                             long[] bValues, ObjectId[] bIds, int b, int bEnd,
+                             long[] outValues, ObjectId[] outIds, int out) {
+        while (a < aEnd || b < bEnd) {
+            boolean fromA = b == bEnd || (a < aEnd && aValues[a] <= bValues[b]);
+            ObjectId id = fromA ? aIds[a] : bIds[b];
+            if (id != null) {
+                outValues[out] = fromA ? aValues[a] : bValues[b];
+                outIds[out++] = id;
+            }
+            if (fromA) {
+                a++;
+            } else {
+                b++;
+            }
+        }
+        return out;
+    }
+
+    /** The first position of the sorted prefix whose value is not below {@code value}. */
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = sorted;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
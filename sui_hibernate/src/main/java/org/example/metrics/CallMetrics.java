@@ -0,0 +1,122 @@
+package org.example.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Timings and outcomes of one Move function (or one JSON-RPC method).
+ */
+public class CallMetrics implements CallMetricsMXBean {
+    private static final Phase[] PHASES = Phase.values();
+
+    private final String name;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder gasUsed = new LongAdder();
+
+    public CallMetrics(String name) {
+        this.name = name;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    public void success(long gas) {
+        successes.increment();
+        gasUsed.add(gas);
+    }
+
+    public void failure() {
+        failures.increment();
+    }
+
+    /** An attempt failed transiently and the call is submitted again. */
+    public void retry() {
+        retries.increment();
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getSuccessCount() {
+        return successes.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getGasUsed() {
+        return gasUsed.sum();
+    }
+
+    @Override
+    public Map<String, Long> getSamples() {
+        Map<String, Long> samples = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            long count = histogram(phase).count();
+            if (count > 0) {
+                samples.put(phase.name(), count);
+            }
+        }
+        return samples;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMillis() {
+        return perPhase(LatencyHistogram::mean);
+    }
+
+    @Override
+    public Map<String, Double> getP50Millis() {
+        return perPhase(h -> h.percentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99Millis() {
+        return perPhase(h -> h.percentile(99));
+    }
+
+    @Override
+    public Map<String, Double> getP999Millis() {
+        return perPhase(h -> h.percentile(99.9));
+    }
+
+    @Override
+    public Map<String, Double> getMaxMillis() {
+        return perPhase(LatencyHistogram::max);
+    }
+
+    private Map<String, Double> perPhase(ToDoubleFunction<LatencyHistogram> nanos) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = histogram(phase);
+            if (histogram.count() > 0) {
+                values.put(phase.name(), nanos.applyAsDouble(histogram) / 1_000_000.0);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.metrics;
+
+import java.util.Map;
+
+/** JMX view of {@link CallMetrics}; latency maps are keyed by {@link Phase} name. */
+public interface CallMetricsMXBean {
+    String getName();
+
+    long getSuccessCount();
+
+    long getFailureCount();
+
+    long getRetryCount();
+
+    long getGasUsed();
+
+    Map<String, Long> getSamples();
+
+    Map<String, Double> getMeanMillis();
+
+    Map<String, Double> getP50Millis();
+
+    Map<String, Double> getP99Millis();
+
+    Map<String, Double> getP999Millis();
+
+    Map<String, Double> getMaxMillis();
+}
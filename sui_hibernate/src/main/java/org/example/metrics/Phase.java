@@ -0,0 +1,15 @@
+package org.example.metrics;
+
+/** Timed phases of a call through the CLI or the JSON-RPC API. */
+public enum Phase {
+    /** starting the {@code sui} process */
+    PROCESS_SPAWN,
+    /** from process start until it exited */
+    CLI_EXECUTION,
+    /** parsing the JSON the CLI printed */
+    JSON_PARSE,
+    /** one JSON-RPC request/response */
+    RPC_ROUND_TRIP,
+    /** from effects certificate until the fullnode executed the transaction locally */
+    FINALITY_WAIT
+}
@@ -0,0 +1,86 @@
+package org.example.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of one SuiContractManager, one {@link CallMetrics} per Move function and per
+ * JSON-RPC method. Each is registered with the platform MBean server under
+ * {@code org.example.sui:type=<Calls|Rpc>,manager=<n>,name=<function>} until {@link #close()}.
+ */
+public class SuiMetrics implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SuiMetrics.class);
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final String managerId = String.valueOf(INSTANCES.incrementAndGet());
+    private final Map<String, CallMetrics> calls = new ConcurrentHashMap<>();
+    private final Map<String, CallMetrics> rpcMethods = new ConcurrentHashMap<>();
+    private final Set<ObjectName> registered = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /** Metrics of {@code module::function}, created and registered on first use. */
+    public CallMetrics call(String module, String function) {
+        String name = module + "::" + function;
+        CallMetrics metrics = calls.get(name);
+        return metrics != null ? metrics : calls.computeIfAbsent(name, n -> register("Calls", new CallMetrics(n)));
+    }
+
+    /** Metrics of a JSON-RPC method. */
+    public CallMetrics rpc(String method) {
+        CallMetrics metrics = rpcMethods.get(method);
+        return metrics != null ? metrics : rpcMethods.computeIfAbsent(method, m -> register("Rpc", new CallMetrics(m)));
+    }
+
+    public Map<String, CallMetrics> getCalls() {
+        return Map.copyOf(calls);
+    }
+
+    public Map<String, CallMetrics> getRpcMethods() {
+        return Map.copyOf(rpcMethods);
+    }
+
+    /** Registers another MXBean of this manager, e.g. its concurrency limiter, under {@code type} and {@code name}. */
+    public <T> T register(String type, String name, T mbean) {
+        if (closed) {
+            return mbean;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("org.example.sui:type=" + type
+                    + ",manager=" + managerId + ",name=" + ObjectName.quote(name));
+            server.registerMBean(mbean, objectName);
+            registered.add(objectName);
+        } catch (JMException e) {
+            log.warn("Could not register JMX metrics for {}", name, e);
+        }
+        return mbean;
+    }
+
+    /** Unregisters this manager's MBeans; the metrics keep counting, but are no longer exported. */
+    @Override
+    public void close() {
+        closed = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registered) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                log.debug("Could not unregister {}", objectName, e);
+            }
+            registered.remove(objectName);
+        }
+    }
+
+    private CallMetrics register(String type, CallMetrics metrics) {
+        return register(type, metrics.getName(), metrics);
+    }
+}
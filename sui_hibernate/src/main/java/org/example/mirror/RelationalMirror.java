@@ -0,0 +1,298 @@
+package org.example.mirror;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.events.ChangeFeed;
+import org.example.events.EntityChange;
+import org.example.events.EventCursor;
+import org.example.models.generated.ChainEvent;
+import org.example.models.generated.ModelDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+/**
+ * Projects generated models into tables of an embedded database (H2), so they can be
+ * filtered, sorted and aggregated with SQL instead of {@code find_by_id} scans on chain.
+ * <p>
+ * Each mirrored model gets a table named after its struct, with {@code OBJECT_ID} as the
+ * primary key, one column per {@code @BlockchainEntity} field (except dynamic ones) and {@code IS_DELETED},
+ * {@code TX_DIGEST} and {@code UPDATED_MS} bookkeeping columns; fields marked
+ * {@code @ChainField(indexed = true)} also get an SQL index. Rows are kept up to date
+ * from the model's {@link ChangeFeed}: every delivered batch is applied as one JDBC batch of
+ * {@code MERGE} upserts (only the latest state per object) and soft deletes, in the same
+ * transaction as the model's cursor in {@code SUI_MIRROR_CURSOR}. A restarted mirror thus
+ * resumes exactly after the last applied batch.
+ * <p>
+ * Field types map to {@code BOOLEAN}, {@code BIGINT} (u8 to u32), {@code NUMERIC}
+ * (u64 to u256), {@code VARCHAR(66)} (address, ID) and {@code VARCHAR} (String). The upserts
+ * use H2's {@code MERGE INTO … KEY} syntax.
+ */
+public class RelationalMirror implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RelationalMirror.class);
+    static final String CURSOR_TABLE = "SUI_MIRROR_CURSOR";
+
+    private final ChangeFeed feed;
+    private final Connection connection;
+    private final boolean ownsConnection;
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    /** Opens {@code jdbcUrl}, e.g. {@code jdbc:h2:./sui-mirror} or {@code jdbc:h2:mem:sui;DB_CLOSE_DELAY=-1}. */
+    public RelationalMirror(ChangeFeed feed, String jdbcUrl) throws SQLException {
+        this(feed, DriverManager.getConnection(jdbcUrl), true);
+    }
+
+    /** Writes through {@code connection}; the caller keeps ownership of it. */
+    public RelationalMirror(ChangeFeed feed, Connection connection) throws SQLException {
+        this(feed, connection, false);
+    }
+
+    private RelationalMirror(ChangeFeed feed, Connection connection, boolean ownsConnection) throws SQLException {
+        this.feed = feed;
+        this.connection = connection;
+        this.ownsConnection = ownsConnection;
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + CURSOR_TABLE + " ("
+                    + "TABLE_NAME VARCHAR(255) PRIMARY KEY, TX_DIGEST VARCHAR(64) NOT NULL, EVENT_SEQ BIGINT NOT NULL)");
+        }
+        connection.commit();
+    }
+
+    /** The table a model is mirrored into. */
+    public static String tableName(ModelDescriptor descriptor) {
+        return descriptor.structName().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Creates or extends the model's table and starts following its changes after the stored
+     * cursor. Calling it again for a model whose stream failed resubscribes.
+     */
+    public synchronized void mirror(ModelDescriptor descriptor) throws SQLException {
+        Table existing = tables.get(descriptor.structName());
+        if (existing != null && !existing.failed) {
+            return;
+        }
+        Table table = new Table(descriptor);
+        table.create();
+        tables.put(descriptor.structName(), table);
+        feed.ofType(descriptor, cursor(descriptor)).subscribe(table);
+    }
+
+    /** The position after the last applied change of the model, or null before the first. */
+    public synchronized EventCursor cursor(ModelDescriptor descriptor) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT TX_DIGEST, EVENT_SEQ FROM " + CURSOR_TABLE + " WHERE TABLE_NAME = ?")) {
+            ps.setString(1, tableName(descriptor));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new EventCursor(rs.getString(1), rs.getLong(2)) : null;
+            }
+        } finally {
+            connection.commit();
+        }
+    }
+
+    /** Whether the model's stream stopped on a database error; see the log for the cause. */
+    public boolean isFailed(ModelDescriptor descriptor) {
+        Table table = tables.get(descriptor.structName());
+        return table != null && table.failed;
+    }
+
+    /** Stops following changes; closes the connection if the mirror opened it. */
+    @Override
+    public void close() throws SQLException {
+        tables.values().forEach(Table::cancel);
+        tables.clear();
+        if (ownsConnection) {
+            synchronized (this) {
+                connection.close();
+            }
+        }
+    }
+
+    private synchronized void apply(Table table, List<EntityChange> batch) throws SQLException {
+        // the latest state per object is enough; a delete always comes last for its object
+        Map<String, EntityChange> upserts = new LinkedHashMap<>();
+        List<EntityChange> deletes = new ArrayList<>();
+        for (EntityChange change : batch) {
+            if (change.kind() == ChainEvent.Kind.DELETED) {
+                deletes.add(change);
+            } else {
+                upserts.put(change.objectId(), change);
+            }
+        }
+        try {
+            if (!upserts.isEmpty()) {
+                try (PreparedStatement ps = connection.prepareStatement(table.merge)) {
+                    for (EntityChange change : upserts.values()) {
+                        table.bind(ps, change);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            if (!deletes.isEmpty()) {
+                try (PreparedStatement ps = connection.prepareStatement(table.delete)) {
+                    for (EntityChange change : deletes) {
+                        ps.setString(1, change.cursor().txDigest());
+                        ps.setLong(2, change.timestampMs());
+                        ps.setString(3, change.objectId());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            EventCursor last = batch.get(batch.size() - 1).cursor();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "MERGE INTO " + CURSOR_TABLE + " KEY (TABLE_NAME) VALUES (?, ?, ?)")) {
+                ps.setString(1, table.name);
+                ps.setString(2, last.txDigest());
+                ps.setLong(3, last.eventSeq());
+                ps.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    /** One mirrored model: its DDL, statements and change subscription. */
+    private class Table implements Flow.Subscriber<List<EntityChange>> {
+        final String name;
+        /** The name quoted, so entities named after reserved words such as USER or ORDER work. */
+        final String table;
+        final List<ModelDescriptor.Field> fields;
+        final String merge;
+        final String delete;
+        volatile Flow.Subscription subscription;
+        volatile boolean failed;
+
+        Table(ModelDescriptor descriptor) {
+            this.name = tableName(descriptor);
+            this.table = "\"" + name + "\"";
+            // dynamic fields are in neither events nor object contents, so they get no column
+            this.fields = descriptor.fields().stream().filter(f -> !f.dynamic()).toList();
+            StringJoiner columns = new StringJoiner(", ", "(", ")");
+            StringJoiner values = new StringJoiner(", ", "(", ")");
+            for (String column : List.of("OBJECT_ID", "IS_DELETED", "TX_DIGEST", "UPDATED_MS")) {
+                columns.add(column);
+                values.add("?");
+            }
+            for (ModelDescriptor.Field field : fields) {
+                columns.add(column(field));
+                values.add("?");
+            }
+            this.merge = "MERGE INTO " + table + " " + columns + " KEY (OBJECT_ID) VALUES " + values;
+            this.delete = "UPDATE " + table + " SET IS_DELETED = TRUE, TX_DIGEST = ?, UPDATED_MS = ? WHERE OBJECT_ID = ?";
+        }
+
+        void create() throws SQLException {
+            try (Statement st = connection.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS " + table + " (OBJECT_ID VARCHAR(66) PRIMARY KEY, "
+                        + "IS_DELETED BOOLEAN NOT NULL, TX_DIGEST VARCHAR(64), UPDATED_MS BIGINT)");
+                // fields added to the entity since the table was created become new columns
+                for (ModelDescriptor.Field field : fields) {
+                    st.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS " + column(field) + " "
+                            + sqlType(field.moveType()));
+                    if (field.indexed()) {
+                        st.execute("CREATE INDEX IF NOT EXISTS \"IDX_" + name + "_" + field.name().toUpperCase(Locale.ROOT)
+                                + "\" ON " + table + " (" + column(field) + ")");
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        void bind(PreparedStatement ps, EntityChange change) throws SQLException {
+            ps.setString(1, change.objectId());
+            ps.setBoolean(2, false);
+            ps.setString(3, change.cursor().txDigest());
+            ps.setLong(4, change.timestampMs());
+            int index = 5;
+            for (ModelDescriptor.Field field : fields) {
+                JsonNode value = change.fields().path(field.name());
+                if (value.isMissingNode() || value.isNull()) {
+                    ps.setNull(index, sqlTypeCode(field.moveType()));
+                } else {
+                    switch (field.moveType()) {
+                        case "bool" -> ps.setBoolean(index, value.asBoolean());
+                        case "u8", "u16", "u32" -> ps.setLong(index, value.asLong());
+                        case "u64", "u128", "u256" -> ps.setBigDecimal(index, new BigDecimal(value.asText()));
+                        default -> ps.setString(index, value.asText());
+                    }
+                }
+                index++;
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<EntityChange> batch) {
+            try {
+                apply(this, batch);
+                subscription.request(1);
+            } catch (SQLException e) {
+                // nothing of the batch was applied; mirror() resumes from the stored cursor
+                log.error("Mirroring {} failed, stopping its stream", name, e);
+                failed = true;
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.error("Change stream of {} failed", name, throwable);
+            failed = true;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+
+    private static String column(ModelDescriptor.Field field) {
+        // quoted in upper case, so reserved words work and unquoted queries still match
+        return "\"" + field.name().toUpperCase(Locale.ROOT) + "\"";
+    }
+
+    private static String sqlType(String moveType) {
+        return switch (moveType) {
+            case "bool" -> "BOOLEAN";
+            case "u8", "u16", "u32" -> "BIGINT";
+            case "u64" -> "NUMERIC(20)";
+            case "u128" -> "NUMERIC(39)";
+            case "u256" -> "NUMERIC(78)";
+            case "address", "ID" -> "VARCHAR(66)";
+            default -> "VARCHAR";
+        };
+    }
+
+    private static int sqlTypeCode(String moveType) {
+        return switch (moveType) {
+            case "bool" -> Types.BOOLEAN;
+            case "u8", "u16", "u32" -> Types.BIGINT;
+            case "u64", "u128", "u256" -> Types.NUMERIC;
+            default -> Types.VARCHAR;
+        };
+    }
+}
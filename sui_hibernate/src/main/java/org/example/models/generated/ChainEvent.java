@@ -0,0 +1,18 @@
+package org.example.models.generated;
+
+/**
+ * An event emitted by a generated Move module, decoded into the model's typed
+ * {@code Created}, {@code Updated} or {@code Deleted} record.
+ */
+public interface ChainEvent {
+    /** The ID of the object the event is about. */
+    String objectId();
+
+    Kind kind();
+
+    enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
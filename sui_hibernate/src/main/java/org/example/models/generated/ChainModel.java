@@ -0,0 +1,14 @@
+package org.example.models.generated;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Implemented by every generated model, so services can fill models from JSON object
+ * content (e.g. a local index) without knowing their class.
+ */
+public interface ChainModel {
+    String getObjectId();
+
+    /** Copies the field values from {@code content.fields} of the object, returning this model. */
+    ChainModel load(JsonNode fields);
+}
@@ -0,0 +1,17 @@
+package org.example.models.generated;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Decodes the events of one generated module. Generated models pass their
+ * {@code decodeEvent} method reference.
+ */
+@FunctionalInterface
+public interface EventDecoder {
+    /**
+     * Decodes an event from its full Move type and its {@code parsedJson}.
+     *
+     * @return the typed event, or null if the event is not one of this module's
+     */
+    ChainEvent decode(String eventType, JsonNode parsedJson);
+}
@@ -0,0 +1,84 @@
+package org.example.models.generated;
+
+import org.example.blockchain.ObjectAccess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compile-time metadata of a generated model, emitted by BlockchainEntityProcessor
+ * as the model's {@code DESCRIPTOR} constant.
+ *
+ * @param structName the on-chain struct name (e.g. "Bar")
+ * @param module     the Move module holding the struct
+ * @param modelClass the generated Java bridge class
+ * @param fields     the struct fields in declaration order
+ * @param factory    creates a bridge instance for an object ID
+ * @param events     decodes the module's Created/Updated/Deleted events; null for models
+ *                   generated before the module emitted events
+ */
+public record ModelDescriptor(String structName,
+                              String module,
+                              Class<?> modelClass,
+                              List<Field> fields,
+                              ModelFactory<?> factory,
+                              EventDecoder events) {
+
+    /** The shared object of every generated module that indexes the module's objects. */
+    public static final String REGISTRY_STRUCT = "Registry";
+
+    public ModelDescriptor(String structName, String module, Class<?> modelClass, List<Field> fields,
+                           ModelFactory<?> factory) {
+        this(structName, module, modelClass, fields, factory, null);
+    }
+
+    /**
+     * How a function of the module uses an object of type {@code struct} (a struct name within
+     * the module): the model's objects are owned by their creator, while the registry is
+     * shared. Null for structs the module does not generate.
+     */
+    public ObjectAccess access(String struct, boolean mutable) {
+        if (struct.equals(structName)) {
+            return ObjectAccess.of(false, mutable);
+        }
+        if (struct.equals(REGISTRY_STRUCT)) {
+            return ObjectAccess.of(true, mutable);
+        }
+        return null;
+    }
+
+    /**
+     * The functions of the generated module that calls go through: {@code create},
+     * {@code update_by_id} and {@code delete}, the registry views, and the {@code get_<field>}
+     * and {@code set_<field>} functions of the fields.
+     */
+    public List<String> functions() {
+        List<String> functions = new ArrayList<>(List.of("create", "update_by_id", "delete", "find_by_id", "size",
+                "get_page", "is_deleted"));
+        for (Field field : fields) {
+            functions.add("get_" + field.name());
+            if (field.dynamic()) {
+                functions.add("set_" + field.name());
+            }
+        }
+        return functions;
+    }
+
+    /**
+     * A struct field with its Move type (e.g. "u64", "String", "bool").
+     *
+     * @param indexed whether the field is marked {@code @ChainField(indexed = true)}
+     * @param dynamic whether the field is marked {@code @ChainField(dynamic = true)}, i.e.
+     *                stored as a dynamic field and absent from object contents and events
+     */
+    public record Field(String name, String moveType, boolean indexed, boolean dynamic) {
+
+        public Field(String name, String moveType, boolean indexed) {
+            this(name, moveType, indexed, false);
+        }
+
+        public Field(String name, String moveType) {
+            this(name, moveType, false);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.models.generated;
+
+import org.example.blockchain.SuiContractManager;
+
+/**
+ * Creates the Java bridge of an on-chain object. Generated models pass their
+ * constructor reference, so instantiation needs no reflection.
+ */
+@FunctionalInterface
+public interface ModelFactory<T> {
+    T create(String objectId, SuiContractManager mgr);
+}
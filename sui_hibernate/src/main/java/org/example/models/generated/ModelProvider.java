@@ -0,0 +1,11 @@
+package org.example.models.generated;
+
+import java.util.List;
+
+/**
+ * Implemented by the registry class BlockchainEntityProcessor generates, and
+ * listed in {@code META-INF/services} so ModelRegistry finds it without scanning.
+ */
+public interface ModelProvider {
+    List<ModelDescriptor> models();
+}
@@ -1,25 +1,41 @@
 package org.example.models.generated;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import org.reflections.Reflections;
-import org.example.models.generated.AutoGeneratedModel;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Auto-generated registry of on-chain models
+ * Registry of on-chain models, filled from the providers generated at compile time.
  */
 public class ModelRegistry {
-    private static final Map<String, Class<?>> registry = new HashMap<>();
+    private static final Map<String, ModelDescriptor> registry = new ConcurrentHashMap<>();
     static {
-        Reflections reflections = new Reflections("${registryPkg}");
-        for (Class<?> c : reflections.getTypesAnnotatedWith(AutoGeneratedModel.class)) {
-            AutoGeneratedModel ann = c.getAnnotation(AutoGeneratedModel.class);
-            registry.put(ann.structName(), c);
+        for (ModelProvider provider : ServiceLoader.load(ModelProvider.class)) {
+            for (ModelDescriptor descriptor : provider.models()) {
+                register(descriptor);
+            }
         }
     }
 
+    /** Adds a model explicitly, e.g. when generated sources are compiled outside of the processor run */
+    public static void register(ModelDescriptor descriptor) {
+        registry.put(descriptor.structName(), descriptor);
+    }
+
     /** Lookup the Java bridge class for a given struct name */
     public static Class<?> getModel(String structName) {
+        ModelDescriptor descriptor = registry.get(structName);
+        return descriptor != null ? descriptor.modelClass() : null;
+    }
+
+    /** Every registered model */
+    public static List<ModelDescriptor> models() {
+        return List.copyOf(registry.values());
+    }
+
+    /** Lookup the full metadata for a given struct name */
+    public static ModelDescriptor getDescriptor(String structName) {
         return registry.get(structName);
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,9 @@ package org.example.processor;
 
 import freemarker.template.Configuration;
 import freemarker.template.Template;
+import freemarker.template.TemplateException;
 import org.example.annotation.BlockchainEntity;
+import org.example.annotation.ChainField;
 
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
@@ -21,11 +23,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
 
 @SupportedAnnotationTypes("org.example.annotation.BlockchainEntity")
 @SupportedSourceVersion(SourceVersion.RELEASE_17)
 public class BlockchainEntityProcessor extends AbstractProcessor {
+    private static final String REGISTRY_CLASS = "GeneratedModelRegistry";
+    private static final String SERVICE_FILE   = "META-INF/services/org.example.models.generated.ModelProvider";
+
     private Configuration cfg;
+    /** Models generated so far, in every round; the registry lists them once processing is over. */
+    private final List<String> models = new ArrayList<>();
+    private Path registryRoot;
 
     @Override
     public synchronized void init(ProcessingEnvironment env) {
@@ -37,49 +47,30 @@ public class BlockchainEntityProcessor extends AbstractProcessor {
 
     @Override
     public boolean process(Set<? extends TypeElement> annos, RoundEnvironment roundEnv) {
-        // first look for test prop, then fallback to production
-        String moveDirProp = System.getProperty("test.move.dir", System.getProperty("sui.move.dir"));
-        Path projectRoot   = moveDirProp != null ? Paths.get(moveDirProp) : null;
-
-        // if we have a projectRoot, ensure Move.toml + sources dir exist
-        if (projectRoot != null) {
-            try {
-                Files.createDirectories(projectRoot.resolve("sources"));
-                Path toml = projectRoot.resolve("Move.toml");
-                if (!Files.exists(toml)) {
-                    Files.writeString(toml, """
-                  [package]
-                  name = "auto_pkg"
-                  version = "0.0.1"
-                  edition = "2024"
-
-                  [addresses]
-                  # fill these in your manager before publish
-
-                  [dependencies]
-                  """);
-                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
-                            "⦿ Scaffolded Move.toml at " + toml.toAbsolutePath());
-                }
-            } catch (IOException e) {
-                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
-                        "Failed to scaffold Move project: " + e.getMessage());
-            }
+        if (roundEnv.processingOver()) {
+            // the service file can be created only once, so it waits for the models of every round
+            generateRegistry(models, registryRoot);
+            return true;
         }
-
+        // gather every entity of this round first: they all become modules of one Move package
+        List<Entity> entities = new ArrayList<>();
         for (Element e : roundEnv.getElementsAnnotatedWith(BlockchainEntity.class)) {
             TypeElement cls                 = (TypeElement) e;
             String       pkg                 = processingEnv.getElementUtils()
                     .getPackageOf(cls).getQualifiedName().toString();
             String       javaName            = cls.getSimpleName().toString();
             BlockchainEntity anno            = cls.getAnnotation(BlockchainEntity.class);
-            String       module              = anno.module();
-            String       struct              = anno.struct();
 
             // gather fields
             List<Map<String,String>> fields = new ArrayList<>();
             for (var ve : ElementFilter.fieldsIn(cls.getEnclosedElements())) {
                 String name  = ve.getSimpleName().toString();
+                if (name.equals("all") || name.equals("page")) {
+                    // get_<field> would clash with the registry's get_all / get_page
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Field name '" + name + "' clashes with the generated get_" + name + " function", ve);
+                    continue;
+                }
                 String ftype = ve.asType().toString();
                 String mtype = switch(ftype) {
                     case "java.lang.String"        -> "String";
@@ -87,20 +78,64 @@ public class BlockchainEntityProcessor extends AbstractProcessor {
                     case "boolean","java.lang.Boolean" -> "bool";
                     default                         -> "String";
                 };
+                ChainField chainField = ve.getAnnotation(ChainField.class);
+                boolean indexed = chainField != null && chainField.indexed();
+                boolean dynamic = chainField != null && chainField.dynamic();
+                if (indexed && dynamic) {
+                    // indexes are fed from object contents, which do not hold dynamic fields
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Field '" + name + "' cannot be both indexed and dynamic", ve);
+                    continue;
+                }
                 fields.add(Map.of(
                         "name",     name,
                         "javaType", ftype,
-                        "moveType", mtype
+                        "moveType", mtype,
+                        "indexed",  String.valueOf(indexed),
+                        "dynamic",  String.valueOf(dynamic)
                 ));
             }
+            entities.add(new Entity(pkg, javaName, anno.module(), anno.struct(), fields));
+        }
+        if (entities.isEmpty()) {
+            return true;
+        }
+
+        String address = resolveAddress(entities);
+        if (address == null) {
+            return true;
+        }
+
+        // first look for test prop, then fallback to production
+        String moveDirProp = System.getProperty("test.move.dir", System.getProperty("sui.move.dir"));
+        Path projectRoot   = moveDirProp != null ? Paths.get(moveDirProp) : null;
+
+        // if we have a projectRoot, ensure Move.toml (with the shared address) + sources dir exist
+        if (projectRoot != null) {
+            try {
+                Files.createDirectories(projectRoot.resolve("sources"));
+                scaffoldMoveToml(projectRoot.resolve("Move.toml"), address);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to scaffold Move project: " + e.getMessage());
+            }
+        }
+
+        if (projectRoot != null) {
+            registryRoot = projectRoot;
+        }
+        for (Entity entity : entities) {
+            // one Move module per entity, named after its struct, all under the package address
+            String module = entity.struct();
 
             // generate .move file
             try {
                 Template t = cfg.getTemplate("sui_box_module.move.ftl");
                 Map<String,Object> ctx = Map.of(
-                        "module", module,
-                        "struct", struct,
-                        "fields", fields
+                        "address", address,
+                        "module",  module,
+                        "struct",  entity.struct(),
+                        "fields",  entity.fields()
                 );
                 if (projectRoot != null) {
                     Path out = projectRoot.resolve("sources").resolve(module + ".move");
@@ -112,7 +147,7 @@ public class BlockchainEntityProcessor extends AbstractProcessor {
                             "⦿ Wrote Move file to " + out.toAbsolutePath());
                 } else {
                     FileObject fo = processingEnv.getFiler()
-                            .createResource(StandardLocation.SOURCE_OUTPUT, "", module + ".move");
+                            .createResource(StandardLocation.SOURCE_OUTPUT, "", "sources/" + module + ".move");
                     try (var w = fo.openWriter()) {
                         t.process(ctx, w);
                     }
@@ -123,53 +158,168 @@ public class BlockchainEntityProcessor extends AbstractProcessor {
             }
 
             // generate Java model
+            String javaName = entity.javaName();
             try {
                 Template t = cfg.getTemplate("Model.java.ftl");
-                String modelPkg = pkg.isBlank() ? "templates" : pkg + ".templates";
+                String modelPkg = entity.pkg().isBlank() ? "templates" : entity.pkg() + ".templates";
                 Map<String,Object> ctx = Map.of(
                         "package",    modelPkg,
                         "className",  javaName,
-                        "structName", struct,
+                        "structName", entity.struct(),
                         "module",     module,
-                        "fields",     fields
+                        "fields",     entity.fields()
                 );
-                // if using test.java.dir, write there
-                String javaDir = System.getProperty("test.java.dir");
-                if (javaDir != null) {
-                    Path out = Paths.get(javaDir)
-                            .resolve(modelPkg.replace(".", "/"))
-                            .resolve(javaName + ".java");
-                    Files.createDirectories(out.getParent());
-                    try (var w = Files.newBufferedWriter(out)) {
-                        t.process(ctx, w);
-                    }
-                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
-                            "⦿ Wrote Java model to " + out.toAbsolutePath());
-                }
-                else if (projectRoot != null) {
-                    Path out = projectRoot
-                            .resolve("src")
-                            .resolve(modelPkg.replace(".", "/"))
-                            .resolve(javaName + ".java");
-                    Files.createDirectories(out.getParent());
-                    try (var w = Files.newBufferedWriter(out)) {
-                        t.process(ctx, w);
-                    }
-                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
-                            "⦿ Wrote Java model to " + out.toAbsolutePath());
-                } else {
-                    JavaFileObject jfo = processingEnv.getFiler()
-                            .createSourceFile(modelPkg + "." + javaName);
-                    try (var w = jfo.openWriter()) {
-                        t.process(ctx, w);
-                    }
-                }
+                writeJavaSource(modelPkg, javaName, t, ctx, projectRoot);
+                models.add(modelPkg + "." + javaName);
             } catch (Throwable ex) {
                 processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
                         "Java model failed for " + javaName + ": " + ex.getMessage());
             }
         }
-
         return true;
     }
+
+    /**
+     * Emits the static model registry and its service entry, so ModelRegistry finds every
+     * generated model without classpath scanning.
+     */
+    private void generateRegistry(List<String> models, Path projectRoot) {
+        if (models.isEmpty()) {
+            return;
+        }
+        models.sort(null);
+        String first       = models.get(0);
+        String registryPkg = first.substring(0, first.lastIndexOf('.'));
+        String registryFqn = registryPkg + "." + REGISTRY_CLASS;
+        try {
+            Template t = cfg.getTemplate("ModelRegistry.java.ftl");
+            Map<String,Object> ctx = Map.of(
+                    "registryPkg",   registryPkg,
+                    "registryClass", REGISTRY_CLASS,
+                    "models",        models
+            );
+            writeJavaSource(registryPkg, REGISTRY_CLASS, t, ctx, projectRoot);
+
+            String javaDir = System.getProperty("test.java.dir");
+            if (javaDir != null || projectRoot != null) {
+                Path root = javaDir != null ? Paths.get(javaDir) : projectRoot.resolve("src");
+                Path out = root.resolve(SERVICE_FILE);
+                Files.createDirectories(out.getParent());
+                Files.writeString(out, registryFqn + "\n");
+            } else {
+                FileObject fo = processingEnv.getFiler()
+                        .createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+                try (var w = fo.openWriter()) {
+                    w.write(registryFqn + "\n");
+                }
+            }
+        } catch (Throwable ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Model registry failed for " + registryFqn + ": " + ex.getMessage());
+        }
+    }
+
+    private void writeJavaSource(String javaPkg, String javaName, Template t, Map<String,Object> ctx,
+                                 Path projectRoot) throws IOException, TemplateException {
+        // if using test.java.dir, write there
+        String javaDir = System.getProperty("test.java.dir");
+        if (javaDir != null) {
+            Path out = Paths.get(javaDir)
+                    .resolve(javaPkg.replace(".", "/"))
+                    .resolve(javaName + ".java");
+            Files.createDirectories(out.getParent());
+            try (var w = Files.newBufferedWriter(out)) {
+                t.process(ctx, w);
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "⦿ Wrote Java source to " + out.toAbsolutePath());
+        }
+        else if (projectRoot != null) {
+            Path out = projectRoot
+                    .resolve("src")
+                    .resolve(javaPkg.replace(".", "/"))
+                    .resolve(javaName + ".java");
+            Files.createDirectories(out.getParent());
+            try (var w = Files.newBufferedWriter(out)) {
+                t.process(ctx, w);
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "⦿ Wrote Java source to " + out.toAbsolutePath());
+        } else {
+            JavaFileObject jfo = processingEnv.getFiler()
+                    .createSourceFile(javaPkg + "." + javaName);
+            try (var w = jfo.openWriter()) {
+                t.process(ctx, w);
+            }
+        }
+    }
+
+    /**
+     * Picks the named address shared by all modules of the generated package:
+     * {@code -Dsui.move.address} if set, otherwise the {@code module} every entity agrees on.
+     */
+    private String resolveAddress(List<Entity> entities) {
+        String configured = System.getProperty("sui.move.address");
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        Set<String> declared = new TreeSet<>();
+        for (Entity entity : entities) {
+            declared.add(entity.address());
+        }
+        if (declared.size() > 1) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "All @BlockchainEntity classes are generated into one Move package and must share "
+                            + "its address, found " + declared + ". Use the same module or set -Dsui.move.address");
+            return null;
+        }
+        return declared.iterator().next();
+    }
+
+    /** Writes Move.toml if missing, and makes sure the package address is declared in it. */
+    private void scaffoldMoveToml(Path toml, String address) throws IOException {
+        if (!Files.exists(toml)) {
+            Files.writeString(toml, """
+                  [package]
+                  name = "auto_pkg"
+                  version = "0.0.1"
+                  edition = "2024"
+
+                  [addresses]
+                  %s = "0x0"
+
+                  [dependencies]
+                  """.formatted(address));
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "⦿ Scaffolded Move.toml at " + toml.toAbsolutePath());
+            return;
+        }
+
+        List<String> lines = new ArrayList<>(Files.readAllLines(toml));
+        int section = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.equals("[addresses]")) {
+                section = i;
+            } else if (section >= 0 && line.startsWith("[")) {
+                break;
+            } else if (section >= 0 && line.matches(Pattern.quote(address) + "\\s*=.*")) {
+                return;
+            }
+        }
+        if (section < 0) {
+            lines.add("");
+            lines.add("[addresses]");
+            section = lines.size() - 1;
+        }
+        lines.add(section + 1, address + " = \"0x0\"");
+        Files.write(toml, lines);
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "⦿ Added address " + address + " to " + toml.toAbsolutePath());
+    }
+
+    /** An annotated class as seen by the processor. */
+    private record Entity(String pkg, String javaName, String address, String struct,
+                          List<Map<String,String>> fields) {
+    }
 }
@@ -1,23 +1,84 @@
 package org.example.service;
 
+import org.example.blockchain.ObjectId;
 import org.example.blockchain.SuiContractManager;
+import org.example.indexer.ChainIndexer;
+import org.example.indexer.IndexedObject;
+import org.example.models.generated.ChainModel;
+import org.example.models.generated.ModelDescriptor;
 import org.example.models.generated.ModelRegistry;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ModelService {
     private final SuiContractManager mgr;
+    private final ChainIndexer indexer;
 
     public ModelService(SuiContractManager mgr) {
+        this(mgr, null);
+    }
+
+    /** Answers enumeration queries from {@code indexer} instead of the chain. */
+    public ModelService(SuiContractManager mgr, ChainIndexer indexer) {
         this.mgr = mgr;
+        this.indexer = indexer;
     }
 
     public Object instantiateModel(String structName, String objectId) {
-        try {
-            Class<?> modelClass = ModelRegistry.getModel(structName);
-            return modelClass
-                    .getConstructor(String.class, SuiContractManager.class)
-                    .newInstance(objectId, mgr);
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Could not instantiate " + structName + "Model", e);
+        return descriptor(structName).factory().create(objectId, mgr);
+    }
+
+    public Object instantiateModel(String structName, ObjectId objectId) {
+        return instantiateModel(structName, objectId.toString());
+    }
+
+    /**
+     * Every live object of the struct, loaded with its field values as last indexed. Reads
+     * only the local index; call {@link ChainIndexer#catchUp()} first for up-to-date results.
+     */
+    public List<ChainModel> findAll(String structName) {
+        ModelDescriptor descriptor = descriptor(structName);
+        List<IndexedObject> objects = indexer().list(descriptor);
+        List<ChainModel> models = new ArrayList<>(objects.size());
+        for (IndexedObject object : objects) {
+            models.add(load(descriptor, object));
+        }
+        return models;
+    }
+
+    /** The indexed object as a loaded model, or null if the index does not know it. */
+    public ChainModel findById(String structName, ObjectId objectId) {
+        return findById(descriptor(structName), indexer().get(objectId));
+    }
+
+    public ChainModel findById(String structName, String objectId) {
+        return findById(descriptor(structName), indexer().get(objectId));
+    }
+
+    private ChainModel findById(ModelDescriptor descriptor, IndexedObject object) {
+        if (object == null || !object.type().equals(indexer.typeOf(descriptor))) {
+            return null;
+        }
+        return load(descriptor, object);
+    }
+
+    private ChainModel load(ModelDescriptor descriptor, IndexedObject object) {
+        return ((ChainModel) descriptor.factory().create(object.objectId(), mgr)).load(object.fields());
+    }
+
+    private ChainIndexer indexer() {
+        if (indexer == null) {
+            throw new IllegalStateException("Enumeration needs a ChainIndexer; pass one to the ModelService");
+        }
+        return indexer;
+    }
+
+    private static ModelDescriptor descriptor(String structName) {
+        ModelDescriptor descriptor = ModelRegistry.getDescriptor(structName);
+        if (descriptor == null) {
+            throw new RuntimeException("Could not instantiate " + structName + "Model: no generated model registered");
         }
+        return descriptor;
     }
 }
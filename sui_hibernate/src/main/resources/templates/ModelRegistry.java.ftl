@@ -1,24 +1,21 @@
 package ${registryPkg};
 
-import java.util.HashMap;
-import java.util.Map;
-import org.reflections.Reflections;
-import org.example.models.generated.AutoGeneratedModel;
+import java.util.List;
+import org.example.models.generated.ModelDescriptor;
+import org.example.models.generated.ModelProvider;
 
 /**
-* Auto-generated registry of on-chain models
+* Auto-generated registry of on-chain models, resolved at compile time
 */
-public class ModelRegistry {
-private static final Map<String, Class<?>> registry = new HashMap<>();
-static {
-Reflections reflections = new Reflections("${registryPkg}");
-for (Class<?> c : reflections.getTypesAnnotatedWith(AutoGeneratedModel.class)) {
-registry.put(c.getSimpleName(), c);
-}
-}
+public class ${registryClass} implements ModelProvider {
+private static final List<ModelDescriptor> MODELS = List.of(
+<#list models as model>
+    ${model}.DESCRIPTOR<#if model_has_next>,</#if>
+</#list>
+);
 
-/** Lookup the Java bridge class for a given struct name */
-public static Class<?> getModel(String structName) {
-return registry.get(structName);
+@Override
+public List<ModelDescriptor> models() {
+return MODELS;
 }
 }
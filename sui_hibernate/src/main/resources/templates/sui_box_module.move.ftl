@@ -1,11 +1,16 @@
+<#-- fields marked @ChainField(dynamic = true) live in dynamic fields keyed by their name -->
+<#assign inline = fields?filter(f -> (f.dynamic!"false") != "true")>
+<#assign dynamic = fields?filter(f -> (f.dynamic!"false") == "true")>
 #[allow(unused_use, duplicate_alias, lint(custom_state_change))]
-module ${module}::${struct} {
+module ${address}::${module} {
 use sui::object::{Self, UID, ID};
 use sui::tx_context::{Self, TxContext};
 use sui::transfer;
 use std::string::{Self, String};
 use std::vector;
 use std::option::{Self, Option};
+use sui::event;
+use sui::dynamic_field;
 
 // Registry to track all created objects by their IDs
 public struct Registry has key {
@@ -26,31 +31,65 @@ items: vector<ID>,
     public struct ${struct} has key, store {
     id: UID,
     is_deleted: bool,
-    <#list fields as field>
+    <#list inline as field>
         ${field.name}: ${field.moveType}<#if field_has_next>,</#if>
     </#list>
     }
 
+    // Events carrying the changed fields, so changes can be followed without reading objects
+    public struct ${struct}Created has copy, drop {
+    object_id: ID,
+    <#list inline as field>
+        ${field.name}: ${field.moveType},
+    </#list>
+    }
+
+    public struct ${struct}Updated has copy, drop {
+    object_id: ID,
+    <#list inline as field>
+        ${field.name}: ${field.moveType},
+    </#list>
+    }
+
+    public struct ${struct}Deleted has copy, drop {
+    object_id: ID,
+    }
+
     // Create a new instance and register its ID
     public fun create(<#list fields as field>${field.name}: ${field.moveType}<#if field_has_next>, </#if></#list>, registry: &mut Registry, ctx: &mut TxContext): ${struct} {
-    let obj = ${struct} {
+    let <#if dynamic?has_content>mut </#if>obj = ${struct} {
     id: object::new(ctx),
     is_deleted: false,
-    <#list fields as field>
+    <#list inline as field>
         ${field.name}<#if field_has_next>,</#if>
     </#list>
     };
+    <#list dynamic as field>
+        dynamic_field::add(&mut obj.id, b"${field.name}", ${field.name});
+    </#list>
     let id = object::uid_to_inner(&obj.id);
     vector::push_back(&mut registry.items, id);
+    event::emit(${struct}Created {
+    object_id: id,
+    <#list inline as field>
+        ${field.name}: obj.${field.name},
+    </#list>
+    });
     obj
     }
 
     // Update the object’s fields by ID (caller must provide the object)
-    public entry fun update_by_id(obj: &mut ${struct}, <#list fields as field>new_${field.name}: ${field.moveType}<#if field_has_next>, </#if></#list>) {
+    public entry fun update_by_id(obj: &mut ${struct}, <#list inline as field>new_${field.name}: ${field.moveType}<#if field_has_next>, </#if></#list>) {
     assert!(!obj.is_deleted, 0); // Cannot update a deleted object
-    <#list fields as field>
+    <#list inline as field>
         obj.${field.name} = new_${field.name};
     </#list>
+    event::emit(${struct}Updated {
+    object_id: object::id(obj),
+    <#list inline as field>
+        ${field.name}: obj.${field.name},
+    </#list>
+    });
     }
 
     // Check if an ID exists in the registry
@@ -63,8 +102,50 @@ items: vector<ID>,
         registry.items
         }
 
+        // Number of registered IDs
+        public fun size(registry: &Registry): u64 {
+        vector::length(&registry.items)
+        }
+
+        // Registered IDs from position start, at most limit of them
+        public fun get_page(registry: &Registry, start: u64, limit: u64): vector<ID> {
+        let mut page = vector::empty<ID>();
+        let mut i = start;
+        let len = vector::length(&registry.items);
+        while (i < len && i - start < limit) {
+        vector::push_back(&mut page, *vector::borrow(&registry.items, i));
+        i = i + 1;
+        };
+        page
+        }
+
+        // Read-only views of single fields, for reading many values in one dev-inspect
+        <#list inline as field>
+        public fun get_${field.name}(obj: &${struct}): ${field.moveType} {
+        obj.${field.name}
+        }
+
+        </#list>
+        <#list dynamic as field>
+        public fun get_${field.name}(obj: &${struct}): ${field.moveType} {
+        *dynamic_field::borrow<vector<u8>, ${field.moveType}>(&obj.id, b"${field.name}")
+        }
+
+        // Replace the dynamic field ${field.name} without touching the other fields
+        public entry fun set_${field.name}(obj: &mut ${struct}, value: ${field.moveType}) {
+        assert!(!obj.is_deleted, 0); // Cannot update a deleted object
+        *dynamic_field::borrow_mut<vector<u8>, ${field.moveType}>(&mut obj.id, b"${field.name}") = value;
+        }
+
+        </#list>
+        // Whether the object was marked as deleted
+        public fun is_deleted(obj: &${struct}): bool {
+        obj.is_deleted
+        }
+
         // Mark the object as deleted
         public entry fun delete(obj: &mut ${struct}) {
         obj.is_deleted = true;
+        event::emit(${struct}Deleted { object_id: object::id(obj) });
         }
         }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package org.example.blockchain;
+
+import freemarker.template.Configuration;
+
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the Bar module (fields name: String, count: u64) exactly as BlockchainEntityProcessor
+ * generates it, and publishes it for tests of any package.
+ */
+public final class BarModule {
+    /** The address every test transaction is sent from. */
+    public static final String SENDER = "0x" + "5e".repeat(32);
+    private static final List<Map<String, String>> FIELDS = List.of(
+            Map.of("name", "name", "javaType", "java.lang.String", "moveType", "String"),
+            Map.of("name", "count", "javaType", "long", "moveType", "u64"));
+
+    /** A manager that published the module, and the module's registry. */
+    public record Published(SuiContractManager mgr, String registryId) {
+    }
+
+    private BarModule() {
+    }
+
+    public static void write(Path moveDir) throws Exception {
+        write(moveDir, "Bar");
+    }
+
+    /** Writes a module named {@code module} with Bar's fields. */
+    public static void write(Path moveDir, String module) throws Exception {
+        write(moveDir, module, FIELDS);
+    }
+
+    static void write(Path moveDir, String module, List<Map<String, String>> fields) throws Exception {
+        Configuration cfg = new Configuration(Configuration.VERSION_2_3_31);
+        cfg.setClassLoaderForTemplateLoading(BarModule.class.getClassLoader(), "/templates");
+        Files.createDirectories(moveDir.resolve("sources"));
+        try (Writer w = Files.newBufferedWriter(moveDir.resolve("sources/" + module + ".move"))) {
+            cfg.getTemplate("sui_box_module.move.ftl").process(Map.of(
+                    "address", "foo",
+                    "module", module,
+                    "struct", module,
+                    "fields", fields), w);
+        }
+    }
+
+    /** A manager sending from {@link #SENDER} through {@code backend}. */
+    public static SuiContractManager manager(ChainBackend backend) {
+        return new SuiContractManager(null, SENDER, null, 50_000_000L, 1_000L, backend);
+    }
+
+    /**
+     * Writes the module to {@code moveDir}, along with any module already there, publishes the
+     * package and creates Bar's registry.
+     */
+    public static Published publish(ChainBackend backend, Path moveDir) throws Exception {
+        write(moveDir);
+        SuiContractManager mgr = manager(backend);
+        mgr.publish(moveDir);
+        return new Published(mgr, mgr.createRegistry("Bar", moveDir, mgr.getPackageId()));
+    }
+}
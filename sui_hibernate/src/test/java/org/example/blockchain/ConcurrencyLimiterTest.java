@@ -0,0 +1,125 @@
+package org.example.blockchain;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.metrics.SuiMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void limitGrowsWhileUsedAndBacksOffOncePerBurst() throws Exception {
+        // no call is ever too slow, however loaded the machine running the test
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 4, Duration.ofSeconds(1), Double.POSITIVE_INFINITY,
+                Duration.ZERO);
+        for (int i = 0; i < 20; i++) {
+            limiter.run("rpc", () -> "ok");
+        }
+        // one call at a time uses half of a limit of 2, not of 3
+        assertEquals(2, limiter.getLimit());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 10; round++) {
+                int parallel = limiter.getLimit();
+                CountDownLatch started = new CountDownLatch(parallel);
+                Future<?>[] calls = new Future<?>[parallel];
+                for (int i = 0; i < parallel; i++) {
+                    calls[i] = pool.submit(() -> limiter.run("rpc", () -> {
+                        started.countDown();
+                        started.await();
+                        return null;
+                    }));
+                }
+                for (Future<?> call : calls) {
+                    call.get();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(4, limiter.getLimit());
+
+        assertEquals(0, limiter.getDroppedCount());
+        for (int i = 0; i < 3; i++) {
+            assertThrows(NodeOverloadedException.class, () -> limiter.run("rpc", () -> {
+                throw new NodeOverloadedException("429");
+            }));
+        }
+        // each shed call started after the previous decrease
+        assertEquals(1, limiter.getLimit());
+        assertEquals(3, limiter.getDroppedCount());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void excessCallsWaitBoundedAndAreNotSent() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, Duration.ofMillis(100));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                limiter.run("cli", () -> {
+                    holding.countDown();
+                    release.await();
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        holder.start();
+        holding.await();
+
+        AtomicInteger sent = new AtomicInteger();
+        NodeOverloadedException e = assertThrows(NodeOverloadedException.class,
+                () -> limiter.run("cli", sent::incrementAndGet));
+        assertTrue(e.getMessage().contains("limit 1"), e.getMessage());
+        assertEquals(0, sent.get());
+        assertEquals(1, limiter.getRejectedCount());
+        // waiting is not a signal from the node
+        assertEquals(0, limiter.getDroppedCount());
+
+        release.countDown();
+        holder.join();
+        assertEquals(1, limiter.run("cli", sent::incrementAndGet));
+    }
+
+    @Test
+    public void rateLimitedRpcCallsAreShed() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            boolean shed = requests.incrementAndGet() == 1;
+            byte[] body = (shed ? "Too Many Requests" : "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"750\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(shed ? 429 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 8, Duration.ofSeconds(1));
+            SuiRpcClient rpc = new SuiRpcClient("http://127.0.0.1:" + server.getAddress().getPort(),
+                    HttpClient.newHttpClient(), new SuiMetrics(), limiter);
+
+            assertThrows(NodeOverloadedException.class, () -> rpc.call("suix_getReferenceGasPrice"));
+            assertEquals(3, limiter.getLimit());
+            assertEquals("750", rpc.call("suix_getReferenceGasPrice").asText());
+            assertEquals(1, rpc.getLimiter().getDroppedCount());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.metrics.CallMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * An {@link InMemoryBackend} whose executions can be made to fail, to lose their response or
+ * to take time, and whose object reads can be made to fail, for tests of how callers handle a node that misbehaves. It records how many
+ * executions used each object at once, and how often functions were looked up. Faults apply
+ * to single and batched executions alike.
+ */
+class FaultyBackend extends InMemoryBackend {
+    /** How a fullnode rejects a transaction whose owned input object has a newer version. */
+    static final String STALE_OBJECT = "Transaction is rejected as invalid by more than 1/3 of validators"
+            + " by stake (non-retriable). Non-retriable errors: [UserInputError { error:"
+            + " ObjectVersionUnavailableForConsumption { current_version: SequenceNumber(4) } }]";
+    private static final String ALL = "";
+
+    private final AtomicInteger rejections = new AtomicInteger();
+    private volatile Supplier<RuntimeException> rejection;
+    private final AtomicInteger failedReads = new AtomicInteger();
+    private final AtomicBoolean loseResponse = new AtomicBoolean();
+    private volatile Duration latency = Duration.ZERO;
+    /** Executions running now and at most at once, per object argument and under {@link #ALL}. */
+    private final Map<String, Integer> using = new HashMap<>();
+    private final Map<String, Integer> peaks = new HashMap<>();
+    private final AtomicInteger functionLookups = new AtomicInteger();
+
+    FaultyBackend(String sender) {
+        super(sender);
+    }
+
+    /** Rejects the next {@code count} executions with {@code message}, before they run. */
+    void rejectNext(int count, String message) {
+        rejectNext(count, () -> new RuntimeException(message));
+    }
+
+    /** Rejects the next {@code count} executions with the error {@code rejection} makes, before they run. */
+    void rejectNext(int count, Supplier<RuntimeException> rejection) {
+        this.rejection = rejection;
+        rejections.set(count);
+    }
+
+    /** Fails the next {@code count} object reads as if the node could not be reached. */
+    void failNextReads(int count) {
+        failedReads.set(count);
+    }
+
+    /** Runs the next execution that is not a dry run, then fails as if the connection dropped. */
+    void loseNextResponse() {
+        loseResponse.set(true);
+    }
+
+    /** Makes every execution take {@code latency} longer, outside the backend's lock, so calls overlap. */
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /** The most executions that took {@code objectId} as an argument at the same time. */
+    int peakUse(String objectId) {
+        synchronized (using) {
+            return peaks.getOrDefault(MoveArgType.OBJECT.encode(objectId), 0);
+        }
+    }
+
+    /** The most executions that ran at the same time. */
+    int peakConcurrency() {
+        synchronized (using) {
+            return peaks.getOrDefault(ALL, 0);
+        }
+    }
+
+    /** How many times a function's signature was read. */
+    int functionLookups() {
+        return functionLookups.get();
+    }
+
+    @Override
+    public JsonNode getNormalizedMoveFunction(String packageId, String module, String function) {
+        functionLookups.incrementAndGet();
+        return super.getNormalizedMoveFunction(packageId, module, function);
+    }
+
+    @Override
+    public JsonNode getObject(String objectId) {
+        if (failedReads.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new RuntimeException("Connection refused");
+        }
+        return super.getObject(objectId);
+    }
+
+    @Override
+    public JsonNode execute(MoveCall call, long gasBudget, boolean dryRun, CallMetrics m) {
+        if (Thread.holdsLock(this)) {
+            // a command of a batch, which is faulty as a whole
+            return super.execute(call, gasBudget, dryRun, m);
+        }
+        return faulty(call.arguments(), dryRun, () -> super.execute(call, gasBudget, dryRun, m));
+    }
+
+    @Override
+    public JsonNode execute(List<MoveCall> calls, long gasBudget, CallMetrics m) {
+        return faulty(calls.stream().flatMap(call -> call.arguments().stream()).toList(), false,
+                () -> super.execute(calls, gasBudget, m));
+    }
+
+    private JsonNode faulty(List<String> arguments, boolean dryRun, Supplier<JsonNode> execution) {
+        if (rejections.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw rejection.get();
+        }
+        List<String> objects = new ArrayList<>(arguments.stream().filter(a -> a.startsWith("@")).distinct().toList());
+        objects.add(ALL);
+        synchronized (using) {
+            for (String object : objects) {
+                peaks.merge(object, using.merge(object, 1, Integer::sum), Math::max);
+            }
+        }
+        try {
+            Thread.sleep(latency.toMillis());
+            JsonNode response = execution.get();
+            if (!dryRun && loseResponse.getAndSet(false)) {
+                throw new RuntimeException("Connection reset");
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            synchronized (using) {
+                objects.forEach(object -> using.merge(object, -1, Integer::sum));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GasEstimatorTest {
+    private static final String DRY_RUN = """
+            {"effects": {"status": {"status": "success"},
+                         "gasUsed": {"computationCost": "1000000", "storageCost": "2000000", "storageRebate": "500000"}}}
+            """;
+
+    private final AtomicInteger dryRuns = new AtomicInteger();
+
+    private final SuiRpcClient rpc = new SuiRpcClient("http://localhost:9000") {
+        @Override
+        public JsonNode call(String method, Object... params) {
+            assertEquals("suix_getReferenceGasPrice", method);
+            return TextNode.valueOf("750");
+        }
+    };
+
+    private JsonNode dryRun() throws IOException {
+        dryRuns.incrementAndGet();
+        return new ObjectMapper().readTree(DRY_RUN);
+    }
+
+    @Test
+    public void budgetIsDryRunOncePerSizeClassWithMargin() throws Exception {
+        GasEstimator estimator = new GasEstimator(rpc, 1.5);
+
+        assertEquals(4_500_000L, estimator.budget("0x1::Bar::create", 20, this::dryRun));
+        assertEquals(4_500_000L, estimator.budget("0x1::Bar::create", 25, this::dryRun));
+        assertEquals(1, dryRuns.get());
+
+        estimator.budget("0x1::Bar::create", 4000, this::dryRun);
+        assertEquals(2, dryRuns.get());
+    }
+
+    @Test
+    public void invalidatedEstimateIsDryRunAgain() throws Exception {
+        GasEstimator estimator = new GasEstimator(rpc, 1.2);
+        estimator.budget("0x1::Bar::update_by_id", 10, this::dryRun);
+        estimator.invalidate("0x1::Bar::update_by_id", 10);
+        estimator.budget("0x1::Bar::update_by_id", 10, this::dryRun);
+        assertEquals(2, dryRuns.get());
+    }
+
+    @Test
+    public void failedDryRunIsReported() {
+        GasEstimator estimator = new GasEstimator(rpc, 1.2);
+        assertThrows(RuntimeException.class, () -> estimator.budget("0x1::Bar::delete", 10,
+                () -> new ObjectMapper().readTree("{\"effects\": {\"status\": {\"status\": \"failure\", \"error\": \"MoveAbort\"}}}")));
+    }
+}
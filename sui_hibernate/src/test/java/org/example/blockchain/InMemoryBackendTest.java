@@ -0,0 +1,209 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryBackendTest {
+    @TempDir
+    Path moveDir;
+
+    private SuiContractManager mgr;
+    private String registryId;
+
+    @BeforeEach
+    public void publishGeneratedModule() throws Exception {
+        BarModule.Published bar = BarModule.publish(new InMemoryBackend(SENDER), moveDir);
+        mgr = bar.mgr();
+        registryId = bar.registryId();
+        assertEquals(1, mgr.getBackend().build(moveDir).length);
+    }
+
+    @Test
+    public void generatedFunctionsRunWithMoveSemantics() throws Exception {
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        assertEquals(List.of(MoveArgType.STRING, MoveArgType.U64, MoveArgType.OBJECT), create.getParameterTypes());
+        String id = create.executeAndTransfer(SENDER, "Alice", 25L, registryId).createdObjectId("::Bar::Bar");
+
+        JsonNode created = mgr.getObject(id);
+        assertEquals(mgr.getPackageId() + "::Bar::Bar", created.path("type").asText());
+        assertEquals(SENDER, created.path("owner").path("AddressOwner").asText());
+        assertEquals("Alice", created.path("content").path("fields").path("name").asText());
+        assertEquals("25", created.path("content").path("fields").path("count").asText());
+        assertEquals(id, mgr.getObject(registryId).path("content").path("fields").path("items").get(0).asText());
+
+        mgr.prepare("Bar", "update_by_id").execute(id, "Bob", 26L);
+        JsonNode updated = mgr.getObject(id);
+        assertEquals("Bob", updated.path("content").path("fields").path("name").asText());
+        assertTrue(updated.path("version").asLong() > created.path("version").asLong());
+
+        mgr.prepare("Bar", "delete").execute(id);
+        assertTrue(mgr.getObject(id).path("content").path("fields").path("is_deleted").asBoolean());
+        RuntimeException abort = assertThrows(RuntimeException.class,
+                () -> mgr.prepare("Bar", "update_by_id").execute(id, "Carol", 27L));
+        assertThat(abort.getMessage(), containsString("MoveAbort"));
+    }
+
+    @Test
+    public void generatedFunctionsEmitTheirEvents() throws Exception {
+        TransactionResult created = mgr.prepare("Bar", "create").executeAndTransfer(SENDER, "Alice", 25L, registryId);
+        String id = created.createdObjectId("::Bar::Bar");
+        JsonNode event = created.response().path("events").get(0);
+        assertEquals(mgr.getPackageId() + "::Bar::BarCreated", event.path("type").asText());
+        assertEquals(created.digest(), event.path("id").path("txDigest").asText());
+        assertEquals(id, event.path("parsedJson").path("object_id").asText());
+        assertEquals("25", event.path("parsedJson").path("count").asText());
+
+        JsonNode updated = mgr.prepare("Bar", "update_by_id").execute(id, "Bob", 26L).response().path("events").get(0);
+        assertEquals(mgr.getPackageId() + "::Bar::BarUpdated", updated.path("type").asText());
+        assertEquals("Bob", updated.path("parsedJson").path("name").asText());
+
+        JsonNode deleted = mgr.prepare("Bar", "delete").execute(id).response().path("events").get(0);
+        assertEquals(mgr.getPackageId() + "::Bar::BarDeleted", deleted.path("type").asText());
+        assertEquals(1, deleted.path("parsedJson").size());
+    }
+
+    @Test
+    public void registryStreamsPageByPage() throws Exception {
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(create.executeAndTransfer(SENDER, "n" + i, (long) i, registryId).createdObjectId("::Bar::Bar"));
+        }
+        mgr.prepare("Bar", "delete").execute(created.get(3));
+
+        assertEquals(7, RegistryStream.size(mgr, "Bar", registryId));
+        assertTrue(Bcs.readBool(mgr.prepare("Bar", "find_by_id").inspect(registryId, created.get(6)).get(0)));
+        List<String> page = Bcs.readIdVector(mgr.prepare("Bar", "get_page").inspect(registryId, 5L, 10L).get(0));
+        assertEquals(created.subList(5, 7), page);
+
+        try (Stream<String> ids = RegistryStream.ids(mgr, "Bar", registryId, 3)) {
+            assertEquals(created, ids.toList());
+        }
+        try (Stream<String> ids = RegistryStream.ids(mgr, "Bar", registryId, 3)) {
+            assertEquals(created.subList(0, 2), ids.limit(2).toList());
+        }
+        try (Stream<JsonNode> objects = RegistryStream.objects(mgr, "Bar", registryId, 2)) {
+            List<JsonNode> all = objects.toList();
+            assertEquals(7, all.size());
+            assertEquals("n6", all.get(6).path("content").path("fields").path("name").asText());
+            assertEquals(1, all.stream().filter(o -> o.path("content").path("fields").path("is_deleted").asBoolean()).count());
+        }
+    }
+
+    @Test
+    public void viewsAreReadInOneDevInspect() throws Exception {
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        ObjectId alice = ObjectId.parse(create.executeAndTransfer(SENDER, "Alice", 25L, registryId)
+                .createdObjectId("::Bar::Bar"));
+        ObjectId bob = ObjectId.parse(create.executeAndTransfer(SENDER, "Bob", 40L, registryId)
+                .createdObjectId("::Bar::Bar"));
+        mgr.prepare("Bar", "delete").execute(bob);
+
+        ViewBatch batch = mgr.views();
+        ViewBatch.View<String> name = batch.add(mgr.prepare("Bar", "get_name"), Bcs::readString, alice);
+        ViewBatch.View<Long> count = batch.add(mgr.prepare("Bar", "get_count"), Bcs::readU64, bob);
+        ViewBatch.View<Boolean> deleted = batch.add(mgr.prepare("Bar", "is_deleted"), Bcs::readBool, bob);
+        ViewBatch.View<Boolean> registered = batch.add(mgr.prepare("Bar", "find_by_id"), Bcs::readBool,
+                registryId, alice);
+        assertThrows(IllegalStateException.class, name::get);
+        batch.execute();
+
+        assertEquals("Alice", name.get());
+        assertEquals(40L, count.get());
+        assertTrue(deleted.get());
+        assertTrue(registered.get());
+        assertEquals(1, mgr.getMetrics().call("views", "batch").getSuccessCount());
+        assertThrows(IllegalStateException.class, batch::execute);
+    }
+
+    @Test
+    public void dynamicFieldsStayOutOfTheObject(@TempDir Path docDir) throws Exception {
+        BarModule.write(docDir, "Doc", List.of(
+                Map.of("name", "title", "javaType", "java.lang.String", "moveType", "String"),
+                Map.of("name", "body", "javaType", "java.lang.String", "moveType", "String", "dynamic", "true")));
+        String packageId = mgr.publish(docDir);
+        String registry = mgr.createRegistry("Doc", docDir, packageId);
+        String body = "x".repeat(10_000);
+        TransactionResult created = mgr.prepare("Doc", "create").executeAndTransfer(SENDER, "Notes", body, registry);
+        String id = created.createdObjectId("::Doc::Doc");
+
+        JsonNode fields = mgr.getObject(id).path("content").path("fields");
+        assertEquals("Notes", fields.path("title").asText());
+        assertTrue(fields.path("body").isMissingNode());
+        assertEquals(List.of(MoveArgType.OBJECT, MoveArgType.STRING),
+                mgr.prepare("Doc", "update_by_id").getParameterTypes());
+        assertEquals(body, Bcs.readString(mgr.prepare("Doc", "get_body").inspect(id).get(0)));
+
+        mgr.prepare("Doc", "set_body").execute(id, "short");
+        mgr.prepare("Doc", "update_by_id").execute(id, "Renamed");
+        assertEquals("short", Bcs.readString(mgr.prepare("Doc", "get_body").inspect(id).get(0)));
+        assertEquals("Renamed", Bcs.readString(mgr.prepare("Doc", "get_title").inspect(id).get(0)));
+
+        mgr.prepare("Doc", "delete").execute(id);
+        MoveCallException abort = assertThrows(MoveCallException.class,
+                () -> mgr.prepare("Doc", "set_body").execute(id, "again"));
+        assertEquals("Doc::set_body", abort.getAbortLocation());
+    }
+
+    @Test
+    public void legacyMoveCallsReachTheSameModule() throws Exception {
+        String digest = mgr.moveCall("Bar", "create", List.of("Alice", 25L, registryId), null, null, true, SENDER);
+        String id = new TransactionResult(digest, mgr.getBackend().getTransaction(digest)).createdObjectId("::Bar::Bar");
+        assertEquals("Alice", mgr.getObject(id).path("content").path("fields").path("name").asText());
+    }
+
+    @Test
+    public void createdObjectsMustBeTransferred() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> mgr.prepare("Bar", "create").execute("Alice", 25L, registryId));
+        assertThat(e.getMessage(), containsString("without drop"));
+    }
+
+    @Test
+    public void budgetsAreEnforcedAndEstimated() throws Exception {
+        SuiContractManager poor = new SuiContractManager(null, SENDER, null, 1_000L, 1_000L, mgr.getBackend());
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> poor.moveCall("Bar", "create_registry", List.of(), null, mgr.getPackageId(), false, null));
+        assertThat(e.getMessage(), containsString("InsufficientGas"));
+
+        int before = ((InMemoryBackend) mgr.getBackend()).objectCount();
+        mgr.enableAutoGasBudget(1.2);
+        mgr.prepare("Bar", "create").executeAndTransfer(SENDER, "Alice", 25L, registryId);
+        // the dry run left no object behind
+        assertEquals(before + 1, ((InMemoryBackend) mgr.getBackend()).objectCount());
+    }
+
+    @Test
+    public void callsRunOncePerIdempotencyKey() throws Exception {
+        int before = ((InMemoryBackend) mgr.getBackend()).objectCount();
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        TransactionResult first = create.executeAndTransferOnce("signup-alice", SENDER, "Alice", 25L, registryId);
+        TransactionResult again = create.executeAndTransferOnce("signup-alice", SENDER, "Alice", 25L, registryId);
+        assertEquals(first.digest(), again.digest());
+        assertEquals(before + 1, ((InMemoryBackend) mgr.getBackend()).objectCount());
+
+        // a failed call is not remembered, so it can be repeated
+        assertThrows(RuntimeException.class, () -> create.executeOnce("signup-bob", "Bob", 30L, registryId));
+        TransactionResult bob = create.executeAndTransferOnce("signup-bob", SENDER, "Bob", 30L, registryId);
+        assertNotEquals(first.digest(), bob.digest());
+        assertEquals(before + 2, ((InMemoryBackend) mgr.getBackend()).objectCount());
+    }
+
+    @Test
+    public void missingObjectsAreReported() {
+        assertThrows(RuntimeException.class, () -> mgr.getObject("0x" + "00".repeat(32)));
+    }
+}
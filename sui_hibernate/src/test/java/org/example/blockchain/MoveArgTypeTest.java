@@ -0,0 +1,47 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveArgTypeTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void normalizedParametersMapToArgumentKinds() throws Exception {
+        JsonNode params = mapper.readTree("""
+                [
+                  "U64",
+                  "Bool",
+                  {"Struct": {"address": "0x1", "module": "string", "name": "String", "typeArguments": []}},
+                  {"MutableReference": {"Struct": {"address": "0xabc", "module": "Bar", "name": "Registry", "typeArguments": []}}},
+                  {"MutableReference": {"Struct": {"address": "0x2", "module": "tx_context", "name": "TxContext", "typeArguments": []}}}
+                ]
+                """);
+
+        assertEquals(MoveArgType.U64, MoveArgType.fromNormalized(params.get(0)));
+        assertEquals(MoveArgType.BOOL, MoveArgType.fromNormalized(params.get(1)));
+        assertEquals(MoveArgType.STRING, MoveArgType.fromNormalized(params.get(2)));
+        assertEquals(MoveArgType.OBJECT, MoveArgType.fromNormalized(params.get(3)));
+        assertNull(MoveArgType.fromNormalized(params.get(4)));
+    }
+
+    @Test
+    public void valuesAreEncodedForPtb() {
+        assertEquals("25", MoveArgType.U64.encode(25));
+        assertEquals("'Alice'", MoveArgType.STRING.encode("Alice"));
+        assertEquals("'0xcafe'", MoveArgType.STRING.encode("0xcafe"));
+        assertEquals("@0xcafe", MoveArgType.OBJECT.encode("0xcafe"));
+        assertEquals("true", MoveArgType.BOOL.encode(true));
+    }
+
+    @Test
+    public void valuesOfTheWrongTypeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MoveArgType.U8.encode(256));
+        assertThrows(IllegalArgumentException.class, () -> MoveArgType.U64.encode(-1L));
+        assertThrows(IllegalArgumentException.class, () -> MoveArgType.U64.encode("25"));
+        assertThrows(IllegalArgumentException.class, () -> MoveArgType.OBJECT.encode("Alice"));
+    }
+}
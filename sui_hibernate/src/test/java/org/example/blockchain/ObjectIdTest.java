@@ -0,0 +1,99 @@
+package org.example.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjectIdTest {
+
+    @Test
+    public void parsesAndFormatsFullAndShortForms() {
+        String full = "0x" + "0123456789abcdef".repeat(4);
+        ObjectId id = ObjectId.parse(full);
+        assertEquals(0x0123456789abcdefL, id.w0());
+        assertEquals(full, id.toString());
+        assertEquals(id, ObjectId.parse(full.toUpperCase().replace("0X", "0x")));
+        assertEquals("@" + full, MoveArgType.OBJECT.encode(id));
+
+        ObjectId clock = ObjectId.parse("0x6");
+        assertEquals(new ObjectId(0, 0, 0, 6), clock);
+        assertEquals("0x" + "0".repeat(63) + "6", clock.toString());
+        assertEquals(clock, ObjectId.of(clock.toBytes(), 0));
+        assertEquals(id, ObjectId.of(id.toBytes(), 0));
+        assertTrue(clock.compareTo(id) < 0);
+        assertTrue(ObjectId.parse("0x" + "f".repeat(64)).compareTo(id) > 0);
+
+        assertNull(ObjectId.tryParse("0x"));
+        assertNull(ObjectId.tryParse("0xg1"));
+        assertNull(ObjectId.tryParse("12ab"));
+        assertNull(ObjectId.tryParse("0x" + "1".repeat(65)));
+        assertThrows(IllegalArgumentException.class, () -> ObjectId.parse("alice"));
+    }
+
+    @Test
+    public void mapBehavesLikeAHashMap() {
+        Random random = new Random(42);
+        ObjectIdMap<Integer> map = new ObjectIdMap<>();
+        Map<ObjectId, Integer> expected = new HashMap<>();
+        ObjectId[] ids = new ObjectId[500];
+        for (int i = 0; i < ids.length; i++) {
+            // a few short system IDs, the rest random like real ones
+            ids[i] = i < 10 ? new ObjectId(0, 0, 0, i) : new ObjectId(random.nextLong(), random.nextLong(),
+                    random.nextLong(), random.nextLong());
+        }
+        for (int step = 0; step < 20_000; step++) {
+            ObjectId id = ids[random.nextInt(ids.length)];
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), map.remove(id));
+            } else {
+                assertEquals(expected.put(id, step), map.put(id, step));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (ObjectId id : ids) {
+            assertEquals(expected.get(id), map.get(id));
+            assertEquals(expected.containsKey(id), map.containsKey(id));
+        }
+        Map<ObjectId, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(ids[0]));
+        assertThrows(IllegalArgumentException.class, () -> map.put(ids[0], null));
+    }
+
+    @Test
+    public void longMapHoldsAnyLongValue() {
+        Random random = new Random(42);
+        ObjectIdLongMap map = new ObjectIdLongMap();
+        Map<ObjectId, Long> expected = new HashMap<>();
+        ObjectId[] ids = new ObjectId[500];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new ObjectId(random.nextLong(), random.nextLong(), random.nextLong(), i);
+        }
+        for (int step = 0; step < 20_000; step++) {
+            ObjectId id = ids[random.nextInt(ids.length)];
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, map.remove(id));
+            } else {
+                // zero and negative values are values like any other
+                long value = random.nextInt(5) - 2L;
+                expected.put(id, value);
+                map.put(id, value);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (ObjectId id : ids) {
+            assertEquals(expected.containsKey(id), map.containsKey(id));
+            assertEquals(expected.getOrDefault(id, Long.MIN_VALUE), map.getOrDefault(id, Long.MIN_VALUE));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.blockchain;
+
+import org.example.blockchain.OutboxJournal.Op;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboxTest {
+    private static final String COIN = "0x" + "c0".repeat(32);
+
+    @TempDir
+    Path moveDir;
+    @TempDir
+    Path journalDir;
+
+    private final FaultyBackend backend = new FaultyBackend(SENDER);
+    private SuiContractManager mgr;
+    private String registryId;
+    private PreparedMoveCall create;
+    private PreparedMoveCall update;
+    private Path journal;
+
+    @BeforeEach
+    public void publishGeneratedModule() throws Exception {
+        BarModule.Published bar = BarModule.publish(backend, moveDir);
+        mgr = bar.mgr();
+        registryId = bar.registryId();
+        create = mgr.prepare("Bar", "create");
+        update = mgr.prepare("Bar", "update_by_id");
+        journal = journalDir.resolve("outbox.journal");
+    }
+
+    private List<String> items() throws Exception {
+        List<String> ids = new ArrayList<>();
+        mgr.getObject(registryId).path("content").path("fields").path("items").forEach(id -> ids.add(id.asText()));
+        return ids;
+    }
+
+    private List<String> names() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (String id : items()) {
+            names.add(mgr.getObject(id).path("content").path("fields").path("name").asText());
+        }
+        return names;
+    }
+
+    private String lastCoinTransaction() throws Exception {
+        return mgr.getObject(COIN).path("previousTransaction").asText();
+    }
+
+    @Test
+    public void queuedCallsSurviveARestartAndRunAsOneTransaction() throws Exception {
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            for (int i = 0; i < 3; i++) {
+                outbox.enqueueAndTransfer(create, SENDER, "Item" + i, (long) i, registryId);
+            }
+        }
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            assertEquals(3, outbox.pending());
+            outbox.start();
+            assertTrue(outbox.flush(Duration.ofSeconds(10)));
+        }
+        List<String> ids = items();
+        assertEquals(3, ids.size());
+        Set<String> transactions = new HashSet<>();
+        for (String id : ids) {
+            transactions.add(mgr.getObject(id).path("previousTransaction").asText());
+        }
+        assertEquals(Set.of(lastCoinTransaction()), transactions);
+    }
+
+    @Test
+    public void anAbortingBatchRunsAgainCallByCall() throws Exception {
+        String gone = create.executeAndTransfer(SENDER, "Gone", 0L, registryId).createdObjectId("::Bar::Bar");
+        String kept = create.executeAndTransfer(SENDER, "Kept", 0L, registryId).createdObjectId("::Bar::Bar");
+        mgr.prepare("Bar", "delete").execute(gone);
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            CompletableFuture<TransactionResult> deleted = outbox.enqueue(update, gone, "Gone", 1L);
+            CompletableFuture<TransactionResult> renamed = outbox.enqueue(update, kept, "Renamed", 1L);
+            outbox.start();
+            ExecutionException failure = assertThrows(ExecutionException.class, deleted::get);
+            assertEquals(MoveCallException.Kind.MOVE_ABORT, ((MoveCallException) failure.getCause()).getKind());
+            renamed.get();
+        }
+        assertEquals("Renamed", mgr.getObject(kept).path("content").path("fields").path("name").asText());
+    }
+
+    @Test
+    public void anExecutedBatchWhoseResponseWasLostIsNotRunAgain() throws Exception {
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            outbox.start();
+            backend.loseNextResponse();
+            // the gas coin's last transaction tells that the batch ran
+            TransactionResult once = outbox.enqueueAndTransfer(create, SENDER, "Once", 9L, registryId).get();
+            assertEquals(once.digest(), lastCoinTransaction());
+            assertTrue(outbox.flush(Duration.ofSeconds(10)));
+        }
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            assertEquals(0, outbox.pending());
+        }
+        assertEquals(1, items().size());
+    }
+
+    @Test
+    public void aBatchShedByTheNodeStaysQueued() throws Exception {
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            backend.rejectNext(1, () -> new NodeOverloadedException(
+                    "RPC call sui_executeTransactionBlock was shed with status 429"));
+            outbox.start();
+            TransactionResult later = outbox.enqueueAndTransfer(create, SENDER, "Later", 1L, registryId).get();
+            assertEquals(later.digest(), lastCoinTransaction());
+        }
+        assertEquals(List.of("Later"), names());
+    }
+
+    @Test
+    public void aBatchOfUnknownOutcomeIsSettledBeforeTheNextOne() throws Exception {
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            backend.loseNextResponse();
+            // nor can the node be asked at first whether the batch ran
+            backend.failNextReads(1);
+            CompletableFuture<TransactionResult> once = outbox.enqueueAndTransfer(create, SENDER, "Once", 1L, registryId);
+            outbox.start();
+            once.get();
+            outbox.enqueueAndTransfer(create, SENDER, "Next", 2L, registryId).get();
+            assertTrue(outbox.flush(Duration.ofSeconds(10)));
+        }
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            assertEquals(0, outbox.pending());
+        }
+        assertEquals(List.of("Once", "Next"), names());
+    }
+
+    @Test
+    public void aTornCallAtTheEndOfTheJournalIsDropped() throws Exception {
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            outbox.enqueueAndTransfer(create, SENDER, "Whole", 1L, registryId);
+            outbox.enqueueAndTransfer(create, SENDER, "Torn", 2L, registryId);
+        }
+        // the process died while the last call was written: its payload never reached the disk
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+            channel.read(bytes, 0);
+            int last = bytes.limit() - 1;
+            while (bytes.get(last) == 0) {
+                last--;
+            }
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~bytes.get(last)}), last);
+        }
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            assertEquals(1, outbox.pending());
+            // new calls are appended where the torn one was
+            outbox.enqueueAndTransfer(create, SENDER, "After", 3L, registryId);
+        }
+        try (Outbox outbox = new Outbox(mgr, journal, COIN)) {
+            assertEquals(2, outbox.pending());
+            outbox.start();
+            assertTrue(outbox.flush(Duration.ofSeconds(10)));
+        }
+        assertEquals(List.of("Whole", "After"), names());
+    }
+
+    @Test
+    public void recordsFromBeforeAResetAreNotReplayed() throws Exception {
+        MoveCall call = new MoveCall("0x2", "Bar", "create", List.of("\"a\""), null);
+        long first;
+        long second;
+        byte stale;
+        try (OutboxJournal log = new OutboxJournal(journal)) {
+            first = log.append(new Op(0, call));
+            second = log.append(new Op(1, call));
+            log.sync(second);
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+                ByteBuffer type = ByteBuffer.allocate(1);
+                channel.read(type, first);
+                stale = type.get(0);
+            }
+            log.reset();
+            // a record of the same size, so the old second record starts right after it
+            log.sync(log.append(new Op(7, call)));
+        }
+        // the end marker after the new record did not reach the disk, so the old record follows it
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{stale}), first);
+        }
+        try (OutboxJournal log = new OutboxJournal(journal)) {
+            assertEquals(List.of(new Op(7, call)), log.recovered());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.metrics.CallMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelinedSubmitterTest {
+    private static final String COIN = "0x" + "c0".repeat(32);
+
+    private final StubNode node = new StubNode();
+    private final SuiContractManager mgr = BarModule.manager(new InMemoryBackend(SENDER));
+    private final PreparedMoveCall bump = new PreparedMoveCall(mgr, "0x2", "counter", "bump", List.of(MoveArgType.U64));
+    private final PreparedMoveCall abort = new PreparedMoveCall(mgr, "0x2", "counter", "abort", List.of(MoveArgType.U64));
+    private PipelinedSubmitter submitter;
+
+    @AfterEach
+    public void tearDown() {
+        if (submitter != null) {
+            submitter.close();
+        }
+    }
+
+    @Test
+    public void acceptsOnTheCertificateAndKeepsUpToWindowTransactionsPerCoin() throws Exception {
+        submitter = new PipelinedSubmitter(mgr, node, List.of(COIN), 2);
+        PendingTransaction first = submitter.submit(bump, 1L);
+        PendingTransaction second = submitter.submit(bump, 2L);
+
+        // both are certified while the fullnode has executed neither: the second was built on
+        // the coin version from the first one's certificate, not on the node's stale one
+        String firstDigest = first.accepted().get(5, TimeUnit.SECONDS);
+        String secondDigest = second.accepted().get(5, TimeUnit.SECONDS);
+        assertNotEquals(firstDigest, secondDigest);
+        assertFalse(first.effects().isDone());
+        assertEquals(2, submitter.outstanding());
+
+        // the window is full, so a third submission waits for one to be executed
+        CompletableFuture<PendingTransaction> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return submitter.submit(bump, 3L);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(300);
+        assertFalse(third.isDone());
+
+        node.executeLocally(firstDigest);
+        assertEquals(firstDigest, first.effects().get(5, TimeUnit.SECONDS).digest());
+        String thirdDigest = third.get(5, TimeUnit.SECONDS).accepted().get(5, TimeUnit.SECONDS);
+
+        node.executeLocally(secondDigest);
+        node.executeLocally(thirdDigest);
+        second.effects().get(5, TimeUnit.SECONDS);
+        third.get().effects().get(5, TimeUnit.SECONDS);
+        assertEquals(0, submitter.outstanding());
+        assertEquals(3, node.certified.size());
+    }
+
+    @Test
+    public void failuresReachBothStagesAndFreeTheWindow() throws Exception {
+        submitter = new PipelinedSubmitter(mgr, node, List.of(COIN), 1);
+
+        // an abort still uses the gas coin, and the next transaction is built on its new version
+        PendingTransaction aborted = submitter.submit(abort, 1L);
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> aborted.accepted().get(5, TimeUnit.SECONDS));
+        assertEquals(MoveCallException.Kind.MOVE_ABORT, ((MoveCallException) failure.getCause()).getKind());
+        assertTrue(aborted.effects().isCompletedExceptionally());
+
+        // an error other than "not found" while waiting for execution is not waited out
+        node.broken = true;
+        PendingTransaction unreadable = submitter.submit(bump, 2L);
+        unreadable.accepted().get(5, TimeUnit.SECONDS);
+        failure = assertThrows(ExecutionException.class, () -> unreadable.effects().get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause().getMessage().contains("Invalid params"));
+
+        node.broken = false;
+        PendingTransaction next = submitter.submit(bump, 3L);
+        String digest = next.accepted().get(5, TimeUnit.SECONDS);
+        node.executeLocally(digest);
+        next.effects().get(5, TimeUnit.SECONDS);
+        assertEquals(0, submitter.outstanding());
+    }
+
+    /**
+     * A fullnode that certifies at once but executes locally only when told to. Transactions
+     * are built, like the CLI does, with the coin version the node has executed; certifying one
+     * whose gas coin is not at its latest version fails, as an equivocation would.
+     */
+    private static class StubNode implements PipelinedSubmitter.Node {
+        private static final ObjectMapper JSON = new ObjectMapper();
+
+        final Set<String> certified = ConcurrentHashMap.newKeySet();
+        final Set<String> executed = ConcurrentHashMap.newKeySet();
+        volatile boolean broken;
+        private long localVersion = 1;
+        private long version = 1;
+        private int transactions;
+
+        @Override
+        public synchronized String build(MoveCall call, String gasCoin, long gasBudget, CallMetrics m) {
+            byte[] kind = call.target().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer data = ByteBuffer.allocate(kind.length + 1 + 73 + 32 + 8 + 8 + 1).order(ByteOrder.LITTLE_ENDIAN);
+            data.put(kind).put((byte) 1).put(ObjectId.parse(gasCoin).toBytes()).putLong(localVersion)
+                    .put((byte) 32).put(new byte[32])
+                    .put(ObjectId.parse(SENDER).toBytes()).putLong(1_000L).putLong(gasBudget).put((byte) 0);
+            return Base64.getEncoder().encodeToString(data.array());
+        }
+
+        @Override
+        public synchronized JsonNode certify(String txBytes, CallMetrics m) {
+            ByteBuffer data = ByteBuffer.wrap(Base64.getDecoder().decode(txBytes)).order(ByteOrder.LITTLE_ENDIAN);
+            int at = data.capacity() - 1 - 48 - 73;
+            long gasVersion = data.getLong(at + 32);
+            if (gasVersion != version) {
+                throw new RuntimeException("Object " + COIN + " is not available for consumption, its current version: "
+                        + version);
+            }
+            version++;
+            String digest = "tx" + transactions++;
+            certified.add(digest);
+            boolean aborts = new String(data.array(), StandardCharsets.UTF_8).contains("::abort");
+            ObjectNode response = JSON.createObjectNode();
+            response.put("digest", digest);
+            ObjectNode effects = response.putObject("effects");
+            ObjectNode status = effects.putObject("status");
+            status.put("status", aborts ? "failure" : "success");
+            if (aborts) {
+                status.put("error", "MoveAbort(MoveLocation { module: counter }, 1) in command 0");
+            }
+            ObjectNode reference = effects.putObject("gasObject").putObject("reference");
+            reference.put("objectId", COIN);
+            reference.put("version", version);
+            byte[] coinDigest = new byte[32];
+            coinDigest[31] = (byte) version;
+            reference.put("digest", Bcs.encodeBase58(coinDigest));
+            effects.putObject("gasUsed").put("computationCost", "1000");
+            return response;
+        }
+
+        @Override
+        public JsonNode transaction(String digest) {
+            if (broken) {
+                throw new RuntimeException("RPC call sui_getTransactionBlock failed: {\"code\":-32602,\"message\":\"Invalid params\"}");
+            }
+            if (!executed.contains(digest)) {
+                throw new RuntimeException("RPC call sui_getTransactionBlock failed: Could not find the referenced transaction "
+                        + digest);
+            }
+            ObjectNode response = JSON.createObjectNode();
+            response.put("digest", digest);
+            response.putObject("effects").putObject("status").put("status", "success");
+            return response;
+        }
+
+        synchronized void executeLocally(String digest) {
+            executed.add(digest);
+            localVersion++;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadBatcherTest {
+    private final List<List<String>> multiGets = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger singleGets = new AtomicInteger();
+    /** Holds a read of "slow" until released, so that other reads overlap it. */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ReadBatcher batcher(Duration window, int maxBatch) {
+        return new ReadBatcher(window, maxBatch, keys -> {
+            multiGets.add(List.copyOf(keys));
+            if (keys.contains("shed")) {
+                throw new NodeOverloadedException("RPC call sui_multiGetObjects was shed with status 429");
+            }
+            if (keys.contains("missing")) {
+                throw new RuntimeException("Could not find the referenced transaction missing");
+            }
+            ArrayNode results = JsonNodeFactory.instance.arrayNode();
+            keys.forEach(k -> results.add("value of " + k));
+            return results;
+        }, key -> {
+            singleGets.incrementAndGet();
+            if (key.equals("slow")) {
+                release.await();
+            }
+            if (key.equals("missing")) {
+                throw new RuntimeException("Could not find the referenced transaction missing");
+            }
+            return TextNode.valueOf("value of " + key);
+        });
+    }
+
+    private List<JsonNode> readConcurrently(ReadBatcher batcher, List<String> keys) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(keys.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<JsonNode>> reads = new ArrayList<>();
+            for (String key : keys) {
+                reads.add(pool.submit(() -> {
+                    start.await();
+                    return batcher.get(key);
+                }));
+            }
+            start.countDown();
+            List<JsonNode> results = new ArrayList<>();
+            for (Future<JsonNode> read : reads) {
+                results.add(read.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Starts a read of "slow" and returns once it is being fetched. */
+    private Future<JsonNode> readSlowly(ReadBatcher batcher, ExecutorService pool) throws InterruptedException {
+        Future<JsonNode> slow = pool.submit(() -> batcher.get("slow"));
+        while (singleGets.get() == 0) {
+            Thread.sleep(5);
+        }
+        return slow;
+    }
+
+    @Test
+    public void aReadWithoutContentionGoesOutAtOnce() throws Exception {
+        ReadBatcher batcher = batcher(Duration.ofSeconds(30), 50);
+        long start = System.nanoTime();
+
+        assertEquals("value of a", batcher.get("a").asText());
+        assertEquals("value of b", batcher.get("b").asText());
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+        assertEquals(0, multiGets.size());
+        assertEquals(2, singleGets.get());
+    }
+
+    @Test
+    public void readsOverlappingAFetchShareOneRequest() throws Exception {
+        ReadBatcher batcher = batcher(Duration.ofSeconds(30), 50);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<JsonNode> slow = readSlowly(batcher, pool);
+            List<String> keys = List.of("a", "b", "a", "c", "a", "b");
+            Future<List<JsonNode>> results = pool.submit(() -> readConcurrently(batcher, keys));
+            // "slow" left the in-flight keys when its fetch started
+            while (batcher.inFlight() < 3) {
+                Thread.sleep(5);
+            }
+            // the batch goes out when the fetch it waited for completes, not after the window
+            long start = System.nanoTime();
+            release.countDown();
+            for (int i = 0; i < keys.size(); i++) {
+                assertEquals("value of " + keys.get(i), results.get().get(i).asText());
+            }
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+            assertEquals("value of slow", slow.get().asText());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(List.of(List.of("a", "b", "c")), multiGets.stream().map(k -> k.stream().sorted().toList()).toList());
+        assertEquals(1, singleGets.get());
+        assertEquals(0, batcher.inFlight());
+    }
+
+    @Test
+    public void fullBatchesGoOutWithoutWaitingForTheWindow() throws Exception {
+        ReadBatcher batcher = batcher(Duration.ofSeconds(30), 2);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<JsonNode> slow = readSlowly(batcher, pool);
+
+            // both batches are sent while the slow read still runs
+            readConcurrently(batcher, List.of("a", "b", "c", "d"));
+            assertEquals(2, multiGets.size());
+            assertFalse(slow.isDone());
+            release.countDown();
+            slow.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void aShedBatchFailsEveryReadInsteadOfReadingThemOneByOne() throws Exception {
+        ReadBatcher batcher = batcher(Duration.ofSeconds(30), 50);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<JsonNode> slow = readSlowly(batcher, pool);
+            Future<JsonNode> shed = pool.submit(() -> batcher.get("shed"));
+            Future<JsonNode> other = pool.submit(() -> batcher.get("a"));
+            while (batcher.inFlight() < 2) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<JsonNode> read : List.of(shed, other)) {
+                ExecutionException e = assertThrows(ExecutionException.class, read::get);
+                assertInstanceOf(NodeOverloadedException.class, e.getCause());
+            }
+            slow.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, multiGets.size());
+        assertEquals(1, singleGets.get());
+        assertEquals(0, batcher.inFlight());
+    }
+
+    @Test
+    public void aFailedBatchFallsBackToSingleReads() throws Exception {
+        ReadBatcher batcher = batcher(Duration.ofMillis(200), 50);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<JsonNode> good = pool.submit(() -> batcher.get("a"));
+            Future<JsonNode> bad = pool.submit(() -> batcher.get("missing"));
+
+            assertEquals("value of a", good.get().asText());
+            Exception e = assertThrows(Exception.class, bad::get);
+            assertTrue(e.getCause().getMessage().contains("missing"));
+        } finally {
+            pool.shutdownNow();
+        }
+        // batched or not, each key ends up read on its own
+        assertTrue(multiGets.size() <= 1);
+        assertEquals(2, singleGets.get());
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.blockchain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    @TempDir
+    Path moveDir;
+
+    private final FaultyBackend backend = new FaultyBackend(SENDER);
+    private SuiContractManager mgr;
+    private String registryId;
+
+    @BeforeEach
+    public void publishGeneratedModule() throws Exception {
+        BarModule.Published bar = BarModule.publish(backend, moveDir);
+        mgr = bar.mgr();
+        registryId = bar.registryId();
+        mgr.setRetryPolicy(new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5)));
+    }
+
+    @Test
+    public void transientRejectionsAreRetriedAndAbortsAreClassified() throws Exception {
+        String id = mgr.prepare("Bar", "create").executeAndTransfer(SENDER, "Alice", 25L, registryId)
+                .createdObjectId("::Bar::Bar");
+
+        PreparedMoveCall update = mgr.prepare("Bar", "update_by_id");
+        backend.rejectNext(2, FaultyBackend.STALE_OBJECT);
+        update.execute(id, "Bob", 26L);
+        assertEquals("Bob", mgr.getObject(id).path("content").path("fields").path("name").asText());
+        assertEquals(2, update.metrics().getRetryCount());
+
+        backend.rejectNext(3, FaultyBackend.STALE_OBJECT);
+        MoveCallException stale = assertThrows(MoveCallException.class, () -> update.execute(id, "Carol", 27L));
+        assertEquals(MoveCallException.Kind.STALE_OBJECT, stale.getKind());
+        assertEquals(1, update.metrics().getFailureCount());
+
+        mgr.prepare("Bar", "delete").execute(id);
+        MoveCallException abort = assertThrows(MoveCallException.class, () -> update.execute(id, "Dave", 28L));
+        assertEquals(MoveCallException.Kind.MOVE_ABORT, abort.getKind());
+        assertEquals(0L, abort.getAbortCode());
+        assertEquals("Bar::update_by_id", abort.getAbortLocation());
+        assertNotNull(abort.getDigest());
+        assertEquals(4, update.metrics().getRetryCount());
+    }
+}
@@ -101,13 +101,13 @@ public class SuiContractManagerTest {
                 .compile(input);
         assertThat(compilation).succeededWithoutWarnings();
 
-        // Step 4: Verify and overwrite foo.move
+        // Step 4: Verify and overwrite Bar.move
         File[] sourceFiles = sourcesDir.toFile().listFiles();
         System.out.println("Files in sourcesDir after processing: " +
                 (sourceFiles != null ? Arrays.toString(sourceFiles) : "null"));
         assertNotNull(sourceFiles, "Sources directory is empty");
-        assertTrue(Arrays.stream(sourceFiles).anyMatch(f -> f.getName().equals("foo.move")),
-                "foo.move not found in sources directory");
+        assertTrue(Arrays.stream(sourceFiles).anyMatch(f -> f.getName().equals("Bar.move")),
+                "Bar.move not found in sources directory");
 
 
         // Step 5: Create Move.toml
@@ -171,13 +171,13 @@ public class SuiContractManagerTest {
                 .compile(input);
         assertThat(compilation).succeededWithoutWarnings();
 
-        // Step 4: Verify and overwrite foo.move
+        // Step 4: Verify and overwrite Bar.move
         File[] sourceFiles = sourcesDir.toFile().listFiles();
         System.out.println("Files in sourcesDir after processing: " +
                 (sourceFiles != null ? Arrays.toString(sourceFiles) : "null"));
         assertNotNull(sourceFiles, "Sources directory is empty");
-        assertTrue(Arrays.stream(sourceFiles).anyMatch(f -> f.getName().equals("foo.move")),
-                "foo.move not found in sources directory");
+        assertTrue(Arrays.stream(sourceFiles).anyMatch(f -> f.getName().equals("Bar.move")),
+                "Bar.move not found in sources directory");
 
 
         // Step 5: Create Move.toml
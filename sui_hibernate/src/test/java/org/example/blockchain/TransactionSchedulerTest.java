@@ -0,0 +1,83 @@
+package org.example.blockchain;
+
+import org.example.models.generated.ModelDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionSchedulerTest {
+    private static final List<String> COINS = List.of("0x" + "c1".repeat(32), "0x" + "c2".repeat(32),
+            "0x" + "c3".repeat(32), "0x" + "c4".repeat(32));
+
+    @TempDir
+    Path moveDir;
+
+    private final FaultyBackend backend = new FaultyBackend(SENDER);
+    private final ModelDescriptor bar = new ModelDescriptor("Bar", "Bar", Object.class, List.of(), null);
+    private SuiContractManager mgr;
+    private String registryId;
+
+    @BeforeEach
+    public void publishGeneratedModule() throws Exception {
+        BarModule.Published bar = BarModule.publish(backend, moveDir);
+        mgr = bar.mgr();
+        registryId = bar.registryId();
+        // slow enough that calls the scheduler lets run together overlap
+        backend.setLatency(Duration.ofMillis(20));
+    }
+
+    @Test
+    public void objectParametersAreClassifiedByAccess() throws Exception {
+        assertEquals(List.of(new PreparedMoveCall.ObjectParameter(2, "Bar", "Registry", true)),
+                mgr.prepare("Bar", "create").getObjectParameters());
+        assertEquals(List.of(new PreparedMoveCall.ObjectParameter(0, "Bar", "Bar", true)),
+                mgr.prepare("Bar", "update_by_id").getObjectParameters());
+        assertEquals(ObjectAccess.SHARED_WRITE, bar.access("Registry", true));
+        assertEquals(ObjectAccess.OWNED_READ, bar.access("Bar", false));
+    }
+
+    @Test
+    public void schedulerRunsIndependentCallsTogetherAndConflictingOnesInOrder() throws Exception {
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        PreparedMoveCall update = mgr.prepare("Bar", "update_by_id");
+        try (TransactionScheduler scheduler = new TransactionScheduler(List.of(bar), Map.of(mgr, COINS), 2)) {
+            List<CompletableFuture<TransactionResult>> creates = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                creates.add(scheduler.submitAndTransfer(create, SENDER, "Item" + i, 0L, registryId));
+            }
+            List<String> ids = new ArrayList<>();
+            for (CompletableFuture<TransactionResult> created : creates) {
+                ids.add(created.get().createdObjectId("::Bar::Bar"));
+            }
+            // the shared registry is written by at most two transactions at once
+            assertTrue(backend.peakUse(registryId) <= 2);
+
+            List<CompletableFuture<TransactionResult>> updates = new ArrayList<>();
+            for (long count = 1; count <= 5; count++) {
+                for (String id : ids.subList(0, 3)) {
+                    updates.add(scheduler.submit(update, id, "Renamed", count));
+                }
+            }
+            for (CompletableFuture<TransactionResult> updated : updates) {
+                updated.get();
+            }
+            assertEquals(0, scheduler.queued() + scheduler.inFlight());
+            for (String id : ids.subList(0, 3)) {
+                // an owned object is used by one transaction at a time, in submission order
+                assertEquals(1, backend.peakUse(id));
+                assertEquals("5", mgr.getObject(id).path("content").path("fields").path("count").asText());
+            }
+            assertTrue(backend.peakConcurrency() >= 2);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.blockchain;
+
+import org.example.models.generated.ModelDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmUpTest {
+    private static final ModelDescriptor BAR = new ModelDescriptor("Bar", "Bar", Object.class,
+            List.of(new ModelDescriptor.Field("name", "String"), new ModelDescriptor.Field("count", "u64")), null);
+
+    @TempDir
+    Path moveDir;
+
+    private final FaultyBackend backend = new FaultyBackend(SENDER);
+
+    @BeforeEach
+    public void writeGeneratedModule() throws Exception {
+        BarModule.write(moveDir);
+    }
+
+    private SuiContractManager manager(String gasCoin) {
+        return new SuiContractManager(null, SENDER, gasCoin, 50_000_000L, 1_000L, backend);
+    }
+
+    @Test
+    public void warmUpPreparesTheModelsFunctionsAndReportsReadiness() throws Exception {
+        SuiContractManager warm = manager(null);
+        warm.publish(moveDir);
+        assertFalse(warm.isReady());
+        CompletableFuture<Void> ready = warm.warmUp(List.of(BAR));
+        assertSame(ready, warm.warmUp(List.of(BAR)));
+        ready.get();
+        assertTrue(warm.isReady());
+        assertEquals(BAR.functions().size(), backend.functionLookups());
+        // the first calls find their functions prepared
+        String registryId = warm.createRegistry("Bar", moveDir, warm.getPackageId());
+        warm.prepare("Bar", "create").executeAndTransfer(SENDER, "Warm", 1L, registryId);
+        assertEquals(BAR.functions().size(), backend.functionLookups());
+    }
+
+    @Test
+    public void warmUpPreparesAPackagePublishedEarlier() throws Exception {
+        SuiContractManager publisher = manager(null);
+        String packageId = publisher.publish(moveDir);
+
+        // another process that only knows the package ID
+        SuiContractManager restarted = manager(null);
+        restarted.setPackageId(packageId);
+        restarted.warmUp(List.of(BAR)).get();
+        assertEquals(BAR.functions().size(), backend.functionLookups());
+        String registryId = restarted.createRegistry("Bar", moveDir, packageId);
+        restarted.prepare("Bar", "create").executeAndTransfer(SENDER, "Warm", 1L, registryId);
+        assertEquals(BAR.functions().size(), backend.functionLookups());
+    }
+
+    @Test
+    public void aMissingGasCoinIsReported() {
+        // a gas coin that does not exist is reported, and the manager is not ready
+        SuiContractManager cold = manager("0x" + "0d".repeat(32));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> cold.warmUp(List.of()).get());
+        assertThat(failure.getCause().getMessage(), containsString("does not exist"));
+        assertFalse(cold.isReady());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImmutableCacheTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private static JsonNode tx(String digest) throws Exception {
+        return MAPPER.readTree("{\"digest\":\"" + digest + "\",\"checkpoint\":\"7\","
+                + "\"effects\":{\"status\":{\"status\":\"success\"},\"created\":[]}}");
+    }
+
+    @Test
+    public void entriesSurviveARestart() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            assertNull(cache.get("tx:A"));
+            cache.put("tx:A", tx("A"));
+            cache.put("tx:B", tx("B"));
+            cache.put("tx:A", tx("other"));
+            assertEquals("A", cache.get("tx:A").path("digest").asText());
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+        }
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            assertEquals(2, cache.size());
+            assertEquals(tx("B"), cache.get("tx:B"));
+            assertEquals(tx("A"), cache.get("tx:A"));
+            assertEquals(2, cache.getDiskHitCount());
+            assertEquals(tx("A"), cache.get("tx:A"));
+            assertEquals(1, cache.getHitCount());
+        }
+    }
+
+    @Test
+    public void evictedEntriesAreReadBackFromTheFile() throws Exception {
+        try (ImmutableCache cache = new ImmutableCache(dir.resolve("cache.bin"), 1)) {
+            for (int i = 0; i < 100; i++) {
+                cache.put("tx:" + i, tx(String.valueOf(i)));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(String.valueOf(i), cache.get("tx:" + i).path("digest").asText());
+            }
+            assertEquals(100, cache.getDiskHitCount());
+        }
+    }
+
+    @Test
+    public void aTornTailIsCutOff() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            cache.put("tx:A", tx("A"));
+        }
+        long intact = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 4, 0, 0, 1}, StandardOpenOption.APPEND);
+
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            assertEquals(intact, Files.size(file));
+            assertEquals(tx("A"), cache.get("tx:A"));
+            cache.put("tx:B", tx("B"));
+        }
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    public void aFileIsUsedByOneCacheAtATime() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            assertThrows(IllegalStateException.class, () -> new ImmutableCache(file));
+            cache.put("tx:A", tx("A"));
+        }
+        // closing the cache releases the file
+        try (ImmutableCache cache = new ImmutableCache(file)) {
+            assertEquals(tx("A"), cache.get("tx:A"));
+        }
+        Files.writeString(dir.resolve("other.bin"), "not a cache");
+        assertThrows(IllegalStateException.class, () -> new ImmutableCache(dir.resolve("other.bin")));
+    }
+}
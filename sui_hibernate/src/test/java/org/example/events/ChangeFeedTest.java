@@ -0,0 +1,279 @@
+package org.example.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.blockchain.BarModule;
+import org.example.blockchain.InMemoryBackend;
+import org.example.blockchain.SuiContractManager;
+import org.example.models.generated.ChainEvent;
+import org.example.models.generated.EventDecoder;
+import org.example.models.generated.ModelDescriptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedTest {
+    private static final String PACKAGE = "0x" + "0a".repeat(32);
+    private static final String A = "0x" + "aa".repeat(32);
+    private static final String B = "0x" + "bb".repeat(32);
+
+    private record Changed(String objectId, Kind kind) implements ChainEvent {
+    }
+
+    private static final EventDecoder DECODER = (type, json) -> {
+        for (ChainEvent.Kind kind : ChainEvent.Kind.values()) {
+            String suffix = kind.name().charAt(0) + kind.name().substring(1).toLowerCase();
+            if (type.endsWith("::Bar::Bar" + suffix)) {
+                return new Changed(json.path("object_id").asText(), kind);
+            }
+        }
+        return null;
+    };
+    private static final ModelDescriptor BAR = new ModelDescriptor("Bar", "Bar", Object.class, List.of(),
+            (id, mgr) -> null, DECODER);
+
+    @TempDir
+    Path moveDir;
+
+    private ChangeFeed feed;
+
+    @AfterEach
+    public void closeFeed() {
+        if (feed != null) {
+            feed.close();
+        }
+    }
+
+    /** Serves synthetic events of module Bar in pages, failing the queries it is told to. */
+    private static class StubEventSource extends InMemoryBackend {
+        private final List<JsonNode> events = new ArrayList<>();
+        private final AtomicInteger queries = new AtomicInteger();
+        private volatile int failures;
+
+        StubEventSource() {
+            super(SENDER);
+        }
+
+        synchronized void emit(int count, String... objectIds) {
+            for (int i = 0; i < count; i++) {
+                ObjectNode event = JsonNodeFactory.instance.objectNode();
+                ObjectNode id = event.putObject("id");
+                id.put("txDigest", "tx" + events.size());
+                id.put("eventSeq", "0");
+                event.put("type", PACKAGE + "::Bar::Bar" + (events.size() == 0 ? "Created" : "Updated"));
+                event.putObject("parsedJson").put("object_id", objectIds[events.size() % objectIds.length]);
+                event.put("timestampMs", String.valueOf(events.size()));
+                events.add(event);
+            }
+        }
+
+        @Override
+        public synchronized JsonNode queryEvents(String packageId, String module, JsonNode cursor, int limit) {
+            queries.incrementAndGet();
+            if (failures > 0) {
+                failures--;
+                throw new RuntimeException(new IOException("Connection reset"));
+            }
+            int start = cursor == null ? 0 : Integer.parseInt(cursor.path("txDigest").asText().substring(2)) + 1;
+            ObjectNode page = JsonNodeFactory.instance.objectNode();
+            ArrayNode data = page.putArray("data");
+            for (int i = start; i < events.size() && data.size() < limit; i++) {
+                data.add(events.get(i));
+            }
+            page.set("nextCursor", data.isEmpty() ? cursor : data.get(data.size() - 1).path("id"));
+            page.put("hasNextPage", start + data.size() < events.size());
+            return page;
+        }
+    }
+
+    private static class Collector implements Flow.Subscriber<List<EntityChange>> {
+        final BlockingQueue<List<EntityChange>> batches = new LinkedBlockingQueue<>();
+        final BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(List<EntityChange> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        List<EntityChange> next() throws InterruptedException {
+            List<EntityChange> batch = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch, "no batch delivered");
+            return batch;
+        }
+
+        /** Requests batches until {@code count} changes arrived. */
+        List<EntityChange> take(int count) throws InterruptedException {
+            List<EntityChange> changes = new ArrayList<>();
+            while (changes.size() < count) {
+                subscription.request(1);
+                changes.addAll(next());
+            }
+            return changes;
+        }
+    }
+
+    private ChangeFeed feed(InMemoryBackend backend, String packageId, int batchSize) {
+        feed = new ChangeFeed(backend, packageId, Duration.ofMillis(10), Duration.ofMillis(80), batchSize);
+        return feed;
+    }
+
+    @Test
+    public void batchesFollowDemand() throws Exception {
+        StubEventSource stub = new StubEventSource();
+        stub.emit(25, A);
+        Collector collector = new Collector();
+        feed(stub, PACKAGE, 10).ofType(BAR, null).subscribe(collector);
+
+        collector.subscription.request(1);
+        assertEquals(10, collector.next().size());
+        // without demand nothing more is fetched or delivered
+        Thread.sleep(200);
+        assertTrue(collector.batches.isEmpty());
+        assertEquals(1, stub.queries.get());
+
+        collector.subscription.request(2);
+        assertEquals(10, collector.next().size());
+        List<EntityChange> last = collector.next();
+        assertEquals(5, last.size());
+        assertEquals(new EventCursor("tx24", 0), last.get(4).cursor());
+        assertEquals(ChainEvent.Kind.UPDATED, last.get(4).kind());
+    }
+
+    @Test
+    public void filtersByObjectAndResumesFromACursor() throws Exception {
+        StubEventSource stub = new StubEventSource();
+        stub.emit(20, A, B);
+        Collector onlyA = new Collector();
+        feed(stub, PACKAGE, 4).ofObject(BAR, A, null).subscribe(onlyA);
+        List<EntityChange> changes = onlyA.take(10);
+        assertTrue(changes.stream().allMatch(c -> c.objectId().equals(A)));
+
+        Collector resumed = new Collector();
+        feed.ofType(BAR, changes.get(4).cursor()).subscribe(resumed);
+        assertEquals(new EventCursor("tx9", 0), resumed.take(1).get(0).cursor());
+    }
+
+    @Test
+    public void failedPollsAreRetriedWithoutLosingOrRepeatingChanges() throws Exception {
+        StubEventSource stub = new StubEventSource();
+        stub.emit(12, A);
+        Collector collector = new Collector();
+        feed(stub, PACKAGE, 5).ofType(BAR, null).subscribe(collector);
+        List<EntityChange> changes = new ArrayList<>(collector.take(5));
+
+        stub.failures = 3;
+        stub.emit(8, A);
+        changes.addAll(collector.take(15));
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals("tx" + i, changes.get(i).cursor().txDigest());
+        }
+        assertEquals(0, stub.failures);
+    }
+
+    @Test
+    public void undecodableEventsEndTheStreamWithAnError() throws Exception {
+        StubEventSource stub = new StubEventSource();
+        stub.emit(3, A);
+        ModelDescriptor broken = new ModelDescriptor("Bar", "Bar", Object.class, List.of(), (id, mgr) -> null,
+                (type, json) -> {
+                    throw new IllegalStateException("Unexpected event layout");
+                });
+        Collector collector = new Collector();
+        feed(stub, PACKAGE, 5).ofType(broken, null).subscribe(collector);
+        collector.subscription.request(1);
+
+        Throwable error = collector.errors.poll(5, TimeUnit.SECONDS);
+        assertNotNull(error, "onError was not called");
+        assertEquals("Unexpected event layout", error.getMessage());
+        collector.subscription.request(1);
+        Thread.sleep(200);
+        assertTrue(collector.errors.isEmpty());
+        assertTrue(collector.batches.isEmpty());
+    }
+
+    @Test
+    public void aFailingSubscriberIsCancelledWithoutAnError() throws Exception {
+        StubEventSource stub = new StubEventSource();
+        stub.emit(12, A);
+        Collector collector = new Collector() {
+            @Override
+            public void onNext(List<EntityChange> batch) {
+                super.onNext(batch);
+                throw new IllegalStateException("Subscriber bug");
+            }
+        };
+        feed(stub, PACKAGE, 5).ofType(BAR, null).subscribe(collector);
+        collector.subscription.request(3);
+
+        assertEquals(5, collector.next().size());
+        Thread.sleep(200);
+        assertTrue(collector.batches.isEmpty());
+        assertTrue(collector.errors.isEmpty());
+        assertEquals(1, stub.queries.get());
+    }
+
+    @Test
+    public void idleSubscriptionsPickUpNewEventsAndCompleteOnClose() throws Exception {
+        StubEventSource stub = new StubEventSource();
+        Collector collector = new Collector();
+        feed(stub, PACKAGE, 10).ofType(BAR, null).subscribe(collector);
+        collector.subscription.request(Long.MAX_VALUE);
+        Thread.sleep(300);
+        // empty polls back off to the maximum interval instead of spinning
+        assertTrue(stub.queries.get() < 15, stub.queries.get() + " polls");
+
+        stub.emit(3, B);
+        assertEquals(3, collector.next().size());
+        feed.close();
+        assertTrue(collector.completed);
+    }
+
+    @Test
+    public void followsTheEventsOfTheGeneratedModule() throws Exception {
+        InMemoryBackend backend = new InMemoryBackend(SENDER);
+        BarModule.Published bar = BarModule.publish(backend, moveDir);
+        SuiContractManager mgr = bar.mgr();
+        String id = mgr.prepare("Bar", "create").executeAndTransfer(SENDER, "Alice", 25L, bar.registryId())
+                .createdObjectId("::Bar::Bar");
+        mgr.prepare("Bar", "update_by_id").execute(id, "Bob", 26L);
+        mgr.prepare("Bar", "delete").execute(id);
+
+        Collector collector = new Collector();
+        feed(backend, mgr.getPackageId(), 10).ofObject(BAR, id, null).subscribe(collector);
+        assertEquals(List.of(ChainEvent.Kind.CREATED, ChainEvent.Kind.UPDATED, ChainEvent.Kind.DELETED),
+                collector.take(3).stream().map(EntityChange::kind).toList());
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.indexer;
+
+import org.example.blockchain.BarModule;
+import org.example.blockchain.InMemoryBackend;
+import org.example.blockchain.PreparedMoveCall;
+import org.example.blockchain.SuiContractManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChainIndexerTest {
+    @TempDir
+    Path dir;
+
+    private SuiContractManager mgr;
+    private String registryId;
+    private String barType;
+
+    @BeforeEach
+    public void publishGeneratedModule() throws Exception {
+        BarModule.Published bar = BarModule.publish(new InMemoryBackend(SENDER), dir.resolve("move"));
+        mgr = bar.mgr();
+        registryId = bar.registryId();
+        barType = mgr.getPackageId() + "::Bar::Bar";
+    }
+
+    private String create(String name, long count) throws Exception {
+        return mgr.prepare("Bar", "create").executeAndTransfer(SENDER, name, count, registryId)
+                .createdObjectId("::Bar::Bar");
+    }
+
+    @Test
+    public void indexesObjectsByTypeAndId() throws Exception {
+        String alice = create("Alice", 25L);
+        String bob = create("Bob", 30L);
+        mgr.prepare("Bar", "update_by_id").execute(alice, "Alice", 26L);
+
+        ChainIndexer indexer = new ChainIndexer(mgr, dir.resolve("index.json"));
+        assertEquals(4, indexer.catchUp());
+        assertEquals(2, indexer.list(barType).size());
+        assertEquals("26", indexer.get(alice).fields().path("count").asText());
+        assertEquals(1, indexer.list(mgr.getPackageId() + "::Bar::Registry").size());
+
+        mgr.prepare("Bar", "delete").execute(bob);
+        assertEquals(1, indexer.catchUp());
+        assertEquals(List.of(alice), indexer.list(barType).stream().map(IndexedObject::objectId).toList());
+        assertTrue(indexer.get(bob).isDeleted());
+        assertEquals(0, indexer.catchUp());
+    }
+
+    @Test
+    public void resumesFromThePersistedCursor() throws Exception {
+        Path state = dir.resolve("index.json");
+        create("Alice", 25L);
+        ChainIndexer first = new ChainIndexer(mgr, state);
+        first.catchUp();
+
+        String bob = create("Bob", 30L);
+        ChainIndexer restarted = new ChainIndexer(mgr, state);
+        assertEquals(first.getCursor(), restarted.getCursor());
+        assertEquals(1, restarted.list(barType).size());
+        assertEquals(1, restarted.catchUp());
+        assertEquals("Bob", restarted.get(bob).fields().path("name").asText());
+        assertEquals(3, restarted.getTransactionCount());
+    }
+
+    @Test
+    public void followsMoreThanOnePage() throws Exception {
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        int objects = ChainIndexer.PAGE_SIZE * 2 + 7;
+        for (int i = 0; i < objects; i++) {
+            create.executeAndTransfer(SENDER, "item" + i, (long) i, registryId);
+        }
+        ChainIndexer indexer = new ChainIndexer(mgr, dir.resolve("index.json"));
+        assertEquals(objects + 1, indexer.catchUp());
+        assertEquals(objects, indexer.list(barType).size());
+    }
+
+    @Test
+    public void logsEachPageAndReplaysTheLogAfterARestart() throws Exception {
+        Path state = dir.resolve("index.json");
+        Path log = dir.resolve("index.json.log");
+        String alice = create("Alice", 25L);
+        ChainIndexer first = new ChainIndexer(mgr, state);
+        first.catchUp();
+        String snapshot = Files.readString(state);
+
+        // later pages are appended to the log; the snapshot is left as it is
+        PreparedMoveCall create = mgr.prepare("Bar", "create");
+        for (int i = 0; i < ChainIndexer.PAGE_SIZE + 3; i++) {
+            create.executeAndTransfer(SENDER, "item" + i, (long) i, registryId);
+        }
+        mgr.prepare("Bar", "delete").execute(alice);
+        first.catchUp();
+        assertEquals(snapshot, Files.readString(state));
+        assertEquals(2, Files.readAllLines(log).size());
+
+        ChainIndexer restarted = new ChainIndexer(mgr, state);
+        assertEquals(first.getCursor(), restarted.getCursor());
+        assertEquals(first.getTransactionCount(), restarted.getTransactionCount());
+        assertEquals(first.size(), restarted.size());
+        assertTrue(restarted.get(alice).isDeleted());
+
+        // a line torn by a crash is dropped, and its page is indexed again
+        Files.writeString(log, "{\"put\":[{\"objectId\"", StandardOpenOption.APPEND);
+        create("Carol", 40L);
+        ChainIndexer recovered = new ChainIndexer(mgr, state);
+        assertEquals(first.getCursor(), recovered.getCursor());
+        assertEquals(1, recovered.catchUp());
+        assertEquals(first.size() + 1, new ChainIndexer(mgr, state).size());
+    }
+
+    @Test
+    public void aPageThatCouldNotBeSavedIsInTheNextSnapshot() throws Exception {
+        Path state = dir.resolve("index.json");
+        Path log = dir.resolve("index.json.log");
+        ChainIndexer indexer = new ChainIndexer(mgr, state);
+        indexer.catchUp();
+
+        // the log cannot be written while it is a directory
+        Files.createDirectory(log);
+        String alice = create("Alice", 25L);
+        assertThrows(IOException.class, indexer::catchUp);
+        Files.delete(log);
+
+        String bob = create("Bob", 30L);
+        assertEquals(1, indexer.catchUp());
+        ChainIndexer restarted = new ChainIndexer(mgr, state);
+        assertEquals(indexer.getCursor(), restarted.getCursor());
+        assertNotNull(restarted.get(alice));
+        assertNotNull(restarted.get(bob));
+    }
+
+    @Test
+    public void rejectsTheStateOfAnotherPackage() throws Exception {
+        Path state = dir.resolve("index.json");
+        new ChainIndexer(mgr, state).catchUp();
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChainIndexer(mgr.getBackend(), "0x" + "01".repeat(32), state));
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.indexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecondaryIndexTest {
+    private static final String ALICE = "0x" + "a1".repeat(32);
+    private static final String BOB = "0x" + "b0".repeat(32);
+    private static final String CAROL = "0x" + "c0".repeat(32);
+    private static final String DAVE = "0x" + "d0".repeat(32);
+    private static final String A = "0x" + "0a".repeat(32);
+    private static final String B = "0x" + "0b".repeat(32);
+    private static final String C = "0x" + "0c".repeat(32);
+    private static final String D = "0x" + "0d".repeat(32);
+    private static final String U1 = "0x" + "01".repeat(32);
+    private static final String U2 = "0x" + "02".repeat(32);
+
+    @Test
+    public void longIndexAnswersRangesInValueOrder() {
+        LongIndex ages = new LongIndex();
+        ages.put(CAROL, 35);
+        ages.put(ALICE, 25);
+        ages.put(DAVE, 60);
+        ages.put(BOB, 30);
+        assertEquals(4, ages.size());
+        assertEquals(List.of(ALICE, BOB, CAROL), ages.range(20, 40));
+        assertEquals(List.of(BOB), ages.get(30));
+
+        // moving a value and removing one keep the other entries in order
+        ages.put(ALICE, 50);
+        ages.remove(CAROL);
+        assertEquals(List.of(BOB, ALICE, DAVE), ages.range(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertTrue(ages.get(25).isEmpty());
+        assertEquals(3, ages.size());
+    }
+
+    @Test
+    public void equalValuesKeepInsertionOrder() {
+        LongIndex index = new LongIndex();
+        index.put(A, 5);
+        index.put(B, 5);
+        index.put(C, Long.MAX_VALUE);
+        index.put(D, 5);
+        assertEquals(List.of(A, B, D), index.get(5));
+        assertEquals(List.of(C), index.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void longIndexMatchesASortedListUnderMixedUpdates() {
+        Random random = new Random(7);
+        LongIndex index = new LongIndex();
+        // insertion order per object, as the index keeps it among equal values
+        Map<String, Long> expected = new LinkedHashMap<>();
+        String[] ids = new String[300];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = String.format("0x%064x", i + 1);
+        }
+        // seeding appends without sorting; the first lookup sorts once
+        for (String id : ids) {
+            long value = random.nextInt(50);
+            index.put(id, value);
+            expected.put(id, value);
+        }
+        for (int step = 0; step < 3_000; step++) {
+            String id = ids[random.nextInt(ids.length)];
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                long value = random.nextInt(50);
+                index.put(id, value);
+                if (!Long.valueOf(value).equals(expected.get(id))) {
+                    expected.remove(id);
+                    expected.put(id, value);
+                }
+            }
+            if (step % 100 == 0) {
+                long min = random.nextInt(50);
+                List<String> inRange = new ArrayList<>();
+                expected.entrySet().stream()
+                        .filter(e -> e.getValue() >= min && e.getValue() <= min + 10)
+                        .sorted(Comparator.comparingLong(Map.Entry::getValue))
+                        .forEach(e -> inRange.add(e.getKey()));
+                assertEquals(inRange, index.range(min, min + 10));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+    }
+
+    @Test
+    public void hashIndexFollowsValueChanges() {
+        HashIndex<String> emails = new HashIndex<>();
+        emails.put(U1, "alice@example.org");
+        emails.put(U2, "bob@example.org");
+        emails.put(U1, "carol@example.org");
+        assertTrue(emails.get("alice@example.org").isEmpty());
+        assertEquals(List.of(U1), emails.get("carol@example.org"));
+        emails.remove(U2);
+        assertTrue(emails.get("bob@example.org").isEmpty());
+        assertEquals(1, emails.size());
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(500_000, histogram.percentile(50), 500_000 * 0.04);
+        assertEquals(990_000, histogram.percentile(99), 990_000 * 0.04);
+        assertEquals(1_000_000, histogram.max());
+        assertTrue(histogram.percentile(100) <= histogram.max());
+    }
+
+    @Test
+    public void bucketsCoverValuesContiguously() {
+        long previousUpper = -1;
+        for (int bucket = 0; bucket < 600; bucket++) {
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertEquals(bucket, LatencyHistogram.bucket(previousUpper + 1));
+            assertEquals(bucket, LatencyHistogram.bucket(upper));
+            previousUpper = upper;
+        }
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+        assertEquals(0.0, histogram.mean());
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuiMetricsTest {
+
+    @Test
+    public void closeUnregistersTheManagersMBeans() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName all = new ObjectName("org.example.sui:*");
+        int before = server.queryNames(all, null).size();
+
+        SuiMetrics metrics = new SuiMetrics();
+        metrics.call("Bar", "create");
+        metrics.rpc("sui_getObject");
+        assertEquals(before + 2, server.queryNames(all, null).size());
+
+        metrics.close();
+        assertEquals(before, server.queryNames(all, null).size());
+        // metrics asked for after closing still count, but are not exported
+        metrics.call("Bar", "update").success(1L);
+        assertEquals(before, server.queryNames(all, null).size());
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.mirror;
+
+import org.example.blockchain.BarModule;
+import org.example.blockchain.InMemoryBackend;
+import org.example.blockchain.SuiContractManager;
+import org.example.events.ChangeFeed;
+import org.example.events.EventCursor;
+import org.example.models.generated.ChainEvent;
+import org.example.models.generated.EventDecoder;
+import org.example.models.generated.ModelDescriptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.example.blockchain.BarModule.SENDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RelationalMirrorTest {
+    private record Changed(String objectId, Kind kind) implements ChainEvent {
+    }
+
+    private static final EventDecoder DECODER = (type, json) -> {
+        String id = json.path("object_id").asText();
+        if (type.endsWith("Created")) {
+            return new Changed(id, ChainEvent.Kind.CREATED);
+        }
+        if (type.endsWith("Updated")) {
+            return new Changed(id, ChainEvent.Kind.UPDATED);
+        }
+        return type.endsWith("Deleted") ? new Changed(id, ChainEvent.Kind.DELETED) : null;
+    };
+    private static final ModelDescriptor BAR = new ModelDescriptor("Bar", "Bar", Object.class,
+            List.of(new ModelDescriptor.Field("name", "String"), new ModelDescriptor.Field("count", "u64", true)),
+            (id, mgr) -> null, DECODER);
+    /** Named after a reserved word in SQL. */
+    private static final ModelDescriptor USER = new ModelDescriptor("User", "User", Object.class,
+            List.of(new ModelDescriptor.Field("name", "String"), new ModelDescriptor.Field("count", "u64", true)),
+            (id, mgr) -> null, DECODER);
+
+    @TempDir
+    Path moveDir;
+
+    private SuiContractManager mgr;
+    private String registryId;
+    private ChangeFeed feed;
+    private String url;
+    private Connection reader;
+
+    @BeforeEach
+    public void publishGeneratedModule() throws Exception {
+        BarModule.write(moveDir, "User");
+        InMemoryBackend backend = new InMemoryBackend(SENDER);
+        BarModule.Published bar = BarModule.publish(backend, moveDir);
+        mgr = bar.mgr();
+        registryId = bar.registryId();
+        feed = new ChangeFeed(backend, mgr.getPackageId(), Duration.ofMillis(10), Duration.ofMillis(50), 4);
+        // without the statement cache: a query H2 ran while the mirror's batch was still
+        // uncommitted would otherwise keep returning that result once it is committed
+        url = "jdbc:h2:mem:" + moveDir.getFileName() + ";DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0";
+        reader = DriverManager.getConnection(url);
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        feed.close();
+        try (Statement st = reader.createStatement()) {
+            st.execute("SHUTDOWN");
+        }
+    }
+
+    private String create(String name, long count) throws Exception {
+        return mgr.prepare("Bar", "create").executeAndTransfer(SENDER, name, count, registryId)
+                .createdObjectId("::Bar::Bar");
+    }
+
+    private long scalar(String sql) throws SQLException {
+        try (Statement st = reader.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    private static void await(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.call()) {
+            assertTrue(System.nanoTime() < deadline, "mirror did not catch up");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void mirrorsChangesIntoQueryableRows() throws Exception {
+        String alice = create("Alice", 25L);
+        String bob = create("Bob", 30L);
+        create("Carol", 35L);
+        mgr.prepare("Bar", "update_by_id").execute(alice, "Alice", 40L);
+        mgr.prepare("Bar", "delete").execute(bob);
+
+        try (RelationalMirror mirror = new RelationalMirror(feed, url)) {
+            mirror.mirror(BAR);
+            await(() -> scalar("SELECT COUNT(*) FROM BAR WHERE IS_DELETED") == 1);
+        }
+        assertEquals(2, scalar("SELECT COUNT(*) FROM BAR WHERE NOT IS_DELETED"));
+        assertEquals(75, scalar("SELECT SUM(COUNT) FROM BAR WHERE NOT IS_DELETED"));
+        List<String> names = new ArrayList<>();
+        try (Statement st = reader.createStatement();
+             ResultSet rs = st.executeQuery("SELECT NAME FROM BAR WHERE NOT IS_DELETED ORDER BY COUNT DESC")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        assertEquals(List.of("Alice", "Carol"), names);
+    }
+
+    @Test
+    public void resumesAfterTheStoredCursor() throws Exception {
+        create("Alice", 25L);
+        EventCursor stored;
+        try (RelationalMirror mirror = new RelationalMirror(feed, url)) {
+            mirror.mirror(BAR);
+            await(() -> scalar("SELECT COUNT(*) FROM BAR") == 1);
+            stored = mirror.cursor(BAR);
+        }
+        assertNotNull(stored);
+
+        String bob = create("Bob", 30L);
+        mgr.prepare("Bar", "update_by_id").execute(bob, "Bob", 31L);
+        try (RelationalMirror mirror = new RelationalMirror(feed, url)) {
+            assertEquals(stored, mirror.cursor(BAR));
+            mirror.mirror(BAR);
+            await(() -> scalar("SELECT COUNT(*) FROM BAR WHERE COUNT = 31") == 1);
+            assertNotEquals(stored, mirror.cursor(BAR));
+        }
+        assertEquals(2, scalar("SELECT COUNT(*) FROM BAR"));
+    }
+
+    @Test
+    public void mirrorsModelsNamedAfterReservedWords() throws Exception {
+        String users = mgr.createRegistry("User", moveDir, mgr.getPackageId());
+        String alice = mgr.prepare("User", "create").executeAndTransfer(SENDER, "Alice", 25L, users)
+                .createdObjectId("::User::User");
+        mgr.prepare("User", "create").executeAndTransfer(SENDER, "Bob", 30L, users);
+        mgr.prepare("User", "delete").execute(alice);
+
+        try (RelationalMirror mirror = new RelationalMirror(feed, url)) {
+            mirror.mirror(USER);
+            await(() -> scalar("SELECT COUNT(*) FROM \"USER\" WHERE IS_DELETED") == 1);
+            assertFalse(mirror.isFailed(USER));
+            assertNotNull(mirror.cursor(USER));
+        }
+        assertEquals(30, scalar("SELECT SUM(COUNT) FROM \"USER\" WHERE NOT IS_DELETED"));
+        assertEquals(1, scalar("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_USER_COUNT'"));
+    }
+}
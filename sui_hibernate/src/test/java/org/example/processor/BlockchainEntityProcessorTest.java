@@ -6,15 +6,26 @@ import com.google.testing.compile.Compilation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Path;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.google.testing.compile.CompilationSubject.assertThat;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
 
 public class BlockchainEntityProcessorTest {
     private Path tempDir;
@@ -51,7 +62,7 @@ public class BlockchainEntityProcessorTest {
         assertThat(result).succeeded();
 
         // Verify Move file in test.move.dir/sources/
-        Path moveFile = tempDir.resolve("sources/foo.move");
+        Path moveFile = tempDir.resolve("sources/Bar.move");
         System.out.println("Checking for Move file: " + moveFile.toAbsolutePath());
         if (!Files.exists(moveFile)) {
             System.out.println("Compilation diagnostics:");
@@ -84,6 +95,66 @@ public class BlockchainEntityProcessorTest {
         assertThat(content, containsString("struct Bar has key, store"));
         assertThat(content, containsString("name: String"));
         assertThat(content, containsString("count: u64"));
+        assertThat(content, containsString("public struct BarUpdated has copy, drop"));
+        assertThat(content, containsString("event::emit(BarDeleted { object_id: object::id(obj) });"));
+    }
+
+    @Test
+    public void entitiesAreGeneratedAsModulesOfOnePackage() throws IOException {
+        JavaFileObject bar = JavaFileObjects.forSourceLines(
+                "test.Bar",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "@BlockchainEntity(module = \"foo\", struct = \"Bar\")",
+                "public class Bar {",
+                "    private String name;",
+                "}"
+        );
+        JavaFileObject baz = JavaFileObjects.forSourceLines(
+                "test.Baz",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "@BlockchainEntity(module = \"foo\", struct = \"Baz\")",
+                "public class Baz {",
+                "    private long count;",
+                "}"
+        );
+
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor())
+                .compile(bar, baz);
+        assertThat(result).succeeded();
+
+        assertThat(Files.readString(tempDir.resolve("sources/Bar.move")), containsString("module foo::Bar"));
+        assertThat(Files.readString(tempDir.resolve("sources/Baz.move")), containsString("module foo::Baz"));
+        assertThat(Files.readString(tempDir.resolve("Move.toml")), containsString("foo = \"0x0\""));
+    }
+
+    @Test
+    public void entitiesWithDifferentAddressesAreRejected() {
+        JavaFileObject bar = JavaFileObjects.forSourceLines(
+                "test.Bar",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "@BlockchainEntity(module = \"foo\", struct = \"Bar\")",
+                "public class Bar {",
+                "    private String name;",
+                "}"
+        );
+        JavaFileObject baz = JavaFileObjects.forSourceLines(
+                "test.Baz",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "@BlockchainEntity(module = \"qux\", struct = \"Baz\")",
+                "public class Baz {",
+                "    private long count;",
+                "}"
+        );
+
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor())
+                .compile(bar, baz);
+        assertThat(result).hadErrorContaining("must share");
     }
 
     @Test
@@ -117,5 +188,163 @@ public class BlockchainEntityProcessorTest {
 
         assertThat(content, containsString("package test.templates;"));
         assertThat(content, containsString("public class Bar"));
+        assertThat(content, containsString("public record Updated(String objectId, java.lang.String name, long count)"));
+
+        String registry = Files.readString(tempDir.resolve("test/templates/GeneratedModelRegistry.java"));
+        assertThat(registry, containsString("test.templates.Bar.DESCRIPTOR"));
+        assertThat(Files.readString(tempDir.resolve("META-INF/services/org.example.models.generated.ModelProvider")),
+                containsString("test.templates.GeneratedModelRegistry"));
+    }
+
+    @Test
+    public void generatedModelAndRegistryCompile() {
+        // without output dirs the processor goes through the Filer, so javac compiles what it generates
+        System.clearProperty("test.move.dir");
+        System.clearProperty("test.java.dir");
+        JavaFileObject input = JavaFileObjects.forSourceLines(
+                "test.Bar",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "@BlockchainEntity(module=\"foo\", struct=\"Bar\")",
+                "public class Bar {",
+                "    private String name;",
+                "    private long count;",
+                "}"
+        );
+
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor())
+                .compile(input);
+        assertThat(result).succeeded();
+        assertThat(result).generatedSourceFile("test.templates.GeneratedModelRegistry");
+    }
+
+    @Test
+    public void registryListsEntitiesOfEveryRound() {
+        System.clearProperty("test.move.dir");
+        System.clearProperty("test.java.dir");
+        JavaFileObject input = JavaFileObjects.forSourceLines(
+                "test.Bar",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "@BlockchainEntity(module=\"foo\", struct=\"Bar\")",
+                "public class Bar {",
+                "    private String name;",
+                "}"
+        );
+
+        // Baz only appears in the second round, generated by another processor
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor(), new BazGenerator())
+                .compile(input);
+        assertThat(result).succeeded();
+        assertThat(result).generatedSourceFile("test.templates.GeneratedModelRegistry")
+                .contentsAsUtf8String().contains("Baz.DESCRIPTOR");
+        assertThat(result).generatedFile(StandardLocation.CLASS_OUTPUT,
+                        "META-INF/services/org.example.models.generated.ModelProvider")
+                .contentsAsUtf8String().contains("test.templates.GeneratedModelRegistry");
+    }
+
+    /** Writes the entity {@code test.Baz} in the first round. */
+    @SupportedAnnotationTypes("*")
+    @SupportedSourceVersion(SourceVersion.RELEASE_17)
+    private static class BazGenerator extends AbstractProcessor {
+        private boolean generated;
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            if (generated) {
+                return false;
+            }
+            generated = true;
+            try (Writer w = processingEnv.getFiler().createSourceFile("test.Baz").openWriter()) {
+                w.write("package test;\n"
+                        + "@org.example.annotation.BlockchainEntity(module=\"foo\", struct=\"Baz\")\n"
+                        + "public class Baz { private long count; }\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return false;
+        }
+    }
+
+    @Test
+    public void indexedFieldsGetTypedFinders() throws IOException {
+        System.clearProperty("test.move.dir");
+        System.clearProperty("test.java.dir");
+        JavaFileObject input = JavaFileObjects.forSourceLines(
+                "test.User",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "import org.example.annotation.ChainField;",
+                "@BlockchainEntity(module=\"foo\", struct=\"User\")",
+                "public class User {",
+                "    @ChainField(indexed = true) private String email;",
+                "    @ChainField(indexed = true) private long age;",
+                "    private String bio;",
+                "}"
+        );
+
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor())
+                .compile(input);
+        assertThat(result).succeeded();
+        String model = result.generatedSourceFile("test.templates.User").orElseThrow()
+                .getCharContent(true).toString();
+        assertThat(model, containsString("public List<User> findByEmail(java.lang.String value)"));
+        assertThat(model, containsString("public List<User> findByAgeBetween(long min, long max)"));
+        assertThat(model, containsString("new ModelDescriptor.Field(\"bio\", \"String\", false)"));
+        assertThat(model, not(containsString("findByBio")));
+    }
+
+    @Test
+    public void dynamicFieldsAreStoredApartAndLoadedLazily() throws IOException {
+        System.clearProperty("test.move.dir");
+        System.clearProperty("test.java.dir");
+        JavaFileObject input = JavaFileObjects.forSourceLines(
+                "test.Doc",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "import org.example.annotation.ChainField;",
+                "@BlockchainEntity(module=\"foo\", struct=\"Doc\")",
+                "public class Doc {",
+                "    private String title;",
+                "    @ChainField(dynamic = true) private String body;",
+                "}"
+        );
+
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor())
+                .compile(input);
+        assertThat(result).succeeded();
+        String move = result.generatedFile(StandardLocation.SOURCE_OUTPUT, "", "sources/Doc.move").orElseThrow()
+                .getCharContent(true).toString();
+        assertThat(move, containsString("dynamic_field::add(&mut obj.id, b\"body\", body);"));
+        assertThat(move, containsString("public entry fun update_by_id(obj: &mut Doc, new_title: String)"));
+        assertThat(move, containsString("public entry fun set_body(obj: &mut Doc, value: String)"));
+        String model = result.generatedSourceFile("test.templates.Doc").orElseThrow()
+                .getCharContent(true).toString();
+        assertThat(model, containsString("public record Updated(String objectId, java.lang.String title)"));
+        assertThat(model, containsString("new ModelDescriptor.Field(\"body\", \"String\", false, true)"));
+        assertThat(model, containsString("this.body = Bcs.readString(view(\"get_body\"));"));
+    }
+
+    @Test
+    public void dynamicFieldsCannotBeIndexed() {
+        JavaFileObject input = JavaFileObjects.forSourceLines(
+                "test.Doc",
+                "package test;",
+                "import org.example.annotation.BlockchainEntity;",
+                "import org.example.annotation.ChainField;",
+                "@BlockchainEntity(module=\"foo\", struct=\"Doc\")",
+                "public class Doc {",
+                "    @ChainField(indexed = true, dynamic = true) private String body;",
+                "}"
+        );
+
+        Compilation result = Compiler.javac()
+                .withProcessors(new BlockchainEntityProcessor())
+                .compile(input);
+        assertThat(result).hadErrorContaining("cannot be both indexed and dynamic");
     }
-}
\ No newline at end of file
+}
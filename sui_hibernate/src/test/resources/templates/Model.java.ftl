@@ -1,58 +1,421 @@
+<#-- the expression reading a field from JSON content, or "" if its Java type has no mapping -->
+<#function fromJson field json>
+<#switch field.javaType>
+<#case "java.lang.String"><#return json + ".path(\"" + field.name + "\").asText(null)">
+<#case "long"><#case "java.lang.Long"><#return json + ".path(\"" + field.name + "\").asLong()">
+<#case "boolean"><#case "java.lang.Boolean"><#return json + ".path(\"" + field.name + "\").asBoolean()">
+<#default><#return "">
+</#switch>
+</#function>
+<#-- the Java type of a field in an event: unmapped types are Move Strings -->
+<#function eventType field>
+<#return fromJson(field, "json")?has_content?then(field.javaType, "String")>
+</#function>
+<#function isNumeric field>
+<#return field.javaType == "long" || field.javaType == "java.lang.Long">
+</#function>
+<#-- indexed fields with a JSON mapping get a local index and finders -->
+<#function indexedFields>
+<#return fields?filter(f -> (f.indexed!"false") == "true" && fromJson(f, "json")?has_content)>
+</#function>
+<#function isDynamic field>
+<#return (field.dynamic!"false") == "true">
+</#function>
+<#-- fields stored in the struct itself, which object contents and events carry -->
+<#function inlineFields>
+<#return fields?filter(f -> !isDynamic(f))>
+</#function>
+<#function dynamicFields>
+<#return fields?filter(f -> isDynamic(f))>
+</#function>
+<#-- inline fields with a JSON mapping are read back through their get_<field> view -->
+<#function viewFields>
+<#return inlineFields()?filter(f -> fromJson(f, "json")?has_content)>
+</#function>
+<#function boxed field>
+<#switch field.javaType>
+<#case "long"><#return "Long">
+<#case "boolean"><#return "Boolean">
+<#default><#return field.javaType>
+</#switch>
+</#function>
+<#function bcsReader field>
+<#switch field.moveType>
+<#case "u64"><#return "Bcs::readU64">
+<#case "bool"><#return "Bcs::readBool">
+<#default><#return "Bcs::readString">
+</#switch>
+</#function>
+<#function eventValue field>
+<#return fromJson(field, "json")?has_content?then(fromJson(field, "json"), "json.path(\"" + field.name + "\").asText(null)")>
+</#function>
 package ${package};
 
 import java.util.List;
+import org.example.blockchain.Bcs;
+import org.example.blockchain.ObjectId;
+import org.example.blockchain.Outbox;
+import org.example.blockchain.PreparedMoveCall;
 import org.example.blockchain.SuiContractManager;
+import org.example.blockchain.ViewBatch;
+import org.example.models.generated.AutoGeneratedModel;
+import org.example.models.generated.ChainEvent;
+import org.example.models.generated.ChainModel;
+import org.example.models.generated.ModelDescriptor;
 
 /**
 * Auto‑generated bridge for on‑chain struct `${className}`.
 */
-public class ${className} {
-private final String objectId;
+@AutoGeneratedModel(structName = "${structName}")
+public class ${className} implements ChainModel {
+/** Compile-time metadata, picked up by the generated model registry. */
+public static final ModelDescriptor DESCRIPTOR = new ModelDescriptor(
+"${structName}",
+"${module}",
+${className}.class,
+List.of(
+<#list fields as field>
+    new ModelDescriptor.Field("${field.name}", "${field.moveType}", ${field.indexed!"false"}<#if isDynamic(field)>, true</#if>)<#if field_has_next>,</#if>
+</#list>
+),
+${className}::new,
+${className}::decodeEvent
+);
+
+/** An event emitted by the `${module}` module. */
+public sealed interface Event extends ChainEvent permits Created, Updated, Deleted {
+}
+
+/** Emitted by {@code create} with the initial field values. */
+public record Created(String objectId<#list inlineFields() as field>, ${eventType(field)} ${field.name}</#list>) implements Event {
+@Override
+public Kind kind() { return Kind.CREATED; }
+}
+
+/** Emitted by {@code update_by_id} with the new field values. */
+public record Updated(String objectId<#list inlineFields() as field>, ${eventType(field)} ${field.name}</#list>) implements Event {
+@Override
+public Kind kind() { return Kind.UPDATED; }
+}
+
+/** Emitted by {@code delete}. */
+public record Deleted(String objectId) implements Event {
+@Override
+public Kind kind() { return Kind.DELETED; }
+}
+
+/**
+* Decodes an event from its full Move type and {@code parsedJson}, or returns null if it is
+* not one of this module's.
+*/
+public static Event decodeEvent(String type, com.fasterxml.jackson.databind.JsonNode json) {
+if (type.endsWith("::${module}::${structName}Created")) {
+return new Created(json.path("object_id").asText()<#list inlineFields() as field>, ${eventValue(field)}</#list>);
+}
+if (type.endsWith("::${module}::${structName}Updated")) {
+return new Updated(json.path("object_id").asText()<#list inlineFields() as field>, ${eventValue(field)}</#list>);
+}
+if (type.endsWith("::${module}::${structName}Deleted")) {
+return new Deleted(json.path("object_id").asText());
+}
+return null;
+}
+
+private final ObjectId id;
 private final SuiContractManager mgr;
+private PreparedMoveCall updateCall;
+private PreparedMoveCall deleteCall;
 
 <#list fields as field>
     private ${field.javaType} ${field.name};
 </#list>
+<#list dynamicFields() as field>
+    /** Whether ${field.name} was loaded or set, and whether it was set since. */
+    private boolean ${field.name}Loaded;
+    private boolean ${field.name}Dirty;
+</#list>
+
+public ${className}(ObjectId id, SuiContractManager mgr) {
+this.id  = id;
+this.mgr = mgr;
+}
 
-private ${className}(String objectId, SuiContractManager mgr) {
-this.objectId = objectId;
-this.mgr      = mgr;
+public ${className}(String objectId, SuiContractManager mgr) {
+this(ObjectId.parse(objectId), mgr);
 }
 
 <#-- standard getters/setters -->
-<#list fields as field>
+<#list inlineFields() as field>
     public ${field.javaType} get${field.name?cap_first}() { return this.${field.name}; }
     public void set${field.name?cap_first}(${field.javaType} v) { this.${field.name} = v; }
 </#list>
+<#list dynamicFields() as field>
+
+    /**
+    * The ${field.name} dynamic field<#if fromJson(field, "json")?has_content>, read through its {@code get_${field.name}} view on first access</#if>.
+    */
+    public ${field.javaType} get${field.name?cap_first}() {
+<#if fromJson(field, "json")?has_content>
+    if (!${field.name}Loaded) {
+    this.${field.name} = ${bcsReader(field)?replace("::", ".")}(view("get_${field.name}"));
+    ${field.name}Loaded = true;
+    }
+</#if>
+    return this.${field.name};
+    }
 
-public String getObjectId() { return objectId; }
+    /** Sets ${field.name}; {@link #update()} then writes it with {@code set_${field.name}}. */
+    public void set${field.name?cap_first}(${field.javaType} v) {
+    this.${field.name} = v;
+    ${field.name}Loaded = true;
+    ${field.name}Dirty = true;
+    }
+</#list>
+<#if dynamicFields()?has_content>
+
+    private byte[] view(String function) {
+    try {
+    return mgr.prepare("${module}", function).inspect(id).get(0);
+    } catch (InterruptedException e) {
+    Thread.currentThread().interrupt();
+    throw new RuntimeException("Interrupted while reading " + function + " of " + id, e);
+    } catch (Exception e) {
+    throw new RuntimeException("Reading " + function + " of " + id + " failed", e);
+    }
+    }
+</#if>
+
+public ObjectId getId() { return id; }
+
+public String getObjectId() { return id.toString(); }
+
+/**
+* Copies the field values from the object's {@code content.fields}, as returned by {@code sui_getObject}.
+*/
+@Override
+public ${className} load(com.fasterxml.jackson.databind.JsonNode fields) {
+<#list inlineFields() as field>
+<#if fromJson(field, "fields")?has_content>
+    this.${field.name} = ${fromJson(field, "fields")};
+<#else>
+    // ${field.name}: no JSON mapping for ${field.javaType}
+</#if>
+</#list>
+return this;
+}
+
+<#if indexedFields()?has_content>
+/**
+* Local indexes of the fields marked {@code @ChainField(indexed = true)}, kept up to date from
+* transaction effects by a {@link org.example.indexer.ChainIndexer}. Finders read only these
+* indexes and the indexer's object contents.
+*/
+public static final class Indexes implements org.example.indexer.IndexListener {
+private final SuiContractManager mgr;
+private final org.example.indexer.ChainIndexer indexer;
+private final String type;
+<#list indexedFields() as field>
+<#if isNumeric(field)>
+    private final org.example.indexer.LongIndex ${field.name}Index = new org.example.indexer.LongIndex();
+<#else>
+    private final org.example.indexer.HashIndex<${(field.javaType == "boolean")?then("Boolean", field.javaType)}> ${field.name}Index = new org.example.indexer.HashIndex<>();
+</#if>
+</#list>
+
+/** Indexes the objects {@code indexer} already knows and follows its further changes. */
+public Indexes(SuiContractManager mgr, org.example.indexer.ChainIndexer indexer) {
+this.mgr = mgr;
+this.indexer = indexer;
+this.type = indexer.typeOf(DESCRIPTOR);
+indexer.addListener(this);
+}
+
+@Override
+public void updated(org.example.indexer.IndexedObject object) {
+if (!object.type().equals(type)) {
+return;
+}
+if (object.isDeleted()) {
+removed(object);
+return;
+}
+com.fasterxml.jackson.databind.JsonNode fields = object.fields();
+<#list indexedFields() as field>
+    ${field.name}Index.put(object.objectId(), ${fromJson(field, "fields")});
+</#list>
+}
+
+@Override
+public void removed(org.example.indexer.IndexedObject object) {
+<#list indexedFields() as field>
+    ${field.name}Index.remove(object.objectId());
+</#list>
+}
+
+<#list indexedFields() as field>
+    public List<${className}> findBy${field.name?cap_first}(${field.javaType} value) {
+    return load(${field.name}Index.get(value));
+    }
+
+<#if isNumeric(field)>
+    /** Objects with {@code min <= ${field.name} <= max}, in ascending order of ${field.name}. */
+    public List<${className}> findBy${field.name?cap_first}Between(long min, long max) {
+    return load(${field.name}Index.range(min, max));
+    }
+
+</#if>
+</#list>
+/** Stops following the indexer. */
+public void close() {
+indexer.removeListener(this);
+}
+
+private List<${className}> load(List<String> ids) {
+List<${className}> models = new java.util.ArrayList<>(ids.size());
+for (String id : ids) {
+org.example.indexer.IndexedObject object = indexer.get(id);
+if (object != null) {
+models.add(new ${className}(id, mgr).load(object.fields()));
+}
+}
+return models;
+}
+}
+
+</#if>
+/**
+* Lazily streams the live `${structName}` objects of the registry, paging through its IDs with
+* prefetch and loading the objects in chunks; see {@link org.example.blockchain.RegistryStream}.
+* Close the stream if it is not consumed to the end.
+*/
+public static java.util.stream.Stream<${className}> stream(SuiContractManager mgr, String registryId) throws Exception {
+String type = "::${module}::${structName}";
+return org.example.blockchain.RegistryStream.objects(mgr, "${module}", registryId,
+org.example.blockchain.RegistryStream.DEFAULT_PAGE_SIZE)
+.filter(o -> o.path("type").asText().endsWith(type)
+&& !o.path("content").path("fields").path("is_deleted").asBoolean())
+.map(o -> new ${className}(o.path("objectId").asText(), mgr).load(o.path("content").path("fields")));
+}
+
+/**
+* Number of IDs in the registry, soft-deleted objects included.
+*/
+public static long size(SuiContractManager mgr, String registryId) throws Exception {
+return org.example.blockchain.RegistryStream.size(mgr, "${module}", registryId);
+}
+
+/**
+* Whether the registry holds {@code id}, asked through the {@code find_by_id} view without gas.
+*/
+public static boolean exists(SuiContractManager mgr, String registryId, ObjectId id) throws Exception {
+return Bcs.readBool(mgr.prepare("${module}", "find_by_id").inspect(registryId, id).get(0));
+}
+
+/**
+* Reads the objects {@code ids} through the generated {@code get_<field>} views, all in one
+* dev-inspect and without gas, and returns those not marked as deleted in order.
+*/
+public static List<${className}> read(SuiContractManager mgr, List<ObjectId> ids) throws Exception {
+ViewBatch batch = mgr.views();
+PreparedMoveCall isDeletedView = mgr.prepare("${module}", "is_deleted");
+List<ViewBatch.View<Boolean>> deletedValues = new java.util.ArrayList<>(ids.size());
+<#list viewFields() as field>
+    PreparedMoveCall ${field.name}View = mgr.prepare("${module}", "get_${field.name}");
+    List<ViewBatch.View<${boxed(field)}>> ${field.name}Values = new java.util.ArrayList<>(ids.size());
+</#list>
+for (ObjectId id : ids) {
+deletedValues.add(batch.add(isDeletedView, Bcs::readBool, id));
+<#list viewFields() as field>
+    ${field.name}Values.add(batch.add(${field.name}View, ${bcsReader(field)}, id));
+</#list>
+}
+batch.execute();
+List<${className}> models = new java.util.ArrayList<>(ids.size());
+for (int i = 0; i < ids.size(); i++) {
+if (deletedValues.get(i).get()) {
+continue;
+}
+${className} model = new ${className}(ids.get(i), mgr);
+<#list viewFields() as field>
+    model.${field.name} = ${field.name}Values.get(i).get();
+</#list>
+models.add(model);
+}
+return models;
+}
 
 /**
 * Calls the Move constructor, returning the new object’s ID.
 */
 public static String create(
 SuiContractManager mgr,
+String registryId<#if fields?has_content>,</#if>
 <#list fields as field>
     ${field.javaType} ${field.name}<#if field_has_next>,</#if>
 </#list>
 ) throws Exception {
-// module name is passed in via the template context
-return mgr.moveCall(
-"${module}",      // ← your Move module
-"new",            // ← constructor function name
-List.of(
-<#list fields as field>
-    ${field.name}<#if field_has_next>,</#if>
+// module name is passed in via the template context; the handle is cached by the manager
+return mgr.prepare("${module}", "create")
+.executeAndTransfer(mgr.getSenderAddress()<#list fields as field>, ${field.name}</#list>, registryId)
+.createdObjectId("::${module}::${structName}");
+}
+
+/**
+* Writes the current field values to the chain, returning the transaction digest<#if dynamicFields()?has_content>. Dynamic
+* fields are written by transactions of their own, and only if they were set</#if>.
+*/
+public String update() throws Exception {
+if (updateCall == null) {
+updateCall = mgr.prepare("${module}", "update_by_id");
+}
+String digest = updateCall.execute(id<#list inlineFields() as field>, ${field.name}</#list>).digest();
+<#list dynamicFields() as field>
+    if (${field.name}Dirty) {
+    mgr.prepare("${module}", "set_${field.name}").execute(id, ${field.name});
+    ${field.name}Dirty = false;
+    }
 </#list>
-),
-/* workingDir */  null,
-/* packageId  */  null,
-/* assignAndTransfer */ false,
-/* transferToAddress  */ null
-);
+return digest;
+}
+
+/**
+* Like {@link #update()}, but queues the writes in {@code outbox} and returns once they are on
+* local disk; the future completes once {@code update_by_id} ran.
+*/
+public java.util.concurrent.CompletableFuture<org.example.blockchain.TransactionResult> update(Outbox outbox)
+throws Exception {
+if (updateCall == null) {
+updateCall = mgr.prepare("${module}", "update_by_id");
+}
+java.util.concurrent.CompletableFuture<org.example.blockchain.TransactionResult> updated =
+outbox.enqueue(updateCall, id<#list inlineFields() as field>, ${field.name}</#list>);
+<#list dynamicFields() as field>
+    if (${field.name}Dirty) {
+    outbox.enqueue(mgr.prepare("${module}", "set_${field.name}"), id, ${field.name});
+    ${field.name}Dirty = false;
+    }
+</#list>
+return updated;
 }
 
-// (you can add overloads that accept workingDir/packageId/transfer if you like…)
+/**
+* Marks the on-chain object as deleted, returning the transaction digest.
+*/
+public String delete() throws Exception {
+if (deleteCall == null) {
+deleteCall = mgr.prepare("${module}", "delete");
+}
+return deleteCall.execute(id).digest();
+}
 
-// reflection registry, etc...
+/**
+* Like {@link #delete()}, but queues the call in {@code outbox} and returns once it is on local disk.
+*/
+public java.util.concurrent.CompletableFuture<org.example.blockchain.TransactionResult> delete(Outbox outbox)
+throws Exception {
+if (deleteCall == null) {
+deleteCall = mgr.prepare("${module}", "delete");
+}
+return outbox.enqueue(deleteCall, id);
+}
 }